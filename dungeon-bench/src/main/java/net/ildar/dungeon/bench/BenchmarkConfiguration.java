@@ -0,0 +1,75 @@
+package net.ildar.dungeon.bench;
+
+import net.ildar.dungeon.config.Configuration800x600;
+
+/**
+ * Конфигурация игры для бенчмарков.
+ * <p>
+ * Отличается от {@link Configuration800x600} параметрами генерации карты и переключаемыми режимами трассировки и
+ * рендеринга. Начальное значение генератора карты задаётся явно, поэтому замеры выполняются на одинаковых картах.
+ */
+public class BenchmarkConfiguration extends Configuration800x600 {
+    private final int mapSize;
+    private final double wallDensity;
+    private final int mobNumber;
+    private final boolean gridTracingEnabled;
+    private final boolean softwareRenderingEnabled;
+    private final long seed;
+
+    /**
+     * @param mapSize                  ширина и высота карты
+     * @param wallDensity              доля клеток карты, занятых стенами
+     * @param mobNumber                количество мобов на карте
+     * @param gridTracingEnabled       использовать ли трассировку по клеткам сетки
+     * @param softwareRenderingEnabled использовать ли программную растеризацию кадра
+     * @param seed                     начальное значение генератора карты, одинаковое для замеров на разных ветках
+     */
+    public BenchmarkConfiguration(int mapSize,
+                                  double wallDensity,
+                                  int mobNumber,
+                                  boolean gridTracingEnabled,
+                                  boolean softwareRenderingEnabled,
+                                  long seed) {
+        this.mapSize = mapSize;
+        this.wallDensity = wallDensity;
+        this.mobNumber = mobNumber;
+        this.gridTracingEnabled = gridTracingEnabled;
+        this.softwareRenderingEnabled = softwareRenderingEnabled;
+        this.seed = seed;
+    }
+
+    @Override
+    public double getGeneratorMapWidth() {
+        return mapSize;
+    }
+
+    @Override
+    public double getGeneratorMapHeight() {
+        return mapSize;
+    }
+
+    @Override
+    public double getGeneratorStaticMapObjectsPercentage() {
+        return wallDensity;
+    }
+
+    @Override
+    public int getGeneratorMobNumber() {
+        return mobNumber;
+    }
+
+    @Override
+    public long getGeneratorSeed() {
+        return seed;
+    }
+
+    @Override
+    public boolean isGridTracingEnabled() {
+        return gridTracingEnabled;
+    }
+
+    @Override
+    public boolean isSoftwareRenderingEnabled() {
+        return softwareRenderingEnabled;
+    }
+}
@@ -0,0 +1,48 @@
+package net.ildar.dungeon.bench;
+
+import net.ildar.dungeon.map.MapObject;
+import net.ildar.dungeon.map.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеры поиска столкновений с объектами карты.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    private int query;
+
+    /**
+     * Поиск объекта, включающего точку.
+     */
+    @Benchmark
+    public Optional<MapObject> pointQuery(DungeonState state) {
+        query = (query + 1) & (DungeonState.QUERY_NUMBER - 1);
+        Position position = state.queryPositions[query];
+        return state.collisionDetector.getInterferingMapObject(state.dungeonMap, position.getX(), position.getY());
+    }
+
+    /**
+     * Поиск объекта, пересекающегося с мобом.
+     */
+    @Benchmark
+    public Optional<MapObject> objectQuery(DungeonState state) {
+        query = (query + 1) & (DungeonState.QUERY_NUMBER - 1);
+        return state.collisionDetector.getInterferingMapObject(state.dungeonMap, state.queryMobs[query]);
+    }
+}
@@ -0,0 +1,162 @@
+package net.ildar.dungeon.bench;
+
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.Trigonometry;
+import net.ildar.dungeon.graphics.Camera;
+import net.ildar.dungeon.graphics.rendering.GameRenderer;
+import net.ildar.dungeon.graphics.rendering.ImageCache;
+import net.ildar.dungeon.graphics.rendering.ImageResourceLoader;
+import net.ildar.dungeon.graphics.rendering.ShadingPalette;
+import net.ildar.dungeon.graphics.rendering.SpriteCache;
+import net.ildar.dungeon.graphics.tracing.GridRayTracer;
+import net.ildar.dungeon.graphics.tracing.RayTracer;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.Gamer;
+import net.ildar.dungeon.map.MapFileStorage;
+import net.ildar.dungeon.map.MapGenerator;
+import net.ildar.dungeon.map.Mob;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.profiling.FrameProfiler;
+import net.ildar.dungeon.provider.MapProvider;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Игровой мир для бенчмарков: воспроизводимая карта, игрок в свободной клетке у её центра и собранные вручную
+ * компоненты игры.
+ * <p>
+ * Запросы бенчмарков (лучи трассировки и точки проверки столкновений) заранее сгенерированы из того же начального
+ * значения, что и карта.
+ */
+@State(Scope.Benchmark)
+public class DungeonState {
+    /**
+     * Количество заранее сгенерированных запросов. Степень двойки, чтобы перебирать запросы по маске.
+     */
+    static final int QUERY_NUMBER = 1024;
+
+    /**
+     * Ширина и высота карты.
+     */
+    @Param({"32", "128", "512"})
+    int mapSize;
+
+    /**
+     * Доля клеток карты, занятых стенами.
+     */
+    @Param({"0.1", "0.3"})
+    double wallDensity;
+
+    /**
+     * Доля клеток карты, занятых мобами.
+     */
+    @Param({"0.01", "0.05"})
+    double mobDensity;
+
+    @Param({"true"})
+    boolean gridTracingEnabled;
+
+    @Param({"true"})
+    boolean softwareRenderingEnabled;
+
+    @Param({"42"})
+    long seed;
+
+    BenchmarkConfiguration configuration;
+    CollisionDetector collisionDetector;
+    MapProvider mapProvider;
+    DungeonMap dungeonMap;
+    Trigonometry trigonometry;
+    RayTracer rayTracer;
+    Gamer gamer;
+
+    /**
+     * Углы лучей трассировки, исходящих из позиции игрока.
+     */
+    double[] rayAngles;
+
+    /**
+     * Точки проверки столкновений.
+     */
+    Position[] queryPositions;
+
+    /**
+     * Мобы, не добавленные на карту, для проверки столкновений объектов.
+     */
+    Mob[] queryMobs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int mobNumber = (int) (mapSize * mapSize * mobDensity);
+        configuration = new BenchmarkConfiguration(
+                mapSize, wallDensity, mobNumber, gridTracingEnabled, softwareRenderingEnabled, seed);
+        collisionDetector = new CollisionDetector();
+        mapProvider = new MapProvider(configuration,
+                new MapGenerator(configuration, collisionDetector), new MapFileStorage());
+        dungeonMap = mapProvider.getDungeonMap();
+        trigonometry = new Trigonometry(configuration);
+        rayTracer = new RayTracer(mapProvider, configuration, collisionDetector,
+                new GridRayTracer(mapProvider, configuration, trigonometry, collisionDetector), trigonometry);
+
+        Random random = new Random(seed);
+        gamer = new Gamer(
+                findFreeCellCenter(dungeonMap, collisionDetector),
+                configuration.getMobSize(),
+                configuration.getMobHeight(),
+                Mob.State.ALIVE,
+                random.nextDouble() * 360);
+        rayAngles = new double[QUERY_NUMBER];
+        queryPositions = new Position[QUERY_NUMBER];
+        queryMobs = new Mob[QUERY_NUMBER];
+        for (int i = 0; i < QUERY_NUMBER; i++) {
+            rayAngles[i] = random.nextDouble() * 360;
+            queryPositions[i] = new Position(random.nextDouble() * mapSize, random.nextDouble() * mapSize);
+            queryMobs[i] = new Mob(
+                    queryPositions[i], configuration.getMobSize(), configuration.getMobHeight(), Mob.State.ALIVE);
+        }
+    }
+
+    /**
+     * Найти центр свободной клетки, ближайшей к центру карты.
+     * <p>
+     * Клетки перебираются по квадратным кольцам вокруг центральной клетки, поэтому при одинаковой карте
+     * находится одна и та же клетка.
+     *
+     * @return центр клетки, не занятой ни стеной, ни мобом, или центр карты, если свободных клеток нет
+     */
+    static Position findFreeCellCenter(DungeonMap dungeonMap, CollisionDetector collisionDetector) {
+        int centerX = (int) (dungeonMap.getWidth() / 2);
+        int centerY = (int) (dungeonMap.getHeight() / 2);
+        int maxRing = (int) Math.max(dungeonMap.getWidth(), dungeonMap.getHeight());
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int y = centerY - ring; y <= centerY + ring; y++) {
+                for (int x = centerX - ring; x <= centerX + ring; x++) {
+                    if (Math.max(Math.abs(x - centerX), Math.abs(y - centerY)) != ring
+                            || x < 0 || y < 0 || x >= dungeonMap.getWidth() || y >= dungeonMap.getHeight()) {
+                        continue;
+                    }
+                    if (collisionDetector.getInterferingMapObject(dungeonMap, x + 0.5, y + 0.5).isEmpty()) {
+                        return new Position(x + 0.5, y + 0.5);
+                    }
+                }
+            }
+        }
+        return new Position(centerX + 0.5, centerY + 0.5);
+    }
+
+    /**
+     * Собрать главный рендерер игры над миром бенчмарка.
+     *
+     * @param camera камера, через которую отрисовывается кадр
+     */
+    GameRenderer createGameRenderer(Camera camera) {
+        return new GameRenderer(camera, rayTracer, configuration,
+                new SpriteCache(new ImageCache(new ImageResourceLoader(), configuration), configuration),
+                trigonometry, new ShadingPalette(configuration), new FrameProfiler(configuration));
+    }
+}
@@ -0,0 +1,55 @@
+package net.ildar.dungeon.bench;
+
+import net.ildar.dungeon.Hit;
+import net.ildar.dungeon.HitScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеры определения попадания выстрела.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitScanBenchmark {
+    private HitScanner hitScanner;
+    private int query;
+
+    @Setup
+    public void setUp(DungeonState state) {
+        hitScanner = new HitScanner(state.mapProvider, state.configuration, state.trigonometry,
+                state.collisionDetector);
+    }
+
+    /**
+     * Выстрел из позиции игрока.
+     */
+    @Benchmark
+    public Optional<Hit> shootFromGamer(DungeonState state) {
+        query = (query + 1) & (DungeonState.QUERY_NUMBER - 1);
+        return hitScanner.scan(state.gamer.getPosition(), state.rayAngles[query]);
+    }
+
+    /**
+     * Выстрел из случайной точки карты.
+     */
+    @Benchmark
+    public Optional<Hit> shootFromRandomPosition(DungeonState state) {
+        query = (query + 1) & (DungeonState.QUERY_NUMBER - 1);
+        return hitScanner.scan(state.queryPositions[query], state.rayAngles[query]);
+    }
+}
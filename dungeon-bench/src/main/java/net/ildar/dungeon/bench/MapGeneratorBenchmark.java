@@ -0,0 +1,75 @@
+package net.ildar.dungeon.bench;
+
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.MapGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеры генерации игровой карты.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapGeneratorBenchmark {
+    /**
+     * Ширина и высота карты.
+     */
+    @Param({"100", "1000"})
+    int mapSize;
+
+    /**
+     * Доля клеток карты, занятых стенами.
+     */
+    @Param({"0.1", "0.3"})
+    double wallDensity;
+
+    /**
+     * Доля клеток карты, занятых мобами.
+     */
+    @Param({"0.01", "0.05"})
+    double mobDensity;
+
+    /**
+     * Генерировать ли стены в полосах карты параллельно.
+     */
+    @Param({"false", "true"})
+    boolean parallel;
+
+    @Param({"42"})
+    long seed;
+
+    private MapGenerator mapGenerator;
+
+    @Setup
+    public void setUp() {
+        BenchmarkConfiguration configuration = new BenchmarkConfiguration(
+                mapSize, wallDensity, (int) (mapSize * mapSize * mobDensity), true, true, seed) {
+            @Override
+            public boolean isGeneratorParallelismEnabled() {
+                return parallel;
+            }
+        };
+        mapGenerator = new MapGenerator(configuration, new CollisionDetector());
+    }
+
+    @Benchmark
+    public DungeonMap generateMap() {
+        return mapGenerator.generateMap();
+    }
+}
@@ -0,0 +1,123 @@
+package net.ildar.dungeon.bench;
+
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.MobMover;
+import net.ildar.dungeon.map.Gamer;
+import net.ildar.dungeon.map.MapFileStorage;
+import net.ildar.dungeon.map.MapGenerator;
+import net.ildar.dungeon.map.Mob;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.provider.MapProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеры тика преследования игрока мобами.
+ * <p>
+ * Карта генерируется заново перед каждой итерацией, чтобы мобы не успевали собраться вокруг игрока.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MobMoverBenchmark {
+    /**
+     * Ширина и высота карты.
+     */
+    @Param({"256"})
+    int mapSize;
+
+    /**
+     * Доля клеток карты, занятых стенами.
+     */
+    @Param({"0.1"})
+    double wallDensity;
+
+    /**
+     * Количество мобов на карте.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    int mobNumber;
+
+    @Param({"42"})
+    long seed;
+
+    private BenchmarkConfiguration configuration;
+    private MapProvider mapProvider;
+    private Gamer gamer;
+    private MobMover mobMover;
+
+    /**
+     * Позиции игрока в двух соседних свободных клетках в центре карты.
+     */
+    private Position[] gamerPositions;
+    private int gamerPositionIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        configuration = new BenchmarkConfiguration(mapSize, wallDensity, mobNumber, true, true, seed);
+        CollisionDetector collisionDetector = new CollisionDetector();
+        mapProvider = new MapProvider(configuration,
+                new MapGenerator(configuration, collisionDetector), new MapFileStorage());
+        gamer = new Gamer(
+                DungeonState.findFreeCellCenter(mapProvider.getDungeonMap(), collisionDetector),
+                configuration.getMobSize(),
+                configuration.getMobHeight(),
+                Mob.State.ALIVE,
+                0);
+        mobMover = new MobMover(gamer, mapProvider, collisionDetector, configuration);
+        // карта с тем же начальным значением генерируется одинаково, поэтому клетка игрока остаётся свободной
+        // после перегенерации; рядом с ней ищется ещё одна свободная клетка
+        Position center = gamer.getPosition();
+        Position neighbour = center;
+        for (int dx = -1; dx <= 1 && neighbour == center; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                Position candidate = new Position(center.getX() + dx, center.getY() + dy);
+                if ((dx != 0 || dy != 0) && collisionDetector.getInterferingMapObject(
+                        mapProvider.getDungeonMap(), candidate).isEmpty()) {
+                    neighbour = candidate;
+                    break;
+                }
+            }
+        }
+        gamerPositions = new Position[]{center, neighbour};
+    }
+
+    @Setup(Level.Iteration)
+    public void regenerateMap() {
+        mapProvider.regenerateMap();
+        gamer.setPosition(gamerPositions[0]);
+    }
+
+    /**
+     * Тик с игроком, стоящим в одной клетке: поле направлений не перестраивается.
+     */
+    @Benchmark
+    public void update() {
+        mobMover.update();
+    }
+
+    /**
+     * Тик с игроком, переходящим в соседнюю клетку: поле направлений перестраивается на каждом тике.
+     */
+    @Benchmark
+    public void updateWithGamerCellChange() {
+        gamerPositionIndex ^= 1;
+        gamer.setPosition(gamerPositions[gamerPositionIndex]);
+        mobMover.update();
+    }
+}
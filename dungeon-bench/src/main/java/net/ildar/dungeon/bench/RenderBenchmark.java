@@ -0,0 +1,63 @@
+package net.ildar.dungeon.bench;
+
+import net.ildar.dungeon.graphics.Camera;
+import net.ildar.dungeon.graphics.rendering.GameRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеры рендеринга кадра в изображение вне экрана.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    private Camera camera;
+    private GameRenderer gameRenderer;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp(DungeonState state) {
+        camera = new Camera(state.gamer, state.configuration, state.mapProvider);
+        gameRenderer = state.createGameRenderer(camera);
+        image = new BufferedImage(
+                state.configuration.getWindowWidth(),
+                state.configuration.getWindowHeight(),
+                BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setClip(0, 0, image.getWidth(), image.getHeight());
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+        gameRenderer.close();
+    }
+
+    /**
+     * Рендеринг 3д-вида кадра.
+     */
+    @Benchmark
+    public BufferedImage render() {
+        camera.beginFrame();
+        gameRenderer.render(graphics);
+        return image;
+    }
+}
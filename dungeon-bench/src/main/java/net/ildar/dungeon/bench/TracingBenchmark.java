@@ -0,0 +1,75 @@
+package net.ildar.dungeon.bench;
+
+import net.ildar.dungeon.graphics.tracing.TraceResult;
+import net.ildar.dungeon.graphics.tracing.ViewRays;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеры трассировки лучей из позиции игрока.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingBenchmark {
+    private ViewRays viewRays;
+    private int query;
+
+    @Setup
+    public void setUp(DungeonState state) {
+        viewRays = new ViewRays(state.trigonometry);
+        viewRays.update(state.gamer.getViewAngle(),
+                state.configuration.getFov(),
+                state.configuration.getWindowWidth(),
+                state.configuration.getViewColumnWidth());
+    }
+
+    /**
+     * Трассировка одного луча.
+     */
+    @Benchmark
+    public TraceResult traceRay(DungeonState state) {
+        query = (query + 1) & (DungeonState.QUERY_NUMBER - 1);
+        return state.rayTracer.trace(state.gamer.getPosition(), state.rayAngles[query]);
+    }
+
+    /**
+     * Последовательная трассировка всех полос рендеринга кадра.
+     */
+    @Benchmark
+    public void traceFrame(DungeonState state, Blackhole blackhole) {
+        for (int column = 0; column < viewRays.getColumnCount(); column++) {
+            blackhole.consume(state.rayTracer.trace(state.gamer.getPosition(),
+                    viewRays.getAngle(column),
+                    viewRays.getDirectionX(column),
+                    viewRays.getDirectionY(column)));
+        }
+    }
+
+    /**
+     * Последовательная трассировка всех полос рендеринга кадра только до статических объектов.
+     */
+    @Benchmark
+    public void traceFrameStaticObjects(DungeonState state, Blackhole blackhole) {
+        for (int column = 0; column < viewRays.getColumnCount(); column++) {
+            blackhole.consume(state.rayTracer.traceStaticObjects(state.gamer.getPosition(),
+                    viewRays.getAngle(column),
+                    viewRays.getDirectionX(column),
+                    viewRays.getDirectionY(column)));
+        }
+    }
+}
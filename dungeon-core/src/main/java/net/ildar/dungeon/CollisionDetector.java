@@ -8,9 +8,12 @@ import net.ildar.dungeon.map.DungeonMap;
 import net.ildar.dungeon.map.InmovableMapObject;
 import net.ildar.dungeon.map.MapObject;
 import net.ildar.dungeon.map.MovableMapObject;
+import net.ildar.dungeon.map.MovableObjectIndex;
 import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.StaticObjectIndex;
 
 import javax.inject.Inject;
+import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 
@@ -31,8 +34,10 @@ public class CollisionDetector {
      * Определить факт пересечения двух мобильных объектов карты.
      */
     public boolean intersects(@NonNull MovableMapObject o1, @NonNull MovableMapObject o2) {
-        return o1.getPosition().distance(o2.getPosition())
-                < o1.getRadius() + o2.getRadius();
+        double dx = o1.getX() - o2.getX();
+        double dy = o1.getY() - o2.getY();
+        double radiusSum = o1.getRadius() + o2.getRadius();
+        return dx * dx + dy * dy < radiusSum * radiusSum;
     }
 
     /**
@@ -43,29 +48,136 @@ public class CollisionDetector {
      * @return true в случае пересечения объектов, false иначе
      */
     public boolean intersects(@NonNull MovableMapObject mmo, @NonNull InmovableMapObject imo) {
+        return intersects(mmo.getX(), mmo.getY(), mmo.getRadius(), imo);
+    }
+
+    /**
+     * Определить факт пересечения круга и статичного объекта карты.
+     *
+     * @param circleX координата центра круга по горизонтали
+     * @param circleY координата центра круга по вертикали
+     * @param radius  радиус круга
+     * @param imo     статичный объект (прямоугольник)
+     * @return true в случае пересечения объектов, false иначе
+     */
+    public boolean intersects(double circleX, double circleY, double radius, @NonNull InmovableMapObject imo) {
         // checking if circle center is inside the box
-        if (imo.interferes(mmo.getPosition())) {
+        if (imo.interferes(circleX, circleY)) {
             return true;
         }
         // checking box corners for intersection with circle
-        if (mmo.interferes(imo.getPosition())
-                || mmo.interferes(imo.getPosition().shift(imo.getWidth(), 90))
-                || mmo.interferes(imo.getPosition().shift(imo.getLength(), 180))
-                || mmo.interferes(new Position(imo.getPosition().getX() + imo.getWidth(),
-                imo.getPosition().getY() + imo.getLength()))) {
+        double boxX = imo.getPosition().getX();
+        double boxY = imo.getPosition().getY();
+        if (isInsideCircle(boxX, boxY, circleX, circleY, radius)
+                || isInsideCircle(boxX + imo.getWidth(), boxY, circleX, circleY, radius)
+                || isInsideCircle(boxX, boxY + imo.getLength(), circleX, circleY, radius)
+                || isInsideCircle(boxX + imo.getWidth(), boxY + imo.getLength(), circleX, circleY, radius)) {
             return true;
         }
         // checking top,bottom,left and right corners of the circle for intersection with the box
         // noinspection RedundantIfStatement
-        if (imo.interferes(mmo.getPosition().shift(mmo.getRadius(), 0))
-                || imo.interferes(mmo.getPosition().shift(mmo.getRadius(), 90))
-                || imo.interferes(mmo.getPosition().shift(mmo.getRadius(), 180))
-                || imo.interferes(mmo.getPosition().shift(mmo.getRadius(), 270))) {
+        if (imo.interferes(circleX, circleY - radius)
+                || imo.interferes(circleX + radius, circleY)
+                || imo.interferes(circleX, circleY + radius)
+                || imo.interferes(circleX - radius, circleY)) {
             return true;
         }
         return false;
     }
 
+    /**
+     * Найти расстояние до точки входа луча в прямоугольник статического объекта.
+     *
+     * @param x          координата начала луча по горизонтали
+     * @param y          координата начала луча по вертикали
+     * @param directionX горизонтальная составляющая единичного направления луча
+     * @param directionY вертикальная составляющая единичного направления луча
+     * @return расстояние до точки входа, 0 если луч начинается внутри объекта,
+     * {@link Double#POSITIVE_INFINITY} если луч не пересекает объект
+     */
+    public double getRayEntryDistance(double x, double y, double directionX, double directionY,
+                                      @NonNull InmovableMapObject imo) {
+        double minX = imo.getPosition().getX();
+        double minY = imo.getPosition().getY();
+        double maxX = minX + imo.getWidth();
+        double maxY = minY + imo.getLength();
+        double entry = 0;
+        double exit = Double.POSITIVE_INFINITY;
+        if (directionX == 0) {
+            if (x <= minX || x >= maxX) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double t1 = (minX - x) / directionX;
+            double t2 = (maxX - x) / directionX;
+            entry = Math.max(entry, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (directionY == 0) {
+            if (y <= minY || y >= maxY) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double t1 = (minY - y) / directionY;
+            double t2 = (maxY - y) / directionY;
+            entry = Math.max(entry, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        return entry < exit ? entry : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Найти расстояние до точки входа луча в круг мобильного объекта.
+     *
+     * @param x          координата начала луча по горизонтали
+     * @param y          координата начала луча по вертикали
+     * @param directionX горизонтальная составляющая единичного направления луча
+     * @param directionY вертикальная составляющая единичного направления луча
+     * @return расстояние до точки входа, 0 если луч начинается внутри объекта,
+     * {@link Double#POSITIVE_INFINITY} если луч не пересекает объект
+     */
+    public double getRayEntryDistance(double x, double y, double directionX, double directionY,
+                                      @NonNull MovableMapObject mmo) {
+        double toCenterX = mmo.getX() - x;
+        double toCenterY = mmo.getY() - y;
+        double closestApproach = toCenterX * directionX + toCenterY * directionY;
+        double squaredCenterDistance = toCenterX * toCenterX + toCenterY * toCenterY
+                - closestApproach * closestApproach;
+        double squaredRadius = mmo.getRadius() * mmo.getRadius();
+        if (squaredCenterDistance >= squaredRadius) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double halfChord = Math.sqrt(squaredRadius - squaredCenterDistance);
+        if (closestApproach + halfChord <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(closestApproach - halfChord, 0);
+    }
+
+    /**
+     * Найти расстояние до точки выхода луча из круга мобильного объекта.
+     *
+     * @param x          координата начала луча по горизонтали
+     * @param y          координата начала луча по вертикали
+     * @param directionX горизонтальная составляющая единичного направления луча
+     * @param directionY вертикальная составляющая единичного направления луча
+     * @return расстояние до точки выхода или {@link Double#POSITIVE_INFINITY} если луч не пересекает объект
+     */
+    public double getRayExitDistance(double x, double y, double directionX, double directionY,
+                                     @NonNull MovableMapObject mmo) {
+        double toCenterX = mmo.getX() - x;
+        double toCenterY = mmo.getY() - y;
+        double closestApproach = toCenterX * directionX + toCenterY * directionY;
+        double squaredCenterDistance = toCenterX * toCenterX + toCenterY * toCenterY
+                - closestApproach * closestApproach;
+        double squaredRadius = mmo.getRadius() * mmo.getRadius();
+        if (squaredCenterDistance >= squaredRadius) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double exit = closestApproach + Math.sqrt(squaredRadius - squaredCenterDistance);
+        return exit > 0 ? exit : Double.POSITIVE_INFINITY;
+    }
+
     /**
      * Получить объект карты включающий указанную точку.
      *
@@ -74,6 +186,194 @@ public class CollisionDetector {
      */
     @NonNull
     public Optional<MapObject> getInterferingMapObject(@NonNull DungeonMap dungeonMap, @NonNull Position position) {
+        return getInterferingMapObject(dungeonMap, position.getX(), position.getY());
+    }
+
+    /**
+     * Получить объект карты включающий точку с указанными координатами.
+     *
+     * @param x координата точки по горизонтали.
+     * @param y координата точки по вертикали.
+     * @return Optional объекта карты.
+     */
+    @NonNull
+    public Optional<MapObject> getInterferingMapObject(@NonNull DungeonMap dungeonMap, double x, double y) {
+        Optional<InmovableMapObject> interceptedImo = dungeonMap.getStaticObjectIndex().findInterferingObject(x, y);
+        if (interceptedImo.isPresent()) {
+            return Optional.of(interceptedImo.get());
+        }
+        Optional<MovableMapObject> interceptedMmo = dungeonMap.getMovableObjectIndex().findInterferingObject(x, y);
+        return Optional.ofNullable(interceptedMmo.orElse(null));
+    }
+
+    /**
+     * Получить объект карты пересекающийся с другим объектом.
+     *
+     * @param mapObject некий объект на карте.
+     * @return Optional объекта карты.
+     */
+    @NonNull
+    public Optional<MapObject> getInterferingMapObject(@NonNull DungeonMap dungeonMap, @NonNull MapObject mapObject) {
+        StaticObjectIndex staticObjectIndex = dungeonMap.getStaticObjectIndex();
+        MovableObjectIndex movableObjectIndex = dungeonMap.getMovableObjectIndex();
+        if (mapObject instanceof InmovableMapObject) {
+            InmovableMapObject imo = (InmovableMapObject) mapObject;
+            // пересечение статичных объектов определяется по расстоянию между их позициями,
+            // поэтому область поиска расширяется на половину размеров самого большого объекта индекса
+            double searchWidth = (imo.getWidth() + staticObjectIndex.getMaxObjectWidth()) / 2;
+            double searchLength = (imo.getLength() + staticObjectIndex.getMaxObjectLength()) / 2;
+            Optional<InmovableMapObject> iimo = staticObjectIndex.findAny(
+                    imo.getPosition().getX() - searchWidth,
+                    imo.getPosition().getY() - searchLength,
+                    imo.getPosition().getX() + searchWidth,
+                    imo.getPosition().getY() + searchLength,
+                    so -> intersects(so, imo));
+            if (iimo.isPresent()) {
+                return Optional.of(iimo.get());
+            }
+            Optional<MovableMapObject> immo = movableObjectIndex.findAny(
+                    imo.getPosition().getX(),
+                    imo.getPosition().getY(),
+                    imo.getPosition().getX() + imo.getWidth(),
+                    imo.getPosition().getY() + imo.getLength(),
+                    mmo -> intersects(mmo, imo));
+            return Optional.ofNullable(immo.orElse(null));
+        } else if (mapObject instanceof MovableMapObject) {
+            return getInterferingMapObject(dungeonMap, (MovableMapObject) mapObject, (MovableMapObject) null);
+        } else {
+            return getInterferingMapObject(dungeonMap, mapObject.getPosition());
+        }
+    }
+
+    /**
+     * Получить объект карты, пересекающийся с мобильным объектом, перемещённым в указанную позицию.
+     * <p>
+     * Сам перемещаемый объект при поиске не учитывается.
+     *
+     * @param mmo      перемещаемый мобильный объект.
+     * @param position новая позиция объекта.
+     * @return Optional объекта карты.
+     */
+    @NonNull
+    public Optional<MapObject> getInterferingMapObject(@NonNull DungeonMap dungeonMap,
+                                                       @NonNull MovableMapObject mmo,
+                                                       @NonNull Position position) {
+        return getInterferingMapObject(dungeonMap, mmo, position.getX(), position.getY());
+    }
+
+    /**
+     * Получить объект карты, пересекающийся с мобильным объектом, перемещённым в точку с указанными координатами.
+     * <p>
+     * Сам перемещаемый объект при поиске не учитывается. Клетки индексов перебираются напрямую, без создания
+     * позиций, вспомогательных объектов и условий поиска.
+     *
+     * @param mmo перемещаемый мобильный объект.
+     * @param x   новая координата центра объекта по горизонтали.
+     * @param y   новая координата центра объекта по вертикали.
+     * @return Optional объекта карты.
+     */
+    @NonNull
+    public Optional<MapObject> getInterferingMapObject(@NonNull DungeonMap dungeonMap,
+                                                       @NonNull MovableMapObject mmo,
+                                                       double x, double y) {
+        return Optional.ofNullable(findInterferingMapObject(dungeonMap, mmo, x, y));
+    }
+
+    /**
+     * Проверить, пересекается ли мобильный объект, перемещённый в точку с указанными координатами,
+     * с объектами карты.
+     * <p>
+     * В отличие от {@link #getInterferingMapObject(DungeonMap, MovableMapObject, double, double)} не создаёт
+     * Optional при найденном пересечении: JIT не устраняет его создание, так как Optional.ofNullable выбирает
+     * между новым и общим пустым объектом.
+     *
+     * @param mmo перемещаемый мобильный объект, сам он при поиске не учитывается.
+     * @param x   новая координата центра объекта по горизонтали.
+     * @param y   новая координата центра объекта по вертикали.
+     */
+    public boolean isInterfering(@NonNull DungeonMap dungeonMap, @NonNull MovableMapObject mmo, double x, double y) {
+        return findInterferingMapObject(dungeonMap, mmo, x, y) != null;
+    }
+
+    /**
+     * Найти объект карты, пересекающийся с мобильным объектом, перемещённым в точку с указанными координатами.
+     *
+     * @return объект карты или null
+     */
+    private MapObject findInterferingMapObject(@NonNull DungeonMap dungeonMap, @NonNull MovableMapObject mmo,
+                                               double x, double y) {
+        double radius = mmo.getRadius();
+        MovableObjectIndex movableObjectIndex = dungeonMap.getMovableObjectIndex();
+        // объект хранится в клетке своего центра, поэтому область поиска расширяется на наибольший радиус
+        double margin = radius + movableObjectIndex.getMaxRadius();
+        int toCellX = (int) Math.floor(x + margin);
+        int toCellY = (int) Math.floor(y + margin);
+        for (int cellY = (int) Math.floor(y - margin); cellY <= toCellY; cellY++) {
+            for (int cellX = (int) Math.floor(x - margin); cellX <= toCellX; cellX++) {
+                MovableMapObject[] cell = movableObjectIndex.getCell(cellX, cellY);
+                for (int i = 0; i < cell.length; i++) {
+                    MovableMapObject mo = cell[i];
+                    if (mo != mmo && isInsideCircle(mo.getX(), mo.getY(), x, y, radius + mo.getRadius())) {
+                        return mo;
+                    }
+                }
+            }
+        }
+        StaticObjectIndex staticObjectIndex = dungeonMap.getStaticObjectIndex();
+        toCellX = (int) Math.floor(x + radius);
+        toCellY = (int) Math.floor(y + radius);
+        for (int cellY = (int) Math.floor(y - radius); cellY <= toCellY; cellY++) {
+            for (int cellX = (int) Math.floor(x - radius); cellX <= toCellX; cellX++) {
+                List<InmovableMapObject> cell = staticObjectIndex.getCell(cellX, cellY);
+                for (int i = 0; i < cell.size(); i++) {
+                    if (intersects(x, y, radius, cell.get(i))) {
+                        return cell.get(i);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Получить объект карты пересекающийся с мобильным объектом.
+     *
+     * @param mmo           мобильный объект.
+     * @param ignoredObject мобильный объект, не учитываемый при поиске, может быть null.
+     * @return Optional объекта карты.
+     */
+    @NonNull
+    private Optional<MapObject> getInterferingMapObject(@NonNull DungeonMap dungeonMap,
+                                                        @NonNull MovableMapObject mmo,
+                                                        MovableMapObject ignoredObject) {
+        Optional<MovableMapObject> immo = dungeonMap.getMovableObjectIndex().findAny(
+                mmo.getX() - mmo.getRadius(),
+                mmo.getY() - mmo.getRadius(),
+                mmo.getX() + mmo.getRadius(),
+                mmo.getY() + mmo.getRadius(),
+                mo -> mo != ignoredObject && intersects(mo, mmo));
+        if (immo.isPresent()) {
+            return Optional.of(immo.get());
+        }
+        Optional<InmovableMapObject> iimo = dungeonMap.getStaticObjectIndex().findAny(
+                mmo.getX() - mmo.getRadius(),
+                mmo.getY() - mmo.getRadius(),
+                mmo.getX() + mmo.getRadius(),
+                mmo.getY() + mmo.getRadius(),
+                imo -> intersects(mmo, imo));
+        return Optional.ofNullable(iimo.orElse(null));
+    }
+
+    /**
+     * Получить объект карты включающий указанную точку полным перебором объектов карты.
+     * <p>
+     * Не использует пространственный индекс, служит эталоном для проверки корректности индекса.
+     *
+     * @param position позиция точки на карте.
+     * @return Optional объекта карты.
+     */
+    @NonNull
+    public Optional<MapObject> scanInterferingMapObject(@NonNull DungeonMap dungeonMap, @NonNull Position position) {
         Optional<InmovableMapObject> interceptedImo = dungeonMap.getStaticObjectSet().stream()
                 .filter(so -> so.interferes(position)).findAny();
         if (interceptedImo.isPresent()) {
@@ -85,13 +385,15 @@ public class CollisionDetector {
     }
 
     /**
-     * Получить объект карты пересекающийся с другим объектом.
+     * Получить объект карты пересекающийся с другим объектом полным перебором объектов карты.
+     * <p>
+     * Не использует пространственный индекс, служит эталоном для проверки корректности индекса.
      *
      * @param mapObject некий объект на карте.
      * @return Optional объекта карты.
      */
     @NonNull
-    public Optional<MapObject> getInterferingMapObject(@NonNull DungeonMap dungeonMap, @NonNull MapObject mapObject) {
+    public Optional<MapObject> scanInterferingMapObject(@NonNull DungeonMap dungeonMap, @NonNull MapObject mapObject) {
         if (mapObject instanceof InmovableMapObject) {
             Optional<InmovableMapObject> iimo = dungeonMap.getStaticObjectSet().stream()
                     .filter(imo -> intersects(imo, (InmovableMapObject) mapObject))
@@ -113,7 +415,7 @@ public class CollisionDetector {
                     .filter(imo -> intersects((MovableMapObject) mapObject, imo)).findAny();
             return Optional.ofNullable(iimo.orElse(null));
         } else {
-            return getInterferingMapObject(dungeonMap, mapObject.getPosition());
+            return scanInterferingMapObject(dungeonMap, mapObject.getPosition());
         }
     }
 
@@ -133,6 +435,12 @@ public class CollisionDetector {
             ghostObject.setPosition(new Position(
                     random.nextDouble() * (dungeonMap.getWidth() - spotRadius),
                     random.nextDouble() * (dungeonMap.getHeight() - spotRadius)));
+            // стены карты, загружаемой по фрагментам, должны быть в памяти до проверки места
+            dungeonMap.getStaticObjectIndex().loadArea(
+                    ghostObject.getPosition().getX() - spotRadius,
+                    ghostObject.getPosition().getY() - spotRadius,
+                    ghostObject.getPosition().getX() + spotRadius,
+                    ghostObject.getPosition().getY() + spotRadius);
             if (getInterferingMapObject(dungeonMap, ghostObject).isPresent()) {
                 continue;
             }
@@ -140,6 +448,15 @@ public class CollisionDetector {
         }
     }
 
+    /**
+     * Проверить, лежит ли точка строго внутри круга.
+     */
+    private static boolean isInsideCircle(double x, double y, double circleX, double circleY, double radius) {
+        double dx = circleX - x;
+        double dy = circleY - y;
+        return dx * dx + dy * dy < radius * radius;
+    }
+
     /**
      * Вспомогательный мобильный объект для поиска вакантных мест на карте.
      */
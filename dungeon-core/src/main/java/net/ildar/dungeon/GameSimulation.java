@@ -0,0 +1,80 @@
+package net.ildar.dungeon;
+
+import lombok.RequiredArgsConstructor;
+import net.ildar.dungeon.graphics.Camera;
+import net.ildar.dungeon.input.GameMouseListener;
+import net.ildar.dungeon.input.GamerMover;
+import net.ildar.dungeon.input.GunShooter;
+import net.ildar.dungeon.input.InputKey;
+import net.ildar.dungeon.input.KeyboardListener;
+import net.ildar.dungeon.map.Gamer;
+import net.ildar.dungeon.profiling.FrameProfiler;
+import net.ildar.dungeon.profiling.FrameStage;
+import net.ildar.dungeon.provider.MapProvider;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Игровая логика: обработка ввода игрока и обновление состояния игры за один тик.
+ */
+@Singleton
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class GameSimulation {
+    private final KeyboardListener keyboardListener;
+    private final GameMouseListener mouseListener;
+    private final GamerMover gamerMover;
+    private final GunShooter gunShooter;
+    private final MobKiller mobKiller;
+    private final MobMover mobMover;
+    private final GameTimer gameTimer;
+    private final MapProvider mapProvider;
+    private final Camera camera;
+    private final Gamer gamer;
+    private final FrameProfiler frameProfiler;
+
+    /**
+     * Начать игру: переместить игрока на случайную позицию карты и запустить таймер.
+     */
+    public void start() {
+        gamerMover.random();
+        mapProvider.updateResidentArea(gamer.getPosition());
+        camera.reset();
+        gameTimer.reset();
+        mapProvider.publishWorldSnapshot();
+    }
+
+    /**
+     * Выполнить один тик игровой логики.
+     */
+    public void tick() {
+        long start = frameProfiler.start();
+        if (mouseListener.isLeftMouseClicked()) {
+            gunShooter.shoot();
+        } else {
+            gunShooter.update();
+        }
+        keyboardListener.getPressedKeys().forEach(gamerMover::move);
+        keyboardListener.getTypedKeys().forEach(inputKey -> {
+            if (inputKey == InputKey.SHOOT) {
+                gunShooter.shoot();
+            } else if (inputKey == InputKey.RESET) {
+                mapProvider.regenerateMap();
+                start();
+            } else if (inputKey == InputKey.PROFILER) {
+                frameProfiler.toggleOverlay();
+            }
+        });
+        gamerMover.turn(mouseListener.getDiff());
+        mapProvider.updateResidentArea(gamer.getPosition());
+        mobKiller.updateKilledMobStates();
+        mobMover.update();
+        if (mobKiller.allMobsAreDead()) {
+            gameTimer.stop();
+        }
+        // рендереры читают состояние мира только из опубликованного снимка
+        mapProvider.publishWorldSnapshot();
+        camera.update();
+        frameProfiler.record(FrameStage.TICK, start);
+    }
+}
@@ -0,0 +1,22 @@
+package net.ildar.dungeon;
+
+import lombok.NonNull;
+import lombok.Value;
+import net.ildar.dungeon.map.MapObject;
+
+/**
+ * Попадание выстрела в объект карты.
+ */
+@Value
+public class Hit {
+    /**
+     * Объект карты, в который попал выстрел.
+     */
+    @NonNull
+    MapObject mapObject;
+
+    /**
+     * Расстояние от позиции выстрела до точки попадания, 0 если выстрел сделан изнутри объекта.
+     */
+    double distance;
+}
@@ -0,0 +1,136 @@
+package net.ildar.dungeon;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.InmovableMapObject;
+import net.ildar.dungeon.map.MapObject;
+import net.ildar.dungeon.map.MovableMapObject;
+import net.ildar.dungeon.map.MovableObjectIndex;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.StaticObjectIndex;
+import net.ildar.dungeon.provider.MapProvider;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Определение попадания мгновенного выстрела.
+ * <p>
+ * Луч выстрела проходит по клеткам сетки карты (алгоритм DDA), в каждой клетке проверяются только объекты
+ * пространственных индексов, которые могут её пересекать. Пересечения луча с прямоугольниками статических объектов
+ * и кругами мобильных объектов вычисляются точно, поэтому выстрел не проходит сквозь тонкие объекты.
+ * Проход заканчивается, как только найденное попадание оказывается ближе границы текущей клетки.
+ */
+@Singleton
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class HitScanner {
+    private final MapProvider mapProvider;
+    private final Configuration configuration;
+    private final Trigonometry trigonometry;
+    private final CollisionDetector collisionDetector;
+
+    /**
+     * Найти ближайший объект карты на пути выстрела в пределах дальности взгляда.
+     *
+     * @param position позиция выстрела
+     * @param angle    угол выстрела
+     * @return Optional ближайшего попадания
+     */
+    @NonNull
+    public Optional<Hit> scan(@NonNull Position position, double angle) {
+        DungeonMap dungeonMap = mapProvider.getDungeonMap();
+        double maxDistance = Math.min(
+                configuration.getViewDistance(),
+                Math.max(dungeonMap.getWidth(), dungeonMap.getHeight()));
+        return scan(dungeonMap, position.getX(), position.getY(),
+                trigonometry.getDirectionX(angle), trigonometry.getDirectionY(angle), maxDistance);
+    }
+
+    /**
+     * Найти ближайший объект карты на пути выстрела.
+     *
+     * @param x           координата позиции выстрела по горизонтали
+     * @param y           координата позиции выстрела по вертикали
+     * @param directionX  горизонтальная составляющая единичного направления выстрела
+     * @param directionY  вертикальная составляющая единичного направления выстрела
+     * @param maxDistance дальность выстрела
+     * @return Optional ближайшего попадания
+     */
+    @NonNull
+    public Optional<Hit> scan(@NonNull DungeonMap dungeonMap,
+                              double x,
+                              double y,
+                              double directionX,
+                              double directionY,
+                              double maxDistance) {
+        StaticObjectIndex staticObjectIndex = dungeonMap.getStaticObjectIndex();
+        MovableObjectIndex movableObjectIndex = dungeonMap.getMovableObjectIndex();
+        // стены карты, загружаемой по фрагментам, должны быть в памяти на всём пути выстрела
+        double endX = x + directionX * maxDistance;
+        double endY = y + directionY * maxDistance;
+        staticObjectIndex.loadArea(Math.min(x, endX), Math.min(y, endY), Math.max(x, endX), Math.max(y, endY));
+        // центр мобильного объекта, пересекающего клетку, находится не дальше его радиуса от неё
+        double movableObjectMargin = movableObjectIndex.getMaxRadius();
+
+        int cellX = (int) Math.floor(x);
+        int cellY = (int) Math.floor(y);
+        int stepX = directionX > 0 ? 1 : -1;
+        int stepY = directionY > 0 ? 1 : -1;
+        double deltaX = directionX == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / directionX);
+        double deltaY = directionY == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / directionY);
+        double nextBorderX = directionX == 0 ? Double.POSITIVE_INFINITY
+                : (directionX > 0 ? cellX + 1 - x : x - cellX) * deltaX;
+        double nextBorderY = directionY == 0 ? Double.POSITIVE_INFINITY
+                : (directionY > 0 ? cellY + 1 - y : y - cellY) * deltaY;
+
+        MapObject hitObject = null;
+        double hitDistance = Double.POSITIVE_INFINITY;
+        while (true) {
+            List<InmovableMapObject> cell = staticObjectIndex.getCell(cellX, cellY);
+            for (int i = 0; i < cell.size(); i++) {
+                double distance = collisionDetector.getRayEntryDistance(x, y, directionX, directionY, cell.get(i));
+                if (distance < hitDistance) {
+                    hitDistance = distance;
+                    hitObject = cell.get(i);
+                }
+            }
+            int fromX = (int) Math.floor(cellX - movableObjectMargin);
+            int toX = (int) Math.floor(cellX + 1 + movableObjectMargin);
+            int fromY = (int) Math.floor(cellY - movableObjectMargin);
+            int toY = (int) Math.floor(cellY + 1 + movableObjectMargin);
+            for (int neighbourY = fromY; neighbourY <= toY; neighbourY++) {
+                for (int neighbourX = fromX; neighbourX <= toX; neighbourX++) {
+                    MovableMapObject[] neighbours = movableObjectIndex.getCell(neighbourX, neighbourY);
+                    for (int i = 0; i < neighbours.length; i++) {
+                        double distance = collisionDetector.getRayEntryDistance(
+                                x, y, directionX, directionY, neighbours[i]);
+                        if (distance < hitDistance) {
+                            hitDistance = distance;
+                            hitObject = neighbours[i];
+                        }
+                    }
+                }
+            }
+            // точки луча до границы клетки проверены: объекты в следующих клетках не могут оказаться ближе
+            double cellExitDistance = Math.min(nextBorderX, nextBorderY);
+            if (hitDistance <= cellExitDistance || cellExitDistance > maxDistance) {
+                break;
+            }
+            if (nextBorderX < nextBorderY) {
+                nextBorderX += deltaX;
+                cellX += stepX;
+            } else {
+                nextBorderY += deltaY;
+                cellY += stepY;
+            }
+        }
+        if (hitObject == null || hitDistance > maxDistance) {
+            return Optional.empty();
+        }
+        return Optional.of(new Hit(hitObject, hitDistance));
+    }
+}
@@ -8,7 +8,7 @@ import net.ildar.dungeon.provider.MapProvider;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -25,7 +25,7 @@ public class MobKiller {
     /**
      * Список убитых мобов, ожидающих удаления с карты. Значение мапы - количество оставшихся кадров.
      */
-    private Map<Mob, Integer> killedMobMap = new HashMap<>();
+    private Map<Mob, Integer> killedMobMap = new IdentityHashMap<>();
 
     /**
      * Выстрелить в моба.
@@ -46,6 +46,9 @@ public class MobKiller {
      * Обновить состояние убитых мобов.
      */
     public synchronized void updateKilledMobStates() {
+        if (killedMobMap.isEmpty()) {
+            return;
+        }
         Iterator<Mob> mobIterator = killedMobMap.keySet().iterator();
         while(mobIterator.hasNext()) {
             Mob mob = mobIterator.next();
@@ -64,9 +67,6 @@ public class MobKiller {
      * Узнать мертвы ли все мобы.
      */
     public boolean allMobsAreDead() {
-        return mapProvider.getDungeonMap().getMovableObjectSet().stream()
-                .filter(mmo -> mmo instanceof Mob)
-                .map(mmo -> ((Mob) mmo).getState())
-                .noneMatch(s -> s == Mob.State.ALIVE);
+        return mapProvider.getDungeonMap().getMobStore().getAliveCount() == 0;
     }
 }
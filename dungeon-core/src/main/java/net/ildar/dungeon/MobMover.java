@@ -0,0 +1,131 @@
+package net.ildar.dungeon;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.FlowField;
+import net.ildar.dungeon.map.Gamer;
+import net.ildar.dungeon.map.Mob;
+import net.ildar.dungeon.map.MobStore;
+import net.ildar.dungeon.provider.MapProvider;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Random;
+
+/**
+ * Обработчик преследования игрока мобами.
+ * <p>
+ * Все мобы карты движутся по общему полю направлений {@link FlowField}, которое перестраивается
+ * только при переходе игрока в другую клетку. Шаг каждого моба определяется за постоянное время.
+ */
+@Singleton
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class MobMover {
+    private final Gamer gamer;
+    private final MapProvider mapProvider;
+    private final CollisionDetector collisionDetector;
+    private final Configuration configuration;
+
+    /**
+     * Поле направлений к игроку. Пересоздаётся при смене карты.
+     */
+    private FlowField flowField;
+
+    /**
+     * Генератор случайных шагов для мобов, упёршихся друг в друга.
+     */
+    private final Random random = new Random();
+
+    /**
+     * Передвинуть живых мобов на шаг в сторону игрока.
+     */
+    public void update() {
+        DungeonMap dungeonMap = mapProvider.getDungeonMap();
+        MobStore mobStore = dungeonMap.getMobStore();
+        // поле направлений занимает память по площади карты, на карте без живых мобов оно не строится
+        if (mobStore.getAliveCount() == 0) {
+            return;
+        }
+        if (flowField == null || flowField.getDungeonMap() != dungeonMap) {
+            flowField = new FlowField(dungeonMap);
+        }
+        flowField.update(gamer.getPosition());
+        // мобы перебираются по ячейкам хранилища, параметры читаются из подряд лежащих массивов
+        for (int slot = 0; slot < mobStore.getSlotCount(); slot++) {
+            if (mobStore.isAlive(slot)) {
+                move(dungeonMap, mobStore, slot);
+            }
+        }
+    }
+
+    /**
+     * Передвинуть моба на шаг по полю направлений.
+     * <p>
+     * Моб идёт к центру следующей клетки пути, в клетке игрока и в соседней с ней - прямо к игроку.
+     * Упираясь в препятствие, моб скользит вдоль него по одной из осей. Если скользить некуда,
+     * моб делает шаг в случайную сторону: так расходятся мобы, упёршиеся друг в друга в узком проходе.
+     */
+    private void move(@NonNull DungeonMap dungeonMap, @NonNull MobStore mobStore, int slot) {
+        double x = mobStore.getX(slot);
+        double y = mobStore.getY(slot);
+        int nextCell = flowField.getNextCell(x, y);
+        if (nextCell == FlowField.UNREACHABLE) {
+            return;
+        }
+        double targetX;
+        double targetY;
+        if (nextCell == flowField.getTargetCell()) {
+            targetX = gamer.getPosition().getX();
+            targetY = gamer.getPosition().getY();
+        } else {
+            targetX = flowField.getCellCenterX(nextCell);
+            targetY = flowField.getCellCenterY(nextCell);
+        }
+        double toTargetX = targetX - x;
+        double toTargetY = targetY - y;
+        double toTargetDistance = Math.sqrt(toTargetX * toTargetX + toTargetY * toTargetY);
+        if (toTargetDistance == 0) {
+            return;
+        }
+        double step = Math.min(configuration.getMobMovingStep(), toTargetDistance);
+        double stepX = toTargetX / toTargetDistance * step;
+        double stepY = toTargetY / toTargetDistance * step;
+        Mob mob = mobStore.getMob(slot);
+        if (tryMove(dungeonMap, mob, x + stepX, y + stepY)
+                || tryMove(dungeonMap, mob, x + stepX, y)
+                || tryMove(dungeonMap, mob, x, y + stepY)) {
+            return;
+        }
+        // моб, упёршийся в игрока, остаётся на месте
+        if (gamer.getPosition().distance(x, y) < gamer.getRadius() + mobStore.getRadius(slot) + step) {
+            return;
+        }
+        double randomAngle = random.nextDouble() * 2 * Math.PI;
+        tryMove(dungeonMap, mob, x + step * Math.cos(randomAngle), y + step * Math.sin(randomAngle));
+    }
+
+    /**
+     * Переместить моба в новую позицию, если она не пересекается с игроком и объектами карты.
+     * <p>
+     * Незагруженная область карты, хранящейся по фрагментам, считается занятой: её пустые клетки могут
+     * оказаться стенами, а загрузка фрагментов вокруг каждого моба вытесняла бы фрагменты вокруг игрока.
+     *
+     * @return true если моб перемещён
+     */
+    private boolean tryMove(@NonNull DungeonMap dungeonMap, @NonNull Mob mob, double x, double y) {
+        if (gamer.getPosition().distance(x, y) < gamer.getRadius() + mob.getRadius()) {
+            return false;
+        }
+        double radius = mob.getRadius();
+        if (!dungeonMap.getStaticObjectIndex().isAreaLoaded(x - radius, y - radius, x + radius, y + radius)) {
+            return false;
+        }
+        if (collisionDetector.isInterfering(dungeonMap, mob, x, y)) {
+            return false;
+        }
+        mob.setPosition(x, y);
+        return true;
+    }
+}
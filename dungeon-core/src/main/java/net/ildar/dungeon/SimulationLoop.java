@@ -0,0 +1,86 @@
+package net.ildar.dungeon;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import net.ildar.dungeon.config.Configuration;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Цикл игровой логики с фиксированным шагом.
+ * <p>
+ * Выполняется в отдельном потоке и не зависит от частоты кадров: время, прошедшее с предыдущей итерации,
+ * накапливается и расходуется тиками фиксированной длительности. Если поток задержался,
+ * пропущенные тики выполняются подряд, поэтому медленный кадр не теряет тики.
+ * <p>
+ * За одну итерацию выполняется не больше {@link Configuration#getMaxSimulationCatchUpTicks()} тиков,
+ * остальное накопленное время отбрасывается. Иначе тики, не успевающие за реальным временем,
+ * накапливали бы всё больше отставания и цикл никогда не выходил бы из навёрстывания.
+ */
+@Log4j2
+@Singleton
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class SimulationLoop {
+    private final GameSimulation gameSimulation;
+    private final Configuration configuration;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Запустить поток игровой логики.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Остановить поток игровой логики и дождаться его завершения.
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        thread.join();
+        thread = null;
+    }
+
+    private void run() {
+        long tickNanos = 1_000_000_000L / configuration.getSimulationTickRate();
+        int maxCatchUpTicks = configuration.getMaxSimulationCatchUpTicks();
+        long previousTime = System.nanoTime();
+        // время, ещё не израсходованное тиками
+        long lag = 0;
+        while (running) {
+            long currentTime = System.nanoTime();
+            lag += currentTime - previousTime;
+            previousTime = currentTime;
+            int ticks = 0;
+            while (lag >= tickNanos && ticks < maxCatchUpTicks && running) {
+                try {
+                    gameSimulation.tick();
+                } catch (RuntimeException e) {
+                    log.error("Simulation tick failed", e);
+                }
+                lag -= tickNanos;
+                ticks++;
+            }
+            if (running && lag >= tickNanos) {
+                long droppedNanos = lag - lag % tickNanos;
+                lag -= droppedNanos;
+                log.warn("Simulation is behind, {} ms of game time dropped", droppedNanos / 1_000_000);
+            }
+            LockSupport.parkNanos(tickNanos - lag);
+        }
+    }
+}
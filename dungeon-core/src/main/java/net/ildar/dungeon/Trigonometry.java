@@ -0,0 +1,81 @@
+package net.ildar.dungeon;
+
+import net.ildar.dungeon.config.Configuration;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Табличные тригонометрические функции.
+ * <p>
+ * Значения синуса хранятся в таблице с шагом, заданным {@link Configuration#getTrigonometryTableResolution()},
+ * промежуточные значения вычисляются линейной интерполяцией.
+ */
+@Singleton
+public class Trigonometry {
+    /**
+     * Количество значений таблицы на один градус.
+     */
+    private final int resolution;
+
+    /**
+     * Значения синуса для углов от 0 до 360 градусов включительно.
+     */
+    private final double[] sinTable;
+
+    @Inject
+    public Trigonometry(Configuration configuration) {
+        this.resolution = configuration.getTrigonometryTableResolution();
+        this.sinTable = new double[360 * resolution + 2];
+        for (int i = 0; i < sinTable.length; i++) {
+            sinTable[i] = Math.sin((double) i / resolution / 180 * Math.PI);
+        }
+    }
+
+    /**
+     * Получить синус угла.
+     *
+     * @param degrees угол в градусах
+     */
+    public double sin(double degrees) {
+        double index = normalize(degrees) * resolution;
+        int lowerIndex = (int) index;
+        double fraction = index - lowerIndex;
+        return sinTable[lowerIndex] + (sinTable[lowerIndex + 1] - sinTable[lowerIndex]) * fraction;
+    }
+
+    /**
+     * Получить косинус угла.
+     *
+     * @param degrees угол в градусах
+     */
+    public double cos(double degrees) {
+        return sin(degrees + 90);
+    }
+
+    /**
+     * Получить горизонтальную составляющую единичного вектора направления.
+     *
+     * @param angle угол, отсчитываемый от северного направления по часовой стрелке.
+     */
+    public double getDirectionX(double angle) {
+        return sin(angle);
+    }
+
+    /**
+     * Получить вертикальную составляющую единичного вектора направления.
+     *
+     * @param angle угол, отсчитываемый от северного направления по часовой стрелке.
+     */
+    public double getDirectionY(double angle) {
+        return -cos(angle);
+    }
+
+    /**
+     * Привести угол к диапазону [0, 360).
+     */
+    private static double normalize(double degrees) {
+        double normalized = degrees % 360;
+        return normalized < 0 ? normalized + 360 : normalized;
+    }
+}
@@ -16,5 +16,7 @@ public class Colors {
     public static final Color MINIMAP_GAMER_COLOR = Color.GREEN;
     public static final Color MINIMAP_VIEW_SECTOR_COLOR = Color.YELLOW;
     public static final Color CROSSHAIR_COLOR = Color.RED;
+    public static final Color PROFILER_BACKGROUND_COLOR = new Color(0, 0, 0, 160);
+    public static final Color PROFILER_TEXT_COLOR = Color.WHITE;
     public static final Color TIMER_COLOR = Color.RED;
 }
@@ -105,6 +105,77 @@ public interface Configuration {
      */
     double getTracingStep();
 
+    /**
+     * Флаг трассировки лучей по клеткам сетки карты вместо пошагового продвижения луча.
+     */
+    boolean isGridTracingEnabled();
+
+    /**
+     * Количество потоков для трассировки полос рендеринга. При значении 1 трассировка выполняется в потоке рендеринга.
+     */
+    int getTracingThreadCount();
+
+    /**
+     * Флаг растеризации кадра в программный буфер вместо отрисовки полос вызовами Graphics.
+     */
+    boolean isSoftwareRenderingEnabled();
+
+    /**
+     * Количество значений в таблицах тригонометрических функций на один градус.
+     */
+    int getTrigonometryTableResolution();
+
+    /**
+     * Признак отрисовки мобильных объектов отдельным проходом проекции спрайтов, от дальних объектов к ближним.
+     * Иначе мобильные объекты каждой полосы рисуются по убыванию расстояния до точки входа в них луча полосы.
+     * В обоих случаях мобильные объекты берутся из снимка мира, а трассировщик собирает только статические объекты.
+     */
+    boolean isSpriteProjectionEnabled();
+
+    /**
+     * Количество тиков игровой логики в секунду. Не зависит от частоты кадров.
+     */
+    int getSimulationTickRate();
+
+    /**
+     * Наибольшее количество тиков игровой логики, выполняемых подряд для навёрстывания задержки потока.
+     * Время сверх этого количества тиков отбрасывается.
+     */
+    int getMaxSimulationCatchUpTicks();
+
+    /**
+     * Признак интерполяции положения игрока между двумя последними тиками игровой логики при отрисовке кадра.
+     * Иначе кадр отрисовывается по состоянию последнего тика.
+     */
+    boolean isRenderInterpolationEnabled();
+
+    /**
+     * Признак записи длительностей этапов кадра с запуска игры.
+     * Иначе запись включается вместе с отображением статистики или через JMX.
+     */
+    boolean isFrameProfilerEnabled();
+
+    /**
+     * Ширина области статистики профилировщика кадра.
+     */
+    int getFrameProfilerOverlayWidth();
+
+    /**
+     * Высота области статистики профилировщика кадра.
+     */
+    int getFrameProfilerOverlayHeight();
+
+    /**
+     * Признак активного рендеринга: кадры выводит отдельный поток через BufferStrategy холста.
+     * Иначе кадры перерисовываются по запросам repaint() в потоке событий.
+     */
+    boolean isActiveRenderingEnabled();
+
+    /**
+     * Количество оттенков в таблицах затенения базовых цветов по расстоянию.
+     */
+    int getShadingLevels();
+
     /**
      * Ширина карты при генерации.
      */
@@ -130,6 +201,53 @@ public interface Configuration {
      */
     boolean isGeneratorWallSizeRandomizing();
 
+    /**
+     * Начальное значение генератора случайных чисел для генерации карты.
+     * При значении 0 для каждой карты выбирается случайное значение.
+     */
+    long getGeneratorSeed();
+
+    /**
+     * Высота полосы карты в клетках, стены в каждой полосе генерируются независимо.
+     */
+    int getGeneratorRegionRows();
+
+    /**
+     * Признак параллельной генерации стен в полосах карты.
+     * Иначе полосы обрабатываются последовательно в вызывающем потоке.
+     */
+    boolean isGeneratorParallelismEnabled();
+
+    /**
+     * Размер квадратного фрагмента карты в клетках при сохранении карты фрагментами.
+     */
+    int getChunkSize();
+
+    /**
+     * Оценка памяти в байтах, которую могут занимать загруженные фрагменты карты.
+     */
+    long getChunkMemoryBudget();
+
+    /**
+     * Расстояние от игрока в единицах длины карты, в пределах которого фрагменты карты загружаются заранее.
+     */
+    double getChunkPrefetchDistance();
+
+    /**
+     * Оценка памяти в байтах, которую могут занимать загруженные изображения.
+     */
+    long getImageCacheMemoryBudget();
+
+    /**
+     * Оценка памяти в байтах, которую могут занимать подготовленные для отрисовки текстуры.
+     */
+    long getSpriteCacheMemoryBudget();
+
+    /**
+     * Количество потоков для параллельного декодирования изображений.
+     */
+    int getImageLoaderThreadCount();
+
     /**
      * Ширина и длина стен в единицах длина карты.
      */
@@ -150,6 +268,11 @@ public interface Configuration {
      */
     double getGamerMovingStep();
 
+    /**
+     * Длина шага моба за один тик игровой логики.
+     */
+    double getMobMovingStep();
+
     /**
      * Чувствительность в движению мыши при повороте.
      */
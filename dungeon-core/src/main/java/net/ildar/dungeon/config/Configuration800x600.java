@@ -31,15 +31,38 @@ public class Configuration800x600 implements Configuration {
     private final float timerFontSize = 40;
     private final int timerMargin = 20;
     private final double tracingStep = 0.06;
+    private final boolean gridTracingEnabled = true;
+    private final int tracingThreadCount = Runtime.getRuntime().availableProcessors();
+    private final boolean softwareRenderingEnabled = true;
+    private final int trigonometryTableResolution = 16;
+    private final boolean spriteProjectionEnabled = true;
+    private final int simulationTickRate = 50;
+    private final int maxSimulationCatchUpTicks = 5;
+    private final boolean renderInterpolationEnabled = true;
+    private final boolean frameProfilerEnabled = false;
+    private final int frameProfilerOverlayWidth = 330;
+    private final int frameProfilerOverlayHeight = 180;
+    private final boolean activeRenderingEnabled = false;
+    private final int shadingLevels = 256;
     private final double generatorMapWidth = 20;
     private final double generatorMapHeight = 20;
     private final double generatorStaticMapObjectsPercentage = 0.3;
     private final int generatorMobNumber = 10;
     private final boolean generatorWallSizeRandomizing = false;
+    private final long generatorSeed = 0;
+    private final int generatorRegionRows = 64;
+    private final boolean generatorParallelismEnabled = true;
+    private final int chunkSize = 64;
+    private final long chunkMemoryBudget = 64L * 1024 * 1024;
+    private final double chunkPrefetchDistance = 32;
+    private final long imageCacheMemoryBudget = 32L * 1024 * 1024;
+    private final long spriteCacheMemoryBudget = 32L * 1024 * 1024;
+    private final int imageLoaderThreadCount = Runtime.getRuntime().availableProcessors();
     private final double wallSize = 1;
     private final double mobSize = 0.3;
     private final double mobHeight = 0.5;
     private final double gamerMovingStep = 0.2;
+    private final double mobMovingStep = 0.04;
     private final double mouseSensitivity = 0.5;
     private final int gunSpriteHeight = 250;
     private final double gunShakeSpeed = 0.5;
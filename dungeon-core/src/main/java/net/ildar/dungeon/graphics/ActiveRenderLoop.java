@@ -0,0 +1,104 @@
+package net.ildar.dungeon.graphics;
+
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Цикл активного рендеринга.
+ * <p>
+ * Отрисовывает кадры в отдельном потоке через {@link BufferStrategy} холста и сам определяет момент вывода кадра,
+ * не дожидаясь обработки запросов перерисовки в потоке событий. Кадр перерисовывается заново,
+ * если содержимое буфера было восстановлено или потеряно во время отрисовки.
+ * <p>
+ * Разброс длительности кадров в этом режиме ещё не сравнивался с перерисовкой через {@code repaint()}:
+ * для сравнения нужен экран, поэтому режим выключен по умолчанию
+ * ({@link net.ildar.dungeon.config.Configuration#isActiveRenderingEnabled()}). Сравнение выполняется на машине
+ * с экраном по перцентилям этапа {@link net.ildar.dungeon.profiling.FrameStage#FRAME} профилировщика кадров
+ * в обоих режимах.
+ */
+@Log4j2
+public class ActiveRenderLoop {
+    /**
+     * Количество буферов стратегии вывода.
+     */
+    private static final int BUFFER_COUNT = 2;
+
+    private final Canvas canvas;
+    private final FrameComposer frameComposer;
+    private final int maxFps;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public ActiveRenderLoop(@NonNull Canvas canvas, @NonNull FrameComposer frameComposer, int maxFps) {
+        this.canvas = canvas;
+        this.frameComposer = frameComposer;
+        this.maxFps = maxFps;
+    }
+
+    /**
+     * Запустить поток рендеринга. Холст должен быть добавлен в отображаемое окно.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        canvas.createBufferStrategy(BUFFER_COUNT);
+        running = true;
+        thread = new Thread(this::run, "render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Остановить поток рендеринга и дождаться его завершения.
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        thread.join();
+        thread = null;
+    }
+
+    private void run() {
+        BufferStrategy bufferStrategy = canvas.getBufferStrategy();
+        long frameNanos = 1_000_000_000L / maxFps;
+        long nextFrameTime = System.nanoTime();
+        while (running) {
+            // ждём начала очередного кадра, пропущенные кадры не наверстываются
+            long waitNanos = nextFrameTime - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            nextFrameTime = Math.max(nextFrameTime + frameNanos, System.nanoTime());
+            try {
+                renderFrame(bufferStrategy);
+            } catch (RuntimeException e) {
+                log.error("Frame rendering failed", e);
+            }
+        }
+    }
+
+    private void renderFrame(@NonNull BufferStrategy bufferStrategy) {
+        do {
+            do {
+                Graphics g = bufferStrategy.getDrawGraphics();
+                try {
+                    g.setClip(0, 0, canvas.getWidth(), canvas.getHeight());
+                    frameComposer.compose(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (bufferStrategy.contentsRestored());
+            bufferStrategy.show();
+            Toolkit.getDefaultToolkit().sync();
+        } while (bufferStrategy.contentsLost());
+    }
+}
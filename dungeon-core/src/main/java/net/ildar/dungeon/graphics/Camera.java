@@ -0,0 +1,186 @@
+package net.ildar.dungeon.graphics;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.map.Gamer;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.WorldSnapshot;
+import net.ildar.dungeon.provider.MapProvider;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Камера, через которую отрисовывается кадр.
+ * <p>
+ * Запоминает положение игрока на двух последних тиках игровой логики и при отрисовке кадра
+ * интерполирует между ними по времени, прошедшему с последнего тика. Мобильные объекты интерполируются
+ * так же между позициями из двух последних снимков мира.
+ * Положение камеры и снимок мира фиксируются в начале кадра, чтобы все рендереры кадра видели
+ * одно и то же состояние.
+ */
+@Singleton
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class Camera {
+    private final Gamer gamer;
+    private final Configuration configuration;
+    private final MapProvider mapProvider;
+
+    /**
+     * Состояния игрока на двух последних тиках. Заменяется целиком, пустое до первого тика.
+     */
+    private volatile TickStates tickStates;
+
+    /**
+     * Признак того, что игрок перемещён скачком и интерполировать до следующего тика не нужно.
+     */
+    private volatile boolean resetRequested;
+
+    /**
+     * Положение камеры в текущем кадре.
+     */
+    private Position position;
+
+    /**
+     * Угол взгляда камеры в текущем кадре.
+     */
+    private double viewAngle;
+
+    /**
+     * Снимок мира текущего кадра.
+     */
+    private WorldSnapshot worldSnapshot;
+
+    /**
+     * Доля пути мобильных объектов от позиций в предыдущем снимке к позициям в {@link #worldSnapshot}.
+     */
+    private double objectInterpolationFactor;
+
+    /**
+     * Запомнить состояние игрока по окончании тика игровой логики.
+     */
+    public void update() {
+        GamerState current = new GamerState(gamer.getPosition(), gamer.getViewAngle());
+        TickStates previousStates = tickStates;
+        GamerState previous = previousStates == null || resetRequested ? current : previousStates.getCurrent();
+        resetRequested = false;
+        tickStates = new TickStates(previous, current, System.nanoTime());
+    }
+
+    /**
+     * Отменить интерполяцию до следующего тика, например после телепортации игрока.
+     */
+    public void reset() {
+        resetRequested = true;
+    }
+
+    /**
+     * Зафиксировать положение камеры для отрисовки очередного кадра.
+     */
+    public void beginFrame() {
+        worldSnapshot = mapProvider.getWorldSnapshot();
+        objectInterpolationFactor = getInterpolationFactor(worldSnapshot.getTickTime());
+        TickStates states = tickStates;
+        if (states == null) {
+            position = gamer.getPosition();
+            viewAngle = gamer.getViewAngle();
+            return;
+        }
+        double alpha = getInterpolationFactor(states.getTickTime());
+        GamerState previous = states.getPrevious();
+        GamerState current = states.getCurrent();
+        position = new Position(
+                previous.getPosition().getX() + (current.getPosition().getX() - previous.getPosition().getX()) * alpha,
+                previous.getPosition().getY() + (current.getPosition().getY() - previous.getPosition().getY()) * alpha);
+        // поворот интерполируется по кратчайшей дуге
+        double turn = current.getViewAngle() - previous.getViewAngle();
+        if (turn > 180) {
+            turn -= 360;
+        } else if (turn < -180) {
+            turn += 360;
+        }
+        viewAngle = previous.getViewAngle() + turn * alpha;
+        if (viewAngle < 0) {
+            viewAngle += 360;
+        } else if (viewAngle >= 360) {
+            viewAngle -= 360;
+        }
+    }
+
+    /**
+     * Получить положение камеры в текущем кадре.
+     */
+    @NonNull
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * Получить угол взгляда камеры в текущем кадре.
+     */
+    public double getViewAngle() {
+        return viewAngle;
+    }
+
+    /**
+     * Получить снимок мира текущего кадра.
+     */
+    @NonNull
+    public WorldSnapshot getWorldSnapshot() {
+        return worldSnapshot;
+    }
+
+    /**
+     * Получить координату мобильного объекта снимка мира по горизонтали в текущем кадре.
+     *
+     * @param i номер объекта в {@link #getWorldSnapshot()}
+     */
+    public double getObjectX(int i) {
+        return worldSnapshot.getX(i, objectInterpolationFactor);
+    }
+
+    /**
+     * Получить координату мобильного объекта снимка мира по вертикали в текущем кадре.
+     *
+     * @param i номер объекта в {@link #getWorldSnapshot()}
+     */
+    public double getObjectY(int i) {
+        return worldSnapshot.getY(i, objectInterpolationFactor);
+    }
+
+    /**
+     * Получить долю времени тика, прошедшую с указанного момента окончания тика.
+     *
+     * @param tickTime время окончания тика по {@link System#nanoTime()}
+     * @return значение от 0 до 1, 1 если интерполяция отключена
+     */
+    private double getInterpolationFactor(long tickTime) {
+        if (!configuration.isRenderInterpolationEnabled()) {
+            return 1;
+        }
+        double tickNanos = 1E9 / configuration.getSimulationTickRate();
+        return Math.min(Math.max((System.nanoTime() - tickTime) / tickNanos, 0), 1);
+    }
+
+    @Value
+    private static class GamerState {
+        @NonNull
+        Position position;
+        double viewAngle;
+    }
+
+    @Value
+    private static class TickStates {
+        @NonNull
+        GamerState previous;
+        @NonNull
+        GamerState current;
+
+        /**
+         * Время окончания последнего тика по {@link System#nanoTime()}.
+         */
+        long tickTime;
+    }
+}
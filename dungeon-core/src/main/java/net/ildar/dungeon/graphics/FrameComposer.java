@@ -0,0 +1,127 @@
+package net.ildar.dungeon.graphics;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import net.ildar.dungeon.GameTimer;
+import net.ildar.dungeon.MobKiller;
+import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.graphics.rendering.FrameProfilerRenderer;
+import net.ildar.dungeon.graphics.rendering.GameRenderer;
+import net.ildar.dungeon.graphics.rendering.GameTimerRenderer;
+import net.ildar.dungeon.graphics.rendering.GunRenderer;
+import net.ildar.dungeon.graphics.rendering.MinimapRenderer;
+import net.ildar.dungeon.profiling.FrameProfiler;
+import net.ildar.dungeon.profiling.FrameStage;
+
+import javax.inject.Inject;
+import java.awt.*;
+import java.time.Duration;
+
+/**
+ * Компоновщик кадра игры.
+ * <p>
+ * Отрисовывает 3д-вид, миникарту, оружие, таймер и статистику профилировщика в области размером с игровое окно.
+ * Не зависит от окна, поэтому кадр можно отрисовать как на экране, так и в изображении.
+ */
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class FrameComposer {
+    private final Camera camera;
+    private final GameRenderer gameRenderer;
+    private final MinimapRenderer minimapRenderer;
+    private final GunRenderer gunRenderer;
+    private final GameTimerRenderer gameTimerRenderer;
+    private final FrameProfilerRenderer frameProfilerRenderer;
+    private final FrameProfiler frameProfiler;
+    private final MobKiller mobKiller;
+    private final GameTimer gameTimer;
+    private final Configuration configuration;
+
+    /**
+     * Время начала предыдущего кадра или 0 если профилировщик его не записывал.
+     */
+    private long previousFrameStart;
+
+    /**
+     * Начать заблаговременную загрузку текстур кадра.
+     */
+    public void preloadSprites() {
+        gameRenderer.preloadSprites();
+    }
+
+    /**
+     * Освободить потоки, занятые отрисовкой кадров. Вызывается из потока отрисовки после последнего кадра.
+     */
+    public void close() {
+        gameRenderer.close();
+    }
+
+    /**
+     * Отрисовать кадр игры.
+     *
+     * @param g графический контекст области размером с игровое окно
+     */
+    public void compose(@NonNull Graphics g) {
+        long frameStart = frameProfiler.start();
+        frameProfiler.record(FrameStage.FRAME, previousFrameStart);
+        previousFrameStart = frameStart;
+
+        camera.beginFrame();
+        gameRenderer.render(g);
+
+        long start = frameProfiler.start();
+        minimapRenderer.render(g.create(0, 0, configuration.getMinimapWidth(), configuration.getMinimapHeight()));
+        frameProfiler.record(FrameStage.MINIMAP, start);
+
+        start = frameProfiler.start();
+        int gunPositionX = configuration.getWindowWidth() * 3 / 5;
+        int gunPositionY = configuration.getWindowHeight() - configuration.getGunSpriteHeight();
+        gunRenderer.render(g.create(
+                gunPositionX,
+                gunPositionY,
+                configuration.getWindowWidth() - gunPositionX,
+                configuration.getGunSpriteHeight()));
+        frameProfiler.record(FrameStage.GUN, start);
+
+        start = frameProfiler.start();
+        if (mobKiller.allMobsAreDead()) {
+            renderVictoryMessage(g);
+        } else {
+            gameTimerRenderer.render(g.create(
+                    (int) (configuration.getWindowWidth() - configuration.getTimerWidth()),
+                    0,
+                    (int) configuration.getTimerWidth(),
+                    (int) configuration.getTimerHeight()
+            ));
+        }
+        frameProfiler.record(FrameStage.HUD, start);
+
+        if (frameProfiler.isOverlayVisible()) {
+            frameProfilerRenderer.render(g.create(
+                    0,
+                    configuration.getMinimapHeight(),
+                    configuration.getFrameProfilerOverlayWidth(),
+                    configuration.getFrameProfilerOverlayHeight()));
+        }
+    }
+
+    private void renderVictoryMessage(@NonNull Graphics g) {
+        g.setColor(Color.GREEN);
+        g.setFont(Font.decode("SansSerif").deriveFont(50f));
+        @NonNull Duration elapsedTime = gameTimer.getElapsedTime();
+        int lineHeight = g.getFontMetrics().getHeight();
+        int textPositionY = configuration.getWindowHeight() / 2;
+        String resultMessage = String.format("Твой результат: %.2f секунд!",
+                elapsedTime.getSeconds() + elapsedTime.getNano() / 1E9);
+        int lineWidth = g.getFontMetrics().stringWidth(resultMessage);
+        g.drawString(resultMessage,
+                configuration.getWindowWidth() / 2 - lineWidth / 2,
+                textPositionY);
+        textPositionY += lineHeight;
+        g.setFont(g.getFont().deriveFont(20f));
+        String whatNextMessage = "Нажми R если хочешь повторить еще раз";
+        lineWidth = g.getFontMetrics().stringWidth(whatNextMessage);
+        g.drawString(whatNextMessage,
+                configuration.getWindowWidth() / 2 - lineWidth / 2,
+                textPositionY);
+    }
+}
@@ -1,73 +1,52 @@
 package net.ildar.dungeon.graphics;
 
-import lombok.NonNull;
-import net.ildar.dungeon.GameTimer;
-import net.ildar.dungeon.MobKiller;
+import net.ildar.dungeon.GameSimulation;
+import net.ildar.dungeon.SimulationLoop;
 import net.ildar.dungeon.config.Configuration;
-import net.ildar.dungeon.graphics.rendering.GameRenderer;
-import net.ildar.dungeon.graphics.rendering.GameTimerRenderer;
-import net.ildar.dungeon.graphics.rendering.GunRenderer;
-import net.ildar.dungeon.graphics.rendering.MinimapRenderer;
-import net.ildar.dungeon.graphics.rendering.Renderer;
+import net.ildar.dungeon.graphics.rendering.ImageCache;
 import net.ildar.dungeon.input.GameMouseListener;
-import net.ildar.dungeon.input.GamerMover;
-import net.ildar.dungeon.input.GunShooter;
-import net.ildar.dungeon.input.InputKey;
 import net.ildar.dungeon.input.KeyboardListener;
 import net.ildar.dungeon.input.MouseObserver;
-import net.ildar.dungeon.provider.MapProvider;
+import net.ildar.dungeon.profiling.FrameProfiler;
 
 import javax.inject.Inject;
 import javax.swing.*;
 import java.awt.*;
-import java.time.Duration;
 
 /**
  * Игровое окно.
  */
 public class GameWindow extends JFrame {
 
-    private final Renderer gameRenderer;
-    private final Renderer minimapRenderer;
-    private final Renderer gunRenderer;
+    private final FrameComposer frameComposer;
 
     private final KeyboardListener keyboardListener;
     private final GameMouseListener mouseListener;
     private final MouseObserver mouseObserver;
-    private final GamerMover gamerMover;
-    private final GunShooter gunShooter;
-    private final MobKiller mobKiller;
-    private final GameTimer gameTimer;
-    private final GameTimerRenderer gameTimerRenderer;
+    private final GameSimulation gameSimulation;
+    private final SimulationLoop simulationLoop;
+    private final FrameProfiler frameProfiler;
+    private final ImageCache imageCache;
     private final Configuration configuration;
-    private final MapProvider mapProvider;
 
     @Inject
-    public GameWindow(GameRenderer gameRenderer,
-                      MinimapRenderer minimapRenderer,
-                      GunRenderer gunRenderer,
+    public GameWindow(FrameComposer frameComposer,
                       KeyboardListener keyboardListener,
                       GameMouseListener mouseListener,
-                      GamerMover gamerMover,
-                      GunShooter gunShooter,
-                      MobKiller mobKiller,
-                      GameTimer gameTimer,
-                      GameTimerRenderer gameTimerRenderer,
-                      Configuration configuration,
-                      MapProvider mapProvider) {
-        this.gameRenderer = gameRenderer;
-        this.minimapRenderer = minimapRenderer;
-        this.gunRenderer = gunRenderer;
+                      GameSimulation gameSimulation,
+                      SimulationLoop simulationLoop,
+                      FrameProfiler frameProfiler,
+                      ImageCache imageCache,
+                      Configuration configuration) {
+        this.frameComposer = frameComposer;
         this.keyboardListener = keyboardListener;
         this.mouseListener = mouseListener;
         this.mouseObserver = new MouseObserver(this);
-        this.gamerMover = gamerMover;
-        this.gunShooter = gunShooter;
-        this.mobKiller = mobKiller;
-        this.gameTimer = gameTimer;
-        this.gameTimerRenderer = gameTimerRenderer;
+        this.gameSimulation = gameSimulation;
+        this.simulationLoop = simulationLoop;
+        this.frameProfiler = frameProfiler;
+        this.imageCache = imageCache;
         this.configuration = configuration;
-        this.mapProvider = mapProvider;
         init();
     }
 
@@ -79,8 +58,15 @@ public class GameWindow extends JFrame {
         // важно знать статус фокусировки на игровом окне, соответственно настраиваем игровое окно
         setFocusable(true);
         setFocusTraversalKeysEnabled(false);
-        // Добавляем на окно JPanel, рисовать все будем в нем. только так мы получим двойную буферизацию кадров.
-        add(new GamePanel());
+        GameCanvas gameCanvas = null;
+        if (configuration.isActiveRenderingEnabled()) {
+            // при активном рендеринге рисуем на холсте, кадры выводит отдельный поток
+            gameCanvas = new GameCanvas();
+            add(gameCanvas);
+        } else {
+            // Добавляем на окно JPanel, рисовать все будем в нем. только так мы получим двойную буферизацию кадров.
+            add(new GamePanel());
+        }
         // устанавливаем оптимальный размер игрового окна
         pack();
         // при закрытии окна весь процесс игры должен завершиться
@@ -90,37 +76,27 @@ public class GameWindow extends JFrame {
         // настраиваем слушатель глобальных событий мыши
         this.mouseObserver.addMouseMotionListener(mouseListener);
         this.mouseObserver.start();
+        // открываем статистику профилировщика кадра для JMX
+        frameProfiler.registerMBean();
+        imageCache.registerMBean();
+        // начинаем параллельную загрузку текстур, пока создаётся окно и генерируется карта
+        frameComposer.preloadSprites();
 
-        // создаём таймер для отрисовки кадров игры
-        Timer drawTimer = new Timer(1000 / configuration.getMaxFps(), e -> {
-            if (mouseListener.isLeftMouseClicked()) {
-                gunShooter.shoot();
-            } else {
-                gunShooter.update();
-            }
-            keyboardListener.getPressedKeys().forEach(gamerMover::move);
-            keyboardListener.getTypedKeys().forEach(inputKey -> {
-                if (inputKey == InputKey.SHOOT) {
-                    gunShooter.shoot();
-                } else if (inputKey == InputKey.RESET) {
-                    mapProvider.regenerateMap();
-                    gameTimer.reset();
-                    gamerMover.random();
-                }
-            });
-            gamerMover.turn(mouseListener.getDiff());
-            mobKiller.updateKilledMobStates();
-            if (mobKiller.allMobsAreDead()) {
-                gameTimer.stop();
-            }
-            repaint();
-        });
-        drawTimer.start();
+        // перемещаем игрока на случайную позицию карты, стартуем таймер и игровую логику.
+        // Карта создаётся и первый снимок мира публикуется до запуска отрисовки,
+        // поэтому рендереры не застают карту несозданной
+        gameSimulation.start();
+        simulationLoop.start();
 
-        // перемещаем игрока на случайную позицию карты.
-        gamerMover.random();
-        // стартуем таймер
-        gameTimer.reset();
+        if (gameCanvas != null) {
+            // щелчки мыши приходят холсту, а не окну
+            gameCanvas.addMouseListener(mouseObserver);
+            new ActiveRenderLoop(gameCanvas, frameComposer, configuration.getMaxFps()).start();
+        } else {
+            // создаём таймер для отрисовки кадров игры, игровая логика выполняется в отдельном потоке
+            Timer drawTimer = new Timer(1000 / configuration.getMaxFps(), e -> repaint());
+            drawTimer.start();
+        }
     }
 
     /**
@@ -134,48 +110,21 @@ public class GameWindow extends JFrame {
         @Override
         public void paintComponent(Graphics g) {
             super.paintComponent(g);
-
-            gameRenderer.render(g);
-            minimapRenderer.render(g.create(0, 0, configuration.getMinimapWidth(), configuration.getMinimapHeight()));
-            int gunPositionX = configuration.getWindowWidth() * 3 / 5;
-            int gunPositionY = configuration.getWindowHeight() - configuration.getGunSpriteHeight();
-            gunRenderer.render(g.create(
-                    gunPositionX,
-                    gunPositionY,
-                    configuration.getWindowWidth() - gunPositionX,
-                    configuration.getGunSpriteHeight()));
-            if (mobKiller.allMobsAreDead()) {
-                renderVictoryMessage(g);
-            } else {
-                gameTimerRenderer.render(g.create(
-                        (int) (configuration.getWindowWidth() - configuration.getTimerWidth()),
-                        0,
-                        (int) configuration.getTimerWidth(),
-                        (int) configuration.getTimerHeight()
-                ));
-            }
+            frameComposer.compose(g);
             Toolkit.getDefaultToolkit().sync();
         }
+    }
 
-        private void renderVictoryMessage(Graphics g) {
-            g.setColor(Color.GREEN);
-            g.setFont(Font.decode("SansSerif").deriveFont(50f));
-            @NonNull Duration elapsedTime = gameTimer.getElapsedTime();
-            int lineHeight = g.getFontMetrics().getHeight();
-            int textPositionY = configuration.getWindowHeight() / 2;
-            String resultMessage = String.format("Твой результат: %.2f секунд!",
-                    elapsedTime.getSeconds() + elapsedTime.getNano() / 1E9);
-            int lineWidth = g.getFontMetrics().stringWidth(resultMessage);
-            g.drawString(resultMessage,
-                    configuration.getWindowWidth() / 2 - lineWidth / 2,
-                    textPositionY);
-            textPositionY += lineHeight;
-            g.setFont(g.getFont().deriveFont(20f));
-            String whatNextMessage = "Нажми R если хочешь повторить еще раз";
-            lineWidth = g.getFontMetrics().stringWidth(whatNextMessage);
-            g.drawString(whatNextMessage,
-                    configuration.getWindowWidth() / 2 - lineWidth / 2,
-                    textPositionY);
+    /**
+     * Холст для активного рендеринга игры.
+     */
+    private class GameCanvas extends Canvas {
+        GameCanvas() {
+            setPreferredSize(new Dimension(configuration.getWindowWidth(), configuration.getWindowHeight()));
+            // кадры выводит поток рендеринга, системные запросы перерисовки не нужны
+            setIgnoreRepaint(true);
+            // фокус остаётся у окна, которое слушает клавиатуру
+            setFocusable(false);
         }
     }
 }
@@ -0,0 +1,221 @@
+package net.ildar.dungeon.graphics;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import net.ildar.dungeon.GameSimulation;
+import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.graphics.rendering.ImageCache;
+import net.ildar.dungeon.graphics.rendering.SpriteCache;
+import net.ildar.dungeon.input.GamerMover;
+import net.ildar.dungeon.profiling.FrameProfiler;
+import net.ildar.dungeon.profiling.StageStatistics;
+
+import javax.imageio.ImageIO;
+import javax.inject.Inject;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Игровой цикл без окна.
+ * <p>
+ * Отрисовывает кадры игры в изображение вне экрана с фиксированной частотой тиков. Вместо ввода игрока
+ * на каждом тике игрок поворачивается на заданный угол, поэтому кадры меняются от тика к тику.
+ */
+@Log4j2
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class HeadlessGameLoop {
+    private final FrameComposer frameComposer;
+    private final GameSimulation gameSimulation;
+    private final GamerMover gamerMover;
+    private final FrameProfiler frameProfiler;
+    private final ImageCache imageCache;
+    private final SpriteCache spriteCache;
+    private final Configuration configuration;
+
+    /**
+     * Запустить игровой цикл.
+     *
+     * @param settings параметры запуска
+     * @return статистика отрисованных кадров
+     */
+    @NonNull
+    public Statistics run(@NonNull Settings settings) {
+        BufferedImage image = new BufferedImage(
+                configuration.getWindowWidth(),
+                configuration.getWindowHeight(),
+                BufferedImage.TYPE_INT_RGB);
+        settings.getFrameDumpDirectory().ifPresent(HeadlessGameLoop::createDirectories);
+        frameProfiler.registerMBean();
+        imageCache.registerMBean();
+        frameComposer.preloadSprites();
+        if (settings.isFrameProfilerEnabled()) {
+            frameProfiler.reset();
+            frameProfiler.setEnabled(true);
+        }
+
+        // перемещаем игрока на случайную позицию карты и стартуем таймер
+        gameSimulation.start();
+
+        long tickNanos = settings.getTickRate() > 0 ? 1_000_000_000L / settings.getTickRate() : 0;
+        long startTime = System.nanoTime();
+        long nextTickTime = startTime;
+        long totalFrameNanos = 0;
+        long maxFrameNanos = 0;
+        for (int frame = 0; frame < settings.getFrameCount(); frame++) {
+            if (tickNanos > 0) {
+                // ждём начала очередного тика, пропущенные тики не наверстываются
+                long waitNanos = nextTickTime - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+                nextTickTime = Math.max(nextTickTime + tickNanos, System.nanoTime());
+            }
+            gamerMover.turn(settings.getTurnPerTick());
+            gameSimulation.tick();
+
+            long frameStartTime = System.nanoTime();
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setClip(0, 0, image.getWidth(), image.getHeight());
+                g.clearRect(0, 0, image.getWidth(), image.getHeight());
+                frameComposer.compose(g);
+            } finally {
+                g.dispose();
+            }
+            long frameNanos = System.nanoTime() - frameStartTime;
+            totalFrameNanos += frameNanos;
+            maxFrameNanos = Math.max(maxFrameNanos, frameNanos);
+
+            if (settings.getFrameDumpDirectory().isPresent() && frame % settings.getFrameDumpInterval() == 0) {
+                dumpFrame(image, settings.getFrameDumpDirectory().get(), frame);
+            }
+        }
+        Duration elapsedTime = Duration.ofNanos(System.nanoTime() - startTime);
+        frameComposer.close();
+
+        int frameCount = settings.getFrameCount();
+        Statistics statistics = new Statistics(
+                frameCount,
+                elapsedTime,
+                frameCount / (elapsedTime.toNanos() / 1E9),
+                frameCount > 0 ? totalFrameNanos / 1E6 / frameCount : 0,
+                maxFrameNanos / 1E6);
+        log.info("Rendered {} frames in {} ms: {} fps, average frame time {} ms, max frame time {} ms",
+                statistics.getFrameCount(),
+                statistics.getElapsedTime().toMillis(),
+                String.format("%.1f", statistics.getFramesPerSecond()),
+                String.format("%.2f", statistics.getAverageFrameMillis()),
+                String.format("%.2f", statistics.getMaxFrameMillis()));
+        log.info("Loaded {} images, average load time {} ms, max load time {} ms, "
+                        + "image cache hit rate {}, sprite cache hit rate {}",
+                imageCache.getLoadCount(),
+                String.format("%.2f", imageCache.getAverageLoadMillis()),
+                String.format("%.2f", imageCache.getMaxLoadMillis()),
+                String.format("%.3f", imageCache.getHitRate()),
+                String.format("%.3f", spriteCache.getHitRate()));
+        if (frameProfiler.isEnabled()) {
+            for (StageStatistics stageStatistics : frameProfiler.getStageStatistics()) {
+                log.info("Stage {}: {} samples, p50 {} ms, p95 {} ms, p99 {} ms, max {} ms",
+                        stageStatistics.getStage(),
+                        stageStatistics.getCount(),
+                        String.format("%.3f", stageStatistics.getP50()),
+                        String.format("%.3f", stageStatistics.getP95()),
+                        String.format("%.3f", stageStatistics.getP99()),
+                        String.format("%.3f", stageStatistics.getMax()));
+            }
+        }
+        return statistics;
+    }
+
+    private static void createDirectories(@NonNull Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create frame dump directory " + directory, e);
+        }
+    }
+
+    private static void dumpFrame(@NonNull BufferedImage image, @NonNull Path directory, int frame) {
+        Path file = directory.resolve(String.format("frame-%06d.png", frame));
+        try {
+            ImageIO.write(image, "png", file.toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to dump frame to " + file, e);
+        }
+    }
+
+    /**
+     * Параметры запуска игрового цикла.
+     */
+    @Value
+    public static class Settings {
+        /**
+         * Количество отрисовываемых кадров.
+         */
+        int frameCount;
+
+        /**
+         * Количество тиков в секунду. Если не больше нуля, кадры отрисовываются без ожидания.
+         */
+        int tickRate;
+
+        /**
+         * Поворот игрока за тик в пикселях смещения мыши.
+         */
+        int turnPerTick;
+
+        /**
+         * Каталог для сохранения кадров. Пустой Optional если кадры не сохраняются.
+         */
+        @NonNull
+        Optional<Path> frameDumpDirectory;
+
+        /**
+         * Сохраняется каждый кадр с номером, кратным этому значению.
+         */
+        int frameDumpInterval;
+
+        /**
+         * Признак записи длительностей этапов кадра профилировщиком.
+         */
+        boolean frameProfilerEnabled;
+    }
+
+    /**
+     * Статистика отрисованных кадров.
+     */
+    @Value
+    public static class Statistics {
+        int frameCount;
+
+        /**
+         * Время работы цикла, включая ожидание тиков.
+         */
+        @NonNull
+        Duration elapsedTime;
+
+        /**
+         * Достигнутая частота кадров.
+         */
+        double framesPerSecond;
+
+        /**
+         * Среднее время отрисовки кадра.
+         */
+        double averageFrameMillis;
+
+        /**
+         * Наибольшее время отрисовки кадра.
+         */
+        double maxFrameMillis;
+    }
+}
@@ -0,0 +1,117 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Программный буфер кадра. Пиксели записываются напрямую в массив {@link DataBufferInt} изображения,
+ * готовый кадр выводится на экран одним вызовом {@link java.awt.Graphics#drawImage}.
+ */
+public class FrameBuffer {
+    /**
+     * Изображение кадра.
+     */
+    @Getter
+    private final BufferedImage image;
+
+    /**
+     * Пиксели изображения кадра в формате RGB, построчно.
+     */
+    private final int[] pixels;
+
+    @Getter
+    private final int width;
+
+    @Getter
+    private final int height;
+
+    public FrameBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Закрасить прямоугольную область полосы рендеринга одним цветом.
+     *
+     * @param x           левый край полосы
+     * @param columnWidth ширина полосы
+     * @param fromY       верхняя граница области, включительно
+     * @param toY         нижняя граница области, не включительно
+     * @param rgb         цвет
+     */
+    public void fillColumn(int x, int columnWidth, int fromY, int toY, int rgb) {
+        int fromX = Math.max(x, 0);
+        int toX = Math.min(x + columnWidth, width);
+        fromY = Math.max(fromY, 0);
+        toY = Math.min(toY, height);
+        for (int y = fromY; y < toY; y++) {
+            int offset = y * width;
+            for (int px = fromX; px < toX; px++) {
+                pixels[offset + px] = rgb;
+            }
+        }
+    }
+
+    /**
+     * Скопировать пиксели другого буфера того же размера.
+     *
+     * @param source исходный буфер
+     */
+    public void copyFrom(@NonNull FrameBuffer source) {
+        System.arraycopy(source.pixels, 0, pixels, 0, Math.min(source.pixels.length, pixels.length));
+    }
+
+    /**
+     * Нарисовать часть текстуры, растянув её на полосу рендеринга.
+     * <p>
+     * Прозрачные пиксели текстуры пропускаются, полупрозрачные смешиваются с содержимым буфера.
+     *
+     * @param sprite       уровень детализации текстуры
+     * @param spriteFromX  левый край части текстуры, включительно
+     * @param spriteToX    правый край части текстуры, не включительно
+     * @param spriteHeight высота части текстуры, отсчитываемая от верхнего края
+     * @param x            левый край полосы
+     * @param columnWidth  ширина полосы
+     * @param fromY        верхняя граница отрисовки, включительно
+     * @param toY          нижняя граница отрисовки, не включительно
+     */
+    public void drawSpriteColumn(@NonNull Sprite.Level sprite,
+                                 int spriteFromX, int spriteToX, int spriteHeight,
+                                 int x, int columnWidth, int fromY, int toY) {
+        if (toY <= fromY || spriteToX <= spriteFromX || spriteHeight <= 0) {
+            return;
+        }
+        int spriteWidth = spriteToX - spriteFromX;
+        int drawHeight = toY - fromY;
+        for (int px = Math.max(x, 0); px < Math.min(x + columnWidth, width); px++) {
+            int[] source = sprite.getColumn(spriteFromX + (px - x) * spriteWidth / columnWidth);
+            for (int y = Math.max(fromY, 0); y < Math.min(toY, height); y++) {
+                int argb = source[(y - fromY) * spriteHeight / drawHeight];
+                int alpha = argb >>> 24;
+                int offset = y * width + px;
+                if (alpha == 0xFF) {
+                    pixels[offset] = argb & 0xFFFFFF;
+                } else if (alpha != 0) {
+                    pixels[offset] = interpolate(pixels[offset], argb, alpha / 255.);
+                }
+            }
+        }
+    }
+
+    /**
+     * Смешать два цвета RGB.
+     *
+     * @param factor доля второго цвета, от 0 до 1
+     */
+    private static int interpolate(int rgb1, int rgb2, double factor) {
+        int r = (int) (((rgb1 >> 16) & 0xFF) * (1 - factor) + ((rgb2 >> 16) & 0xFF) * factor);
+        int g = (int) (((rgb1 >> 8) & 0xFF) * (1 - factor) + ((rgb2 >> 8) & 0xFF) * factor);
+        int b = (int) ((rgb1 & 0xFF) * (1 - factor) + (rgb2 & 0xFF) * factor);
+        return (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,41 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import net.ildar.dungeon.config.Colors;
+import net.ildar.dungeon.profiling.FrameProfiler;
+import net.ildar.dungeon.profiling.StageStatistics;
+
+import javax.inject.Inject;
+import java.awt.*;
+
+/**
+ * Рендерер статистики профилировщика кадра.
+ */
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class FrameProfilerRenderer implements Renderer {
+    private final FrameProfiler frameProfiler;
+
+    @Override
+    public void render(@NonNull Graphics g) {
+        int width = (int) g.getClipBounds().getWidth();
+        int height = (int) g.getClipBounds().getHeight();
+
+        g.setColor(Colors.PROFILER_BACKGROUND_COLOR);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Colors.PROFILER_TEXT_COLOR);
+        g.setFont(Font.decode(Font.MONOSPACED).deriveFont(12f));
+        int lineHeight = g.getFontMetrics().getHeight();
+        int y = lineHeight;
+        g.drawString(String.format("%-8s %7s %7s %7s %7s", "ms", "p50", "p95", "p99", "max"), 5, y);
+        for (StageStatistics statistics : frameProfiler.getStageStatistics()) {
+            y += lineHeight;
+            g.drawString(String.format("%-8s %7.2f %7.2f %7.2f %7.2f",
+                    statistics.getStage(),
+                    statistics.getP50(),
+                    statistics.getP95(),
+                    statistics.getP99(),
+                    statistics.getMax()), 5, y);
+        }
+    }
+}
@@ -2,92 +2,145 @@ package net.ildar.dungeon.graphics.rendering;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.log4j.Log4j2;
+import net.ildar.dungeon.Trigonometry;
 import net.ildar.dungeon.config.Colors;
 import net.ildar.dungeon.config.Configuration;
-import net.ildar.dungeon.graphics.tracing.InterceptedMovableObject;
+import net.ildar.dungeon.graphics.Camera;
 import net.ildar.dungeon.graphics.tracing.RayTracer;
 import net.ildar.dungeon.graphics.tracing.TraceResult;
-import net.ildar.dungeon.map.Gamer;
+import net.ildar.dungeon.graphics.tracing.ViewRays;
 import net.ildar.dungeon.map.Mob;
-import net.ildar.dungeon.map.MovableMapObject;
 import net.ildar.dungeon.map.Position;
 import net.ildar.dungeon.map.Wall;
+import net.ildar.dungeon.map.WorldSnapshot;
+import net.ildar.dungeon.profiling.FrameProfiler;
+import net.ildar.dungeon.profiling.FrameStage;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.util.Collections;
+import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 
 /**
  * Главный рендерер игры для отображения 3д-объектов на экране.
  */
 @Log4j2
+@Singleton
 @RequiredArgsConstructor(onConstructor_ = {@Inject})
-public class GameRenderer implements Renderer {
-    /**
-     * Загруженные текстуры мобов.
-     */
-    @NonNull
-    private static final Map<String, BufferedImage> cachedMobSprites = new HashMap<>();
-    
-    private final Gamer gamer;
+public class GameRenderer implements Renderer, Closeable {
+    private static final String UNKNOWN_MOB_SPRITE_PATH = "mob/unknownMob.png";
+    private static final String ALIVE_MOB_SPRITE_PATH = "mob/virus.png";
+    private static final String KILLED_MOB_SPRITE_PATH = "mob/virus_killed.png";
+
+    private final Camera camera;
     private final RayTracer rayTracer;
     private final Configuration configuration;
-    private final ImageResourceLoader imageResourceLoader;
+    private final SpriteCache spriteCache;
+    private final Trigonometry trigonometry;
+    private final ShadingPalette shadingPalette;
+    private final FrameProfiler frameProfiler;
+
+    /**
+     * Лучи трассировки полос рендеринга текущего кадра.
+     */
+    private ViewRays viewRays;
+
+    /**
+     * Пул потоков для параллельной трассировки полос рендеринга. Создаётся при первой отрисовке,
+     * останавливается {@link #close()}.
+     */
+    private ForkJoinPool tracingPool;
+
+    /**
+     * Программный буфер кадра. Пересоздаётся при изменении размеров области рендеринга.
+     */
+    private FrameBuffer frameBuffer;
+
+    /**
+     * Заранее отрисованные небо и пол. Пересоздаются при изменении размеров области рендеринга.
+     */
+    private FrameBuffer background;
+
+    /**
+     * Начать параллельную загрузку текстур мобов, чтобы первые кадры не ждали их декодирования.
+     */
+    public void preloadSprites() {
+        spriteCache.preload(List.of(UNKNOWN_MOB_SPRITE_PATH, ALIVE_MOB_SPRITE_PATH, KILLED_MOB_SPRITE_PATH));
+    }
 
     @Override
     public void render(@NonNull Graphics g) {
         int width = (int) g.getClipBounds().getWidth();
         int height = (int) g.getClipBounds().getHeight();
 
-        for (int x = 0; x < width; x += configuration.getViewColumnWidth()) {
-            // производим трассировку
-            double tracingAngle = gamer.getViewAngle() - configuration.getFov() / 2.0 + ((double) x) / width * configuration.getFov();
-            TraceResult traceResult = rayTracer.trace(gamer.getPosition(), tracingAngle);
+        // производим трассировку всех полос рендеринга кадра
+        long start = frameProfiler.start();
+        TraceResult[] traceResults = traceColumns(width);
+        frameProfiler.record(FrameStage.TRACE, start);
 
-            // если на пути луча трассировки ничего не обнаружено, рисуем небо и пол и переходим к следующей трассировке
-            if (traceResult.getDistance() >= configuration.getViewDistance()) {
-                g.setColor(Colors.SKY_COLOR);
-                g.fillRect(x, 0, configuration.getViewColumnWidth(), height / 2);
-                renderFloor(g, x, height / 2);
-                continue;
+        if (configuration.isSoftwareRenderingEnabled()) {
+            // растеризуем кадр в программный буфер и выводим его на экран одним вызовом
+            if (frameBuffer == null || frameBuffer.getWidth() != width || frameBuffer.getHeight() != height) {
+                frameBuffer = new FrameBuffer(width, height);
             }
+            // небо и пол копируются из заранее отрисованного фона, статические объекты рисуются поверх
+            start = frameProfiler.start();
+            frameBuffer.copyFrom(getBackground(width, height));
+            frameProfiler.record(FrameStage.FLOOR, start);
 
-            // определяем границы рендеринга статического объекта
-            int objectTopEdge = (int) (height / 2.0 * (configuration.getScreenDistance() - 1 / traceResult.getDistance()));
-            if (objectTopEdge < 0) {
-                objectTopEdge = 0;
-            }
-            int objectBottomEdge = (int) (height / 2.0 * (configuration.getScreenDistance() + 1 / traceResult.getDistance()));
-            if (objectBottomEdge > height) {
-                objectBottomEdge = height;
-            }
-
-            // рисуем небо
-            g.setColor(Colors.SKY_COLOR);
-            g.fillRect(x, 0, configuration.getViewColumnWidth(), objectTopEdge);
+            start = frameProfiler.start();
+            rasterizeStaticObjects(height, traceResults);
+            frameProfiler.record(FrameStage.WALL, start);
 
-            // рисуем статический объект
-            if (traceResult.getTouchedObject() instanceof Wall) {
-                g.setColor(Colors.WALL_COLOR);
+            start = frameProfiler.start();
+            int columnWidth = configuration.getViewColumnWidth();
+            SpriteColumnRenderer spriteColumnRenderer = (column, spriteColumn) -> frameBuffer.drawSpriteColumn(
+                    spriteColumn.getSpriteLevel(),
+                    spriteColumn.getSpriteFromX(),
+                    spriteColumn.getSpriteToX(),
+                    spriteColumn.getSpriteHeight(),
+                    column * columnWidth,
+                    columnWidth,
+                    spriteColumn.getTopEdge(),
+                    spriteColumn.getBottomEdge());
+            if (configuration.isSpriteProjectionEnabled()) {
+                renderSprites(width, height, traceResults, spriteColumnRenderer);
             } else {
-                g.setColor(Colors.UNKNOWN_OBJECT_COLOR);
+                renderInterceptedObjects(width, height, traceResults, spriteColumnRenderer);
             }
-            g.setColor(shade(g.getColor(), traceResult.getDistance() / configuration.getViewDistance()));
-            g.fillRect(x, objectTopEdge, configuration.getViewColumnWidth(), objectBottomEdge - objectTopEdge);
+            frameProfiler.record(FrameStage.SPRITE, start);
 
-            // рисуем пол
-            renderFloor(g, x, objectBottomEdge);
+            start = frameProfiler.start();
+            g.drawImage(frameBuffer.getImage(), 0, 0, null);
+            frameProfiler.record(FrameStage.PRESENT, start);
+        } else {
+            start = frameProfiler.start();
+            g.drawImage(getBackground(width, height).getImage(), 0, 0, null);
+            frameProfiler.record(FrameStage.FLOOR, start);
+
+            start = frameProfiler.start();
+            renderStaticObjects(g, height, traceResults);
+            frameProfiler.record(FrameStage.WALL, start);
 
-            // рисуем встреченные на пути луча трассировки мобильные объекты
-            renderPartiallyTransparentObjects(g, x, traceResult.getInterceptedMovableObjects());
+            start = frameProfiler.start();
+            SpriteColumnRenderer spriteColumnRenderer = (column, spriteColumn) ->
+                    renderSpriteColumn(g, column * configuration.getViewColumnWidth(), spriteColumn);
+            if (configuration.isSpriteProjectionEnabled()) {
+                renderSprites(width, height, traceResults, spriteColumnRenderer);
+            } else {
+                renderInterceptedObjects(width, height, traceResults, spriteColumnRenderer);
+            }
+            frameProfiler.record(FrameStage.SPRITE, start);
         }
 
         // рисуем прицел
@@ -103,197 +156,597 @@ public class GameRenderer implements Renderer {
     }
 
     /**
-     * Нарисовать пол.
+     * Отрисовать статические объекты полос рендеринга вызовами {@link Graphics}.
      *
-     * @param g контекст рендеринга
-     * @param x положение полосы рендеринга.
-     * @param y верхняя граница отрисовки пола
+     * @param g            контекст рендеринга
+     * @param height       высота области рендеринга
+     * @param traceResults результаты трассировки полос
      */
-    private void renderFloor(@NonNull Graphics g, int x, int y) {
-        int height = (int) g.getClipBounds().getHeight();
-        if (g instanceof Graphics2D) {
-            // настраиваем градиент для затемнения более далеких участков пола
-            GradientPaint gradientPaint = new GradientPaint(
-                    x + configuration.getViewColumnWidth() / 2f, height / 2f,
-                    Color.BLACK,
-                    x + configuration.getViewColumnWidth() / 2f, height,
-                    Colors.FLOOR_COLOR);
-            ((Graphics2D) g).setPaint(gradientPaint);
+    private void renderStaticObjects(@NonNull Graphics g, int height, @NonNull TraceResult[] traceResults) {
+        for (int column = 0; column < traceResults.length; column++) {
+            int x = column * configuration.getViewColumnWidth();
+            TraceResult traceResult = traceResults[column];
+            if (traceResult.getDistance() >= configuration.getViewDistance()) {
+                continue;
+            }
+
+            int objectTopEdge = getObjectTopEdge(height, traceResult.getDistance());
+            int objectBottomEdge = getObjectBottomEdge(height, traceResult.getDistance());
+            g.setColor(getShadingTable(traceResult).getColor(
+                    traceResult.getDistance() / configuration.getViewDistance()));
+            g.fillRect(x, objectTopEdge, configuration.getViewColumnWidth(), objectBottomEdge - objectTopEdge);
+        }
+    }
+
+    /**
+     * Получить фон кадра с небом и полом, отрисовав его при изменении размеров области рендеринга.
+     * <p>
+     * Небо закрашивает верхнюю половину кадра, пол затемняется к горизонту по таблице оттенков
+     * {@link ShadingPalette#getFloorTable()}. Статические объекты рисуются поверх фона,
+     * поэтому небо и пол не нужно отрисовывать для каждой полосы рендеринга отдельно.
+     *
+     * @param width  ширина области рендеринга
+     * @param height высота области рендеринга
+     * @return фон кадра
+     */
+    @NonNull
+    private FrameBuffer getBackground(int width, int height) {
+        if (background != null && background.getWidth() == width && background.getHeight() == height) {
+            return background;
+        }
+        background = new FrameBuffer(width, height);
+        int horizon = height / 2;
+        background.fillColumn(0, width, 0, horizon, Colors.SKY_COLOR.getRGB());
+        ShadingPalette.ShadingTable floorTable = shadingPalette.getFloorTable();
+        for (int y = horizon; y < height; y++) {
+            // у горизонта пол чёрный, у нижнего края кадра - исходного цвета
+            double factor = (y + 0.5 - horizon) / (height - horizon);
+            background.fillColumn(0, width, y, y + 1, floorTable.getRgb(1 - factor));
+        }
+        return background;
+    }
+
+    /**
+     * Растеризовать статические объекты полос рендеринга в программный буфер {@link this#frameBuffer}.
+     *
+     * @param height       высота области рендеринга
+     * @param traceResults результаты трассировки полос
+     */
+    private void rasterizeStaticObjects(int height, @NonNull TraceResult[] traceResults) {
+        int columnWidth = configuration.getViewColumnWidth();
+        for (int column = 0; column < traceResults.length; column++) {
+            TraceResult traceResult = traceResults[column];
+            if (traceResult.getDistance() >= configuration.getViewDistance()) {
+                continue;
+            }
+
+            int objectTopEdge = getObjectTopEdge(height, traceResult.getDistance());
+            int objectBottomEdge = getObjectBottomEdge(height, traceResult.getDistance());
+            frameBuffer.fillColumn(column * columnWidth, columnWidth, objectTopEdge, objectBottomEdge,
+                    getShadingTable(traceResult).getRgb(traceResult.getDistance() / configuration.getViewDistance()));
+        }
+    }
+
+    /**
+     * Отрисовать мобильные объекты, пересекаемые лучом каждой полосы рендеринга.
+     * <p>
+     * Пересечения лучей с объектами определяются по снимку мира, как и в {@link #renderSprites}, но объекты каждой
+     * полосы рисуются по убыванию расстояния до точки входа в них луча полосы.
+     *
+     * @param width        ширина области рендеринга
+     * @param height       высота области рендеринга
+     * @param traceResults результаты трассировки полос
+     * @param renderer     обработчик частей текстур
+     */
+    private void renderInterceptedObjects(int width, int height, @NonNull TraceResult[] traceResults,
+                                          @NonNull SpriteColumnRenderer renderer) {
+        List<List<ObjectIntercept>> columnIntercepts = new ArrayList<>(traceResults.length);
+        for (int column = 0; column < traceResults.length; column++) {
+            columnIntercepts.add(new ArrayList<>());
+        }
+        WorldSnapshot worldSnapshot = camera.getWorldSnapshot();
+        for (ProjectedSprite projectedSprite : projectMovableMapObjects(worldSnapshot, width, traceResults.length)) {
+            for (int column = projectedSprite.getFromColumn(); column <= projectedSprite.getToColumn(); column++) {
+                interceptObject(worldSnapshot, projectedSprite.getObjectIndex(), column, traceResults[column])
+                        .ifPresent(columnIntercepts.get(column)::add);
+            }
+        }
+        for (int column = 0; column < traceResults.length; column++) {
+            List<ObjectIntercept> intercepts = columnIntercepts.get(column);
+            intercepts.sort(Comparator.comparingDouble(ObjectIntercept::getEntryDistance).reversed());
+            for (ObjectIntercept intercept : intercepts) {
+                int spriteColumnIndex = column;
+                projectSpriteColumn(height, column, worldSnapshot, intercept)
+                        .ifPresent(spriteColumn -> renderer.render(spriteColumnIndex, spriteColumn));
+            }
+        }
+    }
+
+    /**
+     * Отрисовать мобильные объекты проходом проекции спрайтов поверх нарисованных полос.
+     * <p>
+     * Каждый объект проецируется на экран один раз за кадр, объекты рисуются от дальних к ближним.
+     * Расстояния до статических объектов из результатов трассировки служат буфером глубины полос.
+     *
+     * @param width        ширина области рендеринга
+     * @param height       высота области рендеринга
+     * @param traceResults результаты трассировки полос
+     * @param renderer     обработчик частей текстур
+     */
+    private void renderSprites(int width, int height, @NonNull TraceResult[] traceResults,
+                               @NonNull SpriteColumnRenderer renderer) {
+        // снимок мира фиксируется на время кадра, объекты не меняются во время отрисовки
+        WorldSnapshot worldSnapshot = camera.getWorldSnapshot();
+        for (ProjectedSprite projectedSprite : projectMovableMapObjects(worldSnapshot, width, traceResults.length)) {
+            for (int column = projectedSprite.getFromColumn(); column <= projectedSprite.getToColumn(); column++) {
+                int spriteColumnIndex = column;
+                interceptObject(worldSnapshot, projectedSprite.getObjectIndex(), column, traceResults[column])
+                        .flatMap(intercept -> projectSpriteColumn(height, spriteColumnIndex, worldSnapshot, intercept))
+                        .ifPresent(spriteColumn -> renderer.render(spriteColumnIndex, spriteColumn));
+            }
+        }
+    }
+
+    /**
+     * Найти пересечение луча полосы рендеринга с мобильным объектом снимка мира.
+     * <p>
+     * Луч полосы должен пересекать объект ближе статического объекта этой полосы, поэтому расстояния до статических
+     * объектов из результатов трассировки служат буфером глубины.
+     *
+     * @param worldSnapshot снимок мира
+     * @param objectIndex   номер объекта в снимке мира
+     * @param column        номер полосы рендеринга
+     * @param traceResult   результат трассировки полосы
+     * @return Optional пересечения, пустой если луч не пересекает объект или объект закрыт статическим объектом
+     */
+    @NonNull
+    private Optional<ObjectIntercept> interceptObject(@NonNull WorldSnapshot worldSnapshot,
+                                                      int objectIndex,
+                                                      int column,
+                                                      @NonNull TraceResult traceResult) {
+        Position gamerPosition = camera.getPosition();
+        double toCenterX = camera.getObjectX(objectIndex) - gamerPosition.getX();
+        double toCenterY = camera.getObjectY(objectIndex) - gamerPosition.getY();
+        double exitDistance = getRayExitDistance(toCenterX, toCenterY,
+                viewRays.getDirectionX(column), viewRays.getDirectionY(column), worldSnapshot.getRadius(objectIndex));
+        if (exitDistance <= 0) {
+            return Optional.empty();
+        }
+        double closestApproach = toCenterX * viewRays.getDirectionX(column)
+                + toCenterY * viewRays.getDirectionY(column);
+        double entryDistance = Math.max(2 * closestApproach - exitDistance, 0);
+        if (entryDistance >= Math.min(traceResult.getDistance(), configuration.getViewDistance())) {
+            return Optional.empty();
+        }
+        return Optional.of(new ObjectIntercept(objectIndex, entryDistance, exitDistance));
+    }
+
+    /**
+     * Найти расстояние от игрока до точки выхода луча из круга.
+     *
+     * @param toCenterX  горизонтальная составляющая вектора от игрока до центра круга
+     * @param toCenterY  вертикальная составляющая вектора от игрока до центра круга
+     * @param directionX горизонтальная составляющая единичного вектора направления луча
+     * @param directionY вертикальная составляющая единичного вектора направления луча
+     * @param radius     радиус круга
+     * @return расстояние вдоль луча, отрицательное если круг позади игрока, или {@link Double#NEGATIVE_INFINITY},
+     * если луч не пересекает круг
+     */
+    private static double getRayExitDistance(double toCenterX, double toCenterY,
+                                             double directionX, double directionY,
+                                             double radius) {
+        double closestApproach = toCenterX * directionX + toCenterY * directionY;
+        double squaredCenterDistance = toCenterX * toCenterX + toCenterY * toCenterY
+                - closestApproach * closestApproach;
+        if (squaredCenterDistance >= radius * radius) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return closestApproach + Math.sqrt(radius * radius - squaredCenterDistance);
+    }
+
+    /**
+     * Спроецировать мобильные объекты снимка мира на полосы рендеринга.
+     *
+     * @param worldSnapshot снимок мира
+     * @param width         ширина области рендеринга
+     * @param columnCount   количество полос рендеринга
+     * @return проекции объектов, попадающих в сектор обзора, по убыванию расстояния до них
+     */
+    @NonNull
+    private List<ProjectedSprite> projectMovableMapObjects(@NonNull WorldSnapshot worldSnapshot,
+                                                           int width, int columnCount) {
+        Position gamerPosition = camera.getPosition();
+        // угловая ширина полосы рендеринга и угол луча первой полосы
+        double columnAngle = (double) configuration.getViewColumnWidth() / width * configuration.getFov();
+        double firstColumnAngle = viewRays.getAngle(0);
+        List<ProjectedSprite> projectedSprites = new ArrayList<>();
+        for (int i = 0; i < worldSnapshot.getObjectCount(); i++) {
+            double toCenterX = camera.getObjectX(i) - gamerPosition.getX();
+            double toCenterY = camera.getObjectY(i) - gamerPosition.getY();
+            double radius = worldSnapshot.getRadius(i);
+            double distance = Math.sqrt(toCenterX * toCenterX + toCenterY * toCenterY);
+            if (distance - radius >= configuration.getViewDistance()) {
+                continue;
+            }
+            int fromColumn = 0;
+            int toColumn = columnCount - 1;
+            if (distance > radius) {
+                // объект виден под углом 2 * asin(r / d) с центром в направлении на объект
+                double objectAngle = Math.toDegrees(Math.atan2(toCenterX, -toCenterY));
+                double halfAngle = Math.toDegrees(Math.asin(radius / distance));
+                double relativeAngle = ((objectAngle - firstColumnAngle) % 360 + 540) % 360 - 180;
+                fromColumn = Math.max(fromColumn, (int) Math.floor((relativeAngle - halfAngle) / columnAngle));
+                toColumn = Math.min(toColumn, (int) Math.ceil((relativeAngle + halfAngle) / columnAngle));
+            }
+            if (fromColumn <= toColumn) {
+                projectedSprites.add(new ProjectedSprite(i, distance, fromColumn, toColumn));
+            }
+        }
+        projectedSprites.sort(Comparator.comparingDouble(ProjectedSprite::getDistance).reversed());
+        return projectedSprites;
+    }
+
+    /**
+     * Получить верхний край отрисовки статического объекта.
+     *
+     * @param height   высота области рендеринга
+     * @param distance расстояние до объекта
+     */
+    private int getObjectTopEdge(int height, double distance) {
+        int objectTopEdge = (int) (height / 2.0 * (configuration.getScreenDistance() - 1 / distance));
+        return Math.max(objectTopEdge, 0);
+    }
+
+    /**
+     * Получить нижний край отрисовки статического объекта.
+     *
+     * @param height   высота области рендеринга
+     * @param distance расстояние до объекта
+     */
+    private int getObjectBottomEdge(int height, double distance) {
+        int objectBottomEdge = (int) (height / 2.0 * (configuration.getScreenDistance() + 1 / distance));
+        return Math.min(objectBottomEdge, height);
+    }
+
+    /**
+     * Выполнить трассировку всех полос рендеринга кадра.
+     * <p>
+     * При {@link Configuration#getTracingThreadCount()} больше 1 полосы трассируются параллельно в пуле потоков,
+     * результат не зависит от количества потоков.
+     *
+     * @param width ширина области рендеринга
+     * @return результаты трассировки по порядку полос слева направо
+     */
+    @NonNull
+    private TraceResult[] traceColumns(int width) {
+        if (viewRays == null) {
+            viewRays = new ViewRays(trigonometry);
+        }
+        // положение игрока и лучи фиксируются на время кадра, чтобы все полосы видели одно и то же состояние
+        Position gamerPosition = camera.getPosition();
+        viewRays.update(camera.getViewAngle(), configuration.getFov(), width, configuration.getViewColumnWidth());
+        int columnCount = viewRays.getColumnCount();
+        TraceResult[] traceResults = new TraceResult[columnCount];
+        // мобильные объекты отрисовываются по снимку мира, поэтому трассировщик собирает только статические объекты:
+        // потоки трассировки не читают изменяемые потоком симуляции индексы мобильных объектов
+        IntConsumer columnTracer = column -> traceResults[column] = rayTracer.traceStaticObjects(gamerPosition,
+                viewRays.getAngle(column),
+                viewRays.getDirectionX(column),
+                viewRays.getDirectionY(column));
+        if (configuration.getTracingThreadCount() <= 1) {
+            for (int column = 0; column < columnCount; column++) {
+                columnTracer.accept(column);
+            }
         } else {
-            g.setColor(Colors.FLOOR_COLOR);
+            int threshold = Math.max(1, columnCount / (configuration.getTracingThreadCount() * 4));
+            getTracingPool().invoke(new ColumnTracingTask(0, columnCount, threshold, columnTracer));
+        }
+        return traceResults;
+    }
+
+    /**
+     * Остановить пул потоков трассировки. Следующая отрисовка создаст пул заново.
+     * <p>
+     * Вызывается из потока отрисовки.
+     */
+    @Override
+    public void close() {
+        if (tracingPool != null) {
+            tracingPool.shutdown();
+            tracingPool = null;
+        }
+    }
+
+    /**
+     * Получить пул потоков трассировки, создав его при первом обращении.
+     */
+    @NonNull
+    private ForkJoinPool getTracingPool() {
+        if (tracingPool == null) {
+            tracingPool = new ForkJoinPool(configuration.getTracingThreadCount());
         }
-        g.fillRect(x, y, configuration.getViewColumnWidth(), height - y);
+        return tracingPool;
     }
 
     /**
-     * Отрисовать мобильные объекты на экране.
+     * Отрисовать часть текстуры мобильного объекта на полосе рендеринга.
      *
-     * @param g     контекст рендеринга.
-     * @param x     положения полосы рендеринга.
-     * @param iptos список мобильных объектов замеченных на полосе рендеринга.
+     * @param g            контекст рендеринга.
+     * @param x            положение полосы рендеринга.
+     * @param spriteColumn часть текстуры.
      */
-    private void renderPartiallyTransparentObjects(@NonNull Graphics g,
-                                                   int x,
-                                                   @NonNull List<InterceptedMovableObject> iptos) {
-        // сортируем объекты по убыванию расстояния до них
-        iptos.sort(Comparator.comparingDouble(ipto -> gamer.getPosition().distance(ipto.getMapObject().getPosition())));
-        Collections.reverse(iptos);
-
-        iptos.forEach(pto -> renderMovableMapObject(g, x, pto));
+    private void renderSpriteColumn(@NonNull Graphics g, int x, @NonNull SpriteColumn spriteColumn) {
+        // отрисовываем часть текстуры, растягивая её на полосу рендеринга
+        g.drawImage(spriteColumn.getSpriteLevel().getImage(),
+                x,
+                spriteColumn.getTopEdge(),
+                x + configuration.getViewColumnWidth(),
+                spriteColumn.getBottomEdge(),
+                spriteColumn.getSpriteFromX(),
+                0,
+                spriteColumn.getSpriteToX(),
+                spriteColumn.getSpriteHeight(),
+                null);
     }
 
     /**
-     * Отрисовать мобильный объект на экране.
+     * Определить часть текстуры мобильного объекта и её положение на полосе рендеринга.
+     * <p>
+     * Текстура натягивается на отрезок, перпендикулярный лучу полосы и проходящий через центр объекта. Левый край
+     * части текстуры определяется смещением точки выхода луча полосы из объекта вдоль этого отрезка, правый край -
+     * смещением точки выхода луча следующей полосы. Смещение точки на луче вдоль перпендикулярного ему отрезка
+     * не зависит от расстояния до точки, поэтому точка входа, обрезанная нулём, когда игрок находится внутри объекта,
+     * для этого не используется.
      *
-     * @param g   контекст рендеринга.
-     * @param x   положение полосы рендеринга.
-     * @param imo мобильный объект.
+     * @param height        высота области рендеринга.
+     * @param column        номер полосы рендеринга.
+     * @param worldSnapshot снимок мира.
+     * @param intercept     пересечение луча полосы с объектом.
+     * @return Optional части текстуры, пустой если текстура не найдена или не может быть отрисована.
      */
-    private void renderMovableMapObject(@NonNull Graphics g, int x, @NonNull InterceptedMovableObject imo) {
-        int width = (int) g.getClipBounds().getWidth();
-        int height = (int) g.getClipBounds().getHeight();
-        Position gamerPosition = gamer.getPosition();
-
-        // точка пересечения луча трассировки с мобом
-        Position objectPartLeftEdgePosition = findViewLineIntersection(
-                imo.getMapObject().getPosition(),
-                imo.getViewAngle(),
-                gamerPosition);
-        // точка пересечения следующего луча трассировки с мобом
-        Position objectPartRightEdgePosition = findViewLineIntersection(
-                imo.getMapObject().getPosition(),
-                imo.getViewAngle() + (double) configuration.getViewColumnWidth() / width * configuration.getFov(),
-                gamerPosition);
-        // крайняя левая точка моба
-        Position objectLeftEdgePosition = imo.getMapObject().getPosition().shift(
-                imo.getMapObject().getRadius(),
-                imo.getViewAngle() - 90);
+    @NonNull
+    private Optional<SpriteColumn> projectSpriteColumn(int height, int column,
+                                                       @NonNull WorldSnapshot worldSnapshot,
+                                                       @NonNull ObjectIntercept intercept) {
+        Position gamerPosition = camera.getPosition();
+        int objectIndex = intercept.getObjectIndex();
+        double objectX = camera.getObjectX(objectIndex);
+        double objectY = camera.getObjectY(objectIndex);
+        double objectRadius = worldSnapshot.getRadius(objectIndex);
+        double objectHeight = worldSnapshot.getHeight(objectIndex);
+        double leftDirectionX = viewRays.getDirectionX(column);
+        double leftDirectionY = viewRays.getDirectionY(column);
+        double rightDirectionX = viewRays.getDirectionX(column + 1);
+        double rightDirectionY = viewRays.getDirectionY(column + 1);
+        // смещение точки выхода луча полосы из объекта от центра объекта вправо перпендикулярно лучу
+        double leftOffset = getRightwardOffset(
+                gamerPosition.getX() + intercept.getExitDistance() * leftDirectionX - objectX,
+                gamerPosition.getY() + intercept.getExitDistance() * leftDirectionY - objectY,
+                leftDirectionX, leftDirectionY);
+        // луч следующей полосы проходит правее объекта, если не пересекает его
+        double rightOffset = objectRadius;
+        double rightExitDistance = getRayExitDistance(objectX - gamerPosition.getX(), objectY - gamerPosition.getY(),
+                rightDirectionX, rightDirectionY, objectRadius);
+        if (rightExitDistance > 0) {
+            rightOffset = getRightwardOffset(
+                    gamerPosition.getX() + rightExitDistance * rightDirectionX - objectX,
+                    gamerPosition.getY() + rightExitDistance * rightDirectionY - objectY,
+                    rightDirectionX, rightDirectionY);
+        }
 
         // загружаем текстуру моба
-        Optional<BufferedImage> mobSpriteOptional = getMobSprite(imo.getMapObject());
+        Optional<Sprite> mobSpriteOptional = getMobSprite(worldSnapshot.getState(objectIndex));
         if (mobSpriteOptional.isEmpty()) {
-            return;
+            return Optional.empty();
         }
-        BufferedImage imoSpriteImage = mobSpriteOptional.get();
+        Sprite imoSprite = mobSpriteOptional.get();
 
         // определяем левый край части текстуры для отрисовки
-        double spriteLeftEdgeX = imoSpriteImage.getWidth()
-                * objectLeftEdgePosition.distance(objectPartLeftEdgePosition)
-                / (2 * imo.getMapObject().getRadius());
-        if (spriteLeftEdgeX >= imoSpriteImage.getWidth() - 1) {
-            spriteLeftEdgeX = imoSpriteImage.getWidth() - 1;
-        }
+        double spriteLeftEdgeX = imoSprite.getWidth() * (objectRadius + leftOffset) / (2 * objectRadius);
+        spriteLeftEdgeX = Math.min(Math.max(spriteLeftEdgeX, 0), imoSprite.getWidth() - 1);
         // определяем правый край части текстуры для отрисовки
-        double spriteRightEdgeX = imoSpriteImage.getWidth()
-                * objectLeftEdgePosition.distance(objectPartRightEdgePosition)
-                / (2 * imo.getMapObject().getRadius());
-        if (spriteRightEdgeX >= imoSpriteImage.getWidth() - 1) {
-            spriteRightEdgeX = imoSpriteImage.getWidth() - 1;
-        }
+        double spriteRightEdgeX = imoSprite.getWidth() * (objectRadius + rightOffset) / (2 * objectRadius);
+        spriteRightEdgeX = Math.min(Math.max(spriteRightEdgeX, 0), imoSprite.getWidth() - 1);
         if (spriteRightEdgeX < spriteLeftEdgeX) {
             log.error("Unable to raster a mob. Left sprite edge - {}, right sprite edge - {}", spriteLeftEdgeX, spriteRightEdgeX);
-            return;
+            return Optional.empty();
         }
 
         // определяем часть текстуры по высоте для отрисовки на экране
-        double distanceToObject = gamer.getPosition().distance(imo.getMapObject().getPosition());
-        double imoSpritePartHeight = imoSpriteImage.getHeight();
+        double distanceToObject = distance(gamerPosition.getX(), gamerPosition.getY(), objectX, objectY);
+        double imoSpritePartHeight = imoSprite.getHeight();
         if (distanceToObject < configuration.getScreenDistance()) {
             imoSpritePartHeight *= distanceToObject;
         }
 
-        // определяем часть текстуры моба по полученным параметрам
-        BufferedImage imoSpritePart = imoSpriteImage.getSubimage(
-                (int) spriteLeftEdgeX,
-                0,
-                (int) (spriteRightEdgeX - spriteLeftEdgeX + 1),
-                (int) imoSpritePartHeight);
-
         // определяем верхний край отрисовки текстуры
-        int objectTopEdge = (int) (height / 2.0 * (configuration.getScreenDistance() + 1 / distanceToObject - 2 * imo.getMapObject().getHeight() / distanceToObject));
-        if (objectTopEdge < 0) {
-            objectTopEdge = 0;
-        }
+        int projectedTopEdge = (int) (height / 2.0 * (configuration.getScreenDistance() + 1 / distanceToObject - 2 * objectHeight / distanceToObject));
+        int objectTopEdge = Math.max(projectedTopEdge, 0);
 
         // определяем нижний край отрисовки текстуры
-        int objectBottomEdge = (int) (height / 2.0 * (configuration.getScreenDistance() + 1 / distanceToObject));
-        if (objectBottomEdge > height) {
-            objectBottomEdge = height;
-        }
+        int projectedBottomEdge = (int) (height / 2.0 * (configuration.getScreenDistance() + 1 / distanceToObject));
+        int objectBottomEdge = Math.min(projectedBottomEdge, height);
+
+        // выбираем уровень детализации текстуры по высоте её проекции на экран
+        int spriteFromX = (int) spriteLeftEdgeX;
+        int spriteToX = spriteFromX + (int) (spriteRightEdgeX - spriteLeftEdgeX + 1);
+        int spriteHeight = (int) imoSpritePartHeight;
+        Sprite.Level spriteLevel = imoSprite.selectLevel(spriteHeight, projectedBottomEdge - projectedTopEdge);
+        int levelFromX = spriteLevel.toLevelX(spriteFromX, imoSprite.getWidth());
 
-        // отрисовываем текстуру
-        g.drawImage(imoSpritePart, x, objectTopEdge, configuration.getViewColumnWidth(), objectBottomEdge - objectTopEdge, null);
+        return Optional.of(new SpriteColumn(
+                spriteLevel,
+                levelFromX,
+                Math.max(spriteLevel.toLevelX(spriteToX, imoSprite.getWidth()), levelFromX + 1),
+                Math.max(spriteLevel.toLevelY(spriteHeight, imoSprite.getHeight()), 1),
+                objectTopEdge,
+                objectBottomEdge));
     }
 
     /**
-     * Получить текстуру моба по его пути в classpath.
+     * Получить текстуру моба в соответствии с его состоянием.
      *
-     * @param movableMapObject@return Optional изображения.
+     * @param mobState состояние моба, null если объект не является мобом.
+     * @return Optional текстуры.
      */
-    private Optional<BufferedImage> getMobSprite(MovableMapObject movableMapObject) {
-        String spritePath = "mob/unknownMob.png";
-        if (movableMapObject instanceof Mob) {
-            if (((Mob) movableMapObject).getState() == Mob.State.ALIVE) {
-                spritePath = "mob/virus.png";
+    private Optional<Sprite> getMobSprite(Mob.State mobState) {
+        String spritePath = UNKNOWN_MOB_SPRITE_PATH;
+        if (mobState != null) {
+            if (mobState == Mob.State.ALIVE) {
+                spritePath = ALIVE_MOB_SPRITE_PATH;
             } else {
-                spritePath = "mob/virus_killed.png";
+                spritePath = KILLED_MOB_SPRITE_PATH;
             }
         }
-        BufferedImage mobSprite = cachedMobSprites.get(spritePath);
-        if (mobSprite == null) {
-            Optional<BufferedImage> mobSpriteOptional = imageResourceLoader.loadImageResource(spritePath);
-            if (mobSpriteOptional.isEmpty()) {
-                log.error("Unable to find a sprite with path {}", spritePath);
-                return Optional.empty();
-            }
-            mobSprite = mobSpriteOptional.get();
-            cachedMobSprites.put(spritePath, mobSprite);
-        }
-        return Optional.of(mobSprite);
+        return spriteCache.getSprite(spritePath);
     }
 
     /**
-     * Найти пересечение линии взгляда с перпендикулярной ей прямой проходящей через указанную точку.
+     * Найти смещение точки вправо от направления взгляда.
      *
-     * @param pointPosition позиция удалённой точки.
-     * @param viewAngle     угол взгляда, отсчитываемый от северного направления по часовой стрелке.
-     * @param viewPosition  позиция точки взгляда.
-     * @return позиция точки пересечения
+     * @param offsetX        горизонтальная составляющая вектора до точки.
+     * @param offsetY        вертикальная составляющая вектора до точки.
+     * @param viewDirectionX горизонтальная составляющая единичного вектора направления взгляда.
+     * @param viewDirectionY вертикальная составляющая единичного вектора направления взгляда.
+     * @return проекция вектора на перпендикуляр к направлению взгляда, положительная если точка находится правее
+     */
+    private static double getRightwardOffset(double offsetX, double offsetY,
+                                             double viewDirectionX, double viewDirectionY) {
+        return -offsetX * viewDirectionY + offsetY * viewDirectionX;
+    }
+
+    /**
+     * Найти евклидово расстояние между двумя точками.
+     */
+    private static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Получить таблицу оттенков для статического объекта, на который попал луч трассировки.
      */
     @NonNull
-    private Position findViewLineIntersection(@NonNull Position pointPosition,
-                                              double viewAngle,
-                                              @NonNull Position viewPosition) {
-        double zeroMargin = 1E-10;
-        if (Math.abs(Math.cos(viewAngle / 180 * Math.PI)) <= zeroMargin) {
-            return new Position(pointPosition.getX(), viewPosition.getY());
+    private ShadingPalette.ShadingTable getShadingTable(@NonNull TraceResult traceResult) {
+        return traceResult.getTouchedObject() instanceof Wall
+                ? shadingPalette.getWallTable()
+                : shadingPalette.getUnknownObjectTable();
+    }
+
+    /**
+     * Задача трассировки диапазона полос рендеринга, делящаяся пополам до достижения порогового размера.
+     */
+    @RequiredArgsConstructor
+    private static class ColumnTracingTask extends RecursiveAction {
+        private final int fromColumn;
+        private final int toColumn;
+        private final int threshold;
+        private final IntConsumer columnTracer;
+
+        @Override
+        protected void compute() {
+            if (toColumn - fromColumn <= threshold) {
+                for (int column = fromColumn; column < toColumn; column++) {
+                    columnTracer.accept(column);
+                }
+                return;
+            }
+            int middleColumn = (fromColumn + toColumn) >>> 1;
+            invokeAll(new ColumnTracingTask(fromColumn, middleColumn, threshold, columnTracer),
+                    new ColumnTracingTask(middleColumn, toColumn, threshold, columnTracer));
         }
+    }
 
-        double viewLineFactor = 1 / Math.tan(viewAngle / 180 * Math.PI);
-        double viewLineFreeFactor = -(viewPosition.getX() * viewLineFactor + viewPosition.getY());
-        double intersectionX = ((pointPosition.getX() / viewLineFactor) - pointPosition.getY() - viewLineFreeFactor)
-                / (viewLineFactor + 1 / viewLineFactor);
-        double intersectionY = ((pointPosition.getY() * viewLineFactor) - pointPosition.getX() - (viewLineFreeFactor / viewLineFactor))
-                / (viewLineFactor + 1 / viewLineFactor);
-        return new Position(intersectionX, intersectionY);
+    /**
+     * Обработчик части текстуры, отображаемой на полосе рендеринга.
+     */
+    @FunctionalInterface
+    private interface SpriteColumnRenderer {
+        void render(int column, @NonNull SpriteColumn spriteColumn);
     }
 
     /**
-     * Получить более тёмный цвет в соответствии с коэффициентом.
-     *
-     * @param color  цвет
-     * @param factor коэффициент затемнения
-     * @return затемнённый цвет
+     * Пересечение луча полосы рендеринга с мобильным объектом снимка мира.
      */
-    @NonNull
-    private Color shade(@NonNull Color color, double factor) {
-        int r = color.getRed();
-        int g = color.getGreen();
-        int b = color.getBlue();
-        return new Color(
-                Math.min((int) (r * (1 - factor)), 255),
-                Math.min((int) (g * (1 - factor)), 255),
-                Math.min((int) (b * (1 - factor)), 255),
-                color.getAlpha());
+    @Value
+    private static class ObjectIntercept {
+        /**
+         * Номер объекта в снимке мира.
+         */
+        int objectIndex;
+
+        /**
+         * Расстояние от игрока до точки входа луча в объект, 0 если игрок находится внутри объекта.
+         */
+        double entryDistance;
+
+        /**
+         * Расстояние от игрока до точки выхода луча из объекта.
+         */
+        double exitDistance;
+    }
+
+    /**
+     * Проекция мобильного объекта на полосы рендеринга.
+     */
+    @Value
+    private static class ProjectedSprite {
+        /**
+         * Номер объекта в снимке мира.
+         */
+        int objectIndex;
+
+        /**
+         * Расстояние от игрока до центра объекта.
+         */
+        double distance;
+
+        /**
+         * Первая полоса, которую может занимать объект.
+         */
+        int fromColumn;
+
+        /**
+         * Последняя полоса, которую может занимать объект, включительно.
+         */
+        int toColumn;
+    }
+
+    /**
+     * Часть текстуры мобильного объекта, отображаемая на полосе рендеринга.
+     */
+    @Value
+    private static class SpriteColumn {
+        /**
+         * Уровень детализации текстуры объекта.
+         */
+        @NonNull
+        Sprite.Level spriteLevel;
+
+        /**
+         * Левый край части текстуры на уровне детализации, включительно.
+         */
+        int spriteFromX;
+
+        /**
+         * Правый край части текстуры на уровне детализации, не включительно.
+         */
+        int spriteToX;
+
+        /**
+         * Высота части текстуры на уровне детализации, отсчитываемая от верхнего края.
+         */
+        int spriteHeight;
+
+        /**
+         * Верхний край отрисовки на экране.
+         */
+        int topEdge;
+
+        /**
+         * Нижний край отрисовки на экране.
+         */
+        int bottomEdge;
     }
 }
@@ -8,9 +8,9 @@ import net.ildar.dungeon.config.Configuration;
 import javax.inject.Inject;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Рендерер оружия.
@@ -20,7 +20,7 @@ public class GunRenderer implements Renderer {
 
     private final Gun gun;
     private final Configuration configuration;
-    private final ImageResourceLoader imageResourceLoader;
+    private final ImageCache imageCache;
 
     /**
      * Загруженные текстуры стреляющего оружия.
@@ -38,9 +38,10 @@ public class GunRenderer implements Renderer {
     private BufferedImage stableGunSprite;
 
     /**
-     * Флаг успешной загрузки текстур.
+     * Флаг успешной загрузки текстур. Записывается после остальных полей текстур, поэтому поток отрисовки,
+     * увидевший true, видит и загруженные текстуры.
      */
-    private boolean spritesLoadedSuccessfully;
+    private volatile boolean spritesLoadedSuccessfully;
 
     /**
      * Высота загруженных текстур.
@@ -54,67 +55,56 @@ public class GunRenderer implements Renderer {
 
 
     @Inject
-    public GunRenderer(Gun gun, Configuration configuration, ImageResourceLoader imageResourceLoader) {
+    public GunRenderer(Gun gun, Configuration configuration, ImageCache imageCache) {
         this.gun = gun;
         this.configuration = configuration;
-        this.imageResourceLoader = imageResourceLoader;
+        this.imageCache = imageCache;
         loadSprites();
-        if (spritesLoadedSuccessfully) {
-            this.spriteWidth = stableGunSprite.getWidth();
-            this.spriteHeight = stableGunSprite.getHeight();
-        }
     }
 
     /**
-     * Загрузить из classpath изображения оружия.
+     * Начать загрузку из classpath изображений оружия.
+     * <p>
+     * Изображения декодируются параллельно в потоках загрузки {@link ImageCache}, до окончания загрузки
+     * оружие не отображается.
      */
     private void loadSprites() {
-        spritesLoadedSuccessfully = true;
-        Optional<BufferedImage> stableGunSprite = imageResourceLoader.loadImageResource("gun/stable.png");
-        if (stableGunSprite.isPresent()) {
-            this.stableGunSprite = stableGunSprite.get();
-        } else {
-            spritesLoadedSuccessfully = false;
+        CompletableFuture<Optional<BufferedImage>> stableGunSprite = imageCache.getImageAsync("gun/stable.png");
+        CompletableFuture<List<BufferedImage>> shootingGunSprites = imageCache.getImageSequenceAsync("gun/shooting");
+        CompletableFuture<List<BufferedImage>> reloadingGunSprites =
+                imageCache.getImageSequenceAsync("gun/reloading");
+        CompletableFuture.allOf(stableGunSprite, shootingGunSprites, reloadingGunSprites).whenComplete((ignored, e) -> {
+            if (e != null) {
+                log.error("Unable to load gun sprites", e);
+            } else {
+                setSprites(stableGunSprite.join(), shootingGunSprites.join(), reloadingGunSprites.join());
+            }
+        });
+    }
+
+    /**
+     * Запомнить загруженные изображения оружия, если загружены все необходимые изображения.
+     */
+    private void setSprites(@NonNull Optional<BufferedImage> stableGunSprite,
+                            @NonNull List<BufferedImage> shootingGunSprites,
+                            @NonNull List<BufferedImage> reloadingGunSprites) {
+        if (stableGunSprite.isEmpty()) {
             return;
         }
-
-        shootingGunSprites = loadSpritePack("gun/shooting");
         if (shootingGunSprites.isEmpty()) {
             log.error("Unable to load any shooting gun sprites with prefix");
-            spritesLoadedSuccessfully = false;
             return;
         }
-
-        reloadingGunSprites = loadSpritePack("gun/reloading");
         if (reloadingGunSprites.isEmpty()) {
             log.error("Unable to load any reloading gun sprites with prefix");
-            spritesLoadedSuccessfully = false;
-        }
-    }
-
-    /**
-     * Загрузить набор спрайтов с указанным префиксом.
-     * <p>
-     * Будут найдены все спрайты по шаблону [prefix]_[N],
-     * <p>
-     * где вместо N будут подставлены натуральные числа по возрастанию начиная с 1
-     *
-     * @param spritePrefix префикс пути к изображению в classpath
-     * @return список спрайтов с указанным префиксом
-     */
-    @NonNull
-    private List<BufferedImage> loadSpritePack(@NonNull String spritePrefix) {
-        List<BufferedImage> spritePack = new ArrayList<>();
-        int shootingGunSpriteIndex = 1;
-        Optional<BufferedImage> shootingGunSprite = imageResourceLoader.loadImageResource(
-                String.format("%s_%d.png", spritePrefix, shootingGunSpriteIndex));
-        while (shootingGunSprite.isPresent()) {
-            spritePack.add(shootingGunSprite.get());
-            shootingGunSpriteIndex++;
-            shootingGunSprite = imageResourceLoader.loadImageResource(
-                    String.format("%s_%d.png", spritePrefix, shootingGunSpriteIndex));
+            return;
         }
-        return spritePack;
+        this.stableGunSprite = stableGunSprite.get();
+        this.shootingGunSprites = shootingGunSprites;
+        this.reloadingGunSprites = reloadingGunSprites;
+        this.spriteWidth = this.stableGunSprite.getWidth();
+        this.spriteHeight = this.stableGunSprite.getHeight();
+        this.spritesLoadedSuccessfully = true;
     }
 
     @Override
@@ -0,0 +1,255 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import net.ildar.dungeon.config.Configuration;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш изображений из classpath.
+ * <p>
+ * Изображения декодируются {@link ImageResourceLoader} параллельно в пуле потоков загрузки. Запрос изображения,
+ * которое уже загружается, ждёт окончания этой загрузки. Загруженные изображения хранятся, пока оценка их памяти
+ * не превысит {@link Configuration#getImageCacheMemoryBudget()}, после чего вытесняются дольше всего
+ * не запрашивавшиеся изображения. Отсутствующие изображения тоже запоминаются, чтобы не искать их повторно.
+ */
+@Log4j2
+@Singleton
+public class ImageCache implements ImageCacheMXBean {
+    private static final String OBJECT_NAME = "net.ildar.dungeon:type=ImageCache";
+
+    private final ImageResourceLoader imageResourceLoader;
+
+    /**
+     * Загруженные изображения по пути в classpath. Пустой Optional для не найденных изображений.
+     */
+    private final LruCache<Optional<BufferedImage>> images;
+
+    /**
+     * Загружаемые изображения по пути в classpath.
+     */
+    private final Map<String, CompletableFuture<Optional<BufferedImage>>> loadingImages = new ConcurrentHashMap<>();
+
+    /**
+     * Пул потоков загрузки изображений.
+     */
+    private final ExecutorService loaderExecutor;
+
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong totalLoadNanos = new AtomicLong();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
+    @Inject
+    public ImageCache(ImageResourceLoader imageResourceLoader, Configuration configuration) {
+        this.imageResourceLoader = imageResourceLoader;
+        this.images = new LruCache<>(configuration.getImageCacheMemoryBudget(),
+                image -> image.map(ImageCache::estimateBytes).orElse(0L));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.loaderExecutor = Executors.newFixedThreadPool(configuration.getImageLoaderThreadCount(), runnable -> {
+            Thread thread = new Thread(runnable, "image-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Получить изображение по пути в classpath, загрузив его при отсутствии в кэше.
+     *
+     * @param path путь к изображению в classpath
+     * @return Optional изображения
+     */
+    @NonNull
+    public Optional<BufferedImage> getImage(@NonNull String path) {
+        Optional<BufferedImage> image = images.get(path);
+        return image != null ? image : load(path).join();
+    }
+
+    /**
+     * Получить изображение по пути в classpath, не дожидаясь его загрузки.
+     *
+     * @param path путь к изображению в classpath
+     * @return Optional изображения, завершаемый в потоке загрузки
+     */
+    @NonNull
+    public CompletableFuture<Optional<BufferedImage>> getImageAsync(@NonNull String path) {
+        Optional<BufferedImage> image = images.get(path);
+        return image != null ? CompletableFuture.completedFuture(image) : load(path);
+    }
+
+    /**
+     * Получить последовательность изображений по шаблону [prefix]_[N].png, где N - натуральные числа по возрастанию
+     * начиная с 1. Последовательность заканчивается перед первым отсутствующим изображением.
+     * <p>
+     * Наличие изображений проверяется без их загрузки, изображения последовательности загружаются параллельно.
+     *
+     * @param prefix префикс пути к изображениям в classpath
+     * @return список изображений, завершаемый в потоке загрузки
+     */
+    @NonNull
+    public CompletableFuture<List<BufferedImage>> getImageSequenceAsync(@NonNull String prefix) {
+        List<CompletableFuture<Optional<BufferedImage>>> sequence = new ArrayList<>();
+        for (int index = 1; imageResourceLoader.isImageResourcePresent(toSequencePath(prefix, index)); index++) {
+            sequence.add(getImageAsync(toSequencePath(prefix, index)));
+        }
+        return CompletableFuture.allOf(sequence.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> sequence.stream()
+                        .map(CompletableFuture::join)
+                        .takeWhile(Optional::isPresent)
+                        .map(Optional::get)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Начать параллельную загрузку изображений.
+     *
+     * @param paths пути к изображениям в classpath
+     * @return завершается после загрузки всех изображений
+     */
+    @NonNull
+    public CompletableFuture<Void> preload(@NonNull Collection<String> paths) {
+        return CompletableFuture.allOf(paths.stream()
+                .map(this::getImageAsync)
+                .toArray(CompletableFuture<?>[]::new));
+    }
+
+    @Override
+    public long getHitCount() {
+        return images.getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return images.getMissCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long requestCount = hitCount + getMissCount();
+        return requestCount > 0 ? (double) hitCount / requestCount : 0;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    @Override
+    public double getAverageLoadMillis() {
+        long count = loadCount.get();
+        return count > 0 ? totalLoadNanos.get() / 1E6 / count : 0;
+    }
+
+    @Override
+    public double getMaxLoadMillis() {
+        return maxLoadNanos.get() / 1E6;
+    }
+
+    @Override
+    public int getCachedImageCount() {
+        return images.size();
+    }
+
+    @Override
+    public long getCachedBytes() {
+        return images.getBytes();
+    }
+
+    @Override
+    public long getMemoryBudget() {
+        return images.getMemoryBudget();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return images.getEvictionCount();
+    }
+
+    /**
+     * Зарегистрировать кэш в платформенном MBean-сервере.
+     */
+    public void registerMBean() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            log.error("Unable to register image cache MBean", e);
+        }
+    }
+
+    /**
+     * Загрузить изображение в потоке загрузки или дождаться уже начатой загрузки.
+     * <p>
+     * Загрузка кладёт изображение в кэш до удаления из {@link #loadingImages}, поэтому изображение, загрузка которого
+     * закончилась после промаха кэша, находится в кэше и не загружается повторно.
+     */
+    @NonNull
+    private CompletableFuture<Optional<BufferedImage>> load(@NonNull String path) {
+        CompletableFuture<Optional<BufferedImage>> loadingImage = loadingImages.computeIfAbsent(path,
+                key -> images.peek(key) != null ? null : startLoading(key));
+        if (loadingImage != null) {
+            return loadingImage;
+        }
+        Optional<BufferedImage> image = images.peek(path);
+        // изображение могло быть вытеснено сразу после проверки
+        return image != null ? CompletableFuture.completedFuture(image) : load(path);
+    }
+
+    @NonNull
+    private CompletableFuture<Optional<BufferedImage>> startLoading(@NonNull String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                long start = System.nanoTime();
+                Optional<BufferedImage> image = imageResourceLoader.loadImageResource(key);
+                long loadNanos = System.nanoTime() - start;
+                loadCount.incrementAndGet();
+                totalLoadNanos.addAndGet(loadNanos);
+                maxLoadNanos.accumulateAndGet(loadNanos, Math::max);
+                if (image.isEmpty()) {
+                    log.error("Unable to find an image with path {}", key);
+                }
+                images.put(key, image);
+                return image;
+            } finally {
+                loadingImages.remove(key);
+            }
+        }, loaderExecutor);
+    }
+
+    @NonNull
+    private static String toSequencePath(@NonNull String prefix, int index) {
+        return String.format("%s_%d.png", prefix, index);
+    }
+
+    /**
+     * Оценить память пикселей изображения в байтах.
+     */
+    private static long estimateBytes(@NonNull BufferedImage image) {
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        return (long) dataBuffer.getSize() * dataBuffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+    }
+}
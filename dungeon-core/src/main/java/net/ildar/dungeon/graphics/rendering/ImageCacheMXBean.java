@@ -0,0 +1,56 @@
+package net.ildar.dungeon.graphics.rendering;
+
+/**
+ * Управляющий интерфейс {@link ImageCache} для JMX.
+ */
+public interface ImageCacheMXBean {
+    /**
+     * Количество запросов изображений, найденных в кэше.
+     */
+    long getHitCount();
+
+    /**
+     * Количество запросов изображений, которых не было в кэше.
+     */
+    long getMissCount();
+
+    /**
+     * Доля запросов изображений, найденных в кэше, от 0 до 1.
+     */
+    double getHitRate();
+
+    /**
+     * Количество загруженных изображений.
+     */
+    long getLoadCount();
+
+    /**
+     * Среднее время загрузки изображения в миллисекундах.
+     */
+    double getAverageLoadMillis();
+
+    /**
+     * Максимальное время загрузки изображения в миллисекундах.
+     */
+    double getMaxLoadMillis();
+
+    /**
+     * Количество изображений в кэше.
+     */
+    int getCachedImageCount();
+
+    /**
+     * Оценка памяти изображений в кэше в байтах.
+     */
+    long getCachedBytes();
+
+    /**
+     * Оценка памяти в байтах, которую могут занимать изображения в кэше.
+     */
+    long getMemoryBudget();
+
+    /**
+     * Количество изображений, вытесненных из кэша.
+     */
+    long getEvictionCount();
+}
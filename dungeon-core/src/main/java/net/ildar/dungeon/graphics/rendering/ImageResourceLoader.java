@@ -6,6 +6,7 @@ import lombok.extern.log4j.Log4j2;
 
 import javax.imageio.ImageIO;
 import javax.inject.Inject;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.URL;
@@ -13,6 +14,11 @@ import java.util.Optional;
 
 /**
  * Утилитарный класс для загрузки текстур.
+ * <p>
+ * Загруженные изображения переводятся в формат, совместимый с экраном, чтобы их отрисовка не требовала
+ * преобразования пикселей. Без экрана изображения переводятся в {@link BufferedImage#TYPE_INT_ARGB}: пиксели
+ * текстур спрайтов читаются в этом формате, а перевод в формат с предумноженной прозрачностью только терял бы
+ * точность полупрозрачных пикселей.
  */
 @Log4j2
 @RequiredArgsConstructor(onConstructor_ = {@Inject})
@@ -49,7 +55,49 @@ public class ImageResourceLoader {
             log.error("Can't load image resource", e);
         }
 
-        return Optional.ofNullable(image);
+        return Optional.ofNullable(image).map(ImageResourceLoader::toCompatibleImage);
     }
 
+    /**
+     * Проверить наличие текстуры в classpath без её загрузки.
+     *
+     * @param path путь к текстуре в classpath
+     */
+    public boolean isImageResourcePresent(@NonNull String path) {
+        return ImageResourceLoader.class.getClassLoader().getResource(path) != null;
+    }
+
+    /**
+     * Перевести изображение в формат, совместимый с экраном, или в {@link BufferedImage#TYPE_INT_ARGB}
+     * без экрана.
+     *
+     * @return исходное изображение, если оно уже в нужном формате, иначе его копия
+     */
+    @NonNull
+    private static BufferedImage toCompatibleImage(@NonNull BufferedImage image) {
+        BufferedImage compatibleImage;
+        if (GraphicsEnvironment.isHeadless()) {
+            if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+                return image;
+            }
+            compatibleImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        } else {
+            GraphicsConfiguration graphicsConfiguration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            if (image.getColorModel().equals(graphicsConfiguration.getColorModel(image.getTransparency()))) {
+                return image;
+            }
+            compatibleImage = graphicsConfiguration.createCompatibleImage(
+                    image.getWidth(), image.getHeight(), image.getTransparency());
+        }
+        Graphics2D g = compatibleImage.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return compatibleImage;
+    }
 }
@@ -0,0 +1,109 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import lombok.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Кэш значений по пути ресурса с ограничением оценки занимаемой памяти.
+ * <p>
+ * Когда оценка памяти значений превышает ограничение, вытесняются значения, дольше всего не запрашивавшиеся.
+ * Только что добавленное значение не вытесняется, даже если одно превышает ограничение.
+ * Методы кэша синхронизированы.
+ *
+ * @param <V> тип значений
+ */
+class LruCache<V> {
+    private final long memoryBudget;
+
+    /**
+     * Оценка памяти значения в байтах.
+     */
+    private final ToLongFunction<V> weigher;
+
+    /**
+     * Значения в порядке обращения к ним, начиная с дольше всего не запрашивавшегося.
+     */
+    private final Map<String, V> values = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    LruCache(long memoryBudget, @NonNull ToLongFunction<V> weigher) {
+        this.memoryBudget = memoryBudget;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Получить значение и отметить обращение к нему.
+     *
+     * @return значение или null если его нет в кэше
+     */
+    synchronized V get(@NonNull String path) {
+        V value = values.get(path);
+        if (value != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return value;
+    }
+
+    /**
+     * Получить значение и отметить обращение к нему, не изменяя счётчики попаданий и промахов.
+     *
+     * @return значение или null если его нет в кэше
+     */
+    synchronized V peek(@NonNull String path) {
+        return values.get(path);
+    }
+
+    /**
+     * Добавить значение, вытеснив при необходимости дольше всего не запрашивавшиеся значения.
+     */
+    synchronized void put(@NonNull String path, @NonNull V value) {
+        V previousValue = values.put(path, value);
+        if (previousValue != null) {
+            bytes -= weigher.applyAsLong(previousValue);
+        }
+        bytes += weigher.applyAsLong(value);
+        Iterator<Map.Entry<String, V>> iterator = values.entrySet().iterator();
+        while (bytes > memoryBudget && iterator.hasNext()) {
+            Map.Entry<String, V> entry = iterator.next();
+            if (!entry.getKey().equals(path)) {
+                bytes -= weigher.applyAsLong(entry.getValue());
+                iterator.remove();
+                evictionCount++;
+            }
+        }
+    }
+
+    long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    synchronized int size() {
+        return values.size();
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+}
@@ -2,131 +2,177 @@ package net.ildar.dungeon.graphics.rendering;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import net.ildar.dungeon.Trigonometry;
 import net.ildar.dungeon.config.Colors;
 import net.ildar.dungeon.config.Configuration;
-import net.ildar.dungeon.map.Gamer;
+import net.ildar.dungeon.graphics.Camera;
+import net.ildar.dungeon.map.DungeonMap;
 import net.ildar.dungeon.map.InmovableMapObject;
-import net.ildar.dungeon.map.MovableMapObject;
 import net.ildar.dungeon.map.Position;
-import net.ildar.dungeon.provider.MapProvider;
+import net.ildar.dungeon.map.WorldSnapshot;
 
 import javax.inject.Inject;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 
 /**
  * Рендерер игровой миникарты.
  */
 @RequiredArgsConstructor(onConstructor_ = {@Inject})
 public class MinimapRenderer implements Renderer {
-    private final MapProvider mapProvider;
-    private final Gamer gamer;
+    private final Camera camera;
     private final Configuration configuration;
+    private final Trigonometry trigonometry;
+
+    /**
+     * Карта, для которой нарисован слой статических объектов.
+     */
+    private DungeonMap mapLayerDungeonMap;
+
+    /**
+     * Слой фона и статических объектов миникарты. Перерисовывается при смене карты или размеров миникарты.
+     */
+    private BufferedImage mapLayer;
 
     @Override
     public void render(@NonNull Graphics g) {
-        renderMap(g);
-        renderGamer(g);
-        renderMobs(g);
+        // снимок мира фиксируется камерой на время кадра, чтобы все слои миникарты относились к одному тику
+        WorldSnapshot worldSnapshot = camera.getWorldSnapshot();
+        DungeonMap dungeonMap = worldSnapshot.getDungeonMap();
+        renderMap(g, dungeonMap);
+        renderGamer(g, dungeonMap);
+        renderMobs(g, worldSnapshot);
     }
 
     /**
      * Нарисовать мобов.
      */
-    private void renderMobs(@NonNull Graphics g) {
+    private void renderMobs(@NonNull Graphics g, @NonNull WorldSnapshot worldSnapshot) {
         int width = (int) g.getClipBounds().getWidth();
         int height = (int) g.getClipBounds().getHeight();
+        DungeonMap dungeonMap = worldSnapshot.getDungeonMap();
 
         g.setColor(Colors.MINIMAP_MMO_COLOR);
-        for (MovableMapObject mapObject : mapProvider.getDungeonMap().getMovableObjectSet()) {
+        for (int i = 0; i < worldSnapshot.getObjectCount(); i++) {
             g.fillOval(
-                    adjustOnWidth(width, mapObject.getPosition().getX()),
-                    adjustOnHeight(height, mapObject.getPosition().getY()),
-                    adjustOnWidth(width, configuration.getMinimapMobSize()),
-                    adjustOnHeight(height, configuration.getMinimapMobSize()));
+                    adjustOnWidth(dungeonMap, width, camera.getObjectX(i)),
+                    adjustOnHeight(dungeonMap, height, camera.getObjectY(i)),
+                    adjustOnWidth(dungeonMap, width, configuration.getMinimapMobSize()),
+                    adjustOnHeight(dungeonMap, height, configuration.getMinimapMobSize()));
         }
     }
 
     /**
      * Нарисовать миникарту.
+     * <p>
+     * Фон и статические объекты рисуются из слоя, который перерисовывается только при смене карты.
      */
-    private void renderMap(@NonNull Graphics g) {
+    private void renderMap(@NonNull Graphics g, @NonNull DungeonMap dungeonMap) {
         int width = (int) g.getClipBounds().getWidth();
         int height = (int) g.getClipBounds().getHeight();
 
+        if (mapLayer == null
+                || mapLayerDungeonMap != dungeonMap
+                || mapLayer.getWidth() != width
+                || mapLayer.getHeight() != height) {
+            mapLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics mapLayerGraphics = mapLayer.createGraphics();
+            try {
+                renderStaticObjects(mapLayerGraphics, dungeonMap, width, height);
+            } finally {
+                mapLayerGraphics.dispose();
+            }
+            mapLayerDungeonMap = dungeonMap;
+        }
+        g.drawImage(mapLayer, 0, 0, null);
+    }
+
+    /**
+     * Нарисовать фон и статические объекты миникарты.
+     */
+    private void renderStaticObjects(@NonNull Graphics g, @NonNull DungeonMap dungeonMap, int width, int height) {
         g.setColor(Colors.MINIMAP_BACKGROUND_COLOR);
         g.fillRect(0, 0, width, height);
 
         g.setColor(Colors.MINIMAP_WALL_COLOR);
-        for (InmovableMapObject mapObject : mapProvider.getDungeonMap().getStaticObjectSet()) {
+        for (InmovableMapObject mapObject : dungeonMap.getStaticObjectSet()) {
             g.fillRect(
-                    adjustOnWidth(width, mapObject.getPosition().getX()),
-                    adjustOnHeight(height, mapObject.getPosition().getY()),
-                    adjustOnWidth(width, mapObject.getWidth()),
-                    adjustOnHeight(height, mapObject.getLength()));
+                    adjustOnWidth(dungeonMap, width, mapObject.getPosition().getX()),
+                    adjustOnHeight(dungeonMap, height, mapObject.getPosition().getY()),
+                    adjustOnWidth(dungeonMap, width, mapObject.getWidth()),
+                    adjustOnHeight(dungeonMap, height, mapObject.getLength()));
         }
     }
 
     /**
      * Нарисовать игрока с сектором обзора.
      */
-    private void renderGamer(@NonNull Graphics g) {
+    private void renderGamer(@NonNull Graphics g, @NonNull DungeonMap dungeonMap) {
         int width = (int) g.getClipBounds().getWidth();
         int height = (int) g.getClipBounds().getHeight();
 
         // рисуем точку игрока
         g.setColor(Colors.MINIMAP_GAMER_COLOR);
         g.fillOval(
-                adjustOnWidth(width, gamer.getPosition().getX() - configuration.getMinimapGamerSize() / 2),
-                adjustOnHeight(height, gamer.getPosition().getY() - configuration.getMinimapGamerSize() / 2),
-                adjustOnWidth(width, configuration.getMinimapGamerSize()),
-                adjustOnWidth(width, configuration.getMinimapGamerSize()));
+                adjustOnWidth(dungeonMap, width, camera.getPosition().getX() - configuration.getMinimapGamerSize() / 2),
+                adjustOnHeight(dungeonMap, height, camera.getPosition().getY() - configuration.getMinimapGamerSize() / 2),
+                adjustOnWidth(dungeonMap, width, configuration.getMinimapGamerSize()),
+                adjustOnWidth(dungeonMap, width, configuration.getMinimapGamerSize()));
 
         // рисуем крайние лучи сектора обзора
-        Position viewSectorLeftEdgeStartPosition = gamer.getPosition().shift(
+        double leftEdgeAngle = camera.getViewAngle() - configuration.getFov() / 2.;
+        double rightEdgeAngle = camera.getViewAngle() + configuration.getFov() / 2.;
+        double leftEdgeDirectionX = trigonometry.getDirectionX(leftEdgeAngle);
+        double leftEdgeDirectionY = trigonometry.getDirectionY(leftEdgeAngle);
+        double rightEdgeDirectionX = trigonometry.getDirectionX(rightEdgeAngle);
+        double rightEdgeDirectionY = trigonometry.getDirectionY(rightEdgeAngle);
+        Position viewSectorLeftEdgeStartPosition = camera.getPosition().shift(
                 configuration.getMinimapGamerSize() / 2,
-                gamer.getViewAngle() - configuration.getFov() / 2.);
-        Position viewSectorLeftEdgeEndPosition = gamer.getPosition().shift(
+                leftEdgeDirectionX, leftEdgeDirectionY);
+        Position viewSectorLeftEdgeEndPosition = camera.getPosition().shift(
                 configuration.getMinimapGamerSize() / 2 + configuration.getMinimapViewSectorLength(),
-                gamer.getViewAngle() - configuration.getFov() / 2.);
-        Position viewSectorRightEdgeStartPosition = gamer.getPosition().shift(
+                leftEdgeDirectionX, leftEdgeDirectionY);
+        Position viewSectorRightEdgeStartPosition = camera.getPosition().shift(
                 configuration.getMinimapGamerSize() / 2,
-                gamer.getViewAngle() + configuration.getFov() / 2.);
-        Position viewSectorRightEdgeEndPosition = gamer.getPosition().shift(
+                rightEdgeDirectionX, rightEdgeDirectionY);
+        Position viewSectorRightEdgeEndPosition = camera.getPosition().shift(
                 configuration.getMinimapGamerSize() / 2 + configuration.getMinimapViewSectorLength(),
-                gamer.getViewAngle() + configuration.getFov() / 2.);
+                rightEdgeDirectionX, rightEdgeDirectionY);
         g.setColor(Colors.MINIMAP_VIEW_SECTOR_COLOR);
         g.drawLine(
-                adjustOnWidth(width, viewSectorLeftEdgeStartPosition.getX()),
-                adjustOnHeight(height, viewSectorLeftEdgeStartPosition.getY()),
-                adjustOnWidth(width, viewSectorLeftEdgeEndPosition.getX()),
-                adjustOnHeight(height, viewSectorLeftEdgeEndPosition.getY()));
+                adjustOnWidth(dungeonMap, width, viewSectorLeftEdgeStartPosition.getX()),
+                adjustOnHeight(dungeonMap, height, viewSectorLeftEdgeStartPosition.getY()),
+                adjustOnWidth(dungeonMap, width, viewSectorLeftEdgeEndPosition.getX()),
+                adjustOnHeight(dungeonMap, height, viewSectorLeftEdgeEndPosition.getY()));
         g.drawLine(
-                adjustOnWidth(width, viewSectorRightEdgeStartPosition.getX()),
-                adjustOnHeight(height, viewSectorRightEdgeStartPosition.getY()),
-                adjustOnWidth(width, viewSectorRightEdgeEndPosition.getX()),
-                adjustOnHeight(height, viewSectorRightEdgeEndPosition.getY()));
+                adjustOnWidth(dungeonMap, width, viewSectorRightEdgeStartPosition.getX()),
+                adjustOnHeight(dungeonMap, height, viewSectorRightEdgeStartPosition.getY()),
+                adjustOnWidth(dungeonMap, width, viewSectorRightEdgeEndPosition.getX()),
+                adjustOnHeight(dungeonMap, height, viewSectorRightEdgeEndPosition.getY()));
 
     }
 
     /**
      * Получить x-координату точки на миникарте.
      *
-     * @param width ширина миникарты.
-     * @param x     координата по горизонтали.
+     * @param dungeonMap отображаемая карта.
+     * @param width      ширина миникарты.
+     * @param x          координата по горизонтали.
      * @return координата точки на миникарте
      */
-    private int adjustOnWidth(int width, double x) {
-        return (int) (x / mapProvider.getDungeonMap().getWidth() * width);
+    private int adjustOnWidth(@NonNull DungeonMap dungeonMap, int width, double x) {
+        return (int) (x / dungeonMap.getWidth() * width);
     }
 
     /**
      * Получить y-координату точки на миникарте.
      *
-     * @param height высота миникарты.
-     * @param y      координата по вертикали.
+     * @param dungeonMap отображаемая карта.
+     * @param height     высота миникарты.
+     * @param y          координата по вертикали.
      * @return координата точки на миникарте
      */
-    private int adjustOnHeight(int height, double y) {
-        return (int) (y / mapProvider.getDungeonMap().getHeight() * height);
+    private int adjustOnHeight(@NonNull DungeonMap dungeonMap, int height, double y) {
+        return (int) (y / dungeonMap.getHeight() * height);
     }
 }
@@ -0,0 +1,112 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.ildar.dungeon.config.Colors;
+import net.ildar.dungeon.config.Configuration;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.awt.*;
+
+/**
+ * Таблицы затенения базовых цветов {@link Colors}.
+ * <p>
+ * Для каждого базового цвета заранее вычисляется {@link Configuration#getShadingLevels()} оттенков
+ * от исходного цвета до чёрного, при отрисовке оттенок выбирается по коэффициенту затемнения без создания объектов.
+ */
+@Singleton
+public class ShadingPalette {
+    /**
+     * Оттенки цвета стен.
+     */
+    @Getter
+    private final ShadingTable wallTable;
+
+    /**
+     * Оттенки цвета неизвестных статических объектов.
+     */
+    @Getter
+    private final ShadingTable unknownObjectTable;
+
+    /**
+     * Оттенки цвета пола.
+     */
+    @Getter
+    private final ShadingTable floorTable;
+
+    /**
+     * @throws IllegalArgumentException если {@link Configuration#getShadingLevels()} меньше 2: таблица должна
+     *                                  содержать хотя бы исходный цвет и чёрный
+     */
+    @Inject
+    public ShadingPalette(@NonNull Configuration configuration) {
+        int levels = configuration.getShadingLevels();
+        if (levels < 2) {
+            throw new IllegalArgumentException("Shading levels must be at least 2, got " + levels);
+        }
+        this.wallTable = new ShadingTable(Colors.WALL_COLOR, levels);
+        this.unknownObjectTable = new ShadingTable(Colors.UNKNOWN_OBJECT_COLOR, levels);
+        this.floorTable = new ShadingTable(Colors.FLOOR_COLOR, levels);
+    }
+
+    /**
+     * Таблица оттенков одного цвета.
+     */
+    public static class ShadingTable {
+        /**
+         * Оттенки по возрастанию коэффициента затемнения.
+         */
+        private final Color[] colors;
+
+        /**
+         * Оттенки в формате RGB по возрастанию коэффициента затемнения.
+         */
+        private final int[] rgbs;
+
+        private ShadingTable(@NonNull Color color, int levels) {
+            this.colors = new Color[levels];
+            this.rgbs = new int[levels];
+            for (int i = 0; i < levels; i++) {
+                double factor = (double) i / (levels - 1);
+                colors[i] = new Color(
+                        Math.min((int) (color.getRed() * (1 - factor)), 255),
+                        Math.min((int) (color.getGreen() * (1 - factor)), 255),
+                        Math.min((int) (color.getBlue() * (1 - factor)), 255),
+                        color.getAlpha());
+                rgbs[i] = colors[i].getRGB();
+            }
+        }
+
+        /**
+         * Получить затемнённый цвет.
+         *
+         * @param factor коэффициент затемнения, от 0 (исходный цвет) до 1 (чёрный)
+         * @return затемнённый цвет
+         */
+        @NonNull
+        public Color getColor(double factor) {
+            return colors[toLevel(factor)];
+        }
+
+        /**
+         * Получить затемнённый цвет в формате RGB.
+         *
+         * @param factor коэффициент затемнения, от 0 (исходный цвет) до 1 (чёрный)
+         * @return затемнённый цвет в формате RGB
+         */
+        public int getRgb(double factor) {
+            return rgbs[toLevel(factor)];
+        }
+
+        private int toLevel(double factor) {
+            if (!(factor > 0)) {
+                return 0;
+            }
+            if (factor >= 1) {
+                return rgbs.length - 1;
+            }
+            return (int) (factor * (rgbs.length - 1) + 0.5);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Текстура, подготовленная для отрисовки по полосам рендеринга.
+ * <p>
+ * Хранит набор уровней детализации: каждый следующий уровень вдвое меньше предыдущего по обоим измерениям.
+ * Пиксели каждого уровня заранее разбиты на вертикальные полосы шириной в один пиксель.
+ */
+public class Sprite {
+    /**
+     * Уровни детализации, начиная с исходного изображения.
+     */
+    private final List<Level> levels = new ArrayList<>();
+
+    /**
+     * Оценка памяти пикселей всех уровней в байтах.
+     */
+    @Getter
+    private final long estimatedBytes;
+
+    public Sprite(@NonNull BufferedImage image) {
+        Level level = new Level(image);
+        levels.add(level);
+        while (level.getWidth() > 1 || level.getHeight() > 1) {
+            level = level.downscale();
+            levels.add(level);
+        }
+        long estimatedBytes = 0;
+        for (Level spriteLevel : levels) {
+            // пиксели изображения уровня и его вертикальных полос
+            estimatedBytes += 2L * spriteLevel.getWidth() * spriteLevel.getHeight() * Integer.BYTES;
+        }
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * Ширина исходного изображения.
+     */
+    public int getWidth() {
+        return levels.get(0).getWidth();
+    }
+
+    /**
+     * Высота исходного изображения.
+     */
+    public int getHeight() {
+        return levels.get(0).getHeight();
+    }
+
+    /**
+     * Выбрать уровень детализации для отрисовки части текстуры.
+     * <p>
+     * Выбирается наименьший уровень, в котором отрисовываемая часть содержит не меньше строк, чем займёт на экране.
+     *
+     * @param spriteHeight высота отрисовываемой части исходного изображения
+     * @param drawHeight   высота отрисовки на экране
+     * @return уровень детализации
+     */
+    @NonNull
+    public Level selectLevel(int spriteHeight, int drawHeight) {
+        int levelIndex = 0;
+        while (levelIndex + 1 < levels.size() && (spriteHeight >> (levelIndex + 1)) >= drawHeight) {
+            levelIndex++;
+        }
+        return levels.get(levelIndex);
+    }
+
+    /**
+     * Уровень детализации текстуры.
+     */
+    public static class Level {
+        /**
+         * Изображение уровня.
+         */
+        @Getter
+        private final BufferedImage image;
+
+        @Getter
+        private final int width;
+
+        @Getter
+        private final int height;
+
+        /**
+         * Пиксели уровня в формате ARGB, по вертикальным полосам сверху вниз.
+         */
+        private final int[][] columns;
+
+        private Level(@NonNull BufferedImage image) {
+            this.image = image;
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+            int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+            this.columns = new int[width][height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    columns[x][y] = pixels[y * width + x];
+                }
+            }
+        }
+
+        /**
+         * Получить вертикальную полосу пикселей уровня.
+         * <p>
+         * Возвращаемый массив изменять нельзя.
+         *
+         * @param x номер полосы
+         * @return пиксели полосы в формате ARGB сверху вниз
+         */
+        @NonNull
+        public int[] getColumn(int x) {
+            return columns[x];
+        }
+
+        /**
+         * Перевести горизонтальную координату исходного изображения в координату уровня.
+         */
+        public int toLevelX(int x, int sourceWidth) {
+            return (int) ((long) x * width / sourceWidth);
+        }
+
+        /**
+         * Перевести вертикальную координату исходного изображения в координату уровня.
+         */
+        public int toLevelY(int y, int sourceHeight) {
+            return (int) ((long) y * height / sourceHeight);
+        }
+
+        /**
+         * Построить следующий уровень детализации, усредняя блоки 2x2 пикселя.
+         * <p>
+         * Цвета усредняются с учётом прозрачности, чтобы прозрачные пиксели не затемняли края текстуры.
+         */
+        @NonNull
+        private Level downscale() {
+            int downscaledWidth = Math.max(width / 2, 1);
+            int downscaledHeight = Math.max(height / 2, 1);
+            BufferedImage downscaled = new BufferedImage(downscaledWidth, downscaledHeight, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < downscaledHeight; y++) {
+                for (int x = 0; x < downscaledWidth; x++) {
+                    int fromX = x * width / downscaledWidth;
+                    int toX = Math.max((x + 1) * width / downscaledWidth, fromX + 1);
+                    int fromY = y * height / downscaledHeight;
+                    int toY = Math.max((y + 1) * height / downscaledHeight, fromY + 1);
+                    long a = 0;
+                    long r = 0;
+                    long g = 0;
+                    long b = 0;
+                    for (int sourceX = fromX; sourceX < toX; sourceX++) {
+                        for (int sourceY = fromY; sourceY < toY; sourceY++) {
+                            int argb = columns[sourceX][sourceY];
+                            int alpha = argb >>> 24;
+                            a += alpha;
+                            r += ((argb >> 16) & 0xFF) * alpha;
+                            g += ((argb >> 8) & 0xFF) * alpha;
+                            b += (argb & 0xFF) * alpha;
+                        }
+                    }
+                    int count = (toX - fromX) * (toY - fromY);
+                    int argb = 0;
+                    if (a > 0) {
+                        argb = (int) (a / count) << 24
+                                | (int) (r / a) << 16
+                                | (int) (g / a) << 8
+                                | (int) (b / a);
+                    }
+                    downscaled.setRGB(x, y, argb);
+                }
+            }
+            return new Level(downscaled);
+        }
+    }
+}
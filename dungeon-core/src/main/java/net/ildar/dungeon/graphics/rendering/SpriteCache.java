@@ -0,0 +1,73 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import lombok.NonNull;
+import net.ildar.dungeon.config.Configuration;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Кэш текстур, подготовленных для отрисовки по полосам рендеринга.
+ * <p>
+ * Текстура разбивается на уровни детализации при первом обращении или при заблаговременной загрузке.
+ * Когда оценка памяти текстур превышает {@link Configuration#getSpriteCacheMemoryBudget()}, вытесняются
+ * дольше всего не запрашивавшиеся текстуры.
+ */
+@Singleton
+public class SpriteCache {
+    private final ImageCache imageCache;
+
+    /**
+     * Подготовленные текстуры по пути в classpath. Пустой Optional для не найденных текстур.
+     */
+    private final LruCache<Optional<Sprite>> sprites;
+
+    @Inject
+    public SpriteCache(ImageCache imageCache, Configuration configuration) {
+        this.imageCache = imageCache;
+        this.sprites = new LruCache<>(configuration.getSpriteCacheMemoryBudget(),
+                sprite -> sprite.map(Sprite::getEstimatedBytes).orElse(0L));
+    }
+
+    /**
+     * Получить текстуру по её пути в classpath.
+     *
+     * @param path путь к текстуре в classpath
+     * @return Optional текстуры
+     */
+    @NonNull
+    public Optional<Sprite> getSprite(@NonNull String path) {
+        Optional<Sprite> sprite = sprites.get(path);
+        if (sprite == null) {
+            sprite = imageCache.getImage(path).map(Sprite::new);
+            sprites.put(path, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * Доля запросов текстур, найденных в кэше, от 0 до 1.
+     */
+    public double getHitRate() {
+        long hitCount = sprites.getHitCount();
+        long requestCount = hitCount + sprites.getMissCount();
+        return requestCount > 0 ? (double) hitCount / requestCount : 0;
+    }
+
+    /**
+     * Начать параллельную загрузку и подготовку текстур в потоках загрузки {@link ImageCache}.
+     *
+     * @param paths пути к текстурам в classpath
+     * @return завершается после подготовки всех текстур
+     */
+    @NonNull
+    public CompletableFuture<Void> preload(@NonNull Collection<String> paths) {
+        return CompletableFuture.allOf(paths.stream()
+                .map(path -> imageCache.getImageAsync(path)
+                        .thenAccept(image -> sprites.put(path, image.map(Sprite::new))))
+                .toArray(CompletableFuture<?>[]::new));
+    }
+}
@@ -0,0 +1,218 @@
+package net.ildar.dungeon.graphics.tracing;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.Trigonometry;
+import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.InmovableMapObject;
+import net.ildar.dungeon.map.MovableMapObject;
+import net.ildar.dungeon.map.MovableObjectIndex;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.StaticObjectIndex;
+import net.ildar.dungeon.provider.MapProvider;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Трассировщик, продвигающий луч по клеткам сетки карты (алгоритм DDA).
+ * <p>
+ * Стоимость трассировки зависит от количества пересечённых лучом клеток,
+ * расстояние до статического объекта и грань попадания вычисляются точно.
+ */
+@Singleton
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class GridRayTracer {
+    private final MapProvider mapProvider;
+    private final Configuration configuration;
+    private final Trigonometry trigonometry;
+    private final CollisionDetector collisionDetector;
+
+    /**
+     * Выполнить трассировку.
+     *
+     * @param position     исходная позиция луча трассировки
+     * @param tracingAngle угол трассировки
+     * @return результат выполнения трассировки.
+     */
+    @NonNull
+    public TraceResult trace(@NonNull Position position, double tracingAngle) {
+        return trace(position, tracingAngle,
+                trigonometry.getDirectionX(tracingAngle), trigonometry.getDirectionY(tracingAngle));
+    }
+
+    /**
+     * Выполнить трассировку с заранее вычисленным направлением луча.
+     *
+     * @param position     исходная позиция луча трассировки
+     * @param tracingAngle угол трассировки
+     * @param directionX   горизонтальная составляющая направления луча
+     * @param directionY   вертикальная составляющая направления луча
+     * @return результат выполнения трассировки.
+     */
+    @NonNull
+    public TraceResult trace(@NonNull Position position, double tracingAngle, double directionX, double directionY) {
+        return trace(position, tracingAngle, directionX, directionY, true);
+    }
+
+    /**
+     * Выполнить трассировку до статического объекта, не собирая мобильные объекты на пути луча.
+     *
+     * @param position     исходная позиция луча трассировки
+     * @param tracingAngle угол трассировки
+     * @param directionX   горизонтальная составляющая направления луча
+     * @param directionY   вертикальная составляющая направления луча
+     * @return результат выполнения трассировки с пустым списком мобильных объектов.
+     */
+    @NonNull
+    public TraceResult traceStaticObjects(@NonNull Position position, double tracingAngle,
+                                          double directionX, double directionY) {
+        return trace(position, tracingAngle, directionX, directionY, false);
+    }
+
+    @NonNull
+    private TraceResult trace(@NonNull Position position, double tracingAngle,
+                              double directionX, double directionY, boolean interceptMovableObjects) {
+        DungeonMap dungeonMap = mapProvider.getDungeonMap();
+        StaticObjectIndex staticObjectIndex = dungeonMap.getStaticObjectIndex();
+        double x = position.getX();
+        double y = position.getY();
+
+        int cellX = (int) Math.floor(x);
+        int cellY = (int) Math.floor(y);
+        // вернем результат трассировки если исходная позиция находится внутри статического объекта
+        List<InmovableMapObject> startCell = staticObjectIndex.getCell(cellX, cellY);
+        for (int i = 0; i < startCell.size(); i++) {
+            if (startCell.get(i).interferes(x, y)) {
+                return new TraceResult(0, startCell.get(i), new ArrayList<>());
+            }
+        }
+
+        double viewDistance = Math.min(
+                configuration.getViewDistance(),
+                Math.max(dungeonMap.getWidth(), dungeonMap.getHeight()));
+
+        // параметры прохода по клеткам: направление шага, расстояние до ближайшей границы клетки и между границами
+        int stepX = directionX > 0 ? 1 : -1;
+        int stepY = directionY > 0 ? 1 : -1;
+        double deltaX = directionX == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / directionX);
+        double deltaY = directionY == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / directionY);
+        double nextBorderX = directionX == 0 ? Double.POSITIVE_INFINITY
+                : (directionX > 0 ? cellX + 1 - x : x - cellX) * deltaX;
+        double nextBorderY = directionY == 0 ? Double.POSITIVE_INFINITY
+                : (directionY > 0 ? cellY + 1 - y : y - cellY) * deltaY;
+
+        InmovableMapObject touchedObject = null;
+        WallFace touchedFace = null;
+        double distance = Double.MAX_VALUE;
+        MovableObjectIndex movableObjectIndex = dungeonMap.getMovableObjectIndex();
+        // центр мобильного объекта, пересекающего клетку, находится не дальше его радиуса от неё
+        double movableObjectMargin = movableObjectIndex.getMaxRadius();
+        // пересечённые лучом мобильные объекты с расстояниями до точек входа и выхода луча, создаётся при первом пересечении
+        Map<MovableMapObject, InterceptedMovableObject> interceptions = null;
+        while (true) {
+            double cellExitDistance = Math.min(nextBorderX, nextBorderY);
+            if (interceptMovableObjects) {
+                int fromX = (int) Math.floor(cellX - movableObjectMargin);
+                int toX = (int) Math.floor(cellX + 1 + movableObjectMargin);
+                int fromY = (int) Math.floor(cellY - movableObjectMargin);
+                int toY = (int) Math.floor(cellY + 1 + movableObjectMargin);
+                for (int neighbourY = fromY; neighbourY <= toY; neighbourY++) {
+                    for (int neighbourX = fromX; neighbourX <= toX; neighbourX++) {
+                        MovableMapObject[] neighbours = movableObjectIndex.getCell(neighbourX, neighbourY);
+                        for (int i = 0; i < neighbours.length; i++) {
+                            MovableMapObject mmo = neighbours[i];
+                            double entryDistance = collisionDetector.getRayEntryDistance(
+                                    x, y, directionX, directionY, mmo);
+                            if (entryDistance == Double.POSITIVE_INFINITY) {
+                                continue;
+                            }
+                            if (interceptions == null) {
+                                interceptions = new IdentityHashMap<>();
+                            }
+                            interceptions.computeIfAbsent(mmo, intercepted -> new InterceptedMovableObject(
+                                    intercepted, tracingAngle, entryDistance,
+                                    collisionDetector.getRayExitDistance(x, y, directionX, directionY, intercepted)));
+                        }
+                    }
+                }
+            }
+            List<InmovableMapObject> cell = staticObjectIndex.getCell(cellX, cellY);
+            for (int i = 0; i < cell.size(); i++) {
+                InmovableMapObject imo = cell.get(i);
+                double entryDistance = collisionDetector.getRayEntryDistance(x, y, directionX, directionY, imo);
+                // объект может выходить за пределы клетки, тогда точка входа будет найдена в другой клетке
+                if (entryDistance <= cellExitDistance && entryDistance < distance) {
+                    distance = entryDistance;
+                    touchedObject = imo;
+                }
+            }
+            if (touchedObject != null || cellExitDistance > viewDistance) {
+                break;
+            }
+            if (nextBorderX < nextBorderY) {
+                nextBorderX += deltaX;
+                cellX += stepX;
+            } else {
+                nextBorderY += deltaY;
+                cellY += stepY;
+            }
+        }
+        if (touchedObject != null && distance <= viewDistance) {
+            touchedFace = findTouchedFace(x + distance * directionX, y + distance * directionY,
+                    directionX, directionY, touchedObject);
+        } else {
+            touchedObject = null;
+            distance = Double.MAX_VALUE;
+        }
+
+        List<InterceptedMovableObject> interceptedMovableObjects = interceptions == null
+                ? new ArrayList<>()
+                : sortInterceptedMovableObjects(interceptions, Math.min(distance, viewDistance));
+        return new TraceResult(distance, touchedObject, interceptedMovableObjects, touchedFace);
+    }
+
+    /**
+     * Упорядочить мобильные объекты на пути луча по удалению от исходной позиции.
+     *
+     * @param interceptions пересечённые лучом объекты
+     * @param maxDistance   расстояние, дальше которого объекты не учитываются
+     */
+    @NonNull
+    private List<InterceptedMovableObject> sortInterceptedMovableObjects(
+            @NonNull Map<MovableMapObject, InterceptedMovableObject> interceptions,
+            double maxDistance) {
+        List<InterceptedMovableObject> interceptedMovableObjects = new ArrayList<>();
+        interceptions.values().stream()
+                .filter(ipto -> ipto.getEntryDistance() < maxDistance)
+                .sorted(Comparator.comparingDouble(InterceptedMovableObject::getEntryDistance))
+                .forEach(interceptedMovableObjects::add);
+        return interceptedMovableObjects;
+    }
+
+    /**
+     * Определить грань объекта, на которой лежит точка попадания луча.
+     */
+    @NonNull
+    private WallFace findTouchedFace(double hitX, double hitY, double directionX, double directionY,
+                                     @NonNull InmovableMapObject imo) {
+        double toVerticalFace = directionX > 0
+                ? Math.abs(hitX - imo.getPosition().getX())
+                : Math.abs(hitX - imo.getPosition().getX() - imo.getWidth());
+        double toHorizontalFace = directionY > 0
+                ? Math.abs(hitY - imo.getPosition().getY())
+                : Math.abs(hitY - imo.getPosition().getY() - imo.getLength());
+        if (toVerticalFace < toHorizontalFace) {
+            return directionX > 0 ? WallFace.WEST : WallFace.EAST;
+        } else {
+            return directionY > 0 ? WallFace.NORTH : WallFace.SOUTH;
+        }
+    }
+}
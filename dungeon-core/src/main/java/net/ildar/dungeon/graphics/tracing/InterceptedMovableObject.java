@@ -19,4 +19,14 @@ public class InterceptedMovableObject {
      * Угол трассировки или взгляда на объект.
      */
     double viewAngle;
+
+    /**
+     * Расстояние от начала луча до точки входа луча в объект, 0 если луч начинается внутри объекта.
+     */
+    double entryDistance;
+
+    /**
+     * Расстояние от начала луча до точки выхода луча из объекта.
+     */
+    double exitDistance;
 }
@@ -2,10 +2,14 @@ package net.ildar.dungeon.graphics.tracing;
 
 import lombok.RequiredArgsConstructor;
 import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.Trigonometry;
 import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.InmovableMapObject;
 import net.ildar.dungeon.map.MapObject;
 import net.ildar.dungeon.map.MovableMapObject;
 import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.StaticObjectIndex;
 import net.ildar.dungeon.provider.MapProvider;
 
 import javax.inject.Inject;
@@ -21,19 +25,96 @@ public class RayTracer {
     private final MapProvider mapProvider;
     private final Configuration configuration;
     private final CollisionDetector collisionDetector;
+    private final GridRayTracer gridRayTracer;
+    private final Trigonometry trigonometry;
 
     /**
      * Выполнить трассировку.
+     * <p>
+     * При включенном {@link Configuration#isGridTracingEnabled()} трассировка выполняется по клеткам сетки карты.
      *
      * @param position     исходная позиция луча трассировки
      * @param tracingAngle угол трассировки
      * @return результат выполнения трассировки.
      */
     public TraceResult trace(Position position, double tracingAngle) {
+        return trace(position, tracingAngle,
+                trigonometry.getDirectionX(tracingAngle), trigonometry.getDirectionY(tracingAngle));
+    }
+
+    /**
+     * Выполнить трассировку с заранее вычисленным направлением луча.
+     *
+     * @param position     исходная позиция луча трассировки
+     * @param tracingAngle угол трассировки
+     * @param directionX   горизонтальная составляющая направления луча
+     * @param directionY   вертикальная составляющая направления луча
+     * @return результат выполнения трассировки.
+     */
+    public TraceResult trace(Position position, double tracingAngle, double directionX, double directionY) {
+        if (configuration.isGridTracingEnabled()) {
+            return gridRayTracer.trace(position, tracingAngle, directionX, directionY);
+        }
+        return traceByStep(position, tracingAngle, directionX, directionY);
+    }
+
+    /**
+     * Выполнить трассировку до статического объекта, не собирая мобильные объекты на пути луча.
+     *
+     * @param position     исходная позиция луча трассировки
+     * @param tracingAngle угол трассировки
+     * @param directionX   горизонтальная составляющая направления луча
+     * @param directionY   вертикальная составляющая направления луча
+     * @return результат выполнения трассировки с пустым списком мобильных объектов.
+     */
+    public TraceResult traceStaticObjects(Position position, double tracingAngle, double directionX, double directionY) {
+        if (configuration.isGridTracingEnabled()) {
+            return gridRayTracer.traceStaticObjects(position, tracingAngle, directionX, directionY);
+        }
+        StaticObjectIndex staticObjectIndex = mapProvider.getDungeonMap().getStaticObjectIndex();
+        double viewDistance = Math.min(
+                configuration.getViewDistance(),
+                Math.max(mapProvider.getDungeonMap().getWidth(), mapProvider.getDungeonMap().getHeight()));
+        double currentRayLength = 0;
+        while (currentRayLength <= viewDistance) {
+            Optional<InmovableMapObject> interferingObject = staticObjectIndex.findInterferingObject(
+                    position.getX() + currentRayLength * directionX, position.getY() + currentRayLength * directionY);
+            if (interferingObject.isPresent()) {
+                return new TraceResult(currentRayLength, interferingObject.get(), new ArrayList<>());
+            }
+            currentRayLength += configuration.getTracingStep();
+        }
+        return new TraceResult(Double.MAX_VALUE, null, new ArrayList<>());
+    }
+
+    /**
+     * Выполнить трассировку, продвигая луч с шагом {@link Configuration#getTracingStep()}.
+     *
+     * @param position     исходная позиция луча трассировки
+     * @param tracingAngle угол трассировки
+     * @return результат выполнения трассировки.
+     */
+    public TraceResult traceByStep(Position position, double tracingAngle) {
+        return traceByStep(position, tracingAngle,
+                trigonometry.getDirectionX(tracingAngle), trigonometry.getDirectionY(tracingAngle));
+    }
+
+    /**
+     * Выполнить пошаговую трассировку с заранее вычисленным направлением луча.
+     *
+     * @param position     исходная позиция луча трассировки
+     * @param tracingAngle угол трассировки
+     * @param directionX   горизонтальная составляющая направления луча
+     * @param directionY   вертикальная составляющая направления луча
+     * @return результат выполнения трассировки.
+     */
+    public TraceResult traceByStep(Position position, double tracingAngle, double directionX, double directionY) {
         List<InterceptedMovableObject> interceptedMovableObjects = new ArrayList<>();
+        DungeonMap dungeonMap = mapProvider.getDungeonMap();
+        double x = position.getX();
+        double y = position.getY();
 
-        Optional<MapObject> interferingMapObject = collisionDetector.getInterferingMapObject(
-                mapProvider.getDungeonMap(), position);
+        Optional<MapObject> interferingMapObject = collisionDetector.getInterferingMapObject(dungeonMap, x, y);
         // вернем результат трассировки если препятствие обнаружено на нулевом шаге.
         if (interferingMapObject.isPresent() && !(interferingMapObject.get() instanceof MovableMapObject)) {
             return new TraceResult(0, interferingMapObject.get(), interceptedMovableObjects);
@@ -41,24 +122,38 @@ public class RayTracer {
 
         double viewDistance = Math.min(
                 configuration.getViewDistance(),
-                Math.max(mapProvider.getDungeonMap().getWidth(), mapProvider.getDungeonMap().getHeight()));
+                Math.max(dungeonMap.getWidth(), dungeonMap.getHeight()));
         double currentRayLength = configuration.getTracingStep();
         while (currentRayLength <= viewDistance) {
-            Position rayPosition = position.shift(currentRayLength, tracingAngle);
             // выясним находится ли на пути луча некий объект
-            interferingMapObject = collisionDetector.getInterferingMapObject(mapProvider.getDungeonMap(), rayPosition);
+            interferingMapObject = collisionDetector.getInterferingMapObject(dungeonMap,
+                    x + currentRayLength * directionX, y + currentRayLength * directionY);
             if (interferingMapObject.isPresent()) {
                 MapObject mapObject = interferingMapObject.get();
                 if (mapObject instanceof MovableMapObject) {
                     // при обнаружении мобильных объектов трассировка продолжается
-                    interceptedMovableObjects.add(
-                            new InterceptedMovableObject((MovableMapObject) mapObject, tracingAngle));
-                    Optional<MapObject> nextImo;
-                    do {
+                    MovableMapObject mmo = (MovableMapObject) mapObject;
+                    if (!interceptedMovableObjects.isEmpty() && interceptedMovableObjects
+                            .get(interceptedMovableObjects.size() - 1).getMapObject() == mmo) {
+                        // направление луча задано с погрешностью, шаг после точки выхода может задеть край объекта
                         currentRayLength += configuration.getTracingStep();
-                        nextImo = collisionDetector.getInterferingMapObject(
-                                mapProvider.getDungeonMap(), position.shift(currentRayLength, tracingAngle));
-                    } while (nextImo.isPresent() && nextImo.get().equals(mapObject));
+                        continue;
+                    }
+                    double entryDistance = collisionDetector.getRayEntryDistance(x, y, directionX, directionY, mmo);
+                    double exitDistance = collisionDetector.getRayExitDistance(x, y, directionX, directionY, mmo);
+                    if (exitDistance == Double.POSITIVE_INFINITY) {
+                        // луч касается объекта, точки входа и выхода неотличимы от точки шага
+                        entryDistance = currentRayLength;
+                        exitDistance = currentRayLength;
+                    }
+                    interceptedMovableObjects.add(
+                            new InterceptedMovableObject(mmo, tracingAngle, entryDistance, exitDistance));
+                    // объекты карты не пересекаются, поэтому внутри объекта других объектов нет:
+                    // трассировка продолжается с первого шага после точки выхода
+                    currentRayLength = Math.max(
+                            (Math.floor(exitDistance / configuration.getTracingStep()) + 1)
+                                    * configuration.getTracingStep(),
+                            currentRayLength + configuration.getTracingStep());
                     continue;
                 } else {
                     // найдено пересечение со статическим объектом, возвращаем результат трассировки
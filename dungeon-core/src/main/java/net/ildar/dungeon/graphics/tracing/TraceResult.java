@@ -1,5 +1,6 @@
 package net.ildar.dungeon.graphics.tracing;
 
+import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.Value;
 import net.ildar.dungeon.map.MapObject;
@@ -7,6 +8,7 @@ import net.ildar.dungeon.map.MapObject;
 import java.util.List;
 
 @Value
+@AllArgsConstructor
 public class TraceResult {
     /**
      * Расстояние до объекта на пути луча.
@@ -24,4 +26,16 @@ public class TraceResult {
      */
     @NonNull
     List<InterceptedMovableObject> interceptedMovableObjects;
+
+    /**
+     * Грань объекта, в которую попал луч.
+     * null если грань не определялась при трассировке или объект не найден.
+     */
+    WallFace touchedFace;
+
+    public TraceResult(double distance,
+                       MapObject touchedObject,
+                       @NonNull List<InterceptedMovableObject> interceptedMovableObjects) {
+        this(distance, touchedObject, interceptedMovableObjects, null);
+    }
 }
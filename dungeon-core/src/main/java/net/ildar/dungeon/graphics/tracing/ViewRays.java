@@ -0,0 +1,85 @@
+package net.ildar.dungeon.graphics.tracing;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.ildar.dungeon.Trigonometry;
+
+/**
+ * Углы и векторы направлений лучей трассировки для всех полос рендеринга кадра.
+ * <p>
+ * Содержит на один луч больше, чем полос рендеринга: последний луч проходит через правый край последней полосы.
+ * Пересчитывается только при изменении угла взгляда или параметров экрана.
+ */
+public class ViewRays {
+    private final Trigonometry trigonometry;
+
+    /**
+     * Количество полос рендеринга.
+     */
+    @Getter
+    private int columnCount;
+
+    private double[] angles = new double[0];
+    private double[] directionsX = new double[0];
+    private double[] directionsY = new double[0];
+
+    private double viewAngle = Double.NaN;
+    private int fov;
+    private int width;
+    private int columnWidth;
+
+    public ViewRays(@NonNull Trigonometry trigonometry) {
+        this.trigonometry = trigonometry;
+    }
+
+    /**
+     * Обновить лучи для нового кадра.
+     *
+     * @param viewAngle   угол взгляда
+     * @param fov         ширина обзора в градусах
+     * @param width       ширина области рендеринга в пикселях
+     * @param columnWidth ширина полосы рендеринга в пикселях
+     */
+    public void update(double viewAngle, int fov, int width, int columnWidth) {
+        if (viewAngle == this.viewAngle && fov == this.fov && width == this.width && columnWidth == this.columnWidth) {
+            return;
+        }
+        this.viewAngle = viewAngle;
+        this.fov = fov;
+        this.width = width;
+        this.columnWidth = columnWidth;
+        this.columnCount = (width + columnWidth - 1) / columnWidth;
+        if (angles.length != columnCount + 1) {
+            angles = new double[columnCount + 1];
+            directionsX = new double[columnCount + 1];
+            directionsY = new double[columnCount + 1];
+        }
+        for (int column = 0; column <= columnCount; column++) {
+            double angle = viewAngle - fov / 2.0 + ((double) column * columnWidth) / width * fov;
+            angles[column] = angle;
+            directionsX[column] = trigonometry.getDirectionX(angle);
+            directionsY[column] = trigonometry.getDirectionY(angle);
+        }
+    }
+
+    /**
+     * Угол луча трассировки полосы.
+     */
+    public double getAngle(int column) {
+        return angles[column];
+    }
+
+    /**
+     * Горизонтальная составляющая направления луча полосы.
+     */
+    public double getDirectionX(int column) {
+        return directionsX[column];
+    }
+
+    /**
+     * Вертикальная составляющая направления луча полосы.
+     */
+    public double getDirectionY(int column) {
+        return directionsY[column];
+    }
+}
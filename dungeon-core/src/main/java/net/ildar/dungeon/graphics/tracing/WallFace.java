@@ -0,0 +1,26 @@
+package net.ildar.dungeon.graphics.tracing;
+
+/**
+ * Грань статического объекта карты, в которую попал луч трассировки.
+ */
+public enum WallFace {
+    /**
+     * Северная грань (с меньшей координатой по вертикали).
+     */
+    NORTH,
+
+    /**
+     * Восточная грань (с большей координатой по горизонтали).
+     */
+    EAST,
+
+    /**
+     * Южная грань (с большей координатой по вертикали).
+     */
+    SOUTH,
+
+    /**
+     * Западная грань (с меньшей координатой по горизонтали).
+     */
+    WEST
+}
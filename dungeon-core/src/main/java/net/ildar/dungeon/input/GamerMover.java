@@ -4,7 +4,9 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.Trigonometry;
 import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.map.DungeonMap;
 import net.ildar.dungeon.map.Gamer;
 import net.ildar.dungeon.map.MapObject;
 import net.ildar.dungeon.map.Position;
@@ -24,6 +26,7 @@ public class GamerMover {
     private final Configuration configuration;
     private final CollisionDetector collisionDetector;
     private final MapProvider mapProvider;
+    private final Trigonometry trigonometry;
 
     /**
      * Изменить положение на карте в зависимости от нажатой клавиши.
@@ -49,17 +52,21 @@ public class GamerMover {
                 return;
         }
 
-        // проверка пересечения новой позиции с объектами на карте
-        Position newGamerPosition = gamer.getPosition().shift(
-                configuration.getGamerMovingStep(),
-                moveAngle);
-        Optional<MapObject> interferingMapObject = collisionDetector.getInterferingMapObject(mapProvider.getDungeonMap(), newGamerPosition);
+        // проверка пересечения игрока в новой позиции с объектами на карте
+        double newGamerX = gamer.getPosition().getX() + configuration.getGamerMovingStep() * trigonometry.getDirectionX(moveAngle);
+        double newGamerY = gamer.getPosition().getY() + configuration.getGamerMovingStep() * trigonometry.getDirectionY(moveAngle);
+        DungeonMap dungeonMap = mapProvider.getDungeonMap();
+        // стены карты, загружаемой по фрагментам, должны быть в памяти до проверки столкновения
+        dungeonMap.getStaticObjectIndex().loadArea(newGamerX - gamer.getRadius(), newGamerY - gamer.getRadius(),
+                newGamerX + gamer.getRadius(), newGamerY + gamer.getRadius());
+        Optional<MapObject> interferingMapObject = collisionDetector.getInterferingMapObject(
+                dungeonMap, gamer, newGamerX, newGamerY);
         if (interferingMapObject.isEmpty()) {
-            gamer.setPosition(newGamerPosition);
+            gamer.setPosition(new Position(newGamerX, newGamerY));
             log.info("Changed position to {}, view angle to {}",
                     gamer.getPosition(), gamer.getViewAngle());
         } else {
-            log.info("Gamer can't move to {}", newGamerPosition);
+            log.info("Gamer can't move to ({}, {})", newGamerX, newGamerY);
         }
 
     }
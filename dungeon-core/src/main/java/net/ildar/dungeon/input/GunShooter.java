@@ -2,15 +2,14 @@ package net.ildar.dungeon.input;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import net.ildar.dungeon.CollisionDetector;
 import net.ildar.dungeon.Gun;
 import net.ildar.dungeon.Gun.State;
+import net.ildar.dungeon.Hit;
+import net.ildar.dungeon.HitScanner;
 import net.ildar.dungeon.MobKiller;
 import net.ildar.dungeon.config.Configuration;
 import net.ildar.dungeon.map.Gamer;
-import net.ildar.dungeon.map.MapObject;
 import net.ildar.dungeon.map.Mob;
-import net.ildar.dungeon.provider.MapProvider;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -26,10 +25,9 @@ public class GunShooter {
     
     private final Gun gun;
     private final Gamer gamer;
-    private final MapProvider mapProvider;
     private final MobKiller mobKiller;
     private final Configuration configuration;
-    private final CollisionDetector collisionDetector;
+    private final HitScanner hitScanner;
 
     /**
      * Количество игровых кадров пройденных при выстреле.
@@ -57,26 +55,14 @@ public class GunShooter {
         shutMob.ifPresent(mobKiller::shootAtMob);
     }
 
+    /**
+     * Найти моба, в которого попадает выстрел игрока. Статический объект на пути выстрела закрывает мобов за ним.
+     */
     private Optional<Mob> checkForShutMob() {
-        Optional<MapObject> interferingMapObject = collisionDetector.getInterferingMapObject(
-                mapProvider.getDungeonMap(), gamer.getPosition());
-        if (interferingMapObject.isPresent() && interferingMapObject.get() instanceof Mob) {
-            return Optional.of((Mob)interferingMapObject.get());
-        }
-        double bulletDistance = configuration.getTracingStep();
-        while(interferingMapObject.isEmpty() && bulletDistance < configuration.getViewDistance()) {
-            interferingMapObject = collisionDetector.getInterferingMapObject(
-                    mapProvider.getDungeonMap(), gamer.getPosition().shift(bulletDistance, gamer.getViewAngle()));
-            bulletDistance += configuration.getTracingStep();
-        }
-        if (interferingMapObject.isEmpty()) {
-            return Optional.empty();
-        }
-        if (interferingMapObject.get() instanceof Mob) {
-            return Optional.of((Mob)interferingMapObject.get());
-        } else {
-            return Optional.empty();
-        }
+        return hitScanner.scan(gamer.getPosition(), gamer.getViewAngle())
+                .map(Hit::getMapObject)
+                .filter(mapObject -> mapObject instanceof Mob)
+                .map(mapObject -> (Mob) mapObject);
     }
 
     /**
@@ -14,6 +14,7 @@ public enum InputKey {
     RIGHT("DdвВ", new int[]{39}, false),
     SHOOT(" ", new int[]{32}, true),
     RESET("rкКR", new int[0], true),
+    PROFILER("pзЗP", new int[0], true),
     ;
 
     /**
@@ -53,10 +53,12 @@ public class KeyboardListener implements KeyListener {
 
     /**
      * Получить множество активных клавиш многоразовой обработки.
+     * <p>
+     * Возвращается копия множества, поэтому её можно обходить из потока игровой логики без блокировки.
      */
     @NonNull
     public synchronized Set<InputKey> getPressedKeys() {
-        return pressedKeys;
+        return pressedKeys.clone();
     }
 
     /**
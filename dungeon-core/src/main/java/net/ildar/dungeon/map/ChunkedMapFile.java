@@ -0,0 +1,358 @@
+package net.ildar.dungeon.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Файл карты, разбитой на квадратные фрагменты, которые читаются по отдельности.
+ * <p>
+ * Формат файла, все числа в порядке байтов big-endian:
+ * <ul>
+ * <li>заголовок: сигнатура {@link #MAGIC}, версия формата {@link #VERSION}, ширина и высота карты,
+ * наибольшие ширина и длина стены, размер фрагмента в клетках, количество фрагментов по горизонтали и вертикали;</li>
+ * <li>оглавление: для каждого фрагмента по строкам смещение его данных от начала файла и количество стен;</li>
+ * <li>данные фрагментов: массивы координат по горизонтали, координат по вертикали, ширин и длин стен,
+ * пересекающих фрагмент. Стена, пересекающая несколько фрагментов, записывается в каждый из них.</li>
+ * </ul>
+ * Фрагменты записываются по одному, поэтому карта может быть больше доступной памяти.
+ * Чтение фрагментов допускается из нескольких потоков.
+ * <p>
+ * Формат хранит только стены: мобы карты не записываются, и карта, загруженная из такого файла, не содержит мобов.
+ * Для сохранения карты вместе с мобами используется {@link MapFileStorage}.
+ */
+@Log4j2
+public class ChunkedMapFile implements Closeable {
+    /**
+     * Сигнатура файла карты из фрагментов, символы "DNGW".
+     */
+    public static final int MAGIC = 0x444E4757;
+
+    /**
+     * Версия формата файла карты из фрагментов.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Размер заголовка в байтах.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Double.BYTES * 4 + Integer.BYTES * 3;
+
+    /**
+     * Размер записи оглавления в байтах: смещение данных фрагмента и количество стен.
+     */
+    private static final int DIRECTORY_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Количество чисел, описывающих одну стену.
+     */
+    private static final int WALL_FIELDS = 4;
+
+    private final FileChannel channel;
+
+    @Getter
+    private final double width;
+
+    @Getter
+    private final double height;
+
+    /**
+     * Наибольшая ширина стены на карте.
+     */
+    @Getter
+    private final double maxWallWidth;
+
+    /**
+     * Наибольшая длина стены на карте.
+     */
+    @Getter
+    private final double maxWallLength;
+
+    /**
+     * Количество клеток по стороне фрагмента.
+     */
+    @Getter
+    private final int chunkSize;
+
+    /**
+     * Количество фрагментов по горизонтали.
+     */
+    @Getter
+    private final int chunkColumns;
+
+    /**
+     * Количество фрагментов по вертикали.
+     */
+    @Getter
+    private final int chunkRows;
+
+    /**
+     * Смещения данных фрагментов от начала файла.
+     */
+    private final long[] chunkOffsets;
+
+    /**
+     * Количество стен в каждом фрагменте.
+     */
+    private final int[] chunkWallCounts;
+
+    private ChunkedMapFile(@NonNull FileChannel channel, @NonNull ByteBuffer header, @NonNull Path path) {
+        this.channel = channel;
+        if (header.getInt() != MAGIC) {
+            throw new IllegalArgumentException("File " + path + " is not a chunked map file");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported chunked map file version " + version + " in " + path);
+        }
+        this.width = header.getDouble();
+        this.height = header.getDouble();
+        this.maxWallWidth = header.getDouble();
+        this.maxWallLength = header.getDouble();
+        this.chunkSize = header.getInt();
+        this.chunkColumns = header.getInt();
+        this.chunkRows = header.getInt();
+        if (chunkSize <= 0
+                || chunkColumns != toChunkCount(width, chunkSize)
+                || chunkRows != toChunkCount(height, chunkSize)) {
+            throw new IllegalArgumentException("Chunked map file " + path + " is corrupted");
+        }
+        this.chunkOffsets = new long[chunkColumns * chunkRows];
+        this.chunkWallCounts = new int[chunkColumns * chunkRows];
+    }
+
+    /**
+     * Открыть файл карты из фрагментов. Читается только заголовок и оглавление.
+     *
+     * @param path путь к файлу карты
+     * @return открытый файл карты, который нужно закрыть после использования
+     * @throws IllegalArgumentException если файл не является файлом карты из фрагментов поддерживаемой версии
+     */
+    @NonNull
+    public static ChunkedMapFile open(@NonNull Path path) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            ChunkedMapFile mapFile = new ChunkedMapFile(channel, header, path);
+            ByteBuffer directory = ByteBuffer.allocate(mapFile.chunkOffsets.length * DIRECTORY_ENTRY_SIZE);
+            readFully(channel, directory, HEADER_SIZE);
+            directory.flip();
+            for (int i = 0; i < mapFile.chunkOffsets.length; i++) {
+                mapFile.chunkOffsets[i] = directory.getLong();
+                mapFile.chunkWallCounts[i] = directory.getInt();
+            }
+            return mapFile;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException("Unable to open chunked map " + path, e);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Записать стены карты в файл фрагментами. Мобы карты не записываются.
+     *
+     * @param dungeonMap игровая карта
+     * @param path       путь к файлу карты, существующий файл перезаписывается
+     * @param chunkSize  количество клеток по стороне фрагмента
+     * @throws IllegalArgumentException если на карте есть статические объекты, не являющиеся стенами
+     */
+    public static void write(@NonNull DungeonMap dungeonMap, @NonNull Path path, int chunkSize) {
+        int mobCount = dungeonMap.getMovableObjectSet().size();
+        if (mobCount > 0) {
+            log.warn("Chunked map format does not store mobs, {} mobs are not saved to {}", mobCount, path);
+        }
+        StaticObjectIndex staticObjectIndex = dungeonMap.getStaticObjectIndex();
+        write(path, dungeonMap.getWidth(), dungeonMap.getHeight(), chunkSize, (chunkX, chunkY) -> {
+            // стена, пересекающая несколько клеток фрагмента, записывается один раз
+            Set<InmovableMapObject> chunkObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int y = chunkY * chunkSize; y < (chunkY + 1) * chunkSize; y++) {
+                for (int x = chunkX * chunkSize; x < (chunkX + 1) * chunkSize; x++) {
+                    chunkObjects.addAll(staticObjectIndex.getCell(x, y));
+                }
+            }
+            List<Wall> walls = new ArrayList<>(chunkObjects.size());
+            for (InmovableMapObject imo : chunkObjects) {
+                if (!(imo instanceof Wall)) {
+                    throw new IllegalArgumentException("Unsupported static map object " + imo);
+                }
+                walls.add((Wall) imo);
+            }
+            return walls;
+        });
+    }
+
+    /**
+     * Записать в файл карту, стены которой создаются по фрагментам.
+     * <p>
+     * В памяти одновременно находятся стены только одного фрагмента.
+     *
+     * @param path        путь к файлу карты, существующий файл перезаписывается
+     * @param width       ширина карты
+     * @param height      высота карты
+     * @param chunkSize   количество клеток по стороне фрагмента
+     * @param chunkSource источник стен фрагментов
+     */
+    public static void write(@NonNull Path path, double width, double height, int chunkSize,
+                             @NonNull ChunkSource chunkSource) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        long start = System.nanoTime();
+        int chunkColumns = toChunkCount(width, chunkSize);
+        int chunkRows = toChunkCount(height, chunkSize);
+        ByteBuffer directory = ByteBuffer.allocate(chunkColumns * chunkRows * DIRECTORY_ENTRY_SIZE);
+        double maxWallWidth = 0;
+        double maxWallLength = 0;
+        long wallCount = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = HEADER_SIZE + directory.capacity();
+            for (int chunkY = 0; chunkY < chunkRows; chunkY++) {
+                for (int chunkX = 0; chunkX < chunkColumns; chunkX++) {
+                    List<Wall> walls = chunkSource.getWalls(chunkX, chunkY);
+                    ByteBuffer data = ByteBuffer.allocate(walls.size() * WALL_FIELDS * Double.BYTES);
+                    DoubleBuffer doubles = data.asDoubleBuffer();
+                    for (Wall wall : walls) {
+                        doubles.put(wall.getPosition().getX());
+                    }
+                    for (Wall wall : walls) {
+                        doubles.put(wall.getPosition().getY());
+                    }
+                    for (Wall wall : walls) {
+                        doubles.put(wall.getWidth());
+                        maxWallWidth = Math.max(maxWallWidth, wall.getWidth());
+                    }
+                    for (Wall wall : walls) {
+                        doubles.put(wall.getLength());
+                        maxWallLength = Math.max(maxWallLength, wall.getLength());
+                    }
+                    writeFully(channel, data, offset);
+                    directory.putLong(offset).putInt(walls.size());
+                    offset += data.capacity();
+                    wallCount += walls.size();
+                }
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putDouble(width)
+                    .putDouble(height)
+                    .putDouble(maxWallWidth)
+                    .putDouble(maxWallLength)
+                    .putInt(chunkSize)
+                    .putInt(chunkColumns)
+                    .putInt(chunkRows);
+            header.flip();
+            writeFully(channel, header, 0);
+            directory.flip();
+            writeFully(channel, directory, HEADER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to save chunked map to " + path, e);
+        }
+        log.info("Saved {}x{} chunks with {} walls to {} in {} ms",
+                chunkColumns, chunkRows, wallCount, path, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Прочитать фрагмент карты.
+     *
+     * @param chunkX номер фрагмента по горизонтали
+     * @param chunkY номер фрагмента по вертикали
+     * @return фрагмент карты
+     */
+    @NonNull
+    MapChunk readChunk(int chunkX, int chunkY) {
+        int index = chunkY * chunkColumns + chunkX;
+        int wallCount = chunkWallCounts[index];
+        ByteBuffer data = ByteBuffer.allocate(wallCount * WALL_FIELDS * Double.BYTES);
+        try {
+            readFully(channel, data, chunkOffsets[index]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read map chunk " + chunkX + ", " + chunkY, e);
+        }
+        data.flip();
+        double[] wallData = new double[wallCount * WALL_FIELDS];
+        data.asDoubleBuffer().get(wallData);
+        List<Wall> walls = new ArrayList<>(wallCount);
+        for (int i = 0; i < wallCount; i++) {
+            walls.add(new Wall(
+                    new Position(wallData[i], wallData[wallCount + i]),
+                    wallData[wallCount * 2 + i],
+                    wallData[wallCount * 3 + i]));
+        }
+        return new MapChunk(index, chunkX * chunkSize, chunkY * chunkSize, chunkSize, walls);
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(channel);
+    }
+
+    private static int toChunkCount(double length, int chunkSize) {
+        return Math.max(((int) Math.ceil(length) + chunkSize - 1) / chunkSize, 1);
+    }
+
+    private static void readFully(@NonNull FileChannel channel, @NonNull ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    private static void writeFully(@NonNull FileChannel channel, @NonNull ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Unable to close chunked map file", e);
+        }
+    }
+
+    /**
+     * Источник стен для записи карты по фрагментам.
+     */
+    @FunctionalInterface
+    public interface ChunkSource {
+        /**
+         * Получить стены, пересекающие фрагмент.
+         *
+         * @param chunkX номер фрагмента по горизонтали
+         * @param chunkY номер фрагмента по вертикали
+         * @return стены фрагмента
+         */
+        @NonNull
+        List<Wall> getWalls(int chunkX, int chunkY);
+    }
+}
@@ -0,0 +1,310 @@
+package net.ildar.dungeon.map;
+
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Пространственный индекс статических объектов карты, хранящейся фрагментами в файле {@link ChunkedMapFile}.
+ * <p>
+ * В памяти находятся только загруженные фрагменты. Фрагменты в пределах {@code prefetchDistance} от игрока
+ * загружаются заранее в отдельном потоке при каждом {@link #update(Position)}. Клетки незагруженного фрагмента
+ * считаются пустыми: обращение к ним не читает файл в вызывающем потоке, а только запрашивает загрузку фрагмента
+ * в потоке заблаговременной загрузки. Пустые клетки допустимы только при отрисовке: игровая логика перед
+ * проверкой столкновений загружает область вызовом {@link #loadArea(double, double, double, double)}
+ * или не перемещает объект в область, для которой {@link #isAreaLoaded(double, double, double, double)} ложно.
+ * Когда оценка памяти загруженных фрагментов превышает
+ * {@code memoryBudget}, выгружаются фрагменты вне области игрока, дольше всего не попадавшие в неё.
+ * <p>
+ * Поиск в индексе не требует блокировок: загрузка и выгрузка фрагмента заменяют ссылку на него целиком,
+ * а изменяет ссылки только поток заблаговременной загрузки и поток игровой логики под блокировкой индекса.
+ */
+@Log4j2
+public class ChunkedStaticObjectIndex extends StaticObjectIndex implements Closeable {
+    private final ChunkedMapFile mapFile;
+
+    /**
+     * Количество клеток по горизонтали.
+     */
+    private final int columns;
+
+    /**
+     * Количество клеток по вертикали.
+     */
+    private final int rows;
+
+    /**
+     * Количество клеток по стороне фрагмента.
+     */
+    private final int chunkSize;
+
+    /**
+     * Оценка памяти в байтах, которую могут занимать загруженные фрагменты.
+     */
+    private final long memoryBudget;
+
+    /**
+     * Расстояние от игрока, в пределах которого фрагменты загружаются заранее.
+     */
+    private final double prefetchDistance;
+
+    /**
+     * Загруженные фрагменты, индекс фрагмента - {@code chunkY * chunkColumns + chunkX}, null для незагруженного.
+     */
+    private final AtomicReferenceArray<MapChunk> chunks;
+
+    /**
+     * Загруженные фрагменты для выбора выгружаемого. Изменяется вместе с {@link #chunks} под блокировкой индекса.
+     */
+    private final Set<MapChunk> residentChunks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Номера фрагментов, загрузка которых запрошена, но ещё не завершена.
+     */
+    private final Set<Integer> prefetchingChunks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Поток заблаговременной загрузки фрагментов.
+     */
+    private final ExecutorService prefetchExecutor;
+
+    /**
+     * Оценка памяти загруженных фрагментов в байтах. Изменяется под блокировкой индекса.
+     */
+    private long residentBytes;
+
+    /**
+     * Номер последнего обновления области игрока.
+     */
+    private volatile long updateNumber;
+
+    /**
+     * Количество обращений к клеткам незагруженных фрагментов.
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * @param mapFile          открытый файл карты, закрывается вместе с индексом
+     * @param memoryBudget     оценка памяти в байтах, которую могут занимать загруженные фрагменты
+     * @param prefetchDistance расстояние от игрока, в пределах которого фрагменты загружаются заранее
+     */
+    public ChunkedStaticObjectIndex(@NonNull ChunkedMapFile mapFile, long memoryBudget, double prefetchDistance) {
+        super(mapFile.getWidth(), mapFile.getHeight(), mapFile.getMaxWallWidth(), mapFile.getMaxWallLength());
+        this.mapFile = mapFile;
+        this.columns = (int) Math.ceil(mapFile.getWidth());
+        this.rows = (int) Math.ceil(mapFile.getHeight());
+        this.chunkSize = mapFile.getChunkSize();
+        this.memoryBudget = memoryBudget;
+        this.prefetchDistance = prefetchDistance;
+        this.chunks = new AtomicReferenceArray<>(mapFile.getChunkColumns() * mapFile.getChunkRows());
+        this.prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chunk-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @NonNull
+    @Override
+    public List<InmovableMapObject> getCell(int x, int y) {
+        if (x < 0 || y < 0 || x >= columns || y >= rows) {
+            return Collections.emptyList();
+        }
+        int chunkX = x / chunkSize;
+        int chunkY = y / chunkSize;
+        MapChunk chunk = chunks.get(chunkY * mapFile.getChunkColumns() + chunkX);
+        if (chunk == null) {
+            // клетку читают потоки рендеринга и игровой логики, файл читается только потоком загрузки
+            missCount.incrementAndGet();
+            prefetch(chunkX, chunkY);
+            return Collections.emptyList();
+        }
+        return chunk.getCell(x - chunkX * chunkSize, y - chunkY * chunkSize);
+    }
+
+    /**
+     * Загрузить фрагменты области в вызывающем потоке.
+     * <p>
+     * Вызывается из потока игровой логики перед размещением или перемещением объекта и перед выстрелом,
+     * где пустая клетка незагруженного фрагмента может оказаться стеной.
+     */
+    @Override
+    public void loadArea(double minX, double minY, double maxX, double maxY) {
+        int fromChunkX = toChunk(minX, mapFile.getChunkColumns());
+        int toChunkX = toChunk(maxX, mapFile.getChunkColumns());
+        int fromChunkY = toChunk(minY, mapFile.getChunkRows());
+        int toChunkY = toChunk(maxY, mapFile.getChunkRows());
+        for (int chunkY = fromChunkY; chunkY <= toChunkY; chunkY++) {
+            for (int chunkX = fromChunkX; chunkX <= toChunkX; chunkX++) {
+                if (!closed && chunks.get(chunkY * mapFile.getChunkColumns() + chunkX) == null) {
+                    install(mapFile.readChunk(chunkX, chunkY));
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isAreaLoaded(double minX, double minY, double maxX, double maxY) {
+        int fromChunkX = toChunk(minX, mapFile.getChunkColumns());
+        int toChunkX = toChunk(maxX, mapFile.getChunkColumns());
+        int fromChunkY = toChunk(minY, mapFile.getChunkRows());
+        int toChunkY = toChunk(maxY, mapFile.getChunkRows());
+        for (int chunkY = fromChunkY; chunkY <= toChunkY; chunkY++) {
+            for (int chunkX = fromChunkX; chunkX <= toChunkX; chunkX++) {
+                if (chunks.get(chunkY * mapFile.getChunkColumns() + chunkX) == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Обновить область игрока: запросить загрузку фрагментов рядом с игроком и выгрузить лишние фрагменты.
+     * <p>
+     * Вызывается из потока игровой логики.
+     *
+     * @param position позиция игрока
+     */
+    public void update(@NonNull Position position) {
+        if (closed) {
+            return;
+        }
+        long number = ++updateNumber;
+        int fromChunkX = toChunk(position.getX() - prefetchDistance, mapFile.getChunkColumns());
+        int toChunkX = toChunk(position.getX() + prefetchDistance, mapFile.getChunkColumns());
+        int fromChunkY = toChunk(position.getY() - prefetchDistance, mapFile.getChunkRows());
+        int toChunkY = toChunk(position.getY() + prefetchDistance, mapFile.getChunkRows());
+        for (int chunkY = fromChunkY; chunkY <= toChunkY; chunkY++) {
+            for (int chunkX = fromChunkX; chunkX <= toChunkX; chunkX++) {
+                MapChunk chunk = chunks.get(chunkY * mapFile.getChunkColumns() + chunkX);
+                if (chunk != null) {
+                    chunk.lastUsed = number;
+                } else {
+                    prefetch(chunkX, chunkY);
+                }
+            }
+        }
+        evict(number);
+    }
+
+    /**
+     * Количество загруженных фрагментов.
+     */
+    public int getResidentChunkCount() {
+        return residentChunks.size();
+    }
+
+    /**
+     * Оценка памяти загруженных фрагментов в байтах.
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Количество обращений к клеткам фрагментов, которые не были загружены заранее.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Проверить, есть ли фрагменты, загрузка которых запрошена, но ещё не завершена.
+     */
+    boolean isPrefetching() {
+        return !prefetchingChunks.isEmpty();
+    }
+
+    /**
+     * Остановить загрузку фрагментов и закрыть файл карты. После закрытия незагруженные фрагменты считаются пустыми.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        prefetchExecutor.shutdownNow();
+        mapFile.close();
+    }
+
+    /**
+     * Запросить загрузку фрагмента в потоке заблаговременной загрузки.
+     */
+    private void prefetch(int chunkX, int chunkY) {
+        int index = chunkY * mapFile.getChunkColumns() + chunkX;
+        if (closed || !prefetchingChunks.add(index)) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    if (!closed) {
+                        install(mapFile.readChunk(chunkX, chunkY));
+                    }
+                } catch (RuntimeException e) {
+                    if (!closed) {
+                        log.error("Unable to prefetch map chunk {}, {}", chunkX, chunkY, e);
+                    }
+                } finally {
+                    prefetchingChunks.remove(index);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // индекс закрыт между проверкой и запросом загрузки
+            prefetchingChunks.remove(index);
+        }
+    }
+
+    /**
+     * Сделать загруженный фрагмент доступным для поиска.
+     * Ранее загруженный фрагмент с тем же номером не заменяется.
+     */
+    private synchronized void install(@NonNull MapChunk chunk) {
+        if (chunks.get(chunk.getIndex()) != null) {
+            return;
+        }
+        chunk.lastUsed = updateNumber;
+        chunks.set(chunk.getIndex(), chunk);
+        residentChunks.add(chunk);
+        residentBytes += chunk.getEstimatedBytes();
+    }
+
+    /**
+     * Выгружать фрагменты вне области игрока в порядке давности использования, пока память превышает ограничение.
+     *
+     * @param number номер текущего обновления области игрока
+     */
+    private synchronized void evict(long number) {
+        while (residentBytes > memoryBudget) {
+            MapChunk leastRecentlyUsed = null;
+            for (MapChunk chunk : residentChunks) {
+                if (chunk.lastUsed < number
+                        && (leastRecentlyUsed == null || chunk.lastUsed < leastRecentlyUsed.lastUsed)) {
+                    leastRecentlyUsed = chunk;
+                }
+            }
+            if (leastRecentlyUsed == null) {
+                // все загруженные фрагменты находятся в области игрока
+                return;
+            }
+            chunks.set(leastRecentlyUsed.getIndex(), null);
+            residentChunks.remove(leastRecentlyUsed);
+            residentBytes -= leastRecentlyUsed.getEstimatedBytes();
+        }
+    }
+
+    private int toChunk(double coordinate, int chunkCount) {
+        return Math.min(Math.max((int) Math.floor(coordinate) / chunkSize, 0), chunkCount - 1);
+    }
+}
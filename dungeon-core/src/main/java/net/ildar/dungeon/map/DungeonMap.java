@@ -1,10 +1,13 @@
 package net.ildar.dungeon.map;
 
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
+import lombok.ToString;
 import lombok.Value;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Игровая карта.
@@ -33,24 +36,93 @@ public class DungeonMap {
     @NonNull
     Set<MovableMapObject> movableObjectSet;
 
+    /**
+     * Пространственный индекс статических объектов. Строится один раз при создании карты.
+     */
+    @NonNull
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    StaticObjectIndex staticObjectIndex;
+
+    /**
+     * Пространственный индекс мобильных объектов. Обновляется при добавлении, удалении и перемещении объектов.
+     */
+    @NonNull
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    MovableObjectIndex movableObjectIndex;
+
+    /**
+     * Параметры мобов карты в параллельных массивах. Мобы добавляются и удаляются вместе с множеством мобильных
+     * объектов.
+     */
+    @NonNull
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    MobStore mobStore;
+
+    public DungeonMap(double height,
+                      double width,
+                      @NonNull Set<InmovableMapObject> staticObjectSet,
+                      @NonNull Set<MovableMapObject> movableObjectSet) {
+        this.height = height;
+        this.width = width;
+        this.staticObjectSet = staticObjectSet;
+        this.movableObjectSet = ConcurrentHashMap.newKeySet();
+        this.staticObjectIndex = new StaticObjectIndex(width, height, staticObjectSet);
+        this.movableObjectIndex = new MovableObjectIndex(width, height);
+        this.mobStore = new MobStore();
+        movableObjectSet.forEach(this::addMovableMapObject);
+    }
+
+    /**
+     * Создать карту по готовому индексу статических объектов, без мобильных объектов.
+     * <p>
+     * Используется для карт из фрагментов, подгружаемых по мере необходимости:
+     * множество статических объектов такой карты пусто, объекты доступны только через индекс.
+     */
+    public DungeonMap(double height, double width, @NonNull StaticObjectIndex staticObjectIndex) {
+        this.height = height;
+        this.width = width;
+        this.staticObjectSet = Collections.emptySet();
+        this.movableObjectSet = ConcurrentHashMap.newKeySet();
+        this.staticObjectIndex = staticObjectIndex;
+        this.movableObjectIndex = new MovableObjectIndex(width, height);
+        this.mobStore = new MobStore();
+    }
+
     /**
      * Удалить мобильный объект из соответствующего множества.
      */
     public synchronized void removeMovableMapObject(@NonNull MovableMapObject movableMapObject) {
-        this.movableObjectSet.remove(movableMapObject);
+        if (this.movableObjectSet.remove(movableMapObject)) {
+            movableMapObject.setMovableObjectIndex(null);
+            movableObjectIndex.remove(movableMapObject);
+            if (movableMapObject instanceof Mob) {
+                ((Mob) movableMapObject).detach();
+            }
+        }
     }
 
     /**
      * Прибавить мобильный объект к соответствующему множеству.
      */
     public synchronized void addMovableMapObject(@NonNull MovableMapObject movableMapObject) {
-        this.movableObjectSet.add(movableMapObject);
+        if (this.movableObjectSet.add(movableMapObject)) {
+            if (movableMapObject instanceof Mob) {
+                ((Mob) movableMapObject).attach(mobStore);
+            }
+            movableObjectIndex.add(movableMapObject);
+            movableMapObject.setMovableObjectIndex(movableObjectIndex);
+        }
     }
 
     /**
      * Запретить неконтролируемое изменение множества мобильных объектов.
+     * <p>
+     * Множество допускает конкурентное чтение, поэтому блокировка не требуется.
      */
-    public synchronized Set<MovableMapObject> getMovableObjectSet() {
+    public Set<MovableMapObject> getMovableObjectSet() {
         return Collections.unmodifiableSet(movableObjectSet);
     }
 }
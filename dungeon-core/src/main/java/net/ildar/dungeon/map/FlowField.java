@@ -0,0 +1,200 @@
+package net.ildar.dungeon.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Поле направлений к цели по клеткам карты.
+ * <p>
+ * Строится поиском в ширину от клетки цели по свободным клеткам. Для каждой достижимой клетки хранится соседняя
+ * клетка, следующая на кратчайшем пути к цели, поэтому одно поле обслуживает всех мобов карты,
+ * а шаг моба определяется одним обращением к массиву.
+ * Поле перестраивается только при переходе цели в другую клетку.
+ */
+public class FlowField {
+    /**
+     * Признак клетки, из которой цель недостижима.
+     */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * Смещения соседних клеток: сначала по сторонам, затем по диагоналям,
+     * чтобы при равной длине пути предпочитались шаги по сторонам.
+     */
+    private static final int[] NEIGHBOUR_X = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] NEIGHBOUR_Y = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    /**
+     * Карта, для которой построено поле.
+     */
+    @Getter
+    @NonNull
+    private final DungeonMap dungeonMap;
+
+    /**
+     * Количество клеток по горизонтали.
+     */
+    @Getter
+    private final int columns;
+
+    /**
+     * Количество клеток по вертикали.
+     */
+    @Getter
+    private final int rows;
+
+    /**
+     * Количество клеток в строке сетки поиска: сетка поиска окружена рамкой занятых клеток,
+     * поэтому при обходе соседей не нужны проверки границ.
+     */
+    private final int stride;
+
+    /**
+     * Смещения индексов соседних клеток в сетке поиска.
+     */
+    private final int[] neighbourOffsets;
+
+    /**
+     * Занятые статическими объектами клетки сетки поиска, индекс клетки - {@code (y + 1) * stride + x + 1}.
+     */
+    private final boolean[] blocked;
+
+    /**
+     * Следующая клетка на пути к цели для каждой клетки сетки поиска, {@link #UNREACHABLE} для недостижимых клеток.
+     * Для клетки цели хранится она сама.
+     */
+    private final int[] nextCells;
+
+    /**
+     * Очередь поиска в ширину. Выделяется один раз, каждая клетка попадает в очередь не более одного раза.
+     */
+    private final int[] queue;
+
+    /**
+     * Клетка цели, для которой построено поле, {@link #UNREACHABLE} пока поле не построено.
+     */
+    @Getter
+    private int targetCell = UNREACHABLE;
+
+    public FlowField(@NonNull DungeonMap dungeonMap) {
+        this.dungeonMap = dungeonMap;
+        this.columns = Math.max((int) Math.ceil(dungeonMap.getWidth()), 1);
+        this.rows = Math.max((int) Math.ceil(dungeonMap.getHeight()), 1);
+        this.stride = columns + 2;
+        this.neighbourOffsets = new int[NEIGHBOUR_X.length];
+        for (int i = 0; i < NEIGHBOUR_X.length; i++) {
+            neighbourOffsets[i] = NEIGHBOUR_Y[i] * stride + NEIGHBOUR_X[i];
+        }
+        this.blocked = new boolean[stride * (rows + 2)];
+        this.nextCells = new int[blocked.length];
+        this.queue = new int[blocked.length];
+        Arrays.fill(blocked, true);
+        Arrays.fill(nextCells, UNREACHABLE);
+        StaticObjectIndex staticObjectIndex = dungeonMap.getStaticObjectIndex();
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                // клетка считается занятой, если статический объект накрывает её центр
+                boolean cellBlocked = false;
+                List<InmovableMapObject> cell = staticObjectIndex.getCell(x, y);
+                for (int i = 0; i < cell.size() && !cellBlocked; i++) {
+                    cellBlocked = cell.get(i).interferes(x + 0.5, y + 0.5);
+                }
+                blocked[toCell(x, y)] = cellBlocked;
+            }
+        }
+    }
+
+    /**
+     * Перестроить поле для новой позиции цели.
+     * <p>
+     * Поле перестраивается, только если цель перешла в другую клетку.
+     *
+     * @param position позиция цели
+     * @return true если поле было перестроено
+     */
+    public boolean update(@NonNull Position position) {
+        int cell = findCell(position.getX(), position.getY());
+        if (cell == targetCell) {
+            return false;
+        }
+        targetCell = cell;
+        Arrays.fill(nextCells, UNREACHABLE);
+        if (cell == UNREACHABLE) {
+            return true;
+        }
+        // клетка цели достижима всегда, даже если частично занята статическим объектом
+        nextCells[cell] = cell;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = cell;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int i = 0; i < neighbourOffsets.length; i++) {
+                int neighbour = current + neighbourOffsets[i];
+                if (blocked[neighbour] || nextCells[neighbour] != UNREACHABLE) {
+                    continue;
+                }
+                // по диагонали нельзя срезать угол занятой клетки
+                if (NEIGHBOUR_X[i] != 0 && NEIGHBOUR_Y[i] != 0
+                        && (blocked[current + NEIGHBOUR_X[i]] || blocked[current + NEIGHBOUR_Y[i] * stride])) {
+                    continue;
+                }
+                nextCells[neighbour] = current;
+                queue[tail++] = neighbour;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Получить клетку, следующую на пути к цели из клетки, содержащей точку.
+     *
+     * @param x координата точки по горизонтали
+     * @param y координата точки по вертикали
+     * @return номер следующей клетки, номер клетки цели для самой клетки цели,
+     * {@link #UNREACHABLE} если цель недостижима
+     */
+    public int getNextCell(double x, double y) {
+        int cell = findCell(x, y);
+        return cell == UNREACHABLE ? UNREACHABLE : nextCells[cell];
+    }
+
+    /**
+     * Получить координату центра клетки по горизонтали.
+     *
+     * @param cell номер клетки
+     */
+    public double getCellCenterX(int cell) {
+        return cell % stride - 1 + 0.5;
+    }
+
+    /**
+     * Получить координату центра клетки по вертикали.
+     *
+     * @param cell номер клетки
+     */
+    public double getCellCenterY(int cell) {
+        return cell / stride - 1 + 0.5;
+    }
+
+    /**
+     * Найти клетку, содержащую точку.
+     *
+     * @return номер клетки или {@link #UNREACHABLE} для точки за пределами карты
+     */
+    private int findCell(double x, double y) {
+        int cellX = (int) Math.floor(x);
+        int cellY = (int) Math.floor(y);
+        if (cellX < 0 || cellY < 0 || cellX >= columns || cellY >= rows) {
+            return UNREACHABLE;
+        }
+        return toCell(cellX, cellY);
+    }
+
+    private int toCell(int x, int y) {
+        return (y + 1) * stride + x + 1;
+    }
+}
@@ -1,6 +1,5 @@
 package net.ildar.dungeon.map;
 
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -9,7 +8,6 @@ import lombok.ToString;
 /**
  * Игрок.
  */
-@EqualsAndHashCode(callSuper = true)
 @ToString(callSuper = true)
 public class Gamer extends Mob {
 
@@ -1,7 +1,5 @@
 package net.ildar.dungeon.map;
 
-import lombok.NonNull;
-
 /**
  * Статичный объект игровой карты. Представляет собой ориентированный по осям координат прямоугольник.
  */
@@ -17,10 +15,11 @@ public abstract class InmovableMapObject implements MapObject {
     public abstract double getLength();
 
     @Override
-    public boolean interferes(@NonNull Position position) {
-        return getPosition().getX() < position.getX() &&
-                getPosition().getX() + getWidth() > position.getX() &&
-                getPosition().getY() < position.getY() &&
-                getPosition().getY() + getLength() > position.getY();
+    public boolean interferes(double x, double y) {
+        Position position = getPosition();
+        return position.getX() < x &&
+                position.getX() + getWidth() > x &&
+                position.getY() < y &&
+                position.getY() + getLength() > y;
     }
 }
@@ -0,0 +1,105 @@
+package net.ildar.dungeon.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Загруженный в память фрагмент карты: квадрат клеток со статическими объектами, пересекающими каждую клетку.
+ */
+class MapChunk {
+    /**
+     * Приблизительный размер в байтах служебных данных фрагмента.
+     */
+    private static final long CHUNK_BYTES = 64;
+
+    /**
+     * Приблизительный размер в байтах ссылки на клетку.
+     */
+    private static final long CELL_BYTES = 8;
+
+    /**
+     * Приблизительный размер в байтах стены вместе с её позицией.
+     */
+    private static final long WALL_BYTES = 80;
+
+    /**
+     * Приблизительный размер в байтах списка объектов непустой клетки.
+     */
+    private static final long CELL_LIST_BYTES = 56;
+
+    /**
+     * Номер фрагмента в файле карты.
+     */
+    @Getter
+    private final int index;
+
+    /**
+     * Статические объекты в каждой клетке фрагмента, индекс клетки - {@code y * size + x} в координатах фрагмента.
+     */
+    private final List<List<InmovableMapObject>> cells;
+
+    /**
+     * Количество клеток по стороне фрагмента.
+     */
+    private final int size;
+
+    /**
+     * Оценка занимаемой фрагментом памяти в байтах.
+     */
+    @Getter
+    private final long estimatedBytes;
+
+    /**
+     * Номер обновления области загрузки, на котором фрагмент использовался последним.
+     */
+    volatile long lastUsed;
+
+    /**
+     * @param index   номер фрагмента в файле карты
+     * @param originX координата левого края фрагмента в клетках карты
+     * @param originY координата верхнего края фрагмента в клетках карты
+     * @param size    количество клеток по стороне фрагмента
+     * @param walls   стены, пересекающие фрагмент
+     */
+    MapChunk(int index, int originX, int originY, int size, @NonNull List<Wall> walls) {
+        this.index = index;
+        this.size = size;
+        this.cells = new ArrayList<>(Collections.nCopies(size * size, null));
+        long cellLists = 0;
+        for (Wall wall : walls) {
+            int fromX = Math.max((int) Math.floor(wall.getPosition().getX()) - originX, 0);
+            int toX = Math.min((int) Math.ceil(wall.getPosition().getX() + wall.getWidth()) - 1 - originX, size - 1);
+            int fromY = Math.max((int) Math.floor(wall.getPosition().getY()) - originY, 0);
+            int toY = Math.min((int) Math.ceil(wall.getPosition().getY() + wall.getLength()) - 1 - originY, size - 1);
+            for (int y = fromY; y <= toY; y++) {
+                for (int x = fromX; x <= toX; x++) {
+                    int cell = y * size + x;
+                    if (cells.get(cell) == null) {
+                        cells.set(cell, new ArrayList<>(1));
+                        cellLists++;
+                    }
+                    cells.get(cell).add(wall);
+                }
+            }
+        }
+        this.estimatedBytes = CHUNK_BYTES + CELL_BYTES * size * size + WALL_BYTES * walls.size()
+                + CELL_LIST_BYTES * cellLists;
+    }
+
+    /**
+     * Получить статические объекты, пересекающие клетку фрагмента.
+     *
+     * @param x координата клетки по горизонтали относительно левого края фрагмента
+     * @param y координата клетки по вертикали относительно верхнего края фрагмента
+     * @return список объектов, пустой для свободной клетки
+     */
+    @NonNull
+    List<InmovableMapObject> getCell(int x, int y) {
+        List<InmovableMapObject> cell = cells.get(y * size + x);
+        return cell == null ? Collections.emptyList() : cell;
+    }
+}
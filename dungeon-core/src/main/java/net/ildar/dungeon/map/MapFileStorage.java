@@ -0,0 +1,191 @@
+package net.ildar.dungeon.map;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Хранение игровых карт в двоичном файле.
+ * <p>
+ * Формат файла, все числа в порядке байтов big-endian:
+ * <ul>
+ * <li>заголовок: сигнатура {@link #MAGIC}, версия формата {@link #VERSION}, ширина и высота карты,
+ * количество стен и количество мобов;</li>
+ * <li>стены: массивы координат по горизонтали, координат по вертикали, ширин и длин;</li>
+ * <li>мобы: массивы координат по горизонтали, координат по вертикали, радиусов и высот.</li>
+ * </ul>
+ * Параметры объектов хранятся блоками одного типа, поэтому файл читается и пишется
+ * через отображение в память массовыми операциями без разбора отдельных записей.
+ */
+@Log4j2
+@RequiredArgsConstructor(onConstructor_ = {@Inject})
+public class MapFileStorage {
+    /**
+     * Сигнатура файла карты, символы "DNGM".
+     */
+    public static final int MAGIC = 0x444E474D;
+
+    /**
+     * Версия формата файла карты.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Размер заголовка в байтах: сигнатура, версия, ширина, высота, количество стен и мобов.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Double.BYTES * 2 + Integer.BYTES * 2;
+
+    /**
+     * Количество чисел, описывающих одну стену или одного моба.
+     */
+    private static final int OBJECT_FIELDS = 4;
+
+    /**
+     * Сохранить карту в файл.
+     * <p>
+     * Мобы сохраняются как точки появления: состояние мобов не сохраняется, при загрузке все мобы живы.
+     *
+     * @param dungeonMap игровая карта
+     * @param path       путь к файлу карты, существующий файл перезаписывается
+     * @throws IllegalArgumentException если на карте есть объекты, не поддерживаемые форматом
+     */
+    public void save(@NonNull DungeonMap dungeonMap, @NonNull Path path) {
+        long start = System.nanoTime();
+        List<Wall> walls = new ArrayList<>(dungeonMap.getStaticObjectSet().size());
+        for (InmovableMapObject imo : dungeonMap.getStaticObjectSet()) {
+            if (!(imo instanceof Wall)) {
+                throw new IllegalArgumentException("Unsupported static map object " + imo);
+            }
+            walls.add((Wall) imo);
+        }
+        List<Mob> mobs = new ArrayList<>(dungeonMap.getMovableObjectSet().size());
+        for (MovableMapObject mmo : dungeonMap.getMovableObjectSet()) {
+            if (!(mmo instanceof Mob)) {
+                throw new IllegalArgumentException("Unsupported movable map object " + mmo);
+            }
+            mobs.add((Mob) mmo);
+        }
+
+        double[] wallData = new double[walls.size() * OBJECT_FIELDS];
+        for (int i = 0; i < walls.size(); i++) {
+            Wall wall = walls.get(i);
+            wallData[i] = wall.getPosition().getX();
+            wallData[walls.size() + i] = wall.getPosition().getY();
+            wallData[walls.size() * 2 + i] = wall.getWidth();
+            wallData[walls.size() * 3 + i] = wall.getLength();
+        }
+        double[] mobData = new double[mobs.size() * OBJECT_FIELDS];
+        for (int i = 0; i < mobs.size(); i++) {
+            Mob mob = mobs.get(i);
+            mobData[i] = mob.getPosition().getX();
+            mobData[mobs.size() + i] = mob.getPosition().getY();
+            mobData[mobs.size() * 2 + i] = mob.getRadius();
+            mobData[mobs.size() * 3 + i] = mob.getHeight();
+        }
+
+        long size = HEADER_SIZE + (long) (wallData.length + mobData.length) * Double.BYTES;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putDouble(dungeonMap.getWidth())
+                    .putDouble(dungeonMap.getHeight())
+                    .putInt(walls.size())
+                    .putInt(mobs.size());
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            doubles.put(wallData);
+            doubles.put(mobData);
+            buffer.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to save map to " + path, e);
+        }
+        log.info("Saved map with {} walls and {} mobs to {} in {} ms",
+                walls.size(), mobs.size(), path, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Загрузить карту из файла.
+     *
+     * @param path путь к файлу карты
+     * @return игровая карта
+     * @throws IllegalArgumentException если файл не является файлом карты поддерживаемой версии
+     */
+    @NonNull
+    public DungeonMap load(@NonNull Path path) {
+        long start = System.nanoTime();
+        double width;
+        double height;
+        double[] wallData;
+        double[] mobData;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IllegalArgumentException("Map file " + path + " is too short");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("File " + path + " is not a map file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported map file version " + version + " in " + path);
+            }
+            width = buffer.getDouble();
+            height = buffer.getDouble();
+            int wallCount = buffer.getInt();
+            int mobCount = buffer.getInt();
+            if (!(width > 0) || !(height > 0) || Double.isInfinite(width) || Double.isInfinite(height)) {
+                throw new IllegalArgumentException("Map file " + path + " has invalid dimensions "
+                        + width + "x" + height);
+            }
+            if (wallCount < 0 || mobCount < 0
+                    || size != HEADER_SIZE + ((long) wallCount + mobCount) * OBJECT_FIELDS * Double.BYTES) {
+                throw new IllegalArgumentException("Map file " + path + " is corrupted");
+            }
+            wallData = new double[wallCount * OBJECT_FIELDS];
+            mobData = new double[mobCount * OBJECT_FIELDS];
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            doubles.get(wallData);
+            doubles.get(mobData);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load map from " + path, e);
+        }
+
+        int wallCount = wallData.length / OBJECT_FIELDS;
+        // стены в файле не повторяются, поэтому множество сравнивает их по ссылке, как и при генерации карты
+        Set<InmovableMapObject> walls = Collections.newSetFromMap(new IdentityHashMap<>(wallCount));
+        for (int i = 0; i < wallCount; i++) {
+            walls.add(new Wall(
+                    new Position(wallData[i], wallData[wallCount + i]),
+                    wallData[wallCount * 2 + i],
+                    wallData[wallCount * 3 + i]));
+        }
+        DungeonMap dungeonMap = new DungeonMap(height, width, walls, Collections.emptySet());
+        int mobCount = mobData.length / OBJECT_FIELDS;
+        for (int i = 0; i < mobCount; i++) {
+            dungeonMap.addMovableMapObject(new Mob(
+                    new Position(mobData[i], mobData[mobCount + i]),
+                    mobData[mobCount * 2 + i],
+                    mobData[mobCount * 3 + i],
+                    Mob.State.ALIVE));
+        }
+        log.info("Loaded map {}x{} with {} walls and {} mobs from {} in {} ms",
+                width, height, wallCount, mobCount, path, (System.nanoTime() - start) / 1_000_000);
+        return dungeonMap;
+    }
+}
@@ -2,18 +2,33 @@ package net.ildar.dungeon.map;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
 import net.ildar.dungeon.CollisionDetector;
 import net.ildar.dungeon.config.Configuration;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Генератор игровой карты.
+ * <p>
+ * Занятость клеток карты отмечается в сетке, поэтому проверка повторного размещения объекта в клетке
+ * выполняется за постоянное время. Стены генерируются независимо в горизонтальных полосах карты,
+ * каждая полоса использует собственный генератор случайных чисел, полученный из начального значения карты:
+ * при одинаковом начальном значении карта не зависит от того, выполнялась ли генерация параллельно.
  */
 @RequiredArgsConstructor(onConstructor_ = {@Inject})
+@Log4j2
 public class MapGenerator {
 
     private final Configuration configuration;
@@ -24,84 +39,185 @@ public class MapGenerator {
      */
     @NonNull
     public DungeonMap generateMap() {
-        Set<InmovableMapObject> inmovableMapObjects = new HashSet<>();
-        addWallsOnEdges(inmovableMapObjects);
-        addRandomWalls(inmovableMapObjects);
+        return generateMap(progress -> {
+        });
+    }
+
+    /**
+     * Сгенерировать игровую карту, сообщая о ходе генерации.
+     *
+     * @param progressListener получатель доли выполненной работы, от 0 до 1.
+     *                         При параллельной генерации может вызываться из разных потоков.
+     */
+    @NonNull
+    public DungeonMap generateMap(@NonNull DoubleConsumer progressListener) {
+        long start = System.nanoTime();
+        long seed = configuration.getGeneratorSeed() != 0 ? configuration.getGeneratorSeed() : new Random().nextLong();
+        int width = Math.max((int) configuration.getGeneratorMapWidth(), 1);
+        int height = Math.max((int) configuration.getGeneratorMapHeight(), 1);
+        int regionRows = Math.max(configuration.getGeneratorRegionRows(), 1);
+        int regionCount = (height + regionRows - 1) / regionRows;
+        // этапы генерации: полосы со стенами, построение карты, расстановка мобов
+        int stepCount = regionCount + 2;
+        AtomicInteger completedSteps = new AtomicInteger();
+        progressListener.accept(0);
+
+        // число случайных стен распределяется по полосам пропорционально числу свободных клеток в полосе
+        int innerWidth = Math.max(width - 2, 0);
+        long innerCells = (long) innerWidth * Math.max(height - 2, 0);
+        long randomWallNumber = Math.min(
+                Math.max((long) (width * (long) height * configuration.getGeneratorStaticMapObjectsPercentage())
+                        - (width * (long) height - innerCells), 0),
+                innerCells);
 
-        DungeonMap dungeonMap = new DungeonMap(
-                configuration.getGeneratorMapHeight(),
-                configuration.getGeneratorMapWidth(),
-                inmovableMapObjects,
-                new HashSet<>());
-        addRandomMobs(dungeonMap);
+        boolean[] occupied = new boolean[width * height];
+        // стены не повторяются благодаря сетке занятости, поэтому множество сравнивает их по ссылке:
+        // хэш-коды стен с целочисленными координатами часто совпадают
+        Set<InmovableMapObject> inmovableMapObjects = Collections.newSetFromMap(
+                new IdentityHashMap<>((int) randomWallNumber + 4));
+        addWallsOnEdges(inmovableMapObjects, occupied, width, height);
+        IntStream regions = IntStream.range(0, regionCount);
+        if (configuration.isGeneratorParallelismEnabled()) {
+            regions = regions.parallel();
+        }
+        List<List<Wall>> regionWalls = regions
+                .mapToObj(region -> {
+                    int fromY = Math.max(region * regionRows, 1);
+                    int toY = Math.min((region + 1) * regionRows, height - 1);
+                    long cellsBefore = (long) innerWidth * Math.max(fromY - 1, 0);
+                    long cellsAfter = (long) innerWidth * Math.max(toY - 1, 0);
+                    int wallNumber = (int) (innerCells == 0 ? 0
+                            : randomWallNumber * cellsAfter / innerCells - randomWallNumber * cellsBefore / innerCells);
+                    List<Wall> walls = generateRegionWalls(occupied, width, fromY, toY, wallNumber,
+                            new Random(seed + region * 0x9E3779B97F4A7C15L));
+                    progressListener.accept((double) completedSteps.incrementAndGet() / stepCount);
+                    return walls;
+                })
+                .collect(Collectors.toList());
+        regionWalls.forEach(inmovableMapObjects::addAll);
+
+        DungeonMap dungeonMap = new DungeonMap(height, width, inmovableMapObjects, new HashSet<>());
+        progressListener.accept((double) completedSteps.incrementAndGet() / stepCount);
+
+        addRandomMobs(dungeonMap, occupied, width, height, new Random(~seed));
+        progressListener.accept((double) completedSteps.incrementAndGet() / stepCount);
+
+        log.info("Generated map {}x{} with {} static objects and {} mobs in {} ms, seed {}",
+                width, height, inmovableMapObjects.size(), dungeonMap.getMovableObjectSet().size(),
+                (System.nanoTime() - start) / 1_000_000, seed);
         return dungeonMap;
     }
 
     /**
-     * Добавить к множеству объектов случайный стены.
+     * Сгенерировать случайные стены в полосе карты.
+     * <p>
+     * В каждой клетке полосы размещается не более одной стены. Полоса изменяет только свои клетки сетки занятости,
+     * поэтому полосы могут обрабатываться параллельно.
+     *
+     * @param occupied   сетка занятости клеток карты, индекс клетки - {@code y * width + x}
+     * @param width      ширина карты в клетках
+     * @param fromY      первая строка полосы
+     * @param toY        строка, следующая за последней строкой полосы
+     * @param wallNumber число стен в полосе
+     * @param random     генератор случайных чисел полосы
+     * @return стены полосы
      */
-    private void addRandomWalls(@NonNull Set<InmovableMapObject> mapObjects) {
-        int numberOfObjects = (int) (configuration.getGeneratorMapWidth() * configuration.getGeneratorMapHeight() * configuration.getGeneratorStaticMapObjectsPercentage());
-
-        Random random = new Random();
-        while (mapObjects.size() < numberOfObjects) {
-            double randomX;
-            double randomY;
-            if (configuration.isGeneratorWallSizeRandomizing()) {
-                randomX = random.nextDouble() * (configuration.getGeneratorMapWidth() - 1);
-                randomY = random.nextDouble() * (configuration.getGeneratorMapHeight() - 1);
-            } else {
-                randomX = random.nextInt((int) configuration.getGeneratorMapWidth());
-                randomY = random.nextInt((int) configuration.getGeneratorMapHeight());
-            }
-            Position position = new Position(randomX, randomY);
-            if (mapObjects.stream().map(MapObject::getPosition).anyMatch(p -> p.equals(position))) {
+    @NonNull
+    private List<Wall> generateRegionWalls(@NonNull boolean[] occupied,
+                                           int width,
+                                           int fromY,
+                                           int toY,
+                                           int wallNumber,
+                                           @NonNull Random random) {
+        List<Wall> walls = new ArrayList<>(wallNumber);
+        int innerWidth = width - 2;
+        while (walls.size() < wallNumber) {
+            int x = 1 + random.nextInt(innerWidth);
+            int y = fromY + random.nextInt(toY - fromY);
+            if (occupied[y * width + x]) {
                 continue;
             }
-            Wall wall = new Wall(position, configuration.getWallSize(), configuration.getWallSize());
+            occupied[y * width + x] = true;
+            Wall wall;
             if (configuration.isGeneratorWallSizeRandomizing()) {
-                wall.setWidth(random.nextDouble() * (wall.getWidth() - 0.2) + 0.2);
-                wall.setLength(random.nextDouble() * (wall.getLength() - 0.2) + 0.2);
+                wall = new Wall(
+                        new Position(x + random.nextDouble(), y + random.nextDouble()),
+                        random.nextDouble() * (configuration.getWallSize() - 0.2) + 0.2,
+                        random.nextDouble() * (configuration.getWallSize() - 0.2) + 0.2);
+            } else {
+                wall = new Wall(new Position(x, y), configuration.getWallSize(), configuration.getWallSize());
             }
-            mapObjects.add(wall);
+            walls.add(wall);
         }
+        return walls;
     }
 
     /**
      * Добавить к множеству объектов стены по краям карты.
+     * <p>
+     * Каждый край карты закрывается одной стеной во всю длину края.
      */
-    private void addWallsOnEdges(@NonNull Set<InmovableMapObject> mapObjects) {
-        for (int x = 0; x < (int) configuration.getGeneratorMapWidth(); x++) {
-            mapObjects.add(new Wall(
-                    new Position(x, 0),
-                    configuration.getWallSize(),
-                    configuration.getWallSize()));
-            mapObjects.add(new Wall(
-                    new Position(x, (int) configuration.getGeneratorMapHeight() - 1),
-                    configuration.getWallSize(),
-                    configuration.getWallSize()));
+    private void addWallsOnEdges(@NonNull Set<InmovableMapObject> mapObjects,
+                                 @NonNull boolean[] occupied,
+                                 int width,
+                                 int height) {
+        double wallSize = configuration.getWallSize();
+        mapObjects.add(new Wall(new Position(0, 0), width, wallSize));
+        if (height > 1) {
+            mapObjects.add(new Wall(new Position(0, height - 1), width, wallSize));
+        }
+        if (height > 2) {
+            mapObjects.add(new Wall(new Position(0, 1), wallSize, height - 2));
+            if (width > 1) {
+                mapObjects.add(new Wall(new Position(width - 1, 1), wallSize, height - 2));
+            }
         }
-        for (int y = 1; y < configuration.getGeneratorMapHeight() - 1; y++) {
-            mapObjects.add(new Wall(
-                    new Position(0, y),
-                    configuration.getWallSize(),
-                    configuration.getWallSize()));
-            mapObjects.add(new Wall(
-                    new Position(configuration.getGeneratorMapWidth() - 1, y),
-                    configuration.getWallSize(),
-                    configuration.getWallSize()));
+        for (int x = 0; x < width; x++) {
+            occupied[x] = true;
+            occupied[(height - 1) * width + x] = true;
+        }
+        for (int y = 0; y < height; y++) {
+            occupied[y * width] = true;
+            occupied[y * width + width - 1] = true;
         }
     }
 
     /**
      * Добавить на карту случайно расположенных монстров.
+     * <p>
+     * Мобы ставятся в центры клеток, не пересекающихся со стенами, не более одного моба в клетке.
      */
-    public void addRandomMobs(@NonNull DungeonMap dungeonMap) {
-        Random random = new Random();
-        while (dungeonMap.getMovableObjectSet().size() < configuration.getGeneratorMobNumber()) {
-            Position position = new Position(random.nextInt((int) configuration.getGeneratorMapWidth()),
-                    random.nextInt((int) configuration.getGeneratorMapHeight()));
-            Mob mob = new Mob(position, configuration.getMobSize(), configuration.getMobHeight(), Mob.State.ALIVE);
+    private void addRandomMobs(@NonNull DungeonMap dungeonMap,
+                               @NonNull boolean[] occupied,
+                               int width,
+                               int height,
+                               @NonNull Random random) {
+        StaticObjectIndex staticObjectIndex = dungeonMap.getStaticObjectIndex();
+        int freeCells = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // стены случайного размера могут заходить в соседние клетки
+                occupied[y * width + x] |= !staticObjectIndex.getCell(x, y).isEmpty();
+                if (!occupied[y * width + x]) {
+                    freeCells++;
+                }
+            }
+        }
+        int mobNumber = Math.min(configuration.getGeneratorMobNumber(), freeCells);
+        if (mobNumber < configuration.getGeneratorMobNumber()) {
+            log.warn("Only {} of {} mobs fit on the map", mobNumber, configuration.getGeneratorMobNumber());
+        }
+        while (freeCells > 0 && dungeonMap.getMovableObjectSet().size() < mobNumber) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (occupied[y * width + x]) {
+                continue;
+            }
+            occupied[y * width + x] = true;
+            freeCells--;
+            Mob mob = new Mob(new Position(x + 0.5, y + 0.5),
+                    configuration.getMobSize(), configuration.getMobHeight(), Mob.State.ALIVE);
+            // крупные мобы могут задевать соседние клетки
             if (collisionDetector.getInterferingMapObject(dungeonMap, mob).isPresent()) {
                 continue;
             }
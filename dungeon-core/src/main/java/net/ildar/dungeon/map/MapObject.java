@@ -19,5 +19,16 @@ public interface MapObject{
      * @param position позиция точки.
      * @return true при наличии пересечения
      */
-    boolean interferes(@NonNull Position position);
+    default boolean interferes(@NonNull Position position) {
+        return interferes(position.getX(), position.getY());
+    }
+
+    /**
+     * Проверяет пересечение объекта с точкой.
+     *
+     * @param x координата точки по горизонтали.
+     * @param y координата точки по вертикали.
+     * @return true при наличии пересечения
+     */
+    boolean interferes(double x, double y);
 }
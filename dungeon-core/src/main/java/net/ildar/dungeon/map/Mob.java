@@ -1,23 +1,48 @@
 package net.ildar.dungeon.map;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 
-import java.util.UUID;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Существо.
+ * <p>
+ * Пока моб размещён на карте, его параметры хранятся в ячейке {@link MobStore} карты, а объект моба служит
+ * представлением этой ячейки. Параметры моба вне карты хранятся в самом объекте.
+ * Мобы сравниваются по ссылке.
+ * <p>
+ * Моб размещается на карте и удаляется с неё только потоком игровой логики. Другие потоки могут читать параметры
+ * моба без блокировок: значение, прочитанное из ячейки, возвращается, только если после чтения моб всё ещё
+ * занимает эту ячейку, иначе возвращаются параметры, перенесённые в объект при удалении моба с карты.
+ * Поэтому моб, удалённый с карты, никогда не показывает параметры моба, занявшего его освободившуюся ячейку.
+ * Координаты моба читаются по отдельности и у перемещаемого в этот момент моба могут относиться к разным шагам,
+ * согласованные координаты всех мобов одного шага содержит {@link WorldSnapshot}.
  */
-@Data
-@EqualsAndHashCode(callSuper = false, onlyExplicitlyIncluded = true)
-@AllArgsConstructor
 public class Mob extends MovableMapObject {
-    @NonNull
-    @EqualsAndHashCode.Include
-    private final String id = UUID.randomUUID().toString();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final int id = NEXT_ID.incrementAndGet();
+
+    /**
+     * Хранилище карты, в ячейке которого находятся параметры моба. null если моб не размещён на карте.
+     */
+    private volatile MobStore mobStore;
+
+    /**
+     * Номер ячейки в {@link #mobStore}, -1 если моб не размещён на карте.
+     */
+    private volatile int slot = -1;
 
+    /**
+     * Количество размещений моба на карте. Отличает ячейку, которую моб занимал при чтении, от той же ячейки,
+     * занятой мобом повторно после того, как в ней побывал другой моб.
+     */
+    private volatile int attachCount;
+
+    /**
+     * Параметры моба вне карты.
+     */
     @NonNull
     private Position position;
     private double radius;
@@ -25,6 +50,229 @@ public class Mob extends MovableMapObject {
     @NonNull
     private State state;
 
+    public Mob(@NonNull Position position, double radius, double height, @NonNull State state) {
+        this.position = position;
+        this.radius = radius;
+        this.height = height;
+        this.state = state;
+    }
+
+    @NonNull
+    @Override
+    public String getId() {
+        return Integer.toString(id);
+    }
+
+    @NonNull
+    @Override
+    public Position getPosition() {
+        int attachCount = this.attachCount;
+        MobStore store = this.mobStore;
+        int slot = this.slot;
+        if (store != null && slot >= 0) {
+            Position position = new Position(store.getX(slot), store.getY(slot));
+            if (isAttached(attachCount, slot)) {
+                return position;
+            }
+        }
+        return this.position;
+    }
+
+    @Override
+    public double getX() {
+        int attachCount = this.attachCount;
+        MobStore store = this.mobStore;
+        int slot = this.slot;
+        if (store != null && slot >= 0) {
+            double x = store.getX(slot);
+            if (isAttached(attachCount, slot)) {
+                return x;
+            }
+        }
+        return position.getX();
+    }
+
+    @Override
+    public double getY() {
+        int attachCount = this.attachCount;
+        MobStore store = this.mobStore;
+        int slot = this.slot;
+        if (store != null && slot >= 0) {
+            double y = store.getY(slot);
+            if (isAttached(attachCount, slot)) {
+                return y;
+            }
+        }
+        return position.getY();
+    }
+
+    public void setPosition(@NonNull Position position) {
+        MobStore store = this.mobStore;
+        if (store != null) {
+            setPosition(store, position.getX(), position.getY());
+        } else {
+            Position oldPosition = this.position;
+            this.position = position;
+            positionChanged(oldPosition.getX(), oldPosition.getY());
+        }
+    }
+
+    /**
+     * Переместить моба в точку с указанными координатами. Моб, размещённый на карте, перемещается
+     * без создания {@link Position}.
+     */
+    public void setPosition(double x, double y) {
+        MobStore store = this.mobStore;
+        if (store != null) {
+            setPosition(store, x, y);
+        } else {
+            setPosition(new Position(x, y));
+        }
+    }
+
+    private void setPosition(@NonNull MobStore store, double x, double y) {
+        double oldX = store.getX(slot);
+        double oldY = store.getY(slot);
+        store.setPosition(slot, x, y);
+        positionChanged(oldX, oldY);
+    }
+
+    @Override
+    public double getRadius() {
+        int attachCount = this.attachCount;
+        MobStore store = this.mobStore;
+        int slot = this.slot;
+        if (store != null && slot >= 0) {
+            double radius = store.getRadius(slot);
+            if (isAttached(attachCount, slot)) {
+                return radius;
+            }
+        }
+        return this.radius;
+    }
+
+    public void setRadius(double radius) {
+        MobStore store = this.mobStore;
+        if (store != null) {
+            store.setRadius(slot, radius);
+        } else {
+            this.radius = radius;
+        }
+    }
+
+    @Override
+    public double getHeight() {
+        int attachCount = this.attachCount;
+        MobStore store = this.mobStore;
+        int slot = this.slot;
+        if (store != null && slot >= 0) {
+            double height = store.getHeight(slot);
+            if (isAttached(attachCount, slot)) {
+                return height;
+            }
+        }
+        return this.height;
+    }
+
+    public void setHeight(double height) {
+        MobStore store = this.mobStore;
+        if (store != null) {
+            store.setHeight(slot, height);
+        } else {
+            this.height = height;
+        }
+    }
+
+    @NonNull
+    public State getState() {
+        int attachCount = this.attachCount;
+        MobStore store = this.mobStore;
+        int slot = this.slot;
+        if (store != null && slot >= 0) {
+            State state = store.getState(slot);
+            if (isAttached(attachCount, slot)) {
+                return state;
+            }
+        }
+        return this.state;
+    }
+
+    public void setState(@NonNull State state) {
+        MobStore store = this.mobStore;
+        if (store != null) {
+            store.setState(slot, state);
+        } else {
+            this.state = state;
+        }
+    }
+
+    @Override
+    public boolean interferes(double x, double y) {
+        int attachCount = this.attachCount;
+        MobStore store = this.mobStore;
+        int slot = this.slot;
+        if (store != null && slot >= 0) {
+            double dx = store.getX(slot) - x;
+            double dy = store.getY(slot) - y;
+            double radius = store.getRadius(slot);
+            if (isAttached(attachCount, slot)) {
+                return dx * dx + dy * dy < radius * radius;
+            }
+        }
+        return super.interferes(x, y);
+    }
+
+    /**
+     * Проверить после чтения ячейки, что моб всё ещё занимает её и не удалялся с карты с начала чтения.
+     * Ячейка освобождается только после того, как моб перестаёт на неё ссылаться, поэтому прочитанные до проверки
+     * значения принадлежат этому мобу.
+     *
+     * @param attachCount значение {@link #attachCount}, прочитанное до хранилища и номера ячейки
+     * @param slot        номер ячейки, из которой прочитаны значения
+     */
+    private boolean isAttached(int attachCount, int slot) {
+        // чтения ячейки не переносятся за повторное чтение счётчика и номера ячейки
+        VarHandle.acquireFence();
+        return this.attachCount == attachCount && this.slot == slot;
+    }
+
+    /**
+     * Перенести параметры моба в ячейку хранилища карты.
+     */
+    void attach(@NonNull MobStore mobStore) {
+        this.attachCount++;
+        this.slot = mobStore.allocate(this, position.getX(), position.getY(), radius, height, state, id);
+        // ячейка становится видна читателям вместе с хранилищем
+        this.mobStore = mobStore;
+    }
+
+    /**
+     * Вернуть параметры моба из ячейки хранилища карты в объект и освободить ячейку.
+     * <p>
+     * Моб перестаёт ссылаться на ячейку до её освобождения: читатели, успевшие прочитать номер ячейки, не примут
+     * значения из неё после того, как ячейку займёт другой моб.
+     */
+    void detach() {
+        MobStore store = this.mobStore;
+        if (store == null) {
+            return;
+        }
+        int slot = this.slot;
+        this.position = new Position(store.getX(slot), store.getY(slot));
+        this.radius = store.getRadius(slot);
+        this.height = store.getHeight(slot);
+        this.state = store.getState(slot);
+        this.mobStore = null;
+        this.slot = -1;
+        store.free(slot);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(id=" + id + ", position=" + getPosition() + ", radius=" + getRadius()
+                + ", height=" + getHeight() + ", state=" + getState() + ")";
+    }
+
     /**
      * Состояние моба.
      */
@@ -0,0 +1,263 @@
+package net.ildar.dungeon.map;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Хранилище параметров мобов карты в параллельных массивах примитивов.
+ * <p>
+ * Моб, размещённый на карте, занимает ячейку хранилища: параметры моба с ячейкой {@code slot} хранятся в
+ * {@code slot}-х элементах всех массивов, а объект {@link Mob} служит представлением ячейки для кода,
+ * работающего с {@link MovableMapObject}. Ячейки удалённых мобов попадают в список свободных и занимаются
+ * следующими добавленными мобами, поэтому массивы не растут при смене мобов. Циклы по всем мобам
+ * перебирают ячейки от 0 до {@link #getSlotCount()} и читают параметры подряд лежащими в памяти.
+ * <p>
+ * Хранилище изменяется только потоком игровой логики. Другие потоки могут читать параметры без блокировок,
+ * при этом координаты перемещаемого в этот момент моба могут быть прочитаны из разных шагов, а ячейка может
+ * оказаться освобождённой и занятой другим мобом. Такие потоки читают параметры через {@link Mob}, который
+ * не возвращает значения освобождённой ячейки, а согласованные координаты всех мобов одного шага получают
+ * из {@link WorldSnapshot}.
+ */
+public class MobStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final Mob.State[] STATES = Mob.State.values();
+
+    /**
+     * Массивы параметров. Заменяются целиком при увеличении ёмкости.
+     */
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+    /**
+     * Номера свободных ячеек ниже {@link #slotCount}.
+     */
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount;
+
+    /**
+     * Количество когда-либо занятых ячеек, номер любой занятой ячейки меньше этого значения.
+     */
+    private volatile int slotCount;
+
+    /**
+     * Количество мобов в хранилище.
+     */
+    private volatile int size;
+
+    /**
+     * Количество живых мобов в хранилище.
+     */
+    private volatile int aliveCount;
+
+    /**
+     * Количество когда-либо занятых ячеек. Перебор ячеек от 0 до этого значения обходит всех мобов хранилища,
+     * свободные ячейки пропускаются по {@link #isOccupied(int)}.
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Количество мобов в хранилище.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Количество живых мобов в хранилище.
+     */
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    /**
+     * Проверить, занята ли ячейка мобом.
+     */
+    public boolean isOccupied(int slot) {
+        return columns.mobs[slot] != null;
+    }
+
+    /**
+     * Получить моба, занимающего ячейку.
+     *
+     * @return моб или null для свободной ячейки
+     */
+    public Mob getMob(int slot) {
+        return columns.mobs[slot];
+    }
+
+    /**
+     * Получить координату моба по горизонтали.
+     */
+    public double getX(int slot) {
+        return columns.positionsX[slot];
+    }
+
+    /**
+     * Получить координату моба по вертикали.
+     */
+    public double getY(int slot) {
+        return columns.positionsY[slot];
+    }
+
+    /**
+     * Получить радиус моба.
+     */
+    public double getRadius(int slot) {
+        return columns.radii[slot];
+    }
+
+    /**
+     * Получить высоту моба.
+     */
+    public double getHeight(int slot) {
+        return columns.heights[slot];
+    }
+
+    /**
+     * Получить состояние моба.
+     */
+    @NonNull
+    public Mob.State getState(int slot) {
+        return STATES[columns.states[slot]];
+    }
+
+    /**
+     * Проверить, жив ли моб в ячейке. Для свободной ячейки возвращает false.
+     */
+    public boolean isAlive(int slot) {
+        Columns columns = this.columns;
+        return columns.mobs[slot] != null && columns.states[slot] == Mob.State.ALIVE.ordinal();
+    }
+
+    /**
+     * Получить идентификатор моба.
+     */
+    public int getId(int slot) {
+        return columns.ids[slot];
+    }
+
+    /**
+     * Занять ячейку под моба.
+     *
+     * @return номер занятой ячейки
+     */
+    synchronized int allocate(@NonNull Mob mob, double x, double y, double radius, double height,
+                              @NonNull Mob.State state, int id) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            slot = slotCount;
+            if (slot == columns.mobs.length) {
+                columns = columns.grow(slot * 2);
+            }
+        }
+        Columns columns = this.columns;
+        columns.positionsX[slot] = x;
+        columns.positionsY[slot] = y;
+        columns.radii[slot] = radius;
+        columns.heights[slot] = height;
+        columns.states[slot] = (byte) state.ordinal();
+        columns.ids[slot] = id;
+        columns.mobs[slot] = mob;
+        if (slot == slotCount) {
+            slotCount = slot + 1;
+        }
+        size++;
+        if (state == Mob.State.ALIVE) {
+            aliveCount++;
+        }
+        return slot;
+    }
+
+    /**
+     * Освободить ячейку удалённого моба.
+     */
+    synchronized void free(int slot) {
+        Columns columns = this.columns;
+        if (columns.mobs[slot] == null) {
+            return;
+        }
+        if (columns.states[slot] == Mob.State.ALIVE.ordinal()) {
+            aliveCount--;
+        }
+        columns.mobs[slot] = null;
+        size--;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    void setPosition(int slot, double x, double y) {
+        Columns columns = this.columns;
+        columns.positionsX[slot] = x;
+        columns.positionsY[slot] = y;
+    }
+
+    void setRadius(int slot, double radius) {
+        columns.radii[slot] = radius;
+    }
+
+    void setHeight(int slot, double height) {
+        columns.heights[slot] = height;
+    }
+
+    synchronized void setState(int slot, @NonNull Mob.State state) {
+        Columns columns = this.columns;
+        boolean wasAlive = columns.states[slot] == Mob.State.ALIVE.ordinal();
+        columns.states[slot] = (byte) state.ordinal();
+        if (wasAlive != (state == Mob.State.ALIVE)) {
+            aliveCount += wasAlive ? -1 : 1;
+        }
+    }
+
+    /**
+     * Массивы параметров мобов одной ёмкости.
+     */
+    private static class Columns {
+        final double[] positionsX;
+        final double[] positionsY;
+        final double[] radii;
+        final double[] heights;
+
+        /**
+         * Номера состояний {@link Mob.State#ordinal()}.
+         */
+        final byte[] states;
+        final int[] ids;
+
+        /**
+         * Представления ячеек, null для свободной ячейки.
+         */
+        final Mob[] mobs;
+
+        Columns(int capacity) {
+            this.positionsX = new double[capacity];
+            this.positionsY = new double[capacity];
+            this.radii = new double[capacity];
+            this.heights = new double[capacity];
+            this.states = new byte[capacity];
+            this.ids = new int[capacity];
+            this.mobs = new Mob[capacity];
+        }
+
+        private Columns(@NonNull Columns columns, int capacity) {
+            this.positionsX = Arrays.copyOf(columns.positionsX, capacity);
+            this.positionsY = Arrays.copyOf(columns.positionsY, capacity);
+            this.radii = Arrays.copyOf(columns.radii, capacity);
+            this.heights = Arrays.copyOf(columns.heights, capacity);
+            this.states = Arrays.copyOf(columns.states, capacity);
+            this.ids = Arrays.copyOf(columns.ids, capacity);
+            this.mobs = Arrays.copyOf(columns.mobs, capacity);
+        }
+
+        @NonNull
+        Columns grow(int capacity) {
+            return new Columns(this, capacity);
+        }
+    }
+}
@@ -9,6 +9,11 @@ import lombok.NonNull;
  */
 public abstract class MovableMapObject implements MapObject {
 
+    /**
+     * Индекс карты, в котором зарегистрирован объект. null если объект не размещён на карте.
+     */
+    private volatile MovableObjectIndex movableObjectIndex;
+
     /**
      * Получить идентификатор объекта.
      */
@@ -25,8 +30,53 @@ public abstract class MovableMapObject implements MapObject {
      */
     public abstract double getHeight();
 
+    /**
+     * Координата центра объекта по горизонтали. Реализации могут возвращать её, не создавая {@link Position}.
+     */
+    public double getX() {
+        return getPosition().getX();
+    }
+
+    /**
+     * Координата центра объекта по вертикали. Реализации могут возвращать её, не создавая {@link Position}.
+     */
+    public double getY() {
+        return getPosition().getY();
+    }
+
+    /**
+     * Сообщить индексу карты о перемещении объекта. Вызывается реализациями при изменении позиции.
+     *
+     * @param oldPosition позиция объекта до перемещения
+     */
+    protected void positionChanged(@NonNull Position oldPosition) {
+        positionChanged(oldPosition.getX(), oldPosition.getY());
+    }
+
+    /**
+     * Сообщить индексу карты о перемещении объекта. Вызывается реализациями при изменении позиции.
+     *
+     * @param oldX координата объекта по горизонтали до перемещения
+     * @param oldY координата объекта по вертикали до перемещения
+     */
+    protected void positionChanged(double oldX, double oldY) {
+        MovableObjectIndex index = this.movableObjectIndex;
+        if (index != null) {
+            index.move(this, oldX, oldY);
+        }
+    }
+
+    /**
+     * Привязать объект к индексу карты.
+     */
+    void setMovableObjectIndex(MovableObjectIndex movableObjectIndex) {
+        this.movableObjectIndex = movableObjectIndex;
+    }
+
     @Override
-    public boolean interferes(@NonNull Position position) {
-        return getPosition().distance(position) < getRadius();
+    public boolean interferes(double x, double y) {
+        double dx = getX() - x;
+        double dy = getY() - y;
+        return dx * dx + dy * dy < getRadius() * getRadius();
     }
 }
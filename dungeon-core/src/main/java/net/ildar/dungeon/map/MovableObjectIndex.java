@@ -0,0 +1,291 @@
+package net.ildar.dungeon.map;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Пространственный индекс мобильных объектов карты.
+ * <p>
+ * Представляет собой равномерную сетку единичных клеток, объект хранится в клетке, содержащей его центр.
+ * Объекты за пределами карты хранятся в ближайшей крайней клетке.
+ * Индекс обновляется при добавлении, удалении и перемещении объектов,
+ * поиск учитывает радиус объектов, не требует блокировок и не создаёт объектов.
+ * <p>
+ * Клетки хранятся блоками {@code BLOCK_SIZE x BLOCK_SIZE}, блок создаётся при добавлении в него первого объекта,
+ * поэтому память индекса зависит от площади, занятой объектами, а не от размеров карты.
+ */
+public class MovableObjectIndex {
+    private static final MovableMapObject[] EMPTY_CELL = new MovableMapObject[0];
+
+    /**
+     * Двоичный логарифм размера блока клеток.
+     */
+    private static final int BLOCK_SHIFT = 5;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    /**
+     * Количество клеток по горизонтали.
+     */
+    private final int columns;
+
+    /**
+     * Количество клеток по вертикали.
+     */
+    private final int rows;
+
+    /**
+     * Количество блоков клеток по горизонтали.
+     */
+    private final int blockColumns;
+
+    /**
+     * Блоки клеток, индекс блока - {@code (y >> BLOCK_SHIFT) * blockColumns + (x >> BLOCK_SHIFT)}, null для блока
+     * без объектов. Блок хранит объекты в каждой своей клетке, индекс клетки в блоке -
+     * {@code (y & BLOCK_MASK) * BLOCK_SIZE + (x & BLOCK_MASK)}.
+     * Массив объектов клетки не изменяется, при изменении клетки он заменяется новым.
+     */
+    private final AtomicReferenceArray<AtomicReferenceArray<MovableMapObject[]>> blocks;
+
+    /**
+     * Наибольший радиус объекта, попадавшего в индекс. Определяет насколько расширяется область поиска.
+     */
+    private volatile double maxRadius;
+
+    public MovableObjectIndex(double width, double height) {
+        this.columns = Math.max((int) Math.ceil(width), 1);
+        this.rows = Math.max((int) Math.ceil(height), 1);
+        this.blockColumns = (columns + BLOCK_MASK) >> BLOCK_SHIFT;
+        this.blocks = new AtomicReferenceArray<>(blockColumns * ((rows + BLOCK_MASK) >> BLOCK_SHIFT));
+    }
+
+    /**
+     * Добавить объект в индекс.
+     */
+    public void add(@NonNull MovableMapObject mmo) {
+        updateMaxRadius(mmo);
+        addToCell(toColumn(mmo.getX()), toRow(mmo.getY()), mmo);
+    }
+
+    /**
+     * Удалить объект из индекса.
+     */
+    public void remove(@NonNull MovableMapObject mmo) {
+        removeFromCell(toColumn(mmo.getX()), toRow(mmo.getY()), mmo);
+    }
+
+    /**
+     * Обновить положение объекта в индексе после перемещения.
+     *
+     * @param mmo         перемещённый объект
+     * @param oldPosition позиция объекта до перемещения
+     */
+    public void move(@NonNull MovableMapObject mmo, @NonNull Position oldPosition) {
+        move(mmo, oldPosition.getX(), oldPosition.getY());
+    }
+
+    /**
+     * Обновить положение объекта в индексе после перемещения.
+     *
+     * @param mmo       перемещённый объект
+     * @param oldPointX координата объекта по горизонтали до перемещения
+     * @param oldPointY координата объекта по вертикали до перемещения
+     */
+    public void move(@NonNull MovableMapObject mmo, double oldPointX, double oldPointY) {
+        updateMaxRadius(mmo);
+        int oldX = toColumn(oldPointX);
+        int oldY = toRow(oldPointY);
+        int newX = toColumn(mmo.getX());
+        int newY = toRow(mmo.getY());
+        if (oldX == newX && oldY == newY) {
+            return;
+        }
+        addToCell(newX, newY, mmo);
+        removeFromCell(oldX, oldY, mmo);
+    }
+
+    /**
+     * Получить наибольший радиус объекта, попадавшего в индекс.
+     * <p>
+     * Объект может пересекать клетку, только если его центр находится не дальше этого расстояния от неё.
+     */
+    public double getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * Получить объекты, центры которых находятся в клетке.
+     * <p>
+     * Клетки за пределами карты заменяются ближайшими крайними клетками. Возвращаемый массив изменять нельзя.
+     *
+     * @return массив объектов, пустой для свободной клетки
+     */
+    @NonNull
+    public MovableMapObject[] getCell(int x, int y) {
+        return getClampedCell(clampColumn(x), clampRow(y));
+    }
+
+    /**
+     * Получить мобильный объект, включающий указанную точку.
+     *
+     * @param x координата точки по горизонтали
+     * @param y координата точки по вертикали
+     * @return Optional мобильного объекта.
+     */
+    @NonNull
+    public Optional<MovableMapObject> findInterferingObject(double x, double y) {
+        double margin = maxRadius;
+        int fromX = clampColumn(toCell(x - margin));
+        int toX = clampColumn(toCell(x + margin));
+        int fromY = clampRow(toCell(y - margin));
+        int toY = clampRow(toCell(y + margin));
+        for (int cellY = fromY; cellY <= toY; cellY++) {
+            for (int cellX = fromX; cellX <= toX; cellX++) {
+                MovableMapObject[] cell = getClampedCell(cellX, cellY);
+                for (int i = 0; i < cell.length; i++) {
+                    if (cell[i].interferes(x, y)) {
+                        return Optional.of(cell[i]);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Обойти объекты, которые могут пересекать прямоугольную область.
+     * <p>
+     * Объекты могут не пересекать область, точная проверка остаётся за вызывающим кодом.
+     *
+     * @param minX     левая граница области
+     * @param minY     верхняя граница области
+     * @param maxX     правая граница области
+     * @param maxY     нижняя граница области
+     * @param consumer обработчик объектов
+     */
+    public void forEachInArea(double minX, double minY, double maxX, double maxY,
+                              @NonNull Consumer<MovableMapObject> consumer) {
+        findAny(minX, minY, maxX, maxY, mmo -> {
+            consumer.accept(mmo);
+            return false;
+        });
+    }
+
+    /**
+     * Найти объект в окрестности прямоугольной области, удовлетворяющий условию.
+     *
+     * @param minX      левая граница области
+     * @param minY      верхняя граница области
+     * @param maxX      правая граница области
+     * @param maxY      нижняя граница области
+     * @param condition условие отбора объекта
+     * @return Optional мобильного объекта
+     */
+    @NonNull
+    public Optional<MovableMapObject> findAny(double minX, double minY, double maxX, double maxY,
+                                              @NonNull Predicate<MovableMapObject> condition) {
+        double margin = maxRadius;
+        int fromX = clampColumn(toCell(minX - margin));
+        int toX = clampColumn(toCell(maxX + margin));
+        int fromY = clampRow(toCell(minY - margin));
+        int toY = clampRow(toCell(maxY + margin));
+        for (int y = fromY; y <= toY; y++) {
+            for (int x = fromX; x <= toX; x++) {
+                MovableMapObject[] cell = getClampedCell(x, y);
+                for (int i = 0; i < cell.length; i++) {
+                    if (condition.test(cell[i])) {
+                        return Optional.of(cell[i]);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Получить объекты клетки, лежащей в пределах карты.
+     */
+    @NonNull
+    private MovableMapObject[] getClampedCell(int x, int y) {
+        AtomicReferenceArray<MovableMapObject[]> block = blocks.get(toBlockIndex(x, y));
+        return block == null ? EMPTY_CELL : block.get(toIndexInBlock(x, y));
+    }
+
+    private synchronized void addToCell(int x, int y, @NonNull MovableMapObject mmo) {
+        AtomicReferenceArray<MovableMapObject[]> block = blocks.get(toBlockIndex(x, y));
+        if (block == null) {
+            block = new AtomicReferenceArray<>(BLOCK_SIZE * BLOCK_SIZE);
+            for (int i = 0; i < BLOCK_SIZE * BLOCK_SIZE; i++) {
+                block.set(i, EMPTY_CELL);
+            }
+            blocks.set(toBlockIndex(x, y), block);
+        }
+        int index = toIndexInBlock(x, y);
+        MovableMapObject[] cell = block.get(index);
+        for (MovableMapObject o : cell) {
+            if (o == mmo) {
+                return;
+            }
+        }
+        MovableMapObject[] updatedCell = Arrays.copyOf(cell, cell.length + 1);
+        updatedCell[cell.length] = mmo;
+        block.set(index, updatedCell);
+    }
+
+    private synchronized void removeFromCell(int x, int y, @NonNull MovableMapObject mmo) {
+        AtomicReferenceArray<MovableMapObject[]> block = blocks.get(toBlockIndex(x, y));
+        if (block == null) {
+            return;
+        }
+        int index = toIndexInBlock(x, y);
+        MovableMapObject[] cell = block.get(index);
+        for (int i = 0; i < cell.length; i++) {
+            if (cell[i] == mmo) {
+                MovableMapObject[] updatedCell = cell.length == 1 ? EMPTY_CELL : new MovableMapObject[cell.length - 1];
+                System.arraycopy(cell, 0, updatedCell, 0, i);
+                System.arraycopy(cell, i + 1, updatedCell, i, cell.length - i - 1);
+                block.set(index, updatedCell);
+                return;
+            }
+        }
+    }
+
+    private void updateMaxRadius(@NonNull MovableMapObject mmo) {
+        if (mmo.getRadius() > maxRadius) {
+            maxRadius = mmo.getRadius();
+        }
+    }
+
+    private int toColumn(double x) {
+        return clampColumn(toCell(x));
+    }
+
+    private int toRow(double y) {
+        return clampRow(toCell(y));
+    }
+
+    private int toBlockIndex(int x, int y) {
+        return (y >> BLOCK_SHIFT) * blockColumns + (x >> BLOCK_SHIFT);
+    }
+
+    private static int toIndexInBlock(int x, int y) {
+        return (y & BLOCK_MASK) << BLOCK_SHIFT | (x & BLOCK_MASK);
+    }
+
+    private int clampColumn(int x) {
+        return Math.min(Math.max(x, 0), columns - 1);
+    }
+
+    private int clampRow(int y) {
+        return Math.min(Math.max(y, 0), rows - 1);
+    }
+
+    private static int toCell(double coordinate) {
+        return (int) Math.floor(coordinate);
+    }
+}
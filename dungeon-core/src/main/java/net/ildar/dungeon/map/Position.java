@@ -32,6 +32,19 @@ public class Position {
                 getY() - length * Math.cos(rayAngle / 180. * Math.PI));
     }
 
+    /**
+     * Получить позицию на некотором удалении от текущей позиции в заданном направлении.
+     *
+     * @param length     расстояние до требуемой позиции.
+     * @param directionX горизонтальная составляющая единичного вектора направления.
+     * @param directionY вертикальная составляющая единичного вектора направления.
+     * @return новая позиция.
+     */
+    @NonNull
+    public Position shift(double length, double directionX, double directionY) {
+        return new Position(getX() + length * directionX, getY() + length * directionY);
+    }
+
     /**
      * Найти евклидово расстояние до указанной позиции.
      *
@@ -39,6 +52,19 @@ public class Position {
      * @return евклидово расстояние.
      */
     public double distance(Position position) {
-        return Math.sqrt(Math.pow(x - position.getX(), 2) + Math.pow(y - position.getY(), 2));
+        return distance(position.getX(), position.getY());
+    }
+
+    /**
+     * Найти евклидово расстояние до точки с указанными координатами.
+     *
+     * @param x координата точки по горизонтали.
+     * @param y координата точки по вертикали.
+     * @return евклидово расстояние.
+     */
+    public double distance(double x, double y) {
+        double dx = this.x - x;
+        double dy = this.y - y;
+        return Math.sqrt(dx * dx + dy * dy);
     }
 }
@@ -0,0 +1,193 @@
+package net.ildar.dungeon.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Пространственный индекс статических объектов карты.
+ * <p>
+ * Представляет собой равномерную сетку единичных клеток,
+ * каждая клетка хранит список пересекающих её статических объектов.
+ */
+public class StaticObjectIndex {
+    /**
+     * Количество клеток по горизонтали.
+     */
+    private final int columns;
+
+    /**
+     * Количество клеток по вертикали.
+     */
+    private final int rows;
+
+    /**
+     * Статические объекты в каждой клетке, индекс клетки - {@code y * columns + x}.
+     */
+    private final List<List<InmovableMapObject>> cells;
+
+    /**
+     * Наибольшая ширина объекта в индексе.
+     */
+    @Getter
+    private double maxObjectWidth;
+
+    /**
+     * Наибольшая длина объекта в индексе.
+     */
+    @Getter
+    private double maxObjectLength;
+
+    public StaticObjectIndex(double width, double height, @NonNull Collection<InmovableMapObject> staticObjects) {
+        this.columns = (int) Math.ceil(width);
+        this.rows = (int) Math.ceil(height);
+        this.cells = new ArrayList<>(Collections.nCopies(columns * rows, null));
+        for (InmovableMapObject imo : staticObjects) {
+            maxObjectWidth = Math.max(maxObjectWidth, imo.getWidth());
+            maxObjectLength = Math.max(maxObjectLength, imo.getLength());
+            int fromX = Math.max(toCell(imo.getPosition().getX()), 0);
+            int toX = Math.min((int) Math.ceil(imo.getPosition().getX() + imo.getWidth()) - 1, columns - 1);
+            int fromY = Math.max(toCell(imo.getPosition().getY()), 0);
+            int toY = Math.min((int) Math.ceil(imo.getPosition().getY() + imo.getLength()) - 1, rows - 1);
+            for (int y = fromY; y <= toY; y++) {
+                for (int x = fromX; x <= toX; x++) {
+                    int index = y * columns + x;
+                    if (cells.get(index) == null) {
+                        cells.set(index, new ArrayList<>(1));
+                    }
+                    cells.get(index).add(imo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Создать индекс, клетки которого хранит наследник.
+     * <p>
+     * Наследник должен переопределить {@link #getCell(int, int)}, через который выполняется весь поиск в индексе.
+     *
+     * @param maxObjectWidth  наибольшая ширина объекта в индексе
+     * @param maxObjectLength наибольшая длина объекта в индексе
+     */
+    protected StaticObjectIndex(double width, double height, double maxObjectWidth, double maxObjectLength) {
+        this.columns = (int) Math.ceil(width);
+        this.rows = (int) Math.ceil(height);
+        this.cells = null;
+        this.maxObjectWidth = maxObjectWidth;
+        this.maxObjectLength = maxObjectLength;
+    }
+
+    /**
+     * Получить статические объекты, пересекающие клетку.
+     *
+     * @return список объектов, пустой для свободной клетки или клетки за пределами карты
+     */
+    @NonNull
+    public List<InmovableMapObject> getCell(int x, int y) {
+        if (x < 0 || y < 0 || x >= columns || y >= rows) {
+            return Collections.emptyList();
+        }
+        List<InmovableMapObject> cell = cells.get(y * columns + x);
+        return cell == null ? Collections.emptyList() : cell;
+    }
+
+    /**
+     * Убедиться, что клетки прямоугольной области находятся в памяти, перед размещением объекта в этой области.
+     * <p>
+     * Индекс, полностью находящийся в памяти, ничего не делает.
+     *
+     * @param minX левая граница области
+     * @param minY верхняя граница области
+     * @param maxX правая граница области
+     * @param maxY нижняя граница области
+     */
+    public void loadArea(double minX, double minY, double maxX, double maxY) {
+    }
+
+    /**
+     * Проверить, что клетки прямоугольной области находятся в памяти, не загружая их.
+     * <p>
+     * Для индекса, полностью находящегося в памяти, всегда true.
+     *
+     * @param minX левая граница области
+     * @param minY верхняя граница области
+     * @param maxX правая граница области
+     * @param maxY нижняя граница области
+     */
+    public boolean isAreaLoaded(double minX, double minY, double maxX, double maxY) {
+        return true;
+    }
+
+    /**
+     * Получить статический объект, включающий указанную точку.
+     *
+     * @param position позиция точки на карте.
+     * @return Optional статического объекта.
+     */
+    @NonNull
+    public Optional<InmovableMapObject> findInterferingObject(@NonNull Position position) {
+        return findInterferingObject(position.getX(), position.getY());
+    }
+
+    /**
+     * Получить статический объект, включающий точку с указанными координатами.
+     *
+     * @param x координата точки по горизонтали.
+     * @param y координата точки по вертикали.
+     * @return Optional статического объекта.
+     */
+    @NonNull
+    public Optional<InmovableMapObject> findInterferingObject(double x, double y) {
+        List<InmovableMapObject> cell = getCell(toCell(x), toCell(y));
+        for (int i = 0; i < cell.size(); i++) {
+            if (cell.get(i).interferes(x, y)) {
+                return Optional.of(cell.get(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Найти статический объект в прямоугольной области, удовлетворяющий условию.
+     * <p>
+     * Проверяются только объекты из клеток, пересекающих область.
+     *
+     * @param minX      левая граница области
+     * @param minY      верхняя граница области
+     * @param maxX      правая граница области
+     * @param maxY      нижняя граница области
+     * @param condition условие отбора объекта
+     * @return Optional статического объекта.
+     */
+    @NonNull
+    public Optional<InmovableMapObject> findAny(double minX, double minY, double maxX, double maxY,
+                                                @NonNull Predicate<InmovableMapObject> condition) {
+        int fromX = Math.max(toCell(minX), 0);
+        int toX = Math.min(toCell(maxX), columns - 1);
+        int fromY = Math.max(toCell(minY), 0);
+        int toY = Math.min(toCell(maxY), rows - 1);
+        for (int y = fromY; y <= toY; y++) {
+            for (int x = fromX; x <= toX; x++) {
+                for (InmovableMapObject imo : getCell(x, y)) {
+                    if (condition.test(imo)) {
+                        return Optional.of(imo);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Получить индекс клетки по координате.
+     */
+    private static int toCell(double coordinate) {
+        return (int) Math.floor(coordinate);
+    }
+}
@@ -0,0 +1,208 @@
+package net.ildar.dungeon.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Неизменяемый снимок состояния игрового мира.
+ * <p>
+ * Игровая логика публикует новый снимок в конце каждого тика, рендереры читают последний опубликованный снимок
+ * без блокировок. Параметры мобильных объектов упакованы в параллельные массивы:
+ * объект с номером {@code i} описывается {@code i}-ми элементами всех массивов.
+ * <p>
+ * Снимок хранит и позиции объектов из предыдущего снимка той же карты, чтобы рендереры могли
+ * интерполировать движение объектов между тиками.
+ */
+public class WorldSnapshot {
+    /**
+     * Карта, к которой относится снимок. Статические объекты карты не изменяются.
+     */
+    @Getter
+    @NonNull
+    private final DungeonMap dungeonMap;
+
+    /**
+     * Время снятия снимка по {@link System#nanoTime()}.
+     */
+    @Getter
+    private final long tickTime;
+
+    private final MovableMapObject[] objects;
+    private final double[] positionsX;
+    private final double[] positionsY;
+
+    /**
+     * Позиции объектов в предыдущем снимке. Для объектов, которых не было в предыдущем снимке, совпадают с текущими.
+     */
+    private final double[] previousPositionsX;
+    private final double[] previousPositionsY;
+    private final double[] radii;
+    private final double[] heights;
+
+    /**
+     * Состояния мобов. null для мобильных объектов, не являющихся мобами.
+     */
+    private final Mob.State[] states;
+
+    private WorldSnapshot(@NonNull DungeonMap dungeonMap, @NonNull MovableMapObject[] objects,
+                          WorldSnapshot previous) {
+        int count = objects.length;
+        this.dungeonMap = dungeonMap;
+        this.tickTime = System.nanoTime();
+        this.objects = objects;
+        this.positionsX = new double[count];
+        this.positionsY = new double[count];
+        this.previousPositionsX = new double[count];
+        this.previousPositionsY = new double[count];
+        this.radii = new double[count];
+        this.heights = new double[count];
+        this.states = new Mob.State[count];
+        for (int i = 0; i < count; i++) {
+            MovableMapObject mmo = objects[i];
+            positionsX[i] = mmo.getX();
+            positionsY[i] = mmo.getY();
+            radii[i] = mmo.getRadius();
+            heights[i] = mmo.getHeight();
+            states[i] = mmo instanceof Mob ? ((Mob) mmo).getState() : null;
+        }
+        copyPreviousPositions(previous != null && previous.dungeonMap == dungeonMap ? previous : null);
+    }
+
+    /**
+     * Заполнить позиции объектов в предыдущем снимке.
+     * <p>
+     * Пока объекты карты не добавляются и не удаляются, они перечисляются в снимках в одном порядке,
+     * поэтому объект ищется по номеру и только при несовпадении - по ссылке.
+     */
+    private void copyPreviousPositions(WorldSnapshot previous) {
+        Map<MovableMapObject, Integer> previousIndexes = null;
+        for (int i = 0; i < objects.length; i++) {
+            int previousIndex = -1;
+            if (previous != null) {
+                if (i < previous.objects.length && previous.objects[i] == objects[i]) {
+                    previousIndex = i;
+                } else {
+                    if (previousIndexes == null) {
+                        previousIndexes = new IdentityHashMap<>(previous.objects.length);
+                        for (int j = 0; j < previous.objects.length; j++) {
+                            previousIndexes.put(previous.objects[j], j);
+                        }
+                    }
+                    previousIndex = previousIndexes.getOrDefault(objects[i], -1);
+                }
+            }
+            previousPositionsX[i] = previousIndex >= 0 ? previous.positionsX[previousIndex] : positionsX[i];
+            previousPositionsY[i] = previousIndex >= 0 ? previous.positionsY[previousIndex] : positionsY[i];
+        }
+    }
+
+    /**
+     * Снять состояние мобильных объектов карты.
+     * <p>
+     * Вызывается из потока игровой логики, который единственный изменяет объекты карты.
+     *
+     * @param dungeonMap игровая карта
+     * @return снимок состояния
+     */
+    @NonNull
+    public static WorldSnapshot capture(@NonNull DungeonMap dungeonMap) {
+        return capture(dungeonMap, null);
+    }
+
+    /**
+     * Снять состояние мобильных объектов карты, запомнив их позиции в предыдущем снимке.
+     * <p>
+     * Вызывается из потока игровой логики, который единственный изменяет объекты карты.
+     *
+     * @param dungeonMap игровая карта
+     * @param previous   предыдущий снимок, может быть null. Снимок другой карты не учитывается.
+     * @return снимок состояния
+     */
+    @NonNull
+    public static WorldSnapshot capture(@NonNull DungeonMap dungeonMap, WorldSnapshot previous) {
+        Set<MovableMapObject> movableObjectSet = dungeonMap.getMovableObjectSet();
+        return new WorldSnapshot(dungeonMap, movableObjectSet.toArray(new MovableMapObject[0]), previous);
+    }
+
+    /**
+     * Количество мобильных объектов в снимке.
+     */
+    public int getObjectCount() {
+        return objects.length;
+    }
+
+    /**
+     * Получить мобильный объект. Изменяемые свойства объекта следует читать из снимка, а не из объекта.
+     */
+    @NonNull
+    public MovableMapObject getObject(int i) {
+        return objects[i];
+    }
+
+    /**
+     * Получить координату мобильного объекта по горизонтали.
+     */
+    public double getX(int i) {
+        return positionsX[i];
+    }
+
+    /**
+     * Получить координату мобильного объекта по вертикали.
+     */
+    public double getY(int i) {
+        return positionsY[i];
+    }
+
+    /**
+     * Получить координату мобильного объекта по горизонтали между предыдущим и этим снимком.
+     *
+     * @param alpha доля пути от позиции в предыдущем снимке (0) к позиции в этом снимке (1)
+     */
+    public double getX(int i, double alpha) {
+        return previousPositionsX[i] + (positionsX[i] - previousPositionsX[i]) * alpha;
+    }
+
+    /**
+     * Получить координату мобильного объекта по вертикали между предыдущим и этим снимком.
+     *
+     * @param alpha доля пути от позиции в предыдущем снимке (0) к позиции в этом снимке (1)
+     */
+    public double getY(int i, double alpha) {
+        return previousPositionsY[i] + (positionsY[i] - previousPositionsY[i]) * alpha;
+    }
+
+    /**
+     * Получить позицию мобильного объекта.
+     */
+    @NonNull
+    public Position getPosition(int i) {
+        return new Position(positionsX[i], positionsY[i]);
+    }
+
+    /**
+     * Получить радиус мобильного объекта.
+     */
+    public double getRadius(int i) {
+        return radii[i];
+    }
+
+    /**
+     * Получить высоту мобильного объекта.
+     */
+    public double getHeight(int i) {
+        return heights[i];
+    }
+
+    /**
+     * Получить состояние моба.
+     *
+     * @return состояние моба, null если мобильный объект не является мобом
+     */
+    public Mob.State getState(int i) {
+        return states[i];
+    }
+}
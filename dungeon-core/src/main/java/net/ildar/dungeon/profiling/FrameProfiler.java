@@ -0,0 +1,133 @@
+package net.ildar.dungeon.profiling;
+
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import net.ildar.dungeon.config.Configuration;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Профилировщик кадра: записывает длительности этапов кадра и игровой логики в гистограммы.
+ * <p>
+ * Замер этапа оформляется парой вызовов {@link #start()} и {@link #record(FrameStage, long)}.
+ * Пока запись выключена, замер стоит одного чтения volatile-поля.
+ */
+@Log4j2
+@Singleton
+public class FrameProfiler implements FrameProfilerMXBean {
+    private static final String OBJECT_NAME = "net.ildar.dungeon:type=FrameProfiler";
+
+    /**
+     * Гистограммы этапов по порядковому номеру этапа.
+     */
+    private final StageHistogram[] histograms = new StageHistogram[FrameStage.values().length];
+
+    private volatile boolean enabled;
+
+    /**
+     * Признак отображения статистики поверх кадра.
+     */
+    private volatile boolean overlayVisible;
+
+    @Inject
+    public FrameProfiler(Configuration configuration) {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new StageHistogram();
+        }
+        this.enabled = configuration.isFrameProfilerEnabled();
+    }
+
+    /**
+     * Начать замер этапа.
+     *
+     * @return время начала этапа или 0 если запись выключена
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Закончить замер этапа и записать его длительность.
+     *
+     * @param stage этап
+     * @param start время начала этапа, полученное от {@link #start()}
+     */
+    public void record(@NonNull FrameStage stage, long start) {
+        if (start != 0) {
+            histograms[stage.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void reset() {
+        for (StageHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    @Override
+    @NonNull
+    public List<StageStatistics> getStageStatistics() {
+        List<StageStatistics> statistics = new ArrayList<>();
+        for (FrameStage stage : FrameStage.values()) {
+            StageHistogram histogram = histograms[stage.ordinal()];
+            statistics.add(new StageStatistics(
+                    stage.name(),
+                    histogram.getCount(),
+                    histogram.getPercentile(50) / 1E6,
+                    histogram.getPercentile(95) / 1E6,
+                    histogram.getPercentile(99) / 1E6,
+                    histogram.getMax() / 1E6));
+        }
+        return statistics;
+    }
+
+    public boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    /**
+     * Показать или скрыть статистику поверх кадра.
+     * <p>
+     * При показе статистики запись включается и начинается заново.
+     */
+    public void toggleOverlay() {
+        overlayVisible = !overlayVisible;
+        if (overlayVisible) {
+            reset();
+            enabled = true;
+        }
+    }
+
+    /**
+     * Зарегистрировать профилировщик в платформенном MBean-сервере.
+     */
+    public void registerMBean() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            log.error("Unable to register frame profiler MBean", e);
+        }
+    }
+}
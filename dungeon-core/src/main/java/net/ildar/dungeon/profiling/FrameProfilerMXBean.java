@@ -0,0 +1,25 @@
+package net.ildar.dungeon.profiling;
+
+import java.util.List;
+
+/**
+ * Управляющий интерфейс {@link FrameProfiler} для JMX.
+ */
+public interface FrameProfilerMXBean {
+    /**
+     * Признак записи длительностей этапов.
+     */
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Очистить записанные длительности.
+     */
+    void reset();
+
+    /**
+     * Получить статистику длительностей всех этапов.
+     */
+    List<StageStatistics> getStageStatistics();
+}
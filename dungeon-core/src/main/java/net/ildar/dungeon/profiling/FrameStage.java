@@ -0,0 +1,56 @@
+package net.ildar.dungeon.profiling;
+
+/**
+ * Этапы кадра и игровой логики, длительность которых записывает {@link FrameProfiler}.
+ */
+public enum FrameStage {
+    /**
+     * Интервал между началами соседних кадров.
+     */
+    FRAME,
+
+    /**
+     * Тик игровой логики.
+     */
+    TICK,
+
+    /**
+     * Трассировка полос рендеринга.
+     */
+    TRACE,
+
+    /**
+     * Отрисовка неба и пола.
+     */
+    FLOOR,
+
+    /**
+     * Отрисовка статических объектов.
+     */
+    WALL,
+
+    /**
+     * Отрисовка мобильных объектов.
+     */
+    SPRITE,
+
+    /**
+     * Вывод программного буфера кадра на экран.
+     */
+    PRESENT,
+
+    /**
+     * Отрисовка миникарты.
+     */
+    MINIMAP,
+
+    /**
+     * Отрисовка оружия.
+     */
+    GUN,
+
+    /**
+     * Отрисовка таймера или сообщения о победе.
+     */
+    HUD
+}
@@ -0,0 +1,110 @@
+package net.ildar.dungeon.profiling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма длительностей этапа в наносекундах.
+ * <p>
+ * Корзины растут в геометрической прогрессии: каждый интервал между соседними степенями двойки разбит
+ * на {@link #SUB_BUCKET_COUNT} равных корзин, поэтому относительная погрешность перцентилей не превышает 12,5%.
+ * Запись не блокирует и не создаёт объектов.
+ */
+class StageHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Записать длительность.
+     *
+     * @param nanos длительность в наносекундах
+     */
+    void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(toBucket(value));
+        totalCount.incrementAndGet();
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Количество записанных длительностей.
+     */
+    long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Наибольшая записанная длительность в наносекундах.
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Получить перцентиль записанных длительностей.
+     *
+     * @param percentile перцентиль от 0 до 100
+     * @return верхняя граница корзины, содержащей перцентиль, в наносекундах, 0 если длительности не записывались
+     */
+    long getPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max((long) Math.ceil(count * percentile / 100), 1);
+        long accumulated = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            accumulated += counts.get(bucket);
+            if (accumulated >= target) {
+                return Math.min(getBucketUpperBound(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Очистить гистограмму.
+     */
+    void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            counts.set(bucket, 0);
+        }
+        totalCount.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Получить номер корзины длительности. Длительности меньше {@link #SUB_BUCKET_COUNT} имеют собственные корзины.
+     *
+     * @param value неотрицательная длительность в наносекундах
+     */
+    static int toBucket(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    /**
+     * Получить наибольшую длительность, попадающую в корзину.
+     *
+     * @param bucket номер корзины
+     */
+    static long getBucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
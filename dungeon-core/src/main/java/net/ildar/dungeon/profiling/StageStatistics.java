@@ -0,0 +1,26 @@
+package net.ildar.dungeon.profiling;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Статистика длительностей этапа кадра в миллисекундах.
+ */
+@Value
+public class StageStatistics {
+    /**
+     * Название этапа, см. {@link FrameStage}.
+     */
+    @NonNull
+    String stage;
+
+    /**
+     * Количество записанных длительностей.
+     */
+    long count;
+
+    double p50;
+    double p95;
+    double p99;
+    double max;
+}
@@ -1,27 +1,155 @@
 package net.ildar.dungeon.provider;
 
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.map.ChunkedMapFile;
+import net.ildar.dungeon.map.ChunkedStaticObjectIndex;
 import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.MapFileStorage;
 import net.ildar.dungeon.map.MapGenerator;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.StaticObjectIndex;
+import net.ildar.dungeon.map.WorldSnapshot;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.nio.file.Path;
 
 @Singleton
 @RequiredArgsConstructor(onConstructor_ = {@Inject})
 public class MapProvider {
+    private final Configuration configuration;
     private final MapGenerator mapGenerator;
+    private final MapFileStorage mapFileStorage;
 
-    private DungeonMap dungeonMap;
+    private volatile DungeonMap dungeonMap;
 
+    /**
+     * Файл, из которого загружена карта. null, если карта генерируется.
+     */
+    private volatile Path mapFile;
+
+    /**
+     * Загружена ли карта из файла {@link #mapFile} по фрагментам.
+     */
+    private volatile boolean chunkedMapFile;
+
+    /**
+     * Последний опубликованный снимок мира. Заменяется целиком, опубликованный снимок не изменяется.
+     */
+    private volatile WorldSnapshot worldSnapshot;
+
+    /**
+     * Получить текущую карту. Карта создаётся при первом обращении из любого потока, но только один раз.
+     */
     public DungeonMap getDungeonMap() {
-        if (dungeonMap == null) {
-            dungeonMap = mapGenerator.generateMap();
+        DungeonMap map = this.dungeonMap;
+        if (map == null) {
+            synchronized (this) {
+                if (this.dungeonMap == null) {
+                    regenerateMap();
+                }
+                map = this.dungeonMap;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Создать карту заново: сгенерировать новую карту или повторно загрузить карту из файла.
+     */
+    public synchronized void regenerateMap() {
+        Path file = this.mapFile;
+        DungeonMap previousMap = this.dungeonMap;
+        if (file == null) {
+            this.dungeonMap = mapGenerator.generateMap();
+        } else if (chunkedMapFile) {
+            ChunkedMapFile chunkedFile = ChunkedMapFile.open(file);
+            this.dungeonMap = new DungeonMap(chunkedFile.getHeight(), chunkedFile.getWidth(),
+                    new ChunkedStaticObjectIndex(chunkedFile,
+                            configuration.getChunkMemoryBudget(), configuration.getChunkPrefetchDistance()));
+        } else {
+            this.dungeonMap = mapFileStorage.load(file);
+        }
+        if (previousMap != null && previousMap.getStaticObjectIndex() instanceof ChunkedStaticObjectIndex) {
+            ((ChunkedStaticObjectIndex) previousMap.getStaticObjectIndex()).close();
+        }
+    }
+
+    /**
+     * Загрузить карту из файла. Дальнейшие пересоздания карты загружают её из того же файла.
+     *
+     * @param file файл карты
+     */
+    public void loadMap(@NonNull Path file) {
+        this.mapFile = file;
+        this.chunkedMapFile = false;
+        regenerateMap();
+    }
+
+    /**
+     * Загрузить карту из файла, хранящего карту по фрагментам.
+     * <p>
+     * В памяти находятся только фрагменты рядом с игроком, поэтому карта может быть больше доступной памяти.
+     * Мобы в таком файле не хранятся, стены карты не перечисляются в {@link DungeonMap#getStaticObjectSet()}.
+     * Дальнейшие пересоздания карты загружают её из того же файла.
+     *
+     * @param file файл карты
+     */
+    public void loadChunkedMap(@NonNull Path file) {
+        this.mapFile = file;
+        this.chunkedMapFile = true;
+        regenerateMap();
+    }
+
+    /**
+     * Сохранить текущую карту в файл.
+     *
+     * @param file файл карты
+     */
+    public void saveMap(@NonNull Path file) {
+        mapFileStorage.save(getDungeonMap(), file);
+    }
+
+    /**
+     * Сохранить стены текущей карты в файл, хранящий карту по фрагментам.
+     * Мобы в таком файле не хранятся, карта, загруженная из него, не содержит мобов.
+     *
+     * @param file файл карты
+     */
+    public void saveChunkedMap(@NonNull Path file) {
+        ChunkedMapFile.write(getDungeonMap(), file, configuration.getChunkSize());
+    }
+
+    /**
+     * Обновить область карты вокруг игрока, которая должна находиться в памяти.
+     * Для карты, полностью находящейся в памяти, ничего не делает.
+     *
+     * @param position позиция игрока
+     */
+    public void updateResidentArea(@NonNull Position position) {
+        StaticObjectIndex staticObjectIndex = getDungeonMap().getStaticObjectIndex();
+        if (staticObjectIndex instanceof ChunkedStaticObjectIndex) {
+            ((ChunkedStaticObjectIndex) staticObjectIndex).update(position);
         }
-        return dungeonMap;
     }
 
-    public void regenerateMap() {
-        this.dungeonMap = mapGenerator.generateMap();
+    /**
+     * Опубликовать снимок текущего состояния карты. Вызывается игровой логикой в конце тика.
+     */
+    public void publishWorldSnapshot() {
+        this.worldSnapshot = WorldSnapshot.capture(getDungeonMap(), this.worldSnapshot);
+    }
+
+    /**
+     * Получить последний опубликованный снимок мира.
+     * <p>
+     * Пока игровая логика не опубликовала ни одного снимка, снимок строится по текущему состоянию карты.
+     */
+    @NonNull
+    public WorldSnapshot getWorldSnapshot() {
+        WorldSnapshot snapshot = this.worldSnapshot;
+        return snapshot != null ? snapshot : WorldSnapshot.capture(getDungeonMap());
     }
 }
@@ -0,0 +1,123 @@
+package net.ildar.dungeon;
+
+import net.ildar.dungeon.config.TestConfiguration;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.MapFileStorage;
+import net.ildar.dungeon.map.MapGenerator;
+import net.ildar.dungeon.map.Mob;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.Wall;
+import net.ildar.dungeon.provider.MapProvider;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Определение пересечений объектов карты.
+ */
+public class CollisionDetectorTest {
+    private static final double EPSILON = 1E-12;
+    private static final double DIAGONAL = Math.sqrt(0.5);
+
+    private final CollisionDetector collisionDetector = new CollisionDetector();
+    private final Wall wall = new Wall(new Position(4, 4), 2, 1);
+    private final Mob mob = new Mob(new Position(5, 0), 1, 1, Mob.State.ALIVE);
+
+    @Test
+    public void movedObjectSearchMatchesScan() {
+        TestConfiguration configuration = new TestConfiguration().withMobNumber(200);
+        DungeonMap dungeonMap = new MapProvider(configuration,
+                new MapGenerator(configuration, collisionDetector), new MapFileStorage()).getDungeonMap();
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            double x = random.nextDouble() * (dungeonMap.getWidth() + 2) - 1;
+            double y = random.nextDouble() * (dungeonMap.getHeight() + 2) - 1;
+            Mob mob = new Mob(new Position(x, y), random.nextDouble(), 1, Mob.State.ALIVE);
+            assertEquals("circle " + mob,
+                    collisionDetector.scanInterferingMapObject(dungeonMap, mob).isPresent(),
+                    collisionDetector.getInterferingMapObject(dungeonMap, mob, x, y).isPresent());
+        }
+    }
+
+    @Test
+    public void rayEntersWallAtNearestFace() {
+        assertEquals(3, collisionDetector.getRayEntryDistance(1, 4.5, 1, 0, wall), EPSILON);
+        assertEquals(3, collisionDetector.getRayEntryDistance(9, 4.5, -1, 0, wall), EPSILON);
+        assertEquals(2, collisionDetector.getRayEntryDistance(5, 7, 0, -1, wall), EPSILON);
+        assertEquals(Math.sqrt(2), collisionDetector.getRayEntryDistance(3, 3, DIAGONAL, DIAGONAL, wall), EPSILON);
+    }
+
+    @Test
+    public void rayStartingInsideWallEntersAtZero() {
+        assertEquals(0, collisionDetector.getRayEntryDistance(5, 4.5, 1, 0, wall), 0);
+        assertEquals(0, collisionDetector.getRayEntryDistance(5, 4.5, 0, 1, wall), 0);
+    }
+
+    @Test
+    public void rayMissingWallHasNoEntry() {
+        // стена позади начала луча
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayEntryDistance(7, 4.5, 1, 0, wall), 0);
+        // луч вдоль грани стены
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayEntryDistance(1, 4, 1, 0, wall), 0);
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayEntryDistance(6, 7, 0, -1, wall), 0);
+        // луч проходит мимо угла стены
+        assertEquals(Double.POSITIVE_INFINITY,
+                collisionDetector.getRayEntryDistance(1.5, 6, DIAGONAL, -DIAGONAL, wall), 0);
+    }
+
+    @Test
+    public void rayEntersMobCircle() {
+        assertEquals(4, collisionDetector.getRayEntryDistance(0, 0, 1, 0, mob), EPSILON);
+        assertEquals(4, collisionDetector.getRayEntryDistance(10, 0, -1, 0, mob), EPSILON);
+        assertEquals(1 - Math.sqrt(0.75), collisionDetector.getRayEntryDistance(4, 0.5, 1, 0, mob), EPSILON);
+        assertEquals(3 * Math.sqrt(2) - 1,
+                collisionDetector.getRayEntryDistance(2, -3, DIAGONAL, DIAGONAL, mob), EPSILON);
+    }
+
+    @Test
+    public void rayStartingInsideMobEntersAtZero() {
+        assertEquals(0, collisionDetector.getRayEntryDistance(5.5, 0, 1, 0, mob), 0);
+        assertEquals(0, collisionDetector.getRayEntryDistance(5.5, 0, -1, 0, mob), 0);
+        assertEquals(0, collisionDetector.getRayEntryDistance(5, 0, 0, 1, mob), 0);
+    }
+
+    @Test
+    public void rayMissingMobHasNoEntry() {
+        // луч касается круга
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayEntryDistance(0, 1, 1, 0, mob), 0);
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayEntryDistance(4, -3, 0, 1, mob), 0);
+        // моб позади начала луча
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayEntryDistance(7, 0, 1, 0, mob), 0);
+        // луч начинается в точке выхода
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayEntryDistance(6, 0, 1, 0, mob), 0);
+    }
+
+    @Test
+    public void rayExitsMobCircle() {
+        assertEquals(6, collisionDetector.getRayExitDistance(0, 0, 1, 0, mob), EPSILON);
+        assertEquals(6, collisionDetector.getRayExitDistance(10, 0, -1, 0, mob), EPSILON);
+        assertEquals(1 + Math.sqrt(0.75), collisionDetector.getRayExitDistance(4, 0.5, 1, 0, mob), EPSILON);
+        assertEquals(3 * Math.sqrt(2) + 1,
+                collisionDetector.getRayExitDistance(2, -3, DIAGONAL, DIAGONAL, mob), EPSILON);
+    }
+
+    @Test
+    public void rayStartingInsideMobExitsAhead() {
+        assertEquals(0.5, collisionDetector.getRayExitDistance(5.5, 0, 1, 0, mob), EPSILON);
+        assertEquals(1.5, collisionDetector.getRayExitDistance(5.5, 0, -1, 0, mob), EPSILON);
+        assertEquals(1, collisionDetector.getRayExitDistance(5, 0, 0, 1, mob), EPSILON);
+    }
+
+    @Test
+    public void rayMissingMobHasNoExit() {
+        // луч касается круга
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayExitDistance(0, 1, 1, 0, mob), 0);
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayExitDistance(4, -3, 0, 1, mob), 0);
+        // моб позади начала луча
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayExitDistance(7, 0, 1, 0, mob), 0);
+        // луч начинается в точке выхода
+        assertEquals(Double.POSITIVE_INFINITY, collisionDetector.getRayExitDistance(6, 0, 1, 0, mob), 0);
+    }
+}
@@ -0,0 +1,138 @@
+package net.ildar.dungeon;
+
+import net.ildar.dungeon.config.TestConfiguration;
+import net.ildar.dungeon.map.ChunkedMapFile;
+import net.ildar.dungeon.map.ChunkedStaticObjectIndex;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.InmovableMapObject;
+import net.ildar.dungeon.map.MapFileStorage;
+import net.ildar.dungeon.map.MapGenerator;
+import net.ildar.dungeon.map.Mob;
+import net.ildar.dungeon.map.MovableMapObject;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.Wall;
+import net.ildar.dungeon.provider.MapProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Попадание выстрела на картах с заданным расположением стен и мобов.
+ * <p>
+ * Выстрелы делаются вдоль оси x на карте 16x16, дальность выстрела {@link #MAX_DISTANCE}. Карта, хранящаяся
+ * по фрагментам, открывается без заблаговременной загрузки, её фрагменты загружает сам выстрел.
+ */
+public class HitScannerTest {
+    private static final double MAP_SIZE = 16;
+    private static final double MAX_DISTANCE = 12;
+    private static final double EPSILON = 1E-12;
+    private static final int CHUNK_SIZE = 4;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final TestConfiguration configuration = new TestConfiguration();
+    private final CollisionDetector collisionDetector = new CollisionDetector();
+    private final HitScanner hitScanner = new HitScanner(
+            new MapProvider(configuration, new MapGenerator(configuration, collisionDetector), new MapFileStorage()),
+            configuration, new Trigonometry(configuration), collisionDetector);
+
+    @Test
+    public void wallInFrontOfMobIsHit() {
+        Wall wall = new Wall(new Position(5, 8), 0.02, 1);
+        Mob mob = new Mob(new Position(8, 8.5), 0.4, 1, Mob.State.ALIVE);
+        Hit hit = scan(createMap(wall, mob), 2, 8.5, 1).orElseThrow();
+        assertSame(wall, hit.getMapObject());
+        assertEquals(3, hit.getDistance(), EPSILON);
+    }
+
+    @Test
+    public void mobInFrontOfWallIsHit() {
+        Wall wall = new Wall(new Position(8, 8), 1, 1);
+        Mob mob = new Mob(new Position(4, 8.5), 0.4, 1, Mob.State.ALIVE);
+        Hit hit = scan(createMap(wall, mob), 2, 8.5, 1).orElseThrow();
+        assertSame(mob, hit.getMapObject());
+        assertEquals(1.6, hit.getDistance(), EPSILON);
+    }
+
+    @Test
+    public void mobCenteredInNeighbourCellIsHit() {
+        // центр моба в соседней клетке с меньшей координатой y, край моба пересекает клетки луча
+        Mob mob = new Mob(new Position(6.5, 8.9), 0.45, 1, Mob.State.ALIVE);
+        Hit hit = scan(createMap(mob), 2, 9.2, 1).orElseThrow();
+        assertSame(mob, hit.getMapObject());
+        assertEquals(4.5 - Math.sqrt(0.45 * 0.45 - 0.3 * 0.3), hit.getDistance(), EPSILON);
+    }
+
+    @Test
+    public void shotFromInsideMobHitsItAtZero() {
+        Wall wall = new Wall(new Position(8, 8), 1, 1);
+        Mob mob = new Mob(new Position(2.1, 8.5), 0.4, 1, Mob.State.ALIVE);
+        Hit hit = scan(createMap(wall, mob), 2, 8.5, 1).orElseThrow();
+        assertSame(mob, hit.getMapObject());
+        assertEquals(0, hit.getDistance(), 0);
+    }
+
+    @Test
+    public void mobBehindShotIsNotHit() {
+        Wall wall = new Wall(new Position(8, 8), 1, 1);
+        Mob mob = new Mob(new Position(1, 8.5), 0.4, 1, Mob.State.ALIVE);
+        Hit hit = scan(createMap(wall, mob), 2, 8.5, 1).orElseThrow();
+        assertSame(wall, hit.getMapObject());
+        assertEquals(6, hit.getDistance(), EPSILON);
+    }
+
+    @Test
+    public void tangentShotMissesMob() {
+        Mob mob = new Mob(new Position(6, 9), 0.5, 1, Mob.State.ALIVE);
+        assertFalse(scan(createMap(mob), 2, 8.5, 1).isPresent());
+    }
+
+    @Test
+    public void shotDoesNotHitBeyondMaxDistance() {
+        Wall wall = new Wall(new Position(2 + MAX_DISTANCE + 0.5, 8), 1, 1);
+        DungeonMap dungeonMap = createMap(wall);
+        assertFalse(scan(dungeonMap, 2, 8.5, 1).isPresent());
+        assertTrue(scan(dungeonMap, 15, 8.5, -1).isPresent());
+    }
+
+    @Test
+    public void wallInNotLoadedChunkIsHit() throws IOException {
+        Wall wall = new Wall(new Position(10, 8), 1, 1);
+        Path file = temporaryFolder.newFile().toPath();
+        ChunkedMapFile.write(createMap(wall), file, CHUNK_SIZE);
+        try (ChunkedStaticObjectIndex index = new ChunkedStaticObjectIndex(ChunkedMapFile.open(file), 0, 0)) {
+            Hit hit = scan(new DungeonMap(MAP_SIZE, MAP_SIZE, index), 2, 8.5, 1).orElseThrow();
+            assertEquals(wall, hit.getMapObject());
+            assertEquals(8, hit.getDistance(), EPSILON);
+        }
+    }
+
+    private Optional<Hit> scan(DungeonMap dungeonMap, double x, double y, double directionX) {
+        return hitScanner.scan(dungeonMap, x, y, directionX, 0, MAX_DISTANCE);
+    }
+
+    private static DungeonMap createMap(InmovableMapObject wall, MovableMapObject mob) {
+        return new DungeonMap(MAP_SIZE, MAP_SIZE, new HashSet<>(Arrays.asList(wall)),
+                new HashSet<>(Arrays.asList(mob)));
+    }
+
+    private static DungeonMap createMap(InmovableMapObject wall) {
+        return new DungeonMap(MAP_SIZE, MAP_SIZE, new HashSet<>(Arrays.asList(wall)), new HashSet<>());
+    }
+
+    private static DungeonMap createMap(MovableMapObject mob) {
+        return new DungeonMap(MAP_SIZE, MAP_SIZE, new HashSet<>(), new HashSet<>(Arrays.asList(mob)));
+    }
+}
@@ -0,0 +1,60 @@
+package net.ildar.dungeon;
+
+import net.ildar.dungeon.config.TestConfiguration;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.Gamer;
+import net.ildar.dungeon.map.MapFileStorage;
+import net.ildar.dungeon.map.MapGenerator;
+import net.ildar.dungeon.map.Mob;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.provider.MapProvider;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Перемещение мобов.
+ */
+public class MobMoverTest {
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int MEASURED_TICKS = 2_000;
+
+    /**
+     * Допустимый объём памяти, выделяемой за тик. Тик с 40 мобами, создающий {@link Position} или вспомогательный
+     * объект на каждую проверку столкновения, выделяет килобайты.
+     */
+    private static final long MAX_ALLOCATED_BYTES_PER_TICK = 64;
+
+    @Test
+    public void tickDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        TestConfiguration configuration = new TestConfiguration().withMobNumber(40);
+        CollisionDetector collisionDetector = new CollisionDetector();
+        MapProvider mapProvider = new MapProvider(configuration,
+                new MapGenerator(configuration, collisionDetector), new MapFileStorage());
+        DungeonMap dungeonMap = mapProvider.getDungeonMap();
+        Position gamerPosition = collisionDetector.findRandomEmptySpot(dungeonMap, configuration.getMobSize());
+        Gamer gamer = new Gamer(gamerPosition, configuration.getMobSize(), configuration.getMobHeight(),
+                Mob.State.ALIVE, 0);
+        MobMover mobMover = new MobMover(gamer, mapProvider, collisionDetector, configuration);
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            mobMover.update();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            mobMover.update();
+        }
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertTrue("allocated " + allocatedBytes + " bytes in " + MEASURED_TICKS + " ticks",
+                allocatedBytes < MAX_ALLOCATED_BYTES_PER_TICK * MEASURED_TICKS);
+    }
+}
@@ -0,0 +1,62 @@
+package net.ildar.dungeon;
+
+import net.ildar.dungeon.config.TestConfiguration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Точность табличных тригонометрических функций.
+ * <p>
+ * При 16 значениях таблицы на градус погрешность линейной интерполяции синуса не превышает h²/8 ≈ 1.5E-7,
+ * где h - шаг таблицы в радианах. Проверяется погрешность {@link #TOLERANCE}.
+ */
+public class TrigonometryTest {
+    private static final double TOLERANCE = 1E-6;
+
+    /**
+     * Углы на границах таблицы и нормализации: нули, прямые углы, углы рядом с 360 и отрицательные углы.
+     */
+    private static final double[] SPECIAL_ANGLES = {
+            0, -0.0, 90, 180, 270, 359.999, 360, 720, -720, -90, -359.999, -360,
+            Math.nextDown(360.0), Math.nextUp(-360.0), -Double.MIN_VALUE, Double.MIN_VALUE, -1E-14, 1E-14,
+            Math.nextDown(720.0), Math.nextUp(-720.0)
+    };
+
+    private final Trigonometry trigonometry = new Trigonometry(new TestConfiguration());
+
+    @Test
+    public void sweepMatchesMath() {
+        for (int i = -72_000; i <= 72_000; i++) {
+            assertMatchesMath(i / 100.0);
+        }
+    }
+
+    @Test
+    public void specialAnglesMatchMath() {
+        for (double angle : SPECIAL_ANGLES) {
+            assertMatchesMath(angle);
+        }
+    }
+
+    @Test
+    public void directionIsUnitVectorClockwiseFromNorth() {
+        assertEquals(0, trigonometry.getDirectionX(0), TOLERANCE);
+        assertEquals(-1, trigonometry.getDirectionY(0), TOLERANCE);
+        assertEquals(1, trigonometry.getDirectionX(90), TOLERANCE);
+        assertEquals(0, trigonometry.getDirectionY(90), TOLERANCE);
+        assertEquals(0, trigonometry.getDirectionX(180), TOLERANCE);
+        assertEquals(1, trigonometry.getDirectionY(180), TOLERANCE);
+        assertEquals(-1, trigonometry.getDirectionX(-90), TOLERANCE);
+        assertEquals(0, trigonometry.getDirectionY(-90), TOLERANCE);
+    }
+
+    private void assertMatchesMath(double degrees) {
+        double radians = Math.toRadians(degrees);
+        String message = "angle " + degrees;
+        assertEquals(message, Math.sin(radians), trigonometry.sin(degrees), TOLERANCE);
+        assertEquals(message, Math.cos(radians), trigonometry.cos(degrees), TOLERANCE);
+        assertEquals(message, Math.sin(radians), trigonometry.getDirectionX(degrees), TOLERANCE);
+        assertEquals(message, -Math.cos(radians), trigonometry.getDirectionY(degrees), TOLERANCE);
+    }
+}
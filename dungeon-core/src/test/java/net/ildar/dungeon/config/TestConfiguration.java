@@ -0,0 +1,160 @@
+package net.ildar.dungeon.config;
+
+/**
+ * Конфигурация для тестов.
+ * <p>
+ * Размер и наполнение генерируемой карты, начальное значение генератора, размер мобов, шаг трассировки, количество
+ * оттенков затенения и режимы отрисовки задаются тестом, остальные параметры совпадают с
+ * {@link Configuration800x600}.
+ * По умолчанию генерация карты выполняется в одном потоке.
+ */
+public class TestConfiguration extends Configuration800x600 {
+    private double mapSize = 32;
+    private double staticMapObjectsPercentage = 0.2;
+    private int mobNumber = 20;
+    private long seed = 1;
+    private double mobSize = super.getMobSize();
+    private boolean wallSizeRandomizing = super.isGeneratorWallSizeRandomizing();
+    private int regionRows = super.getGeneratorRegionRows();
+    private boolean generatorParallelismEnabled = false;
+    private double tracingStep = 0.06;
+    private int shadingLevels = super.getShadingLevels();
+    private int tracingThreadCount = super.getTracingThreadCount();
+    private boolean softwareRenderingEnabled = super.isSoftwareRenderingEnabled();
+    private boolean spriteProjectionEnabled = super.isSpriteProjectionEnabled();
+
+    public TestConfiguration withMapSize(double mapSize) {
+        this.mapSize = mapSize;
+        return this;
+    }
+
+    public TestConfiguration withStaticMapObjectsPercentage(double staticMapObjectsPercentage) {
+        this.staticMapObjectsPercentage = staticMapObjectsPercentage;
+        return this;
+    }
+
+    public TestConfiguration withMobNumber(int mobNumber) {
+        this.mobNumber = mobNumber;
+        return this;
+    }
+
+    public TestConfiguration withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public TestConfiguration withMobSize(double mobSize) {
+        this.mobSize = mobSize;
+        return this;
+    }
+
+    public TestConfiguration withWallSizeRandomizing(boolean wallSizeRandomizing) {
+        this.wallSizeRandomizing = wallSizeRandomizing;
+        return this;
+    }
+
+    public TestConfiguration withRegionRows(int regionRows) {
+        this.regionRows = regionRows;
+        return this;
+    }
+
+    public TestConfiguration withGeneratorParallelismEnabled(boolean generatorParallelismEnabled) {
+        this.generatorParallelismEnabled = generatorParallelismEnabled;
+        return this;
+    }
+
+    public TestConfiguration withTracingStep(double tracingStep) {
+        this.tracingStep = tracingStep;
+        return this;
+    }
+
+    public TestConfiguration withShadingLevels(int shadingLevels) {
+        this.shadingLevels = shadingLevels;
+        return this;
+    }
+
+    public TestConfiguration withTracingThreadCount(int tracingThreadCount) {
+        this.tracingThreadCount = tracingThreadCount;
+        return this;
+    }
+
+    public TestConfiguration withSoftwareRenderingEnabled(boolean softwareRenderingEnabled) {
+        this.softwareRenderingEnabled = softwareRenderingEnabled;
+        return this;
+    }
+
+    public TestConfiguration withSpriteProjectionEnabled(boolean spriteProjectionEnabled) {
+        this.spriteProjectionEnabled = spriteProjectionEnabled;
+        return this;
+    }
+
+    @Override
+    public double getGeneratorMapWidth() {
+        return mapSize;
+    }
+
+    @Override
+    public double getGeneratorMapHeight() {
+        return mapSize;
+    }
+
+    @Override
+    public double getGeneratorStaticMapObjectsPercentage() {
+        return staticMapObjectsPercentage;
+    }
+
+    @Override
+    public int getGeneratorMobNumber() {
+        return mobNumber;
+    }
+
+    @Override
+    public long getGeneratorSeed() {
+        return seed;
+    }
+
+    @Override
+    public double getMobSize() {
+        return mobSize;
+    }
+
+    @Override
+    public boolean isGeneratorWallSizeRandomizing() {
+        return wallSizeRandomizing;
+    }
+
+    @Override
+    public int getGeneratorRegionRows() {
+        return regionRows;
+    }
+
+    @Override
+    public boolean isGeneratorParallelismEnabled() {
+        return generatorParallelismEnabled;
+    }
+
+    @Override
+    public double getTracingStep() {
+        return tracingStep;
+    }
+
+    @Override
+    public int getShadingLevels() {
+        return shadingLevels;
+    }
+
+    @Override
+    public int getTracingThreadCount() {
+        return tracingThreadCount;
+    }
+
+    @Override
+    public boolean isSoftwareRenderingEnabled() {
+        return softwareRenderingEnabled;
+    }
+
+    @Override
+    public boolean isSpriteProjectionEnabled() {
+        return spriteProjectionEnabled;
+    }
+}
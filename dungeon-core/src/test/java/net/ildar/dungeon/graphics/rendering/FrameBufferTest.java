@@ -0,0 +1,278 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Растеризация полос в программный буфер кадра.
+ * <p>
+ * Буфер размером {@link #WIDTH}x{@link #HEIGHT} заполняется фоном {@link #BACKGROUND_RGB}, пиксели сравниваются
+ * с ожидаемыми или с отрисовкой тех же полос вызовами {@link Graphics}.
+ */
+public class FrameBufferTest {
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+    private static final int BACKGROUND_RGB = 0x204060;
+    private static final int FILL_RGB = 0xA0C0E0;
+
+    /**
+     * Допустимое отличие каналов цвета от отрисовки вызовами {@link Graphics}. Java2D округляет цвет при смешивании
+     * полупрозрачных пикселей, а при уменьшении текстуры может выбрать соседний пиксель текстуры: цвет градиентных
+     * текстур теста меняется на 4 между соседними пикселями.
+     */
+    private static final int MAX_CHANNEL_DIFFERENCE = 4;
+
+    @Test
+    public void fillColumnFillsRectangle() {
+        FrameBuffer frameBuffer = createFrameBuffer();
+        frameBuffer.fillColumn(5, 3, 10, 20, FILL_RGB);
+        assertArrayEquals(expectedFill(5, 3, 10, 20), getPixels(frameBuffer));
+    }
+
+    @Test
+    public void fillColumnIsClippedToBuffer() {
+        int[][] columns = {
+                {-2, 5, -4, 7},
+                {WIDTH - 3, 7, HEIGHT - 5, HEIGHT + 10},
+                {-10, WIDTH + 20, -10, HEIGHT + 10}};
+        for (int[] column : columns) {
+            FrameBuffer frameBuffer = createFrameBuffer();
+            frameBuffer.fillColumn(column[0], column[1], column[2], column[3], FILL_RGB);
+            assertArrayEquals(expectedFill(column[0], column[1], column[2], column[3]), getPixels(frameBuffer));
+        }
+    }
+
+    @Test
+    public void fillColumnOutsideBufferDrawsNothing() {
+        int[][] columns = {
+                {-5, 5, 0, HEIGHT},
+                {WIDTH, 5, 0, HEIGHT},
+                {0, WIDTH, -10, 0},
+                {0, WIDTH, HEIGHT, HEIGHT + 10}};
+        for (int[] column : columns) {
+            FrameBuffer frameBuffer = createFrameBuffer();
+            frameBuffer.fillColumn(column[0], column[1], column[2], column[3], FILL_RGB);
+            assertArrayEquals(expectedFill(0, 0, 0, 0), getPixels(frameBuffer));
+        }
+    }
+
+    @Test
+    public void fillColumnWithEmptySpanDrawsNothing() {
+        int[][] columns = {
+                {5, 0, 0, HEIGHT},
+                {5, -3, 0, HEIGHT},
+                {5, 3, 10, 10},
+                {5, 3, 20, 10}};
+        for (int[] column : columns) {
+            FrameBuffer frameBuffer = createFrameBuffer();
+            frameBuffer.fillColumn(column[0], column[1], column[2], column[3], FILL_RGB);
+            assertArrayEquals(expectedFill(0, 0, 0, 0), getPixels(frameBuffer));
+        }
+    }
+
+    @Test
+    public void opaqueSpritePixelsReplaceBuffer() {
+        Sprite.Level level = createLevel(new int[][]{{0xFF112233, 0xFF445566}});
+        FrameBuffer frameBuffer = createFrameBuffer();
+        frameBuffer.drawSpriteColumn(level, 0, 1, 2, 3, 2, 4, 8);
+        int[] pixels = getPixels(frameBuffer);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int expected = BACKGROUND_RGB;
+                if (x >= 3 && x < 5 && y >= 4 && y < 8) {
+                    expected = y < 6 ? 0x112233 : 0x445566;
+                }
+                assertEquals("pixel " + x + ", " + y, expected, pixels[y * WIDTH + x]);
+            }
+        }
+    }
+
+    @Test
+    public void transparentSpritePixelsAreSkipped() {
+        Sprite.Level level = createLevel(new int[][]{{0x00FFFFFF, 0x00000000}});
+        FrameBuffer frameBuffer = createFrameBuffer();
+        frameBuffer.drawSpriteColumn(level, 0, 1, 2, 3, 2, 4, 8);
+        assertArrayEquals(expectedFill(0, 0, 0, 0), getPixels(frameBuffer));
+    }
+
+    @Test
+    public void translucentSpritePixelsAreBlended() {
+        Sprite.Level level = createLevel(new int[][]{{0x80FFFFFF, 0x40000000}});
+        FrameBuffer frameBuffer = createFrameBuffer();
+        frameBuffer.drawSpriteColumn(level, 0, 1, 2, 3, 1, 4, 8);
+        int[] pixels = getPixels(frameBuffer);
+        assertEquals(blend(BACKGROUND_RGB, 0xFFFFFF, 0x80), pixels[4 * WIDTH + 3]);
+        assertEquals(blend(BACKGROUND_RGB, 0xFFFFFF, 0x80), pixels[5 * WIDTH + 3]);
+        assertEquals(blend(BACKGROUND_RGB, 0x000000, 0x40), pixels[6 * WIDTH + 3]);
+        assertEquals(blend(BACKGROUND_RGB, 0x000000, 0x40), pixels[7 * WIDTH + 3]);
+        assertEquals(BACKGROUND_RGB, pixels[8 * WIDTH + 3]);
+    }
+
+    @Test
+    public void spriteColumnIsClippedToBuffer() {
+        Sprite.Level level = createLevel(createGradient(64, 64, true));
+        int[][] columns = {
+                {-3, 6, -5, 10},
+                {WIDTH - 2, 6, HEIGHT - 4, HEIGHT + 6},
+                {-10, WIDTH + 20, -10, HEIGHT + 10}};
+        for (int[] column : columns) {
+            // часть текстуры рисуется без масштабирования: пиксель полосы соответствует пикселю текстуры
+            int spriteWidth = column[1];
+            int spriteHeight = column[3] - column[2];
+            FrameBuffer frameBuffer = createFrameBuffer();
+            frameBuffer.drawSpriteColumn(level, 0, spriteWidth, spriteHeight,
+                    column[0], column[1], column[2], column[3]);
+            assertWithinGraphicsDifference(level, 0, spriteWidth, spriteHeight, column, frameBuffer);
+        }
+    }
+
+    @Test
+    public void spriteColumnWithEmptySpanDrawsNothing() {
+        Sprite.Level level = createLevel(createGradient(64, 64, true));
+        int[][] spans = {
+                // левый и правый край текстуры, высота текстуры, верхняя и нижняя граница отрисовки
+                {2, 2, 8, 0, HEIGHT},
+                {4, 2, 8, 0, HEIGHT},
+                {0, 8, 0, 0, HEIGHT},
+                {0, 8, -1, 0, HEIGHT},
+                {0, 8, 8, 10, 10},
+                {0, 8, 8, 20, 10}};
+        for (int[] span : spans) {
+            FrameBuffer frameBuffer = createFrameBuffer();
+            frameBuffer.drawSpriteColumn(level, span[0], span[1], span[2], 0, WIDTH, span[3], span[4]);
+            assertArrayEquals(expectedFill(0, 0, 0, 0), getPixels(frameBuffer));
+        }
+    }
+
+    @Test
+    public void spriteColumnMatchesGraphicsWithinRounding() {
+        Sprite.Level level = createLevel(createGradient(64, 64, false));
+        int[][] columns = {
+                // левый край текстуры, правый край текстуры, высота текстуры, полоса и границы отрисовки
+                {0, 16, 16, 0, WIDTH, 0, HEIGHT},
+                {3, 4, 16, 10, 7, 2, 27},
+                {5, 11, 12, 20, 12, 5, 17},
+                {0, 16, 8, 4, 3, 0, 30}};
+        for (int[] column : columns) {
+            FrameBuffer frameBuffer = createFrameBuffer();
+            frameBuffer.drawSpriteColumn(level, column[0], column[1], column[2],
+                    column[3], column[4], column[5], column[6]);
+            assertWithinGraphicsDifference(level, column[0], column[1], column[2],
+                    new int[]{column[3], column[4], column[5], column[6]}, frameBuffer);
+        }
+    }
+
+    /**
+     * Проверить, что пиксели буфера отличаются от отрисовки той же части текстуры вызовом {@link Graphics#drawImage}
+     * не больше чем на {@link #MAX_CHANNEL_DIFFERENCE} по каждому каналу.
+     *
+     * @param column левый край, ширина, верхняя и нижняя граница полосы
+     */
+    private static void assertWithinGraphicsDifference(Sprite.Level level,
+                                                       int spriteFromX, int spriteToX, int spriteHeight,
+                                                       int[] column, FrameBuffer frameBuffer) {
+        BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = expected.createGraphics();
+        try {
+            g.setColor(new Color(BACKGROUND_RGB));
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+            g.drawImage(level.getImage(), column[0], column[2], column[0] + column[1], column[3],
+                    spriteFromX, 0, spriteToX, spriteHeight, null);
+        } finally {
+            g.dispose();
+        }
+        int[] expectedPixels = expected.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+        int[] pixels = getPixels(frameBuffer);
+        for (int i = 0; i < pixels.length; i++) {
+            for (int shift = 0; shift < 24; shift += 8) {
+                int difference = Math.abs(((expectedPixels[i] >> shift) & 0xFF) - ((pixels[i] >> shift) & 0xFF));
+                assertTrue("pixel " + i % WIDTH + ", " + i / WIDTH + ": expected "
+                                + Integer.toHexString(expectedPixels[i] & 0xFFFFFF)
+                                + ", actual " + Integer.toHexString(pixels[i] & 0xFFFFFF),
+                        difference <= MAX_CHANNEL_DIFFERENCE);
+            }
+        }
+    }
+
+    /**
+     * Создать текстуру с плавно меняющимися цветом и прозрачностью.
+     *
+     * @param opaque непрозрачная ли текстура
+     * @return пиксели в формате ARGB по вертикальным полосам
+     */
+    private static int[][] createGradient(int width, int height, boolean opaque) {
+        int[][] columns = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int alpha = opaque ? 0xFF : x * 255 / (width - 1);
+                columns[x][y] = alpha << 24 | (x * 255 / width) << 16 | (y * 255 / height) << 8 | 0x80;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Получить исходный уровень детализации текстуры с указанными пикселями.
+     *
+     * @param columns пиксели в формате ARGB по вертикальным полосам
+     */
+    private static Sprite.Level createLevel(int[][] columns) {
+        BufferedImage image = new BufferedImage(columns.length, columns[0].length, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < columns.length; x++) {
+            for (int y = 0; y < columns[x].length; y++) {
+                image.setRGB(x, y, columns[x][y]);
+            }
+        }
+        return new Sprite(image).selectLevel(image.getHeight(), image.getHeight());
+    }
+
+    private static FrameBuffer createFrameBuffer() {
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        frameBuffer.fillColumn(0, WIDTH, 0, HEIGHT, BACKGROUND_RGB);
+        return frameBuffer;
+    }
+
+    /**
+     * Получить пиксели буфера в формате RGB построчно.
+     */
+    private static int[] getPixels(FrameBuffer frameBuffer) {
+        int[] pixels = frameBuffer.getImage().getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] &= 0xFFFFFF;
+        }
+        return pixels;
+    }
+
+    /**
+     * Получить пиксели буфера, заполненного фоном, после закрашивания прямоугольника с обрезкой по границам буфера.
+     */
+    private static int[] expectedFill(int x, int columnWidth, int fromY, int toY) {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int px = 0; px < WIDTH; px++) {
+                boolean filled = px >= x && px < x + columnWidth && y >= fromY && y < toY;
+                pixels[y * WIDTH + px] = filled ? FILL_RGB : BACKGROUND_RGB;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Смешать цвет фона с цветом пикселя текстуры с указанной прозрачностью, отбрасывая дробную часть.
+     */
+    private static int blend(int background, int rgb, int alpha) {
+        int result = 0;
+        for (int shift = 0; shift < 24; shift += 8) {
+            int channel = (int) (((background >> shift) & 0xFF) * (1 - alpha / 255.)
+                    + ((rgb >> shift) & 0xFF) * (alpha / 255.));
+            result |= channel << shift;
+        }
+        return result;
+    }
+}
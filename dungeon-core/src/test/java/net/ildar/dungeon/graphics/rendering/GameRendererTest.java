@@ -0,0 +1,291 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.Trigonometry;
+import net.ildar.dungeon.config.TestConfiguration;
+import net.ildar.dungeon.graphics.Camera;
+import net.ildar.dungeon.graphics.tracing.GridRayTracer;
+import net.ildar.dungeon.graphics.tracing.RayTracer;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.Gamer;
+import net.ildar.dungeon.map.InmovableMapObject;
+import net.ildar.dungeon.map.MapFileStorage;
+import net.ildar.dungeon.map.MapGenerator;
+import net.ildar.dungeon.map.Mob;
+import net.ildar.dungeon.map.MovableMapObject;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.Wall;
+import net.ildar.dungeon.profiling.FrameProfiler;
+import net.ildar.dungeon.provider.MapProvider;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Отрисовка кадров без экрана на карте с заданным расположением стен и мобов.
+ * <p>
+ * Кадр рисуется в изображение размером {@link #WIDTH}x{@link #HEIGHT}, пиксели кадров сравниваются точно.
+ */
+public class GameRendererTest {
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 300;
+    private static final double MAP_SIZE = 16;
+    private static final int TRACING_THREAD_COUNT = 4;
+    private static final Position[] VIEW_POSITIONS = {
+            new Position(8, 8), new Position(5.1, 8.4), new Position(3, 3), new Position(12.5, 12.5)};
+    private static final double VIEW_ANGLE_STEP = 13;
+
+    /**
+     * Текстуры мобов загружаются один раз для всех кадров.
+     */
+    private static final SpriteCache SPRITE_CACHE = new SpriteCache(
+            new ImageCache(new ImageResourceLoader(), new TestConfiguration()), new TestConfiguration());
+
+    /**
+     * Допустимое отличие каналов цвета пикселя при программной растеризации от отрисовки вызовами {@link Graphics}.
+     */
+    private static final int MAX_CHANNEL_DIFFERENCE = 4;
+
+    /**
+     * Допустимая доля пикселей кадра, отличающихся сильнее {@link #MAX_CHANNEL_DIFFERENCE}: Java2D выбирает пиксели
+     * масштабируемой текстуры по центрам пикселей экрана, а программный буфер - по их левым и верхним краям.
+     */
+    private static final double MAX_DIFFERENT_PIXEL_SHARE = 0.05;
+
+    private static final int ALIVE_MOB_RGB = 0xFFFF00;
+    private static final int KILLED_MOB_RGB = 0x00FFFF;
+
+    /**
+     * Непрозрачные одноцветные текстуры мобов: цвет пикселя кадра показывает, какой моб нарисован последним.
+     */
+    private static final SpriteCache SOLID_SPRITE_CACHE = new SpriteCache(new ImageCache(new ImageResourceLoader() {
+        @Override
+        public Optional<BufferedImage> loadImageResource(String path) {
+            BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+            int argb = 0xFF000000 | (path.contains("killed") ? KILLED_MOB_RGB : ALIVE_MOB_RGB);
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    image.setRGB(x, y, argb);
+                }
+            }
+            return Optional.of(image);
+        }
+    }, new TestConfiguration()), new TestConfiguration());
+
+    @Test
+    public void frameDoesNotDependOnTracingThreadCount() {
+        DungeonMap dungeonMap = createMap();
+        for (boolean softwareRendering : new boolean[]{true, false}) {
+            for (boolean spriteProjection : new boolean[]{true, false}) {
+                for (Position position : VIEW_POSITIONS) {
+                    for (double angle = 0; angle < 360; angle += VIEW_ANGLE_STEP) {
+                        TestConfiguration singleThreaded = new TestConfiguration()
+                                .withSoftwareRenderingEnabled(softwareRendering)
+                                .withSpriteProjectionEnabled(spriteProjection)
+                                .withTracingThreadCount(1);
+                        TestConfiguration multiThreaded = new TestConfiguration()
+                                .withSoftwareRenderingEnabled(softwareRendering)
+                                .withSpriteProjectionEnabled(spriteProjection)
+                                .withTracingThreadCount(TRACING_THREAD_COUNT);
+                        assertArrayEquals("software " + softwareRendering + ", projection " + spriteProjection
+                                        + ", " + position + ", angle " + angle,
+                                render(singleThreaded, dungeonMap, position, angle),
+                                render(multiThreaded, dungeonMap, position, angle));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void mobBehindWallIsOccluded() {
+        // игрок смотрит вдоль оси x на стену, моб за стеной выступает из-за её края
+        Position position = new Position(3, 8.5);
+        Wall wall = new Wall(new Position(6, 8), 1, 1);
+        Mob mob = new Mob(new Position(8, 9.3), 0.3, 0.5, Mob.State.ALIVE);
+        for (boolean spriteProjection : new boolean[]{true, false}) {
+            TestConfiguration configuration = new TestConfiguration().withSpriteProjectionEnabled(spriteProjection);
+            int[] empty = render(configuration, SOLID_SPRITE_CACHE, createMap(Set.of(), Set.of()), position, 90);
+            int[] wallOnly = render(configuration, SOLID_SPRITE_CACHE, createMap(Set.of(wall), Set.of()), position, 90);
+            int[] wallAndMob = render(configuration, SOLID_SPRITE_CACHE, createMap(Set.of(wall), Set.of(mob)),
+                    position, 90);
+            int visibleMobPixels = 0;
+            for (int i = 0; i < wallAndMob.length; i++) {
+                if (wallOnly[i] != empty[i]) {
+                    assertEquals("projection " + spriteProjection + ", wall pixel " + i, wallOnly[i], wallAndMob[i]);
+                } else if (wallAndMob[i] != wallOnly[i]) {
+                    assertEquals("projection " + spriteProjection + ", pixel " + i,
+                            ALIVE_MOB_RGB, wallAndMob[i] & 0xFFFFFF);
+                    visibleMobPixels++;
+                }
+            }
+            assertTrue("projection " + spriteProjection + ": mob is hidden entirely", visibleMobPixels > 0);
+        }
+    }
+
+    @Test
+    public void overlappingSpritesAreDrawnFarToNear() {
+        // ближний моб закрывает середину дальнего, дальний моб крупнее и виден по краям ближнего
+        Position position = new Position(3, 8.5);
+        Mob near = new Mob(new Position(6, 8.5), 0.3, 0.5, Mob.State.ALIVE);
+        Mob far = new Mob(new Position(8, 8.6), 0.6, 0.5, Mob.State.KILLED);
+        DungeonMap dungeonMap = createMap(Set.of(), Set.of(near, far));
+        for (boolean softwareRendering : new boolean[]{true, false}) {
+            for (boolean spriteProjection : new boolean[]{true, false}) {
+                String message = "software " + softwareRendering + ", projection " + spriteProjection;
+                int[] pixels = render(new TestConfiguration()
+                                .withSoftwareRenderingEnabled(softwareRendering)
+                                .withSpriteProjectionEnabled(spriteProjection),
+                        SOLID_SPRITE_CACHE, dungeonMap, position, 90);
+                // середина кадра по горизонтали, ниже прицела: дальний моб занимает строки от HEIGHT / 2
+                // до HEIGHT / 2 * (1 + 1 / 5), ближний - до HEIGHT / 2 * (1 + 1 / 3)
+                int overlapY = HEIGHT / 2 + HEIGHT / 15;
+                assertEquals(message, ALIVE_MOB_RGB, pixels[overlapY * WIDTH + WIDTH / 2] & 0xFFFFFF);
+                assertTrue(message + ": far mob is hidden entirely",
+                        Arrays.stream(pixels).anyMatch(pixel -> (pixel & 0xFFFFFF) == KILLED_MOB_RGB));
+            }
+        }
+    }
+
+    @Test
+    public void spriteProjectionMatchesPerColumnIntercepts() {
+        DungeonMap dungeonMap = createMap();
+        for (boolean softwareRendering : new boolean[]{true, false}) {
+            for (Position position : VIEW_POSITIONS) {
+                for (double angle = 0; angle < 360; angle += VIEW_ANGLE_STEP) {
+                    TestConfiguration projection = new TestConfiguration()
+                            .withSoftwareRenderingEnabled(softwareRendering)
+                            .withSpriteProjectionEnabled(true);
+                    TestConfiguration intercepts = new TestConfiguration()
+                            .withSoftwareRenderingEnabled(softwareRendering)
+                            .withSpriteProjectionEnabled(false);
+                    assertArrayEquals("software " + softwareRendering + ", " + position + ", angle " + angle,
+                            render(projection, dungeonMap, position, angle),
+                            render(intercepts, dungeonMap, position, angle));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void softwareFrameMatchesGraphicsFrame() {
+        DungeonMap dungeonMap = createMap();
+        DungeonMap wallsOnly = createMap(
+                new HashSet<>(dungeonMap.getStaticObjectSet()), Set.of());
+        TestConfiguration software = new TestConfiguration().withSoftwareRenderingEnabled(true);
+        TestConfiguration graphics = new TestConfiguration().withSoftwareRenderingEnabled(false);
+        for (Position position : VIEW_POSITIONS) {
+            for (double angle = 0; angle < 360; angle += VIEW_ANGLE_STEP) {
+                String view = position + ", angle " + angle;
+                // стены, пол и небо рисуются одинаково
+                int[] softwareWalls = render(software, wallsOnly, position, angle);
+                assertArrayEquals(view, softwareWalls, render(graphics, wallsOnly, position, angle));
+
+                // текстуры мобов отличаются округлением при смешивании и выбором пикселей текстуры на краях
+                int[] softwarePixels = render(software, dungeonMap, position, angle);
+                int[] graphicsPixels = render(graphics, dungeonMap, position, angle);
+                int differentPixels = 0;
+                for (int i = 0; i < softwarePixels.length; i++) {
+                    if (getMaxChannelDifference(softwarePixels[i], graphicsPixels[i]) <= MAX_CHANNEL_DIFFERENCE) {
+                        continue;
+                    }
+                    assertTrue(view + ": pixel " + i % WIDTH + ", " + i / WIDTH + " is not a sprite pixel",
+                            softwarePixels[i] != softwareWalls[i] || graphicsPixels[i] != softwareWalls[i]);
+                    differentPixels++;
+                }
+                assertTrue(view + ": " + differentPixels + " pixels differ",
+                        differentPixels <= softwarePixels.length * MAX_DIFFERENT_PIXEL_SHARE);
+            }
+        }
+    }
+
+    private static int getMaxChannelDifference(int rgb1, int rgb2) {
+        int difference = 0;
+        for (int shift = 0; shift < 24; shift += 8) {
+            difference = Math.max(difference, Math.abs(((rgb1 >> shift) & 0xFF) - ((rgb2 >> shift) & 0xFF)));
+        }
+        return difference;
+    }
+
+    /**
+     * Создать карту 16x16, закрытую стенами по краям, с указанными стенами и мобами внутри.
+     */
+    private static DungeonMap createMap(Set<InmovableMapObject> innerWalls, Set<MovableMapObject> mobs) {
+        Set<InmovableMapObject> walls = new HashSet<>(innerWalls);
+        walls.add(new Wall(new Position(0, 0), MAP_SIZE, 1));
+        walls.add(new Wall(new Position(0, MAP_SIZE - 1), MAP_SIZE, 1));
+        walls.add(new Wall(new Position(0, 1), 1, MAP_SIZE - 2));
+        walls.add(new Wall(new Position(MAP_SIZE - 1, 1), 1, MAP_SIZE - 2));
+        return new DungeonMap(MAP_SIZE, MAP_SIZE, walls, new HashSet<>(mobs));
+    }
+
+    /**
+     * Создать карту 16x16, закрытую стенами по краям, с двумя стенами и несколькими мобами внутри.
+     * Игрок в одной из точек обзора стоит внутри моба.
+     */
+    private static DungeonMap createMap() {
+        return createMap(
+                Set.of(new Wall(new Position(10, 6), 1, 1), new Wall(new Position(6, 11), 2, 1)),
+                Set.of(new Mob(new Position(8, 5), 0.3, 0.5, Mob.State.ALIVE),
+                        new Mob(new Position(8.3, 4.2), 0.3, 0.5, Mob.State.ALIVE),
+                        new Mob(new Position(5, 8.5), 0.3, 0.5, Mob.State.KILLED),
+                        new Mob(new Position(11.5, 9), 0.4, 0.5, Mob.State.ALIVE),
+                        new Mob(new Position(8, 12.5), 0.3, 0.5, Mob.State.ALIVE),
+                        new Mob(new Position(3.5, 3.5), 0.3, 0.5, Mob.State.ALIVE)));
+    }
+
+    /**
+     * Отрисовать кадр игроком, стоящим в указанной точке карты.
+     *
+     * @return пиксели кадра построчно
+     */
+    private static int[] render(TestConfiguration configuration, DungeonMap dungeonMap, Position position,
+                                double viewAngle) {
+        return render(configuration, SPRITE_CACHE, dungeonMap, position, viewAngle);
+    }
+
+    /**
+     * Отрисовать кадр с указанными текстурами мобов игроком, стоящим в указанной точке карты.
+     *
+     * @return пиксели кадра построчно
+     */
+    private static int[] render(TestConfiguration configuration, SpriteCache spriteCache, DungeonMap dungeonMap,
+                                Position position, double viewAngle) {
+        CollisionDetector collisionDetector = new CollisionDetector();
+        MapProvider mapProvider = new MapProvider(configuration,
+                new MapGenerator(configuration, collisionDetector) {
+                    @Override
+                    public DungeonMap generateMap() {
+                        return dungeonMap;
+                    }
+                }, new MapFileStorage());
+        Gamer gamer = new Gamer(position, configuration.getMobSize(), configuration.getMobHeight(),
+                Mob.State.ALIVE, viewAngle);
+        Camera camera = new Camera(gamer, configuration, mapProvider);
+        Trigonometry trigonometry = new Trigonometry(configuration);
+        RayTracer rayTracer = new RayTracer(mapProvider, configuration, collisionDetector,
+                new GridRayTracer(mapProvider, configuration, trigonometry, collisionDetector), trigonometry);
+        GameRenderer gameRenderer = new GameRenderer(camera, rayTracer, configuration,
+                spriteCache, trigonometry, new ShadingPalette(configuration), new FrameProfiler(configuration));
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setClip(0, 0, WIDTH, HEIGHT);
+            camera.beginFrame();
+            gameRenderer.render(g);
+        } finally {
+            g.dispose();
+            gameRenderer.close();
+        }
+        return image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+    }
+}
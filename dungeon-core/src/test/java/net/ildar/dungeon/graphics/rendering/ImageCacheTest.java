@@ -0,0 +1,73 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import net.ildar.dungeon.config.TestConfiguration;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Загрузка изображений кэшем из нескольких потоков.
+ * <p>
+ * Изображения не читаются из classpath: загрузчик создаёт их сразу и считает вызовы для каждого пути.
+ * Запросы одного изображения начинаются с разной задержкой до {@link #MAX_DELAY_NANOS}, чтобы часть из них
+ * приходилась на окончание его загрузки.
+ */
+public class ImageCacheTest {
+    private static final int THREAD_COUNT = 8;
+    private static final int IMAGE_COUNT = 3000;
+    private static final long MAX_DELAY_NANOS = 200_000;
+
+    private final Map<String, AtomicInteger> loadCounts = new ConcurrentHashMap<>();
+    private final ImageCache imageCache = new ImageCache(new ImageResourceLoader() {
+        @Override
+        public Optional<BufferedImage> loadImageResource(String path) {
+            loadCounts.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            return Optional.of(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB));
+        }
+    }, new TestConfiguration());
+
+    @Test
+    public void concurrentLoadsOfSameImageDecodeItOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            for (int i = 0; i < IMAGE_COUNT; i++) {
+                String path = "image_" + i;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Optional<BufferedImage>>> images = new ArrayList<>();
+                for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                    long delayNanos = thread * MAX_DELAY_NANOS / THREAD_COUNT;
+                    images.add(executor.submit(() -> {
+                        start.await();
+                        long deadline = System.nanoTime() + delayNanos;
+                        while (System.nanoTime() < deadline) {
+                            Thread.onSpinWait();
+                        }
+                        return imageCache.getImage(path);
+                    }));
+                }
+                start.countDown();
+                BufferedImage image = images.get(0).get().orElseThrow();
+                for (Future<Optional<BufferedImage>> otherImage : images) {
+                    assertSame(path, image, otherImage.get().orElseThrow());
+                }
+                assertEquals(path, 1, loadCounts.get(path).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(IMAGE_COUNT, imageCache.getLoadCount());
+    }
+}
@@ -0,0 +1,97 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Вытеснение значений и счётчики кэша с ограничением памяти.
+ * <p>
+ * Значения кэша - оценки их памяти в байтах, ограничение памяти {@link #MEMORY_BUDGET}.
+ */
+public class LruCacheTest {
+    private static final long MEMORY_BUDGET = 30;
+
+    private final LruCache<Long> cache = new LruCache<>(MEMORY_BUDGET, Long::longValue);
+
+    @Test
+    public void leastRecentlyUsedValueIsEvicted() {
+        cache.put("a", 10L);
+        cache.put("b", 10L);
+        cache.put("c", 10L);
+        cache.get("a");
+        cache.put("d", 10L);
+
+        assertNull(cache.get("b"));
+        assertEquals(Long.valueOf(10), cache.get("a"));
+        assertEquals(Long.valueOf(10), cache.get("c"));
+        assertEquals(Long.valueOf(10), cache.get("d"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void valuesAreEvictedDownToBudget() {
+        cache.put("a", 10L);
+        cache.put("b", 10L);
+        cache.put("c", 10L);
+        cache.put("d", 15L);
+
+        // вытесняются только два старших значения, после чего память укладывается в ограничение
+        assertEquals(2, cache.size());
+        assertEquals(25, cache.getBytes());
+        assertEquals(2, cache.getEvictionCount());
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void singleOversizeValueIsKept() {
+        cache.put("a", 10L);
+        cache.put("large", 100L);
+
+        assertEquals(1, cache.size());
+        assertEquals(100, cache.getBytes());
+        assertEquals(Long.valueOf(100), cache.get("large"));
+
+        cache.put("b", 10L);
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.getBytes());
+        assertNull(cache.get("large"));
+    }
+
+    @Test
+    public void replacedValueIsWeighedOnce() {
+        cache.put("a", 10L);
+        cache.put("a", 20L);
+
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.getBytes());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void hitsAndMissesAreCountedByGet() {
+        assertNull(cache.get("a"));
+        cache.put("a", 10L);
+        cache.get("a");
+        cache.get("a");
+        cache.peek("a");
+        cache.peek("b");
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void peekMarksAccess() {
+        cache.put("a", 10L);
+        cache.put("b", 10L);
+        cache.put("c", 10L);
+        cache.peek("a");
+        cache.put("d", 10L);
+
+        assertEquals(Long.valueOf(10), cache.peek("a"));
+        assertNull(cache.peek("b"));
+    }
+}
@@ -0,0 +1,35 @@
+package net.ildar.dungeon.graphics.rendering;
+
+import net.ildar.dungeon.config.Colors;
+import net.ildar.dungeon.config.TestConfiguration;
+import org.junit.Test;
+
+import java.awt.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Таблицы затенения базовых цветов.
+ */
+public class ShadingPaletteTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void singleLevelIsRejected() {
+        new ShadingPalette(new TestConfiguration().withShadingLevels(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroLevelsAreRejected() {
+        new ShadingPalette(new TestConfiguration().withShadingLevels(0));
+    }
+
+    @Test
+    public void twoLevelsAreSourceColorAndBlack() {
+        ShadingPalette.ShadingTable wallTable =
+                new ShadingPalette(new TestConfiguration().withShadingLevels(2)).getWallTable();
+        assertEquals(Colors.WALL_COLOR, wallTable.getColor(0));
+        assertEquals(Colors.WALL_COLOR.getRGB(), wallTable.getRgb(0.4));
+        assertEquals(Color.BLACK, wallTable.getColor(1));
+        assertEquals(Color.BLACK.getRGB(), wallTable.getRgb(0.6));
+    }
+}
@@ -0,0 +1,131 @@
+package net.ildar.dungeon.graphics.tracing;
+
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.Trigonometry;
+import net.ildar.dungeon.config.TestConfiguration;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.InmovableMapObject;
+import net.ildar.dungeon.map.MapFileStorage;
+import net.ildar.dungeon.map.MapGenerator;
+import net.ildar.dungeon.map.MapObject;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.provider.MapProvider;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Сравнение трассировки по клеткам сетки с пошаговой трассировкой на сгенерированных картах.
+ * <p>
+ * Пошаговый трассировщик проверяет только точки луча через {@link TestConfiguration#getTracingStep()}, поэтому
+ * найденное им расстояние до стены больше точного не более чем на шаг. Лучи, задевающие угол стены или край моба
+ * на отрезке короче шага, пошаговый трассировщик может пропустить - такие лучи не сравниваются. Не сравниваются
+ * и лучи, упирающиеся в стену на границе дальности обзора.
+ */
+public class GridRayTracerTest {
+    private static final double TRACING_STEP = 0.01;
+    private static final double EPSILON = 1E-9;
+
+    @Test
+    public void gridTracingMatchesStepTracing() {
+        int comparedRays = 0;
+        int skippedRays = 0;
+        for (long seed = 1; seed <= 3; seed++) {
+            TestConfiguration configuration = new TestConfiguration()
+                    .withSeed(seed)
+                    .withMobNumber(40)
+                    .withTracingStep(TRACING_STEP);
+            CollisionDetector collisionDetector = new CollisionDetector();
+            Trigonometry trigonometry = new Trigonometry(configuration);
+            MapProvider mapProvider = new MapProvider(configuration,
+                    new MapGenerator(configuration, collisionDetector), new MapFileStorage());
+            GridRayTracer gridRayTracer = new GridRayTracer(mapProvider, configuration, trigonometry, collisionDetector);
+            RayTracer rayTracer = new RayTracer(mapProvider, configuration, collisionDetector, gridRayTracer,
+                    trigonometry);
+            DungeonMap dungeonMap = mapProvider.getDungeonMap();
+
+            Random random = new Random(seed);
+            for (int i = 0; i < 10; i++) {
+                Position position = randomFreePosition(dungeonMap, collisionDetector, random);
+                for (double angle = 0; angle < 360; angle += 0.5) {
+                    TraceResult gridResult = gridRayTracer.trace(position, angle);
+                    if (isGrazing(position, angle, trigonometry, gridResult)
+                            || Math.abs(gridResult.getDistance() - configuration.getViewDistance()) < TRACING_STEP) {
+                        skippedRays++;
+                        continue;
+                    }
+                    TraceResult stepResult = rayTracer.traceByStep(position, angle);
+                    String ray = "seed " + seed + ", position " + position + ", angle " + angle;
+                    assertSame(ray, gridResult.getTouchedObject(), stepResult.getTouchedObject());
+                    if (gridResult.getTouchedObject() != null) {
+                        assertTrue(ray, stepResult.getDistance() >= gridResult.getDistance() - EPSILON);
+                        assertTrue(ray, stepResult.getDistance() <= gridResult.getDistance() + TRACING_STEP + EPSILON);
+                    }
+                    assertSameMobs(ray, gridResult.getInterceptedMovableObjects(),
+                            stepResult.getInterceptedMovableObjects());
+                    comparedRays++;
+                }
+            }
+        }
+        assertTrue("too many skipped rays: " + skippedRays, skippedRays * 100 < comparedRays);
+    }
+
+    private static void assertSameMobs(String ray, List<InterceptedMovableObject> expected,
+                                       List<InterceptedMovableObject> actual) {
+        assertEquals(ray, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(ray, expected.get(i).getMapObject(), actual.get(i).getMapObject());
+            assertEquals(ray, expected.get(i).getEntryDistance(), actual.get(i).getEntryDistance(), EPSILON);
+            assertEquals(ray, expected.get(i).getExitDistance(), actual.get(i).getExitDistance(), EPSILON);
+        }
+    }
+
+    /**
+     * Проверить, проходит ли луч через угол найденной стены или край моба по отрезку, который пошаговая трассировка
+     * может пропустить.
+     */
+    private static boolean isGrazing(Position position, double angle, Trigonometry trigonometry,
+                                     TraceResult gridResult) {
+        for (InterceptedMovableObject imo : gridResult.getInterceptedMovableObjects()) {
+            if (imo.getExitDistance() - imo.getEntryDistance() < 2 * TRACING_STEP) {
+                return true;
+            }
+        }
+        MapObject touchedObject = gridResult.getTouchedObject();
+        if (!(touchedObject instanceof InmovableMapObject)) {
+            return false;
+        }
+        InmovableMapObject wall = (InmovableMapObject) touchedObject;
+        double directionX = trigonometry.getDirectionX(angle);
+        double directionY = trigonometry.getDirectionY(angle);
+        double exitX = getSlabExitDistance(position.getX(), directionX, wall.getPosition().getX(), wall.getWidth());
+        double exitY = getSlabExitDistance(position.getY(), directionY, wall.getPosition().getY(), wall.getLength());
+        return Math.min(exitX, exitY) - gridResult.getDistance() < 2 * TRACING_STEP;
+    }
+
+    /**
+     * Найти расстояние, на котором луч покидает полосу между параллельными гранями стены.
+     */
+    private static double getSlabExitDistance(double origin, double direction, double from, double size) {
+        if (direction == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max((from - origin) / direction, (from + size - origin) / direction);
+    }
+
+    private static Position randomFreePosition(DungeonMap dungeonMap, CollisionDetector collisionDetector,
+                                               Random random) {
+        while (true) {
+            Position position = new Position(
+                    random.nextDouble() * dungeonMap.getWidth(), random.nextDouble() * dungeonMap.getHeight());
+            if (collisionDetector.getInterferingMapObject(dungeonMap, position.getX(), position.getY()).isEmpty()) {
+                return position;
+            }
+        }
+    }
+}
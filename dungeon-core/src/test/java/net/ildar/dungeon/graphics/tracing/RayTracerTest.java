@@ -0,0 +1,143 @@
+package net.ildar.dungeon.graphics.tracing;
+
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.Trigonometry;
+import net.ildar.dungeon.config.TestConfiguration;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.InmovableMapObject;
+import net.ildar.dungeon.map.MapFileStorage;
+import net.ildar.dungeon.map.MapGenerator;
+import net.ildar.dungeon.map.Mob;
+import net.ildar.dungeon.map.MovableMapObject;
+import net.ildar.dungeon.map.Position;
+import net.ildar.dungeon.map.Wall;
+import net.ildar.dungeon.provider.MapProvider;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Пошаговая трассировка на картах с заданным расположением стен и мобов.
+ * <p>
+ * Точки входа и выхода перехваченных мобов вычисляются точно, моб, пройденный лучом, не перехватывается повторно.
+ */
+public class RayTracerTest {
+    private static final double MAP_SIZE = 16;
+    private static final double EPSILON = 1E-12;
+
+    private final TestConfiguration configuration = new TestConfiguration();
+    private final CollisionDetector collisionDetector = new CollisionDetector();
+    private final Trigonometry trigonometry = new Trigonometry(configuration);
+
+    @Test
+    public void mobOnRayIsInterceptedWithExactEntryAndExit() {
+        Wall wall = new Wall(new Position(12, 8), 1, 1);
+        Mob mob = new Mob(new Position(6, 8.5), 0.4, 1, Mob.State.ALIVE);
+        TraceResult result = traceAlongX(createRayTracer(Set.of(wall), Set.of(mob)), 2, 8.5);
+
+        assertSame(wall, result.getTouchedObject());
+        assertTrue(result.getDistance() >= 10);
+        assertTrue(result.getDistance() <= 10 + configuration.getTracingStep() + EPSILON);
+        List<InterceptedMovableObject> intercepted = result.getInterceptedMovableObjects();
+        assertEquals(1, intercepted.size());
+        assertSame(mob, intercepted.get(0).getMapObject());
+        assertEquals(3.6, intercepted.get(0).getEntryDistance(), EPSILON);
+        assertEquals(4.4, intercepted.get(0).getExitDistance(), EPSILON);
+    }
+
+    @Test
+    public void rayStartingInsideMobEntersItAtZero() {
+        Wall wall = new Wall(new Position(12, 8), 1, 1);
+        Mob mob = new Mob(new Position(2.1, 8.5), 0.4, 1, Mob.State.ALIVE);
+        TraceResult result = traceAlongX(createRayTracer(Set.of(wall), Set.of(mob)), 2, 8.5);
+
+        assertSame(wall, result.getTouchedObject());
+        List<InterceptedMovableObject> intercepted = result.getInterceptedMovableObjects();
+        assertEquals(1, intercepted.size());
+        assertSame(mob, intercepted.get(0).getMapObject());
+        assertEquals(0, intercepted.get(0).getEntryDistance(), 0);
+        assertEquals(0.5, intercepted.get(0).getExitDistance(), EPSILON);
+    }
+
+    @Test
+    public void touchingMobsAreBothIntercepted() {
+        Mob near = new Mob(new Position(5, 8.5), 0.5, 1, Mob.State.ALIVE);
+        Mob far = new Mob(new Position(6, 8.5), 0.5, 1, Mob.State.ALIVE);
+        TraceResult result = traceAlongX(createRayTracer(Set.of(), Set.of(near, far)), 2, 8.5);
+
+        List<InterceptedMovableObject> intercepted = result.getInterceptedMovableObjects();
+        assertEquals(2, intercepted.size());
+        assertSame(near, intercepted.get(0).getMapObject());
+        assertEquals(2.5, intercepted.get(0).getEntryDistance(), EPSILON);
+        assertEquals(3.5, intercepted.get(0).getExitDistance(), EPSILON);
+        assertSame(far, intercepted.get(1).getMapObject());
+        assertEquals(3.5, intercepted.get(1).getEntryDistance(), EPSILON);
+        assertEquals(4.5, intercepted.get(1).getExitDistance(), EPSILON);
+    }
+
+    @Test
+    public void mobIsNotInterceptedAgainAfterExit() {
+        // направление чуть короче единичного, как направление из таблицы: точка выхода 4.5 совпадает с шагом
+        // трассировки, и первый шаг после выхода ещё задевает край моба
+        Mob mob = new Mob(new Position(6, 8.5), 0.5, 1, Mob.State.ALIVE);
+        TraceResult result = createRayTracer(Set.of(), Set.of(mob))
+                .traceByStep(new Position(2, 8.5), 90, 1 - 1E-9, 0);
+
+        List<InterceptedMovableObject> intercepted = result.getInterceptedMovableObjects();
+        assertEquals(1, intercepted.size());
+        assertSame(mob, intercepted.get(0).getMapObject());
+    }
+
+    @Test
+    public void mobIsNotInterceptedTwice() {
+        // кольцо мобов вокруг начала лучей: лучи под всеми углами проходят через мобов на разном расстоянии от центра
+        Set<MovableMapObject> mobs = new HashSet<>();
+        for (int i = 0; i < 24; i++) {
+            double distance = 2 + i % 3;
+            Position position = new Position(8 + distance * trigonometry.getDirectionX(i * 15),
+                    8 + distance * trigonometry.getDirectionY(i * 15));
+            mobs.add(new Mob(position, 0.45, 1, Mob.State.ALIVE));
+        }
+        RayTracer rayTracer = createRayTracer(Set.of(), mobs);
+        Position position = new Position(8, 8);
+        int interceptedRays = 0;
+        for (double angle = 0; angle < 360; angle += 0.05) {
+            List<InterceptedMovableObject> intercepted = rayTracer.traceByStep(position, angle)
+                    .getInterceptedMovableObjects();
+            String ray = "angle " + angle;
+            for (int i = 1; i < intercepted.size(); i++) {
+                assertNotSame(ray, intercepted.get(i - 1).getMapObject(), intercepted.get(i).getMapObject());
+                assertTrue(ray,
+                        intercepted.get(i - 1).getExitDistance() <= intercepted.get(i).getEntryDistance() + EPSILON);
+            }
+            if (!intercepted.isEmpty()) {
+                interceptedRays++;
+            }
+        }
+        assertTrue("too few intercepting rays: " + interceptedRays, interceptedRays > 1000);
+    }
+
+    private static TraceResult traceAlongX(RayTracer rayTracer, double x, double y) {
+        return rayTracer.traceByStep(new Position(x, y), 90, 1, 0);
+    }
+
+    private RayTracer createRayTracer(Set<InmovableMapObject> walls, Set<MovableMapObject> mobs) {
+        DungeonMap dungeonMap = new DungeonMap(MAP_SIZE, MAP_SIZE, new HashSet<>(walls), new HashSet<>(mobs));
+        MapProvider mapProvider = new MapProvider(configuration,
+                new MapGenerator(configuration, collisionDetector) {
+                    @Override
+                    public DungeonMap generateMap() {
+                        return dungeonMap;
+                    }
+                }, new MapFileStorage());
+        GridRayTracer gridRayTracer = new GridRayTracer(mapProvider, configuration, trigonometry, collisionDetector);
+        return new RayTracer(mapProvider, configuration, collisionDetector, gridRayTracer, trigonometry);
+    }
+}
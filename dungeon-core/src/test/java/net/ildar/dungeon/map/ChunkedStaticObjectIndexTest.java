@@ -0,0 +1,157 @@
+package net.ildar.dungeon.map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Загрузка и выгрузка фрагментов карты, хранящейся в файле по фрагментам.
+ */
+public class ChunkedStaticObjectIndexTest {
+    private static final int MAP_SIZE = 512;
+    private static final int CHUNK_SIZE = 16;
+    private static final double PREFETCH_DISTANCE = 24;
+
+    /**
+     * Количество фрагментов, помещающихся в ограничение памяти.
+     */
+    private static final int BUDGET_CHUNKS = 32;
+
+    /**
+     * Наибольшее количество фрагментов в области загрузки вокруг игрока.
+     */
+    private static final int AREA_CHUNKS = 16;
+
+    /**
+     * Расстояние от игрока, в пределах которого клетки запрашиваются как при отрисовке.
+     */
+    private static final int VIEW_DISTANCE = 20;
+
+    private static final long PREFETCH_TIMEOUT_MILLIS = 10_000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ChunkedMapFile mapFile;
+    private long chunkBytes;
+    private ChunkedStaticObjectIndex index;
+
+    @Before
+    public void setUp() throws IOException {
+        Path file = temporaryFolder.newFile().toPath();
+        ChunkedMapFile.write(file, MAP_SIZE, MAP_SIZE, CHUNK_SIZE, ChunkedStaticObjectIndexTest::createWalls);
+        mapFile = ChunkedMapFile.open(file);
+        // все фрагменты одинаково заполнены стенами
+        chunkBytes = mapFile.readChunk(0, 0).getEstimatedBytes();
+        index = new ChunkedStaticObjectIndex(mapFile, BUDGET_CHUNKS * chunkBytes, PREFETCH_DISTANCE);
+    }
+
+    @After
+    public void tearDown() {
+        index.close();
+    }
+
+    @Test
+    public void missingChunkIsLoadedInBackground() throws InterruptedException {
+        assertTrue(index.getCell(100, 200).isEmpty());
+        assertEquals(1, index.getMissCount());
+        awaitPrefetch();
+        assertEquals(expectedCell(100, 200), index.getCell(100, 200));
+        assertEquals(1, index.getResidentChunkCount());
+    }
+
+    @Test
+    public void loadAreaLoadsChunksInCallingThread() {
+        index.loadArea(30, 30, 34, 34);
+        assertEquals(expectedCell(30, 30), index.getCell(30, 30));
+        assertEquals(expectedCell(33, 33), index.getCell(33, 33));
+        assertEquals(4, index.getResidentChunkCount());
+        assertEquals(0, index.getMissCount());
+    }
+
+    @Test
+    public void isAreaLoadedDoesNotLoadChunks() {
+        assertFalse(index.isAreaLoaded(30, 30, 34, 34));
+        assertEquals(0, index.getResidentChunkCount());
+        assertEquals(0, index.getMissCount());
+
+        index.loadArea(30, 30, 31, 31);
+        assertTrue(index.isAreaLoaded(30, 30, 31, 31));
+        assertFalse(index.isAreaLoaded(30, 30, 34, 34));
+        assertEquals(1, index.getResidentChunkCount());
+    }
+
+    @Test
+    public void residentMemoryStaysWithinBudgetDuringWalk() throws InterruptedException {
+        List<Position> path = new ArrayList<>();
+        for (int i = 8; i < MAP_SIZE - 8; i++) {
+            path.add(new Position(i + 0.5, i + 0.5));
+        }
+        for (int i = MAP_SIZE - 8; i >= 8; i--) {
+            path.add(new Position(i + 0.5, MAP_SIZE / 2.0));
+        }
+
+        long maxResidentBytes = 0;
+        for (Position position : path) {
+            index.update(position);
+            awaitPrefetch();
+            for (int y = (int) position.getY() - VIEW_DISTANCE; y <= (int) position.getY() + VIEW_DISTANCE; y++) {
+                for (int x = (int) position.getX() - VIEW_DISTANCE; x <= (int) position.getX() + VIEW_DISTANCE; x++) {
+                    index.getCell(x, y);
+                }
+            }
+            awaitPrefetch();
+            maxResidentBytes = Math.max(maxResidentBytes, index.getResidentBytes());
+        }
+
+        long mapBytes = (long) mapFile.getChunkColumns() * mapFile.getChunkRows() * chunkBytes;
+        assertTrue("map should be much larger than the budget", mapBytes >= 30 * BUDGET_CHUNKS * chunkBytes);
+        // выгрузка выполняется при обновлении области, до него могут догрузиться фрагменты новой области
+        assertTrue("resident " + maxResidentBytes + " bytes",
+                maxResidentBytes <= (BUDGET_CHUNKS + AREA_CHUNKS) * chunkBytes);
+        // клетки рядом с игроком загружаются заранее и не ждут фонового чтения
+        assertEquals(0, index.getMissCount());
+    }
+
+    private void awaitPrefetch() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + PREFETCH_TIMEOUT_MILLIS;
+        while (index.isPrefetching()) {
+            assertTrue("prefetch timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Стены фрагмента: единичные стены в клетках, выбранных по формуле от координат клетки.
+     */
+    private static List<Wall> createWalls(int chunkX, int chunkY) {
+        List<Wall> walls = new ArrayList<>();
+        for (int y = chunkY * CHUNK_SIZE; y < (chunkY + 1) * CHUNK_SIZE; y++) {
+            for (int x = chunkX * CHUNK_SIZE; x < (chunkX + 1) * CHUNK_SIZE; x++) {
+                if (isWall(x, y)) {
+                    walls.add(new Wall(new Position(x, y), 1, 1));
+                }
+            }
+        }
+        return walls;
+    }
+
+    private static boolean isWall(int x, int y) {
+        return (x * 7 + y * 13) % 5 == 0;
+    }
+
+    private static List<InmovableMapObject> expectedCell(int x, int y) {
+        return isWall(x, y) ? List.of(new Wall(new Position(x, y), 1, 1)) : List.of();
+    }
+}
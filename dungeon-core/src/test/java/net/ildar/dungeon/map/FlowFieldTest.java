@@ -0,0 +1,115 @@
+package net.ildar.dungeon.map;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Поле направлений на картах 10x10 с заданным расположением стен.
+ * <p>
+ * Путь по полю проходится от центра клетки к центру следующей клетки до клетки цели.
+ */
+public class FlowFieldTest {
+    private static final double MAP_SIZE = 10;
+
+    @Test
+    public void pathGoesAroundWall() {
+        // стена отделяет левую часть карты от правой, проход только в двух нижних строках
+        FlowField flowField = new FlowField(createMap(new Wall(new Position(5, 0), 1, 8)));
+        assertTrue(flowField.update(new Position(8.5, 1.5)));
+
+        int steps = 0;
+        double x = 1.5;
+        double y = 1.5;
+        while (x != 8.5 || y != 1.5) {
+            int cell = flowField.getNextCell(x, y);
+            assertTrue("no path from " + x + ", " + y, cell != FlowField.UNREACHABLE && steps < MAP_SIZE * MAP_SIZE);
+            x = flowField.getCellCenterX(cell);
+            y = flowField.getCellCenterY(cell);
+            assertFalse("path crosses the wall at " + x + ", " + y, x == 5.5 && y < 8);
+            steps++;
+        }
+        assertEquals(16, steps);
+    }
+
+    @Test
+    public void diagonalStepsDoNotCutCorners() {
+        FlowField flowField = new FlowField(createMap(new Wall(new Position(1, 0), 1, 1),
+                new Wall(new Position(4, 4), 2, 2)));
+        flowField.update(new Position(0.5, 0.5));
+
+        // диагональ из (1, 1) в клетку цели срезала бы угол стены
+        assertTrue(isCellAt(flowField, flowField.getNextCell(1.5, 1.5), 0.5, 1.5));
+        for (int cellY = 0; cellY < MAP_SIZE; cellY++) {
+            for (int cellX = 0; cellX < MAP_SIZE; cellX++) {
+                int next = flowField.getNextCell(cellX + 0.5, cellY + 0.5);
+                if (next == FlowField.UNREACHABLE) {
+                    continue;
+                }
+                double nextX = flowField.getCellCenterX(next);
+                double nextY = flowField.getCellCenterY(next);
+                String step = cellX + ", " + cellY + " -> " + nextX + ", " + nextY;
+                assertTrue(step, Math.abs(nextX - cellX - 0.5) <= 1 && Math.abs(nextY - cellY - 0.5) <= 1);
+                assertTrue(step, flowField.getNextCell(nextX, cellY + 0.5) != FlowField.UNREACHABLE);
+                assertTrue(step, flowField.getNextCell(cellX + 0.5, nextY) != FlowField.UNREACHABLE);
+            }
+        }
+    }
+
+    @Test
+    public void enclosedCellIsUnreachable() {
+        FlowField flowField = new FlowField(createMap(
+                new Wall(new Position(1, 1), 3, 1),
+                new Wall(new Position(1, 3), 3, 1),
+                new Wall(new Position(1, 2), 1, 1),
+                new Wall(new Position(3, 2), 1, 1)));
+        flowField.update(new Position(7.5, 7.5));
+
+        assertEquals(FlowField.UNREACHABLE, flowField.getNextCell(2.5, 2.5));
+        assertTrue(flowField.getNextCell(0.5, 0.5) != FlowField.UNREACHABLE);
+        assertEquals(FlowField.UNREACHABLE, flowField.getNextCell(-0.5, 5));
+        assertEquals(FlowField.UNREACHABLE, flowField.getNextCell(5, MAP_SIZE + 0.5));
+    }
+
+    @Test
+    public void targetOutsideMapIsUnreachable() {
+        FlowField flowField = new FlowField(createMap());
+        flowField.update(new Position(5.5, 5.5));
+
+        assertTrue(flowField.update(new Position(-1, 5.5)));
+        assertEquals(FlowField.UNREACHABLE, flowField.getTargetCell());
+        for (int cellY = 0; cellY < MAP_SIZE; cellY++) {
+            for (int cellX = 0; cellX < MAP_SIZE; cellX++) {
+                assertEquals(FlowField.UNREACHABLE, flowField.getNextCell(cellX + 0.5, cellY + 0.5));
+            }
+        }
+    }
+
+    @Test
+    public void fieldIsNotRebuiltWhileTargetStaysInCell() {
+        FlowField flowField = new FlowField(createMap());
+
+        assertTrue(flowField.update(new Position(7.5, 7.5)));
+        int targetCell = flowField.getTargetCell();
+        assertFalse(flowField.update(new Position(7.01, 7.99)));
+        assertFalse(flowField.update(new Position(7.99, 7.01)));
+        assertEquals(targetCell, flowField.getTargetCell());
+        assertTrue(flowField.update(new Position(8.01, 7.5)));
+        assertTrue(isCellAt(flowField, flowField.getTargetCell(), 8.5, 7.5));
+    }
+
+    private static boolean isCellAt(FlowField flowField, int cell, double x, double y) {
+        return cell != FlowField.UNREACHABLE
+                && flowField.getCellCenterX(cell) == x && flowField.getCellCenterY(cell) == y;
+    }
+
+    private static DungeonMap createMap(InmovableMapObject... walls) {
+        Set<InmovableMapObject> staticObjects = new HashSet<>(Set.of(walls));
+        return new DungeonMap(MAP_SIZE, MAP_SIZE, staticObjects, new HashSet<>());
+    }
+}
@@ -0,0 +1,155 @@
+package net.ildar.dungeon.map;
+
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.config.TestConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Сохранение и загрузка карт в двоичном файле.
+ */
+public class MapFileStorageTest {
+    /**
+     * Смещения полей заголовка файла карты.
+     */
+    private static final int VERSION_OFFSET = Integer.BYTES;
+    private static final int WIDTH_OFFSET = Integer.BYTES * 2;
+    private static final int WALL_COUNT_OFFSET = Integer.BYTES * 2 + Double.BYTES * 2;
+    private static final int HEADER_SIZE = WALL_COUNT_OFFSET + Integer.BYTES * 2;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final MapFileStorage mapFileStorage = new MapFileStorage();
+
+    @Test
+    public void savedMapIsLoadedUnchanged() throws IOException {
+        TestConfiguration configuration = new TestConfiguration().withMapSize(48).withMobNumber(60);
+        DungeonMap dungeonMap = new MapGenerator(configuration, new CollisionDetector()).generateMap();
+        Path file = temporaryFolder.newFile().toPath();
+
+        mapFileStorage.save(dungeonMap, file);
+        DungeonMap loadedMap = mapFileStorage.load(file);
+
+        assertEquals(dungeonMap.getWidth(), loadedMap.getWidth(), 0);
+        assertEquals(dungeonMap.getHeight(), loadedMap.getHeight(), 0);
+        assertEquals(dungeonMap.getStaticObjectSet().size(), loadedMap.getStaticObjectSet().size());
+        assertEquals(new HashSet<>(dungeonMap.getStaticObjectSet()), new HashSet<>(loadedMap.getStaticObjectSet()));
+        assertEquals(describeMobs(dungeonMap), describeMobs(loadedMap));
+        assertEquals(dungeonMap.getMovableObjectSet().size(), loadedMap.getMobStore().getAliveCount());
+    }
+
+    @Test
+    public void emptyMapIsLoadedUnchanged() throws IOException {
+        DungeonMap dungeonMap = new DungeonMap(3, 5, new HashSet<>(), new HashSet<>());
+        Path file = temporaryFolder.newFile().toPath();
+
+        mapFileStorage.save(dungeonMap, file);
+        DungeonMap loadedMap = mapFileStorage.load(file);
+
+        assertEquals(5, loadedMap.getWidth(), 0);
+        assertEquals(3, loadedMap.getHeight(), 0);
+        assertTrue(loadedMap.getStaticObjectSet().isEmpty());
+        assertTrue(loadedMap.getMovableObjectSet().isEmpty());
+    }
+
+    @Test
+    public void emptyFileIsRejected() throws IOException {
+        assertRejected(new byte[0], "too short");
+    }
+
+    @Test
+    public void truncatedHeaderIsRejected() throws IOException {
+        assertRejected(Arrays.copyOf(saveSampleMap(), HEADER_SIZE - 1), "too short");
+    }
+
+    @Test
+    public void truncatedObjectDataIsRejected() throws IOException {
+        byte[] data = saveSampleMap();
+        assertRejected(Arrays.copyOf(data, data.length - Double.BYTES), "corrupted");
+    }
+
+    @Test
+    public void wrongSignatureIsRejected() throws IOException {
+        assertRejected(modifySampleMap(buffer -> buffer.putInt(0, 0x504E4700)), "not a map file");
+    }
+
+    @Test
+    public void unsupportedVersionIsRejected() throws IOException {
+        assertRejected(modifySampleMap(buffer -> buffer.putInt(VERSION_OFFSET, MapFileStorage.VERSION + 1)),
+                "Unsupported map file version");
+    }
+
+    @Test
+    public void negativeObjectCountIsRejected() throws IOException {
+        assertRejected(modifySampleMap(buffer -> buffer.putInt(WALL_COUNT_OFFSET, -1)), "corrupted");
+    }
+
+    @Test
+    public void objectCountNotMatchingFileSizeIsRejected() throws IOException {
+        assertRejected(modifySampleMap(
+                buffer -> buffer.putInt(WALL_COUNT_OFFSET, buffer.getInt(WALL_COUNT_OFFSET) + 1)), "corrupted");
+    }
+
+    @Test
+    public void invalidDimensionsAreRejected() throws IOException {
+        assertRejected(modifySampleMap(buffer -> buffer.putDouble(WIDTH_OFFSET, Double.NaN)), "invalid dimensions");
+        assertRejected(modifySampleMap(buffer -> buffer.putDouble(WIDTH_OFFSET, -1)), "invalid dimensions");
+    }
+
+    /**
+     * Сохранить небольшую карту и вернуть содержимое файла.
+     */
+    private byte[] saveSampleMap() throws IOException {
+        TestConfiguration configuration = new TestConfiguration().withMapSize(8).withMobNumber(3);
+        DungeonMap dungeonMap = new MapGenerator(configuration, new CollisionDetector()).generateMap();
+        Path file = temporaryFolder.newFile().toPath();
+        mapFileStorage.save(dungeonMap, file);
+        return Files.readAllBytes(file);
+    }
+
+    private byte[] modifySampleMap(Consumer<ByteBuffer> modification) throws IOException {
+        byte[] data = saveSampleMap();
+        modification.accept(ByteBuffer.wrap(data));
+        return data;
+    }
+
+    private void assertRejected(byte[] data, String expectedMessage) throws IOException {
+        Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, data);
+        try {
+            mapFileStorage.load(file);
+            fail("Map file with " + expectedMessage + " is loaded");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+            assertTrue(e.getMessage(), e.getMessage().contains(file.toString()));
+        }
+    }
+
+    /**
+     * Описать мобов карты строками, сравнимыми без учёта порядка мобов.
+     */
+    private static List<String> describeMobs(DungeonMap dungeonMap) {
+        List<String> mobs = new ArrayList<>();
+        for (MovableMapObject mmo : dungeonMap.getMovableObjectSet()) {
+            mobs.add(mmo.getX() + " " + mmo.getY() + " " + mmo.getRadius() + " " + mmo.getHeight());
+        }
+        mobs.sort(null);
+        return mobs;
+    }
+}
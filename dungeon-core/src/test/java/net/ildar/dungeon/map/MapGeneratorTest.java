@@ -0,0 +1,129 @@
+package net.ildar.dungeon.map;
+
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.config.TestConfiguration;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Генерация карт с заданным начальным значением.
+ * <p>
+ * Карта 64x64 делится на полосы по {@link #REGION_ROWS} строк, чтобы параллельная генерация обрабатывала
+ * полосы в разных потоках.
+ */
+public class MapGeneratorTest {
+    private static final int MAP_SIZE = 64;
+    private static final int REGION_ROWS = 4;
+    private static final double WALL_PERCENTAGE = 0.2;
+    private static final int MOB_NUMBER = 50;
+    private static final double LARGE_MOB_SIZE = 0.8;
+    private static final long[] SEEDS = {1, 42, -7, 0x5DEECE66DL};
+
+    private final CollisionDetector collisionDetector = new CollisionDetector();
+
+    @Test
+    public void sameSeedGivesSameMapWithAndWithoutParallelism() {
+        for (boolean wallSizeRandomizing : new boolean[]{false, true}) {
+            for (long seed : SEEDS) {
+                String message = "seed " + seed + ", wall size randomizing " + wallSizeRandomizing;
+                DungeonMap sequential = generateMap(seed, wallSizeRandomizing, false);
+                DungeonMap parallel = generateMap(seed, wallSizeRandomizing, true);
+                assertEquals(message, new HashSet<>(sequential.getStaticObjectSet()),
+                        new HashSet<>(parallel.getStaticObjectSet()));
+                assertEquals(message, getMobPositions(sequential), getMobPositions(parallel));
+            }
+        }
+    }
+
+    @Test
+    public void differentSeedsGiveDifferentMaps() {
+        assertNotEquals(new HashSet<>(generateMap(1, false, false).getStaticObjectSet()),
+                new HashSet<>(generateMap(2, false, false).getStaticObjectSet()));
+    }
+
+    @Test
+    public void requestedWallAndMobNumbersAreGenerated() {
+        int cells = MAP_SIZE * MAP_SIZE;
+        int edgeCells = cells - (MAP_SIZE - 2) * (MAP_SIZE - 2);
+        // каждый край карты закрыт одной стеной, остальные стены занимают по одной внутренней клетке
+        int expectedWallNumber = 4 + (int) (cells * WALL_PERCENTAGE) - edgeCells;
+        for (boolean wallSizeRandomizing : new boolean[]{false, true}) {
+            for (long seed : SEEDS) {
+                String message = "seed " + seed + ", wall size randomizing " + wallSizeRandomizing;
+                DungeonMap dungeonMap = generateMap(seed, wallSizeRandomizing, true);
+                assertEquals(message, expectedWallNumber, dungeonMap.getStaticObjectSet().size());
+                assertEquals(message, MOB_NUMBER, dungeonMap.getMovableObjectSet().size());
+                assertEquals(message, MOB_NUMBER, getMobPositions(dungeonMap).size());
+            }
+        }
+    }
+
+    @Test
+    public void mobsDoNotIntersectWalls() {
+        for (boolean wallSizeRandomizing : new boolean[]{false, true}) {
+            for (long seed : SEEDS) {
+                assertNoMobIntersectsWall(generateMap(seed, wallSizeRandomizing, true),
+                        "seed " + seed + ", wall size randomizing " + wallSizeRandomizing);
+            }
+        }
+    }
+
+    @Test
+    public void largeMobsDoNotIntersectWallsInNeighbourCells() {
+        for (long seed : SEEDS) {
+            // мобы, стоящие в центрах свободных клеток, задевают стены соседних клеток
+            DungeonMap dungeonMap = new MapGenerator(createConfiguration(seed, false, true)
+                    .withMobSize(LARGE_MOB_SIZE), collisionDetector).generateMap();
+            assertFalse(dungeonMap.getMovableObjectSet().isEmpty());
+            assertNoMobIntersectsWall(dungeonMap, "seed " + seed);
+        }
+    }
+
+    private DungeonMap generateMap(long seed, boolean wallSizeRandomizing, boolean parallel) {
+        return new MapGenerator(createConfiguration(seed, wallSizeRandomizing, parallel), collisionDetector)
+                .generateMap();
+    }
+
+    private static TestConfiguration createConfiguration(long seed, boolean wallSizeRandomizing, boolean parallel) {
+        return new TestConfiguration()
+                .withMapSize(MAP_SIZE)
+                .withStaticMapObjectsPercentage(WALL_PERCENTAGE)
+                .withMobNumber(MOB_NUMBER)
+                .withSeed(seed)
+                .withWallSizeRandomizing(wallSizeRandomizing)
+                .withRegionRows(REGION_ROWS)
+                .withGeneratorParallelismEnabled(parallel);
+    }
+
+    private static void assertNoMobIntersectsWall(DungeonMap dungeonMap, String message) {
+        // проверка перебором всех пар, независимо от индексов карты
+        for (MovableMapObject mob : dungeonMap.getMovableObjectSet()) {
+            for (InmovableMapObject wall : dungeonMap.getStaticObjectSet()) {
+                assertFalse(message + ": " + mob.getPosition() + " intersects " + wall, intersects(mob, wall));
+            }
+        }
+    }
+
+    private static Set<Position> getMobPositions(DungeonMap dungeonMap) {
+        return dungeonMap.getMovableObjectSet().stream()
+                .map(MovableMapObject::getPosition)
+                .collect(Collectors.toSet());
+    }
+
+    private static boolean intersects(MovableMapObject mob, InmovableMapObject wall) {
+        double closestX = Math.max(wall.getPosition().getX(),
+                Math.min(mob.getPosition().getX(), wall.getPosition().getX() + wall.getWidth()));
+        double closestY = Math.max(wall.getPosition().getY(),
+                Math.min(mob.getPosition().getY(), wall.getPosition().getY() + wall.getLength()));
+        double dx = mob.getPosition().getX() - closestX;
+        double dy = mob.getPosition().getY() - closestY;
+        return dx * dx + dy * dy < mob.getRadius() * mob.getRadius();
+    }
+}
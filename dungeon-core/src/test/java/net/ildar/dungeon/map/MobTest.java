@@ -0,0 +1,96 @@
+package net.ildar.dungeon.map;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Представление моба ячейкой {@link MobStore} карты.
+ */
+public class MobTest {
+    private static final long STRESS_MILLIS = 2000;
+
+    @Test
+    public void detachedMobKeepsParametersWhenSlotIsReused() {
+        Mob removed = new Mob(new Position(1, 2), 0.3, 0.8, Mob.State.ALIVE);
+        DungeonMap dungeonMap = createMap(removed);
+        removed.setPosition(3, 4);
+        removed.setState(Mob.State.KILLED);
+        dungeonMap.removeMovableMapObject(removed);
+        Mob added = new Mob(new Position(5, 6), 0.4, 0.9, Mob.State.ALIVE);
+        dungeonMap.addMovableMapObject(added);
+
+        assertSame(added, dungeonMap.getMobStore().getMob(0));
+        assertEquals(new Position(3, 4), removed.getPosition());
+        assertEquals(3, removed.getX(), 0);
+        assertEquals(4, removed.getY(), 0);
+        assertEquals(0.3, removed.getRadius(), 0);
+        assertEquals(0.8, removed.getHeight(), 0);
+        assertEquals(Mob.State.KILLED, removed.getState());
+        assertFalse(removed.interferes(5, 6));
+        assertEquals(new Position(5, 6), added.getPosition());
+        assertEquals(Mob.State.ALIVE, added.getState());
+    }
+
+    @Test
+    public void detachedMobIsMovedWithoutChangingReusedSlot() {
+        Mob removed = new Mob(new Position(1, 2), 0.3, 0.8, Mob.State.ALIVE);
+        DungeonMap dungeonMap = createMap(removed);
+        dungeonMap.removeMovableMapObject(removed);
+        Mob added = new Mob(new Position(5, 6), 0.4, 0.9, Mob.State.ALIVE);
+        dungeonMap.addMovableMapObject(added);
+
+        removed.setPosition(7, 8);
+        removed.setRadius(0.2);
+        assertEquals(new Position(7, 8), removed.getPosition());
+        assertEquals(new Position(5, 6), added.getPosition());
+        assertEquals(0.4, added.getRadius(), 0);
+    }
+
+    /**
+     * Поток игровой логики удаляет моба с карты и добавляет на его ячейку другого моба, пока другой поток
+     * читает параметры удаляемого моба. Удаляемый моб не должен показывать параметры занявшего его ячейку моба.
+     */
+    @Test
+    public void staleViewNeverReadsAnotherMob() throws InterruptedException {
+        Mob reader = new Mob(new Position(1, 1), 0.25, 0.5, Mob.State.ALIVE);
+        Mob other = new Mob(new Position(2, 2), 0.5, 1, Mob.State.ALIVE);
+        DungeonMap dungeonMap = createMap(reader);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread readerThread = new Thread(() -> {
+            while (running.get() && failure.get() == null) {
+                double x = reader.getX();
+                double y = reader.getY();
+                double radius = reader.getRadius();
+                Position position = reader.getPosition();
+                if (x != 1 || y != 1 || radius != 0.25 || !position.equals(new Position(1, 1))) {
+                    failure.set("read x=" + x + ", y=" + y + ", radius=" + radius + ", position=" + position);
+                }
+            }
+        });
+        readerThread.start();
+        long deadline = System.currentTimeMillis() + STRESS_MILLIS;
+        while (System.currentTimeMillis() < deadline && failure.get() == null) {
+            dungeonMap.removeMovableMapObject(reader);
+            dungeonMap.addMovableMapObject(other);
+            dungeonMap.removeMovableMapObject(other);
+            dungeonMap.addMovableMapObject(reader);
+        }
+        running.set(false);
+        readerThread.join();
+        assertNull(failure.get());
+    }
+
+    private static DungeonMap createMap(Mob mob) {
+        return new DungeonMap(16, 16, Collections.emptySet(), new HashSet<>(Collections.singleton(mob)));
+    }
+}
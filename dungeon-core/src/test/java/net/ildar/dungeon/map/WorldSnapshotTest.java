@@ -0,0 +1,75 @@
+package net.ildar.dungeon.map;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Интерполяция позиций мобильных объектов между снимками мира.
+ */
+public class WorldSnapshotTest {
+    private static final double EPSILON = 1E-12;
+
+    @Test
+    public void positionsAreInterpolatedFromPreviousSnapshot() {
+        Mob mob = new Mob(new Position(1, 2), 0.3, 1, Mob.State.ALIVE);
+        DungeonMap dungeonMap = createMap(mob);
+        WorldSnapshot previous = WorldSnapshot.capture(dungeonMap);
+        mob.setPosition(3, 6);
+        WorldSnapshot current = WorldSnapshot.capture(dungeonMap, previous);
+
+        int i = indexOf(current, mob);
+        assertEquals(1, current.getX(i, 0), EPSILON);
+        assertEquals(2, current.getY(i, 0), EPSILON);
+        assertEquals(2, current.getX(i, 0.5), EPSILON);
+        assertEquals(4, current.getY(i, 0.5), EPSILON);
+        assertEquals(3, current.getX(i, 1), EPSILON);
+        assertEquals(6, current.getY(i, 1), EPSILON);
+    }
+
+    @Test
+    public void objectsMissingFromPreviousSnapshotAreNotInterpolated() {
+        Mob mob = new Mob(new Position(1, 2), 0.3, 1, Mob.State.ALIVE);
+        DungeonMap dungeonMap = createMap(mob);
+        WorldSnapshot previous = WorldSnapshot.capture(dungeonMap);
+        Mob addedMob = new Mob(new Position(5, 5), 0.3, 1, Mob.State.ALIVE);
+        dungeonMap.addMovableMapObject(addedMob);
+        mob.setPosition(3, 6);
+        WorldSnapshot current = WorldSnapshot.capture(dungeonMap, previous);
+
+        int added = indexOf(current, addedMob);
+        assertEquals(5, current.getX(added, 0), EPSILON);
+        assertEquals(5, current.getY(added, 0), EPSILON);
+        int moved = indexOf(current, mob);
+        assertEquals(2, current.getX(moved, 0.5), EPSILON);
+        assertEquals(4, current.getY(moved, 0.5), EPSILON);
+    }
+
+    @Test
+    public void snapshotOfAnotherMapIsNotInterpolated() {
+        Mob mob = new Mob(new Position(1, 2), 0.3, 1, Mob.State.ALIVE);
+        WorldSnapshot previous = WorldSnapshot.capture(createMap(mob));
+        Mob newMapMob = new Mob(new Position(7, 8), 0.3, 1, Mob.State.ALIVE);
+        WorldSnapshot current = WorldSnapshot.capture(createMap(newMapMob), previous);
+
+        assertEquals(7, current.getX(0, 0), EPSILON);
+        assertEquals(8, current.getY(0, 0), EPSILON);
+    }
+
+    private static DungeonMap createMap(Mob mob) {
+        return new DungeonMap(10, 10, Collections.emptySet(), new HashSet<>(List.of(mob)));
+    }
+
+    private static int indexOf(WorldSnapshot worldSnapshot, MovableMapObject mmo) {
+        for (int i = 0; i < worldSnapshot.getObjectCount(); i++) {
+            if (worldSnapshot.getObject(i) == mmo) {
+                return i;
+            }
+        }
+        throw new AssertionError(mmo + " is not in the snapshot");
+    }
+}
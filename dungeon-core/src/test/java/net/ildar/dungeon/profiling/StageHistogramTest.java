@@ -0,0 +1,106 @@
+package net.ildar.dungeon.profiling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Корзины и перцентили гистограммы длительностей.
+ * <p>
+ * Перцентиль гистограммы - верхняя граница корзины, поэтому он не меньше точного перцентиля
+ * и превышает его не больше чем на {@link #MAX_RELATIVE_ERROR}.
+ */
+public class StageHistogramTest {
+    private static final double MAX_RELATIVE_ERROR = 0.125;
+
+    @Test
+    public void smallValuesAreExact() {
+        StageHistogram histogram = new StageHistogram();
+        for (long value = 0; value < 8; value++) {
+            assertEquals(value, StageHistogram.toBucket(value));
+            assertEquals(value, StageHistogram.getBucketUpperBound((int) value));
+            histogram.record(value);
+        }
+        for (int value = 0; value < 8; value++) {
+            assertEquals(value, histogram.getPercentile((value + 1) * 100.0 / 8));
+        }
+    }
+
+    @Test
+    public void negativeValueIsRecordedAsZero() {
+        StageHistogram histogram = new StageHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void powerOfTwoStartsNewBucket() {
+        for (int power = 3; power < 63; power++) {
+            long value = 1L << power;
+            int bucket = StageHistogram.toBucket(value);
+            String message = "2^" + power;
+            assertEquals(message, bucket - 1, StageHistogram.toBucket(value - 1));
+            assertEquals(message, value - 1, StageHistogram.getBucketUpperBound(bucket - 1));
+            assertEquals(message, value + (value >> 3) - 1, StageHistogram.getBucketUpperBound(bucket));
+            assertEquals(message, bucket, StageHistogram.toBucket(value + (value >> 3) - 1));
+        }
+    }
+
+    @Test
+    public void bucketsCoverValuesWithinRelativeError() {
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            int bucket = StageHistogram.toBucket(value);
+            long upperBound = StageHistogram.getBucketUpperBound(bucket);
+            String message = "value " + value;
+            assertTrue(message, upperBound >= value);
+            assertTrue(message, bucket == 0 || StageHistogram.getBucketUpperBound(bucket - 1) < value);
+            assertTrue(message, upperBound - value <= value * MAX_RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    public void longMaxValueFallsIntoLastBucket() {
+        assertEquals(StageHistogram.BUCKET_COUNT - 1, StageHistogram.toBucket(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, StageHistogram.getBucketUpperBound(StageHistogram.BUCKET_COUNT - 1));
+
+        StageHistogram histogram = new StageHistogram();
+        histogram.record(1000);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+        assertWithinError(1000, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void percentilesOfUniformDistribution() {
+        StageHistogram histogram = new StageHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 10);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertWithinError(500_000, histogram.getPercentile(50));
+        assertWithinError(990_000, histogram.getPercentile(99));
+        assertEquals(1_000_000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void percentilesOfDistributionWithRareSpikes() {
+        // кадры по 2 мс и каждый сотый кадр по 40 мс
+        StageHistogram histogram = new StageHistogram();
+        for (int i = 0; i < 10_000; i++) {
+            histogram.record(i % 100 == 99 ? 40_000_000 : 2_000_000);
+        }
+        assertWithinError(2_000_000, histogram.getPercentile(50));
+        assertWithinError(2_000_000, histogram.getPercentile(99));
+        assertWithinError(40_000_000, histogram.getPercentile(99.5));
+        assertEquals(40_000_000, histogram.getMax());
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual,
+                actual >= expected && actual <= expected * (1 + MAX_RELATIVE_ERROR));
+    }
+}
@@ -0,0 +1,59 @@
+package net.ildar.dungeon.provider;
+
+import net.ildar.dungeon.CollisionDetector;
+import net.ildar.dungeon.config.TestConfiguration;
+import net.ildar.dungeon.map.DungeonMap;
+import net.ildar.dungeon.map.MapFileStorage;
+import net.ildar.dungeon.map.MapGenerator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Создание карты провайдером.
+ */
+public class MapProviderTest {
+    private static final int THREAD_COUNT = 8;
+
+    @Test
+    public void concurrentFirstAccessGeneratesOneMap() throws Exception {
+        TestConfiguration configuration = new TestConfiguration();
+        AtomicInteger generatedMapCount = new AtomicInteger();
+        MapGenerator mapGenerator = new MapGenerator(configuration, new CollisionDetector()) {
+            @Override
+            public DungeonMap generateMap() {
+                generatedMapCount.incrementAndGet();
+                return super.generateMap();
+            }
+        };
+        MapProvider mapProvider = new MapProvider(configuration, mapGenerator, new MapFileStorage());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<DungeonMap>> maps = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                maps.add(executor.submit(() -> {
+                    startLatch.await();
+                    return mapProvider.getDungeonMap();
+                }));
+            }
+            startLatch.countDown();
+            for (Future<DungeonMap> map : maps) {
+                assertTrue("threads got different maps", mapProvider.getDungeonMap() == map.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, generatedMapCount.get());
+    }
+}
@@ -0,0 +1,109 @@
+package net.ildar.dungeon;
+
+import net.ildar.dungeon.graphics.HeadlessGameLoop;
+import net.ildar.dungeon.runtime.DaggerHeadlessGameComponent;
+import net.ildar.dungeon.runtime.HeadlessGameComponent;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Точка входа для отрисовки игры без окна и дисплея.
+ * <p>
+ * Параметры запуска:
+ * <ul>
+ * <li>{@code --frames=N} - количество кадров, по умолчанию 500;</li>
+ * <li>{@code --tick-rate=N} - количество тиков в секунду, 0 - без ожидания, по умолчанию как в игре;</li>
+ * <li>{@code --turn=N} - поворот игрока за тик в пикселях смещения мыши, по умолчанию 2;</li>
+ * <li>{@code --dump=DIR} - каталог для сохранения кадров в формате png;</li>
+ * <li>{@code --dump-interval=N} - сохранять каждый N-й кадр, по умолчанию 1;</li>
+ * <li>{@code --profile=true} - записать и вывести длительности этапов кадра;</li>
+ * <li>{@code --map=FILE} - загрузить карту из файла вместо генерации;</li>
+ * <li>{@code --save-map=FILE} - сохранить карту в файл перед отрисовкой;</li>
+ * <li>{@code --chunked-map=FILE} - загружать стены карты по фрагментам из файла вместо генерации;</li>
+ * <li>{@code --save-chunked-map=FILE} - сохранить стены карты в файл по фрагментам перед отрисовкой,
+ * мобы в этот файл не сохраняются.</li>
+ * </ul>
+ */
+public class HeadlessDungeon {
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int frameCount = 500;
+        Integer tickRate = null;
+        int turnPerTick = 2;
+        Path frameDumpDirectory = null;
+        int frameDumpInterval = 1;
+        boolean frameProfilerEnabled = false;
+        Path mapFile = null;
+        Path savedMapFile = null;
+        Path chunkedMapFile = null;
+        Path savedChunkedMapFile = null;
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Invalid argument " + arg);
+            }
+            switch (option[0]) {
+                case "--frames":
+                    frameCount = Integer.parseInt(option[1]);
+                    break;
+                case "--tick-rate":
+                    tickRate = Integer.parseInt(option[1]);
+                    break;
+                case "--turn":
+                    turnPerTick = Integer.parseInt(option[1]);
+                    break;
+                case "--dump":
+                    frameDumpDirectory = Paths.get(option[1]);
+                    break;
+                case "--dump-interval":
+                    frameDumpInterval = Integer.parseInt(option[1]);
+                    if (frameDumpInterval <= 0) {
+                        throw new IllegalArgumentException("Frame dump interval must be positive");
+                    }
+                    break;
+                case "--profile":
+                    frameProfilerEnabled = Boolean.parseBoolean(option[1]);
+                    break;
+                case "--map":
+                    mapFile = Paths.get(option[1]);
+                    break;
+                case "--save-map":
+                    savedMapFile = Paths.get(option[1]);
+                    break;
+                case "--chunked-map":
+                    chunkedMapFile = Paths.get(option[1]);
+                    break;
+                case "--save-chunked-map":
+                    savedChunkedMapFile = Paths.get(option[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+
+        HeadlessGameComponent component = DaggerHeadlessGameComponent.builder().build();
+        if (mapFile != null) {
+            component.getMapProvider().loadMap(mapFile);
+        }
+        if (chunkedMapFile != null) {
+            component.getMapProvider().loadChunkedMap(chunkedMapFile);
+        }
+        if (savedMapFile != null) {
+            component.getMapProvider().saveMap(savedMapFile);
+        }
+        if (savedChunkedMapFile != null) {
+            component.getMapProvider().saveChunkedMap(savedChunkedMapFile);
+        }
+        component.getHeadlessGameLoop().run(new HeadlessGameLoop.Settings(
+                frameCount,
+                tickRate != null ? tickRate : component.getConfiguration().getMaxFps(),
+                turnPerTick,
+                Optional.ofNullable(frameDumpDirectory),
+                frameDumpInterval,
+                frameProfilerEnabled));
+    }
+}
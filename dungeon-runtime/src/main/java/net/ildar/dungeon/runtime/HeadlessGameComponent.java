@@ -0,0 +1,18 @@
+package net.ildar.dungeon.runtime;
+
+import dagger.Component;
+import net.ildar.dungeon.config.Configuration;
+import net.ildar.dungeon.graphics.HeadlessGameLoop;
+import net.ildar.dungeon.provider.MapProvider;
+
+import javax.inject.Singleton;
+
+@Singleton
+@Component(modules = GameModule.class)
+public interface HeadlessGameComponent {
+    HeadlessGameLoop getHeadlessGameLoop();
+
+    Configuration getConfiguration();
+
+    MapProvider getMapProvider();
+}